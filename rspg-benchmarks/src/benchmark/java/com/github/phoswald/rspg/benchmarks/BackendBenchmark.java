@@ -0,0 +1,73 @@
+package com.github.phoswald.rspg.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.phoswald.rspg.BytecodeGenerator;
+import com.github.phoswald.rspg.Grammar;
+import com.github.phoswald.rspg.Interpreter;
+import com.github.phoswald.rspg.Parser;
+import com.github.phoswald.rspg.benchmarks.Callbacks.CalculatorCallback;
+import com.github.phoswald.rspg.benchmarks.parsers.Calculator;
+
+/**
+ * Compares the generated calculator with the same grammar run by the {@link Interpreter} and by a parser from the
+ * {@link BytecodeGenerator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BackendBenchmark {
+
+    @Param({ "1024", "1048576" })
+    public int size;
+
+    private String input;
+    private Calculator generated;
+    private Interpreter interpreter;
+    private Map<String, Interpreter.Callback> callbacks;
+    private Parser bytecode;
+
+    @Setup
+    public void setup() {
+        Grammar grammar = Grammars.calculator("Calculator", "Double", "Integer").build();
+        CalculatorCallback callback = new CalculatorCallback(null);
+        input = Inputs.calculator(size);
+        generated = new Calculator(callback);
+        interpreter = new Interpreter(grammar);
+        callbacks = interpreter.bind(callback);
+        bytecode = new BytecodeGenerator(grammar).generate("Expression", CalculatorCallback.class).apply(callback);
+        Inputs.checkAccepted(interpreter.parse("Expression", input, callbacks), "Interpreter");
+        Inputs.checkAccepted(bytecode.parse(input), "BytecodeGenerator");
+    }
+
+    @Benchmark
+    public Double generated() {
+        return generated.parseExpression(input);
+    }
+
+    @Benchmark
+    public Object interpreter() {
+        return interpreter.parse("Expression", input, callbacks);
+    }
+
+    @Benchmark
+    public Object bytecode() {
+        return bytecode.parse(input);
+    }
+}
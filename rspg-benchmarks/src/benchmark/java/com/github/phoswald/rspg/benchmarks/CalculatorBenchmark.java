@@ -0,0 +1,65 @@
+package com.github.phoswald.rspg.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.phoswald.rspg.benchmarks.Callbacks.CalculatorCallback;
+import com.github.phoswald.rspg.benchmarks.Callbacks.PrimitiveCalculatorCallback;
+import com.github.phoswald.rspg.benchmarks.parsers.Calculator;
+import com.github.phoswald.rspg.benchmarks.parsers.CalculatorPrimitive;
+
+/**
+ * Compares a calculator that passes boxed values with one that passes primitives, up to an input of 100 MB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CalculatorBenchmark {
+
+    @Param({ "1024", "1048576", "104857600" })
+    public int size;
+
+    private String input;
+    private Calculator boxed;
+    private CalculatorPrimitive primitive;
+
+    @Setup
+    public void setup() {
+        String probeInput = Inputs.calculator(StackDepth.PROBE_SIZE);
+        StackDepth boxedDepth = new StackDepth();
+        Inputs.checkAccepted(new Calculator(new CalculatorCallback(boxedDepth)).parseExpression(probeInput), "Calculator");
+        boxedDepth.report("Calculator");
+        StackDepth primitiveDepth = new StackDepth();
+        Inputs.checkAccepted(new CalculatorPrimitive(new PrimitiveCalculatorCallback(primitiveDepth)).parseExpression(probeInput), "CalculatorPrimitive");
+        primitiveDepth.report("CalculatorPrimitive");
+
+        input = Inputs.calculator(size);
+        boxed = new Calculator(new CalculatorCallback(null));
+        primitive = new CalculatorPrimitive(new PrimitiveCalculatorCallback(null));
+        Inputs.checkAccepted(boxed.parseExpression(input), "Calculator");
+    }
+
+    @Benchmark
+    public Double boxed() {
+        return boxed.parseExpression(input);
+    }
+
+    @Benchmark
+    public Double primitive() {
+        return primitive.parseExpression(input);
+    }
+}
@@ -0,0 +1,382 @@
+package com.github.phoswald.rspg.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.phoswald.rspg.benchmarks.parsers.Calculator;
+import com.github.phoswald.rspg.benchmarks.parsers.CalculatorFailureCache;
+import com.github.phoswald.rspg.benchmarks.parsers.CalculatorOptimized;
+import com.github.phoswald.rspg.benchmarks.parsers.CalculatorPackrat;
+import com.github.phoswald.rspg.benchmarks.parsers.CalculatorPrimitive;
+import com.github.phoswald.rspg.benchmarks.parsers.Csv;
+import com.github.phoswald.rspg.benchmarks.parsers.Expressions;
+import com.github.phoswald.rspg.benchmarks.parsers.Json;
+import com.github.phoswald.rspg.benchmarks.parsers.JsonOptimized;
+
+/**
+ * The callbacks of the benchmarks. A callback samples the stack depth in its leaf methods if it is given a
+ * {@link StackDepth}, this is only done while probing in the setup of a benchmark.
+ */
+public final class Callbacks {
+
+    private Callbacks() { }
+
+    public static class CalculatorCallback implements Calculator.Callback, CalculatorPackrat.Callback, CalculatorFailureCache.Callback,
+            CalculatorOptimized.Callback {
+
+        private final StackDepth probe;
+
+        public CalculatorCallback(StackDepth probe) {
+            this.probe = probe;
+        }
+
+        @Override
+        public Double add(Double output, Double element1) {
+            return output + element1;
+        }
+
+        @Override
+        public Double sub(Double output, Double element1) {
+            return output - element1;
+        }
+
+        @Override
+        public Double mul(Double output, Double element1) {
+            return output * element1;
+        }
+
+        @Override
+        public Double div(Double output, Double element1) {
+            return output / element1;
+        }
+
+        @Override
+        public Double getPi() {
+            return Math.PI;
+        }
+
+        @Override
+        public Double getE() {
+            return Math.E;
+        }
+
+        @Override
+        public Double createNumber(Integer element1) {
+            return element1.doubleValue();
+        }
+
+        @Override
+        public Integer handleDigit(Integer output, String token1) {
+            if (probe != null) {
+                probe.sample();
+            }
+            return (output == null ? 0 : output * 10) + (token1.charAt(0) - '0');
+        }
+    }
+
+    public static class PrimitiveCalculatorCallback implements CalculatorPrimitive.Callback {
+
+        private final StackDepth probe;
+
+        public PrimitiveCalculatorCallback(StackDepth probe) {
+            this.probe = probe;
+        }
+
+        @Override
+        public double add(double output, double element1) {
+            return output + element1;
+        }
+
+        @Override
+        public double sub(double output, double element1) {
+            return output - element1;
+        }
+
+        @Override
+        public double mul(double output, double element1) {
+            return output * element1;
+        }
+
+        @Override
+        public double div(double output, double element1) {
+            return output / element1;
+        }
+
+        @Override
+        public double getPi() {
+            return Math.PI;
+        }
+
+        @Override
+        public double getE() {
+            return Math.E;
+        }
+
+        @Override
+        public double createNumber(int element1) {
+            return element1;
+        }
+
+        @Override
+        public int handleDigit(int output, String token1) {
+            if (probe != null) {
+                probe.sample();
+            }
+            return output * 10 + (token1.charAt(0) - '0');
+        }
+    }
+
+    public static class JsonCallback implements Json.Callback, JsonOptimized.Callback {
+
+        private final StackDepth probe;
+
+        public JsonCallback(StackDepth probe) {
+            this.probe = probe;
+        }
+
+        @Override
+        public Object string(StringBuilder element1) {
+            return element1.toString();
+        }
+
+        @Override
+        public Object number(StringBuilder element1) {
+            return Double.parseDouble(element1.toString());
+        }
+
+        @Override
+        public Object trueValue() {
+            return Boolean.TRUE;
+        }
+
+        @Override
+        public Object falseValue() {
+            return Boolean.FALSE;
+        }
+
+        @Override
+        public Object nullValue() {
+            return null;
+        }
+
+        @Override
+        public Object newObject() {
+            return new LinkedHashMap<String, Object>();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object put(Object output, StringBuilder element1, Object element2) {
+            ((Map<String, Object>) output).put(element1.toString(), element2);
+            return output;
+        }
+
+        @Override
+        public Object newArray() {
+            return new ArrayList<Object>();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object add(Object output, Object element1) {
+            ((List<Object>) output).add(element1);
+            return output;
+        }
+
+        @Override
+        public StringBuilder newString() {
+            return new StringBuilder();
+        }
+
+        @Override
+        public StringBuilder append(StringBuilder output, String token1) {
+            if (probe != null) {
+                probe.sample();
+            }
+            return (output == null ? new StringBuilder() : output).append(token1);
+        }
+
+        @Override
+        public StringBuilder appendUnicode(StringBuilder output, String token1, String token2, String token3, String token4) {
+            return output.append((char) Integer.parseInt(token1 + token2 + token3 + token4, 16));
+        }
+
+        @Override
+        public StringBuilder appendEscape(StringBuilder output, String token1) {
+            switch (token1.charAt(0)) {
+                case 'b':
+                    return output.append('\b');
+                case 'f':
+                    return output.append('\f');
+                case 'n':
+                    return output.append('\n');
+                case 'r':
+                    return output.append('\r');
+                case 't':
+                    return output.append('\t');
+                default:
+                    return output.append(token1);
+            }
+        }
+    }
+
+    public static class CsvCallback implements Csv.Callback {
+
+        private final StackDepth probe;
+
+        public CsvCallback(StackDepth probe) {
+            this.probe = probe;
+        }
+
+        @Override
+        public List<List<String>> firstRow(List<String> element1) {
+            List<List<String>> rows = new ArrayList<>();
+            rows.add(element1);
+            return rows;
+        }
+
+        @Override
+        public List<List<String>> addRow(List<List<String>> output, List<String> element1) {
+            output.add(element1);
+            return output;
+        }
+
+        @Override
+        public List<String> firstField(StringBuilder element1) {
+            List<String> fields = new ArrayList<>();
+            fields.add(element1 == null ? "" : element1.toString());
+            return fields;
+        }
+
+        @Override
+        public List<String> addField(List<String> output, StringBuilder element1) {
+            output.add(element1 == null ? "" : element1.toString());
+            return output;
+        }
+
+        @Override
+        public StringBuilder newField() {
+            return new StringBuilder();
+        }
+
+        @Override
+        public StringBuilder append(StringBuilder output, String token1) {
+            if (probe != null) {
+                probe.sample();
+            }
+            return (output == null ? new StringBuilder() : output).append(token1);
+        }
+
+        @Override
+        public StringBuilder appendQuote(StringBuilder output) {
+            return output.append('"');
+        }
+    }
+
+    public static class ExpressionsCallback implements Expressions.Callback {
+
+        private final StackDepth probe;
+        private final Map<String, Double> variables = new HashMap<>();
+
+        public ExpressionsCallback(StackDepth probe) {
+            this.probe = probe;
+        }
+
+        @Override
+        public Double assign(String token1, Double element2) {
+            variables.put(token1, element2);
+            return element2;
+        }
+
+        @Override
+        public Double or(Double output, Double element1) {
+            return output != 0 || element1 != 0 ? 1.0 : 0.0;
+        }
+
+        @Override
+        public Double and(Double output, Double element1) {
+            return output != 0 && element1 != 0 ? 1.0 : 0.0;
+        }
+
+        @Override
+        public Double less(Double output, Double element1) {
+            return output < element1 ? 1.0 : 0.0;
+        }
+
+        @Override
+        public Double lessOrEqual(Double output, Double element1) {
+            return output <= element1 ? 1.0 : 0.0;
+        }
+
+        @Override
+        public Double equal(Double output, Double element1) {
+            return output.doubleValue() == element1.doubleValue() ? 1.0 : 0.0;
+        }
+
+        @Override
+        public Double notEqual(Double output, Double element1) {
+            return output.doubleValue() != element1.doubleValue() ? 1.0 : 0.0;
+        }
+
+        @Override
+        public Double add(Double output, Double element1) {
+            return output + element1;
+        }
+
+        @Override
+        public Double sub(Double output, Double element1) {
+            return output - element1;
+        }
+
+        @Override
+        public Double mul(Double output, Double element1) {
+            return output * element1;
+        }
+
+        @Override
+        public Double div(Double output, Double element1) {
+            return output / element1;
+        }
+
+        @Override
+        public Double negate(Double element1) {
+            return -element1;
+        }
+
+        @Override
+        public Double not(Double element1) {
+            return element1 == 0 ? 1.0 : 0.0;
+        }
+
+        @Override
+        public Double number(String token1) {
+            if (probe != null) {
+                probe.sample();
+            }
+            return Double.parseDouble(token1);
+        }
+
+        @Override
+        public Double call(String token1, Double element2) {
+            switch (token1) {
+                case "sqrt":
+                    return Math.sqrt(element2);
+                case "abs":
+                    return Math.abs(element2);
+                default:
+                    throw new IllegalStateException("Unknown function: " + token1);
+            }
+        }
+
+        @Override
+        public Double variable(String token1) {
+            if (probe != null) {
+                probe.sample();
+            }
+            return variables.getOrDefault(token1, 0.0);
+        }
+    }
+}
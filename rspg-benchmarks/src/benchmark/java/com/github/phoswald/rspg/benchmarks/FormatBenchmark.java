@@ -0,0 +1,81 @@
+package com.github.phoswald.rspg.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.phoswald.rspg.benchmarks.Callbacks.CsvCallback;
+import com.github.phoswald.rspg.benchmarks.Callbacks.ExpressionsCallback;
+import com.github.phoswald.rspg.benchmarks.Callbacks.JsonCallback;
+import com.github.phoswald.rspg.benchmarks.parsers.Csv;
+import com.github.phoswald.rspg.benchmarks.parsers.Expressions;
+import com.github.phoswald.rspg.benchmarks.parsers.Json;
+
+/**
+ * Parses JSON, CSV and a small expression language (in lexer mode) up to an input of 100 MB. The callbacks build the
+ * usual object trees, so {@code -prof gc} shows the allocation of a realistic application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FormatBenchmark {
+
+    @Param({ "1024", "1048576", "104857600" })
+    public int size;
+
+    private String jsonInput;
+    private String csvInput;
+    private String expressionsInput;
+    private Json json;
+    private Csv csv;
+    private Expressions expressions;
+
+    @Setup
+    public void setup() {
+        StackDepth jsonDepth = new StackDepth();
+        Inputs.checkAccepted(new Json(new JsonCallback(jsonDepth)).parseJson(Inputs.json(StackDepth.PROBE_SIZE)), "Json");
+        jsonDepth.report("Json");
+        StackDepth csvDepth = new StackDepth();
+        Inputs.checkAccepted(new Csv(new CsvCallback(csvDepth)).parseCsv(Inputs.csv(StackDepth.PROBE_SIZE)), "Csv");
+        csvDepth.report("Csv");
+        StackDepth expressionsDepth = new StackDepth();
+        Inputs.checkAccepted(new Expressions(new ExpressionsCallback(expressionsDepth)).parseProgram(Inputs.expressions(StackDepth.PROBE_SIZE)), "Expressions");
+        expressionsDepth.report("Expressions");
+
+        jsonInput = Inputs.json(size);
+        csvInput = Inputs.csv(size);
+        expressionsInput = Inputs.expressions(size);
+        json = new Json(new JsonCallback(null));
+        csv = new Csv(new CsvCallback(null));
+        expressions = new Expressions(new ExpressionsCallback(null));
+    }
+
+    @Benchmark
+    public Object json() {
+        return json.parseJson(jsonInput);
+    }
+
+    @Benchmark
+    public List<List<String>> csv() {
+        return csv.parseCsv(csvInput);
+    }
+
+    @Benchmark
+    public Double expressions() {
+        return expressions.parseProgram(expressionsInput);
+    }
+}
@@ -0,0 +1,189 @@
+package com.github.phoswald.rspg.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Synthetic inputs of the benchmarks. The inputs are generated from a fixed seed, so every run parses the same text.
+ * Nesting is bounded, so the stack depth of the parsers does not grow with the size of the input.
+ */
+final class Inputs {
+
+    private static final long SEED = 42;
+    private static final int MAX_NESTING = 8;
+
+    private Inputs() { }
+
+    static <T> T checkAccepted(T result, String parser) {
+        if (result == null) {
+            throw new IllegalStateException("Input rejected by " + parser);
+        }
+        return result;
+    }
+
+    static String calculator(int size) {
+        Random random = new Random(SEED);
+        StringBuilder input = new StringBuilder(size + 64);
+        appendTerm(input, random, 0);
+        while (input.length() < size) {
+            input.append("+-*/".charAt(random.nextInt(4)));
+            appendTerm(input, random, 0);
+        }
+        return input.toString();
+    }
+
+    private static void appendTerm(StringBuilder input, Random random, int nesting) {
+        int choice = random.nextInt(10);
+        if (choice == 0 && nesting < MAX_NESTING) {
+            input.append('(');
+            appendTerm(input, random, nesting + 1);
+            for (int i = random.nextInt(4); i >= 0; i--) {
+                input.append("+-*/".charAt(random.nextInt(4)));
+                appendTerm(input, random, nesting + 1);
+            }
+            input.append(')');
+        } else if (choice == 1) {
+            input.append(random.nextBoolean() ? "pi" : "e");
+        } else {
+            input.append(1 + random.nextInt(9999));
+        }
+    }
+
+    static String json(int size) {
+        Random random = new Random(SEED);
+        StringBuilder input = new StringBuilder(size + 256);
+        input.append('[');
+        appendObject(input, random, 0);
+        while (input.length() < size) {
+            input.append(",\n  ");
+            appendObject(input, random, 0);
+        }
+        input.append("]\n");
+        return input.toString();
+    }
+
+    private static void appendObject(StringBuilder input, Random random, int nesting) {
+        input.append("{\"id\": ").append(random.nextInt(1000000));
+        input.append(", \"name\": ");
+        appendString(input, random);
+        input.append(", \"score\": ").append(random.nextInt(2000) - 1000).append('.').append(random.nextInt(100));
+        if (random.nextInt(4) == 0) {
+            input.append("e-").append(random.nextInt(10));
+        }
+        input.append(", \"active\": ").append(random.nextBoolean());
+        input.append(", \"tags\": [");
+        for (int i = random.nextInt(4); i > 0; i--) {
+            appendString(input, random);
+            input.append(i > 1 ? ", " : "");
+        }
+        input.append("]");
+        if (nesting < MAX_NESTING && random.nextInt(3) == 0) {
+            input.append(", \"child\": ");
+            appendObject(input, random, nesting + 1);
+        } else {
+            input.append(", \"child\": null");
+        }
+        input.append('}');
+    }
+
+    private static void appendString(StringBuilder input, Random random) {
+        input.append('"');
+        for (int i = 2 + random.nextInt(12); i > 0; i--) {
+            int choice = random.nextInt(20);
+            if (choice == 0) {
+                input.append("\\n");
+            } else if (choice == 1) {
+                input.append("\\u00e9");
+            } else if (choice == 2) {
+                input.append("\\\"");
+            } else {
+                input.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        input.append('"');
+    }
+
+    static String csv(int size) {
+        Random random = new Random(SEED);
+        StringBuilder input = new StringBuilder(size + 256);
+        appendRow(input, random);
+        while (input.length() < size) {
+            input.append('\n');
+            appendRow(input, random);
+        }
+        return input.toString();
+    }
+
+    private static void appendRow(StringBuilder input, Random random) {
+        for (int i = 0; i < 8; i++) {
+            if (i > 0) {
+                input.append(',');
+            }
+            int choice = random.nextInt(8);
+            if (choice == 0) {
+                input.append("\"Quoted, \"\"with\"\" separators\nand a line break\"");
+            } else if (choice < 4) {
+                input.append(random.nextInt(100000));
+            } else if (choice < 7) {
+                for (int j = 1 + random.nextInt(10); j > 0; j--) {
+                    input.append((char) ('a' + random.nextInt(26)));
+                }
+            }
+        }
+    }
+
+    static String expressions(int size) {
+        Random random = new Random(SEED);
+        StringBuilder input = new StringBuilder(size + 256);
+        while (input.length() < size) {
+            input.append('v').append(random.nextInt(10)).append(" = ");
+            appendExpression(input, random, 0);
+            input.append(";\n");
+        }
+        return input.toString();
+    }
+
+    private static void appendExpression(StringBuilder input, Random random, int nesting) {
+        appendComparison(input, random, nesting);
+        for (int i = random.nextInt(6) - 3; i > 0; i--) {
+            input.append(random.nextBoolean() ? " && " : " || ");
+            appendComparison(input, random, nesting);
+        }
+    }
+
+    private static void appendComparison(StringBuilder input, Random random, int nesting) {
+        appendSum(input, random, nesting);
+        if (random.nextInt(4) == 0) {
+            String[] operators = { " < ", " <= ", " == ", " != " };
+            input.append(operators[random.nextInt(operators.length)]);
+            appendSum(input, random, nesting);
+        }
+    }
+
+    private static void appendSum(StringBuilder input, Random random, int nesting) {
+        appendOperand(input, random, nesting);
+        for (int i = random.nextInt(4); i > 0; i--) {
+            input.append(' ').append("+-*/".charAt(random.nextInt(4))).append(' ');
+            appendOperand(input, random, nesting);
+        }
+    }
+
+    private static void appendOperand(StringBuilder input, Random random, int nesting) {
+        int choice = random.nextInt(10);
+        if (choice == 0 && nesting < MAX_NESTING) {
+            input.append('(');
+            appendExpression(input, random, nesting + 1);
+            input.append(')');
+        } else if (choice == 1 && nesting < MAX_NESTING) {
+            input.append(random.nextBoolean() ? "sqrt(" : "abs(");
+            appendExpression(input, random, nesting + 1);
+            input.append(')');
+        } else if (choice == 2) {
+            input.append(random.nextBoolean() ? '-' : '!');
+            appendOperand(input, random, nesting);
+        } else if (choice < 6) {
+            input.append('v').append(random.nextInt(10));
+        } else {
+            input.append(random.nextInt(1000)).append('.').append(random.nextInt(100));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.phoswald.rspg.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.phoswald.rspg.benchmarks.Callbacks.CalculatorCallback;
+import com.github.phoswald.rspg.benchmarks.parsers.Calculator;
+import com.github.phoswald.rspg.benchmarks.parsers.CalculatorFailureCache;
+import com.github.phoswald.rspg.benchmarks.parsers.CalculatorPackrat;
+
+/**
+ * Compares the calculator without memoization, with packrat parsing and with the failure cache. The memo tables grow
+ * with the input, so the largest input is 1 MB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MemoBenchmark {
+
+    @Param({ "1024", "65536", "1048576" })
+    public int size;
+
+    private String input;
+    private Calculator plain;
+    private CalculatorPackrat packrat;
+    private CalculatorFailureCache failureCache;
+
+    @Setup
+    public void setup() {
+        String probeInput = Inputs.calculator(StackDepth.PROBE_SIZE);
+        StackDepth packratDepth = new StackDepth();
+        Inputs.checkAccepted(new CalculatorPackrat(new CalculatorCallback(packratDepth)).parseExpression(probeInput), "CalculatorPackrat");
+        packratDepth.report("CalculatorPackrat");
+        StackDepth failureCacheDepth = new StackDepth();
+        Inputs.checkAccepted(new CalculatorFailureCache(new CalculatorCallback(failureCacheDepth)).parseExpression(probeInput), "CalculatorFailureCache");
+        failureCacheDepth.report("CalculatorFailureCache");
+
+        CalculatorCallback callback = new CalculatorCallback(null);
+        input = Inputs.calculator(size);
+        plain = new Calculator(callback);
+        packrat = new CalculatorPackrat(callback);
+        failureCache = new CalculatorFailureCache(callback);
+    }
+
+    @Benchmark
+    public Double plain() {
+        return plain.parseExpression(input);
+    }
+
+    @Benchmark
+    public Double packrat() {
+        return packrat.parseExpression(input);
+    }
+
+    @Benchmark
+    public Double failureCache() {
+        return failureCache.parseExpression(input);
+    }
+}
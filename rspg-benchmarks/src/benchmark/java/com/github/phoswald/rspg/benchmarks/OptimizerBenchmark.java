@@ -0,0 +1,77 @@
+package com.github.phoswald.rspg.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.phoswald.rspg.Optimizer;
+import com.github.phoswald.rspg.benchmarks.Callbacks.CalculatorCallback;
+import com.github.phoswald.rspg.benchmarks.Callbacks.JsonCallback;
+import com.github.phoswald.rspg.benchmarks.parsers.Calculator;
+import com.github.phoswald.rspg.benchmarks.parsers.CalculatorOptimized;
+import com.github.phoswald.rspg.benchmarks.parsers.Json;
+import com.github.phoswald.rspg.benchmarks.parsers.JsonOptimized;
+
+/**
+ * Compares the calculator and JSON with the same grammars rewritten by all passes of the {@link Optimizer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OptimizerBenchmark {
+
+    @Param({ "1024", "1048576" })
+    public int size;
+
+    private String calculatorInput;
+    private String jsonInput;
+    private Calculator calculator;
+    private CalculatorOptimized calculatorOptimized;
+    private Json json;
+    private JsonOptimized jsonOptimized;
+
+    @Setup
+    public void setup() {
+        calculatorInput = Inputs.calculator(size);
+        jsonInput = Inputs.json(size);
+        calculator = new Calculator(new CalculatorCallback(null));
+        calculatorOptimized = new CalculatorOptimized(new CalculatorCallback(null));
+        json = new Json(new JsonCallback(null));
+        jsonOptimized = new JsonOptimized(new JsonCallback(null));
+        Inputs.checkAccepted(calculatorOptimized.parseExpression(calculatorInput), "CalculatorOptimized");
+        Inputs.checkAccepted(jsonOptimized.parseJson(jsonInput), "JsonOptimized");
+    }
+
+    @Benchmark
+    public Double calculator() {
+        return calculator.parseExpression(calculatorInput);
+    }
+
+    @Benchmark
+    public Double calculatorOptimized() {
+        return calculatorOptimized.parseExpression(calculatorInput);
+    }
+
+    @Benchmark
+    public Object json() {
+        return json.parseJson(jsonInput);
+    }
+
+    @Benchmark
+    public Object jsonOptimized() {
+        return jsonOptimized.parseJson(jsonInput);
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.phoswald.rspg.benchmarks;
+
+/**
+ * Records the deepest stack seen by the callbacks while a parser runs. This walks the stack, so it is only used to
+ * probe a parser in the setup of a benchmark, never while measuring.
+ */
+public final class StackDepth {
+
+    static final int PROBE_SIZE = 65536;
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private int max;
+
+    void sample() {
+        max = Math.max(max, WALKER.walk(frames -> (int) frames.count()));
+    }
+
+    void report(String parser) {
+        System.out.println("# Max stack depth of " + parser + ": " + max + " frames");
+    }
+}
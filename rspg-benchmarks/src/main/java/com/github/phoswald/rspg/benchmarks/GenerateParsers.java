@@ -0,0 +1,24 @@
+package com.github.phoswald.rspg.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.github.phoswald.rspg.Generator;
+import com.github.phoswald.rspg.Grammar;
+
+/**
+ * Generates the parsers of the benchmarks into the given directory, run by the build before the benchmarks are
+ * compiled.
+ */
+public final class GenerateParsers {
+
+    private GenerateParsers() { }
+
+    public static void main(String[] args) throws IOException {
+        Path targetPath = Paths.get(args[0]);
+        for (Grammar grammar : Grammars.all()) {
+            new Generator(grammar).generate(targetPath);
+        }
+    }
+}
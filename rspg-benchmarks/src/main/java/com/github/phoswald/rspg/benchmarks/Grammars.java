@@ -0,0 +1,398 @@
+package com.github.phoswald.rspg.benchmarks;
+
+import static com.github.phoswald.rspg.Alternative.alternative;
+import static com.github.phoswald.rspg.Lexeme.define;
+import static com.github.phoswald.rspg.Symbol.symbol;
+import static com.github.phoswald.rspg.Token.lexeme;
+import static com.github.phoswald.rspg.Token.set;
+import static com.github.phoswald.rspg.Token.token;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import com.github.phoswald.rspg.Grammar;
+import com.github.phoswald.rspg.GrammarBuilder;
+import com.github.phoswald.rspg.Optimizer;
+import com.github.phoswald.rspg.Rule;
+
+/**
+ * The grammars of the benchmarks.
+ */
+public final class Grammars {
+
+    static final String PACKAGE = "com.github.phoswald.rspg.benchmarks.parsers";
+
+    private static final String DIGITS = "0123456789";
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ_";
+    private static final String HEX_DIGITS = "0123456789abcdefABCDEF";
+
+    private Grammars() { }
+
+    public static List<Grammar> all() {
+        return List.of( //
+                calculator("Calculator", "Double", "Integer").build(), //
+                calculator("CalculatorPrimitive", "double", "int").build(), //
+                calculator("CalculatorPackrat", "Double", "Integer").packrat(true).build(), //
+                calculator("CalculatorFailureCache", "Double", "Integer").failureCache(true).build(), //
+                optimize(calculator("CalculatorOptimized", "Double", "Integer").build()), //
+                json("Json"), //
+                optimize(json("JsonOptimized")), //
+                csv(), //
+                expressions());
+    }
+
+    public static GrammarBuilder calculator(String javaClass, String doubleType, String integerType) {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Expression") //
+                .javaType(doubleType) //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("ExprAdd").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("ExprAdd") //
+                .javaType(doubleType) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("ExprMul").withLinked(), symbol("OpAdd").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("OpAdd") //
+                .javaType(doubleType) //
+                .alternatives(Arrays.asList( //
+                        alternative(token("+"), symbol("ExprMul").withCallbackLinked("add"), symbol("OpAdd").withLinked()), //
+                        alternative(token("-"), symbol("ExprMul").withCallbackLinked("sub"), symbol("OpAdd").withLinked()), //
+                        alternative())) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("ExprMul") //
+                .javaType(doubleType) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Brace").withLinked(), symbol("OpMul").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("OpMul") //
+                .javaType(doubleType) //
+                .alternatives(Arrays.asList( //
+                        alternative(token("*"), symbol("Brace").withCallbackLinked("mul"), symbol("OpMul").withLinked()), //
+                        alternative(token("/"), symbol("Brace").withCallbackLinked("div"), symbol("OpMul").withLinked()), //
+                        alternative())) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Brace") //
+                .javaType(doubleType) //
+                .alternatives(Arrays.asList( //
+                        alternative(token("("), symbol("Expression").withLinked(), token(")")), //
+                        alternative(symbol("Value").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Value") //
+                .javaType(doubleType) //
+                .alternatives(Arrays.asList( //
+                        alternative(token("pi").withCallback("getPi")), //
+                        alternative(token("e").withCallback("getE")), //
+                        alternative(symbol("Number").withCallback("createNumber")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Number") //
+                .javaType(integerType) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Digit").withLinked(), symbol("Digits").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Digit") //
+                .javaType(integerType) //
+                .uncached(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(set(DIGITS).withPass().withCallbackLinked("handleDigit")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Digits") //
+                .javaType(integerType) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Digit").withLinked(), symbol("Digits").withLinked()), //
+                        alternative())) //
+                .build());
+        return Grammar.builder() //
+                .name("Calculator") //
+                .javaType(PACKAGE + "." + javaClass) //
+                .rules(rules);
+    }
+
+    public static Grammar json(String javaClass) {
+        String chars = printableExcept("\"\\");
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Json") //
+                .javaType("Object") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Space").withLinked(), symbol("Value").withLinked(), symbol("Space").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Value") //
+                .javaType("Object") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Object").withLinked()), //
+                        alternative(symbol("Array").withLinked()), //
+                        alternative(symbol("String").withCallback("string")), //
+                        alternative(symbol("Number").withCallback("number")), //
+                        alternative(token("true").withCallback("trueValue")), //
+                        alternative(token("false").withCallback("falseValue")), //
+                        alternative(token("null").withCallback("nullValue")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Object") //
+                .javaType("Object") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("{"), symbol("Space").withLinked(), token("}").withCallback("newObject")), //
+                        alternative(token("{").withCallback("newObject"), symbol("Member").withLinked(), symbol("Members").withLinked(), token("}")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Members") //
+                .javaType("Object") //
+                .alternatives(Arrays.asList( //
+                        alternative(token(","), symbol("Member").withLinked(), symbol("Members").withLinked()), //
+                        alternative())) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Member") //
+                .javaType("Object") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Space").withLinked(), symbol("String"), symbol("Space").withLinked(), token(":"), //
+                                symbol("Space").withLinked(), symbol("Value"), symbol("Space").withLinked().withCallbackLinked("put")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Array") //
+                .javaType("Object") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("["), symbol("Space").withLinked(), token("]").withCallback("newArray")), //
+                        alternative(token("[").withCallback("newArray"), symbol("Element").withLinked(), symbol("Elements").withLinked(), token("]")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Elements") //
+                .javaType("Object") //
+                .alternatives(Arrays.asList( //
+                        alternative(token(","), symbol("Element").withLinked(), symbol("Elements").withLinked()), //
+                        alternative())) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Element") //
+                .javaType("Object") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Space").withLinked(), symbol("Value"), symbol("Space").withLinked().withCallbackLinked("add")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("String") //
+                .javaType("StringBuilder") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("\"").withCallback("newString"), symbol("Char").withLinked().withZeroOrMore(), token("\"")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Char") //
+                .javaType("StringBuilder") //
+                .alternatives(Arrays.asList( //
+                        alternative(set(chars).withPass().withCallbackLinked("append")), //
+                        alternative(token("\\u"), set(HEX_DIGITS).withPass(), set(HEX_DIGITS).withPass(), set(HEX_DIGITS).withPass(), //
+                                set(HEX_DIGITS).withPass().withCallbackLinked("appendUnicode")), //
+                        alternative(token("\\"), set("\"\\/bfnrt").withPass().withCallbackLinked("appendEscape")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Number") //
+                .javaType("StringBuilder") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("-").withPass().withCallbackLinked("append").withOptional(), //
+                                set(DIGITS).withPass().withCallbackLinked("append").withOneOrMore(), //
+                                symbol("Fraction").withLinked().withOptional(), //
+                                symbol("Exponent").withLinked().withOptional()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Fraction") //
+                .javaType("StringBuilder") //
+                .alternatives(Arrays.asList( //
+                        alternative(token(".").withPass().withCallbackLinked("append"), set(DIGITS).withPass().withCallbackLinked("append").withOneOrMore()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Exponent") //
+                .javaType("StringBuilder") //
+                .alternatives(Arrays.asList( //
+                        alternative(set("eE").withPass().withCallbackLinked("append"), set("+-").withPass().withCallbackLinked("append").withOptional(), //
+                                set(DIGITS).withPass().withCallbackLinked("append").withOneOrMore()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Space") //
+                .javaType("Object") //
+                .alternatives(Arrays.asList( //
+                        alternative(set(" \t\r\n").withZeroOrMore()))) //
+                .build());
+        return Grammar.builder() //
+                .name("Json") //
+                .javaType(PACKAGE + "." + javaClass) //
+                .rules(rules) //
+                .build();
+    }
+
+    public static Grammar csv() {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Csv") //
+                .javaType("java.util.List<java.util.List<String>>") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Row").withCallback("firstRow"), symbol("Rows").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Rows") //
+                .javaType("java.util.List<java.util.List<String>>") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("\n"), symbol("Row").withCallbackLinked("addRow"), symbol("Rows").withLinked()), //
+                        alternative())) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Row") //
+                .javaType("java.util.List<String>") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Field").withCallback("firstField"), symbol("Fields").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Fields") //
+                .javaType("java.util.List<String>") //
+                .alternatives(Arrays.asList( //
+                        alternative(token(","), symbol("Field").withCallbackLinked("addField"), symbol("Fields").withLinked()), //
+                        alternative())) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Field") //
+                .javaType("StringBuilder") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("\"").withCallback("newField"), symbol("QuotedChar").withLinked().withZeroOrMore(), token("\"")), //
+                        alternative(set(printableExcept("\",")).withPass().withCallbackLinked("append").withZeroOrMore()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("QuotedChar") //
+                .javaType("StringBuilder") //
+                .alternatives(Arrays.asList( //
+                        alternative(set(printableExcept("\"") + "\r\n").withPass().withCallbackLinked("append")), //
+                        alternative(token("\"\"").withCallbackLinked("appendQuote")))) //
+                .build());
+        return Grammar.builder() //
+                .name("Csv") //
+                .javaType(PACKAGE + ".Csv") //
+                .rules(rules) //
+                .build();
+    }
+
+    public static Grammar expressions() {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Program") //
+                .javaType("Double") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Statement").withLinked(), symbol("Statements").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Statements") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(token(";"), symbol("Statement").withLinked(), symbol("Statements").withLinked()), //
+                        alternative(token(";")), //
+                        alternative())) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Statement") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(lexeme("Ident").withPass(), token("="), symbol("Expr").withCallback("assign")), //
+                        alternative(symbol("Expr").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Expr") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Expr").withLinked(), token("||"), symbol("And").withCallbackLinked("or")), //
+                        alternative(symbol("And").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("And") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("And").withLinked(), token("&&"), symbol("Compare").withCallbackLinked("and")), //
+                        alternative(symbol("Compare").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Compare") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Sum").withLinked(), symbol("CompareOp").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("CompareOp") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("<"), symbol("Sum").withCallbackLinked("less")), //
+                        alternative(token("<="), symbol("Sum").withCallbackLinked("lessOrEqual")), //
+                        alternative(token("=="), symbol("Sum").withCallbackLinked("equal")), //
+                        alternative(token("!="), symbol("Sum").withCallbackLinked("notEqual")), //
+                        alternative())) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Sum") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Sum").withLinked(), token("+"), symbol("Product").withCallbackLinked("add")), //
+                        alternative(symbol("Sum").withLinked(), token("-"), symbol("Product").withCallbackLinked("sub")), //
+                        alternative(symbol("Product").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Product") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Product").withLinked(), token("*"), symbol("Unary").withCallbackLinked("mul")), //
+                        alternative(symbol("Product").withLinked(), token("/"), symbol("Unary").withCallbackLinked("div")), //
+                        alternative(symbol("Unary").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Unary") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("-"), symbol("Unary").withCallback("negate")), //
+                        alternative(token("!"), symbol("Unary").withCallback("not")), //
+                        alternative(symbol("Primary").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Primary") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(lexeme("Number").withPass().withCallback("number")), //
+                        alternative(lexeme("Ident").withPass(), token("("), symbol("Expr"), token(")").withCallback("call")), //
+                        alternative(lexeme("Ident").withPass().withCallback("variable")), //
+                        alternative(token("("), symbol("Expr").withLinked(), token(")")))) //
+                .build());
+        return Grammar.builder() //
+                .name("Expressions") //
+                .javaType(PACKAGE + ".Expressions") //
+                .rules(rules) //
+                .lexemes(Arrays.asList( //
+                        define("Number", set(DIGITS).withOneOrMore(), token(".").withOptional(), set(DIGITS).withZeroOrMore()), //
+                        define("Ident", set(LETTERS), set(LETTERS + DIGITS).withZeroOrMore()), //
+                        define("Space", set(" \t\r\n").withOneOrMore()).withSkip())) //
+                .build();
+    }
+
+    private static Grammar optimize(Grammar grammar) {
+        return new Optimizer(grammar).optimize(EnumSet.allOf(Optimizer.Pass.class));
+    }
+
+    private static String printableExcept(String excluded) {
+        StringBuilder chars = new StringBuilder();
+        for (char c = ' '; c <= '~'; c++) {
+            if (excluded.indexOf(c) < 0) {
+                chars.append(c);
+            }
+        }
+        return chars.toString();
+    }
+}
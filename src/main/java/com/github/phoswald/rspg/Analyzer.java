@@ -0,0 +1,480 @@
+package com.github.phoswald.rspg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Checks a grammar before a parser is generated.
+ * <p>
+ * Errors are grammars that cannot be generated or whose parser would recurse or loop forever: undefined and duplicate
+ * rules, rules that call themselves without consuming input (left recursion other than the direct one supported by the
+ * generator), cuts in left-recursive rules, lexemes without a lexer and repetitions whose values no callback receives. Warnings are unreachable rules and alternatives, repetitions that may match nothing and rules that
+ * may parse the same input many times.
+ * <p>
+ * The backtracking of a rule is estimated from the first characters of its alternatives: it is the number of times the
+ * rule may parse the same input position in the worst case, not counting recursion. Memoization bounds it, so no
+ * backtracking warnings are reported for packrat parsers and parsers with a failure cache.
+ */
+public final class Analyzer {
+
+    private static final long MAX_BACKTRACKING = 1 << 20;
+    private static final long BACKTRACKING_WARNING = 8;
+
+    private final Grammar grammar;
+    private final Map<String, Rule> rules = new LinkedHashMap<>();
+    private final Set<String> nullableRules = new HashSet<>();
+    private final Map<String, Set<String>> firstSets = new HashMap<>();
+    private final Map<String, Long> backtracking = new LinkedHashMap<>();
+    private final List<Issue> issues = new ArrayList<>();
+
+    public Analyzer(Grammar grammar) {
+        this.grammar = Objects.requireNonNull(grammar);
+        for (Rule rule : grammar.rules()) {
+            rules.putIfAbsent(rule.name(), rule);
+        }
+    }
+
+    public Report analyze() {
+        findNullableRules();
+        findFirstSets();
+        checkDefinitions();
+        checkReachability();
+        checkRecursion();
+        checkElements();
+        checkAlternatives();
+        checkRepetitions();
+        checkBacktracking();
+        return new Report(Collections.unmodifiableList(issues), Collections.unmodifiableMap(backtracking));
+    }
+
+    private void checkDefinitions() {
+        Set<String> names = new HashSet<>();
+        for (Rule rule : grammar.rules()) {
+            if (!names.add(rule.name())) {
+                issues.add(new Issue(Severity.Error, Kind.DuplicateRule, rule.name(), "Rule is defined more than once"));
+            }
+            for (String name : findReferences(rule)) {
+                if (!rules.containsKey(name)) {
+                    issues.add(new Issue(Severity.Error, Kind.UndefinedRule, rule.name(), "Rule not found: " + name));
+                }
+            }
+        }
+    }
+
+    private void checkReachability() {
+        Set<String> reachable = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        grammar.rules().stream().filter(Rule::export).map(Rule::name).forEach(queue::add);
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            if (rules.containsKey(name) && reachable.add(name)) {
+                queue.addAll(findReferences(rules.get(name)));
+            }
+        }
+        for (Rule rule : rules.values()) {
+            if (!reachable.contains(rule.name())) {
+                issues.add(new Issue(Severity.Warning, Kind.UnreachableRule, rule.name(), "Rule cannot be reached from an exported rule"));
+            }
+        }
+    }
+
+    private void checkRecursion() {
+        Map<String, Map<String, Boolean>> calls = new LinkedHashMap<>();
+        for (Rule rule : rules.values()) {
+            Map<String, Boolean> targets = new LinkedHashMap<>();
+            boolean seeded = false;
+            for (Alternative alternative : rule.alternatives()) {
+                List<Element> elements = alternative.elements();
+                if (!isLeftRecursive(rule, alternative)) {
+                    seeded = true;
+                    addLeadingSymbols(targets, elements, true);
+                } else if (!((Symbol) elements.get(0)).linked() || elements.get(0).callback() != null) {
+                    issues.add(new Issue(Severity.Error, Kind.LeftRecursion, rule.name(), "Left recursion requires a linked symbol without callback"));
+                } else if (isNullable(elements.subList(1, elements.size()))) {
+                    issues.add(new Issue(Severity.Error, Kind.EmptyLoop, rule.name(), "Left-recursive alternative may not consume input"));
+                } else if (nullableRules.contains(rule.name())) {
+                    // a seed that matched nothing lets the tail start at the offset the rule started at
+                    addLeadingSymbols(targets, elements.subList(1, elements.size()), false);
+                }
+            }
+            if (!seeded && !rule.alternatives().isEmpty()) {
+                issues.add(new Issue(Severity.Error, Kind.LeftRecursion, rule.name(), "Left recursion requires a non-recursive alternative"));
+            }
+            calls.put(rule.name(), targets);
+        }
+        for (String name : calls.keySet()) {
+            List<String> path = findPath(calls, name);
+            if (path == null) {
+                continue;
+            }
+            boolean left = true;
+            for (int i = 0; i + 1 < path.size(); i++) {
+                left &= calls.get(path.get(i)).get(path.get(i + 1));
+            }
+            issues.add(new Issue(Severity.Error, left ? Kind.LeftRecursion : Kind.EmptyLoop, name, //
+                    (left ? "Left recursion is only supported within a rule: " : "Rule calls itself without consuming input: ") //
+                            + String.join(" -> ", path)));
+        }
+    }
+
+    private void addLeadingSymbols(Map<String, Boolean> targets, List<Element> elements, boolean left) {
+        for (int i = 0; i < elements.size(); i++) {
+            if (elements.get(i) instanceof Symbol symbol) {
+                targets.merge(symbol.name(), left && i == 0, Boolean::logicalOr);
+            }
+            if (!isNullable(elements.get(i))) {
+                break;
+            }
+        }
+    }
+
+    private List<String> findPath(Map<String, Map<String, Boolean>> calls, String start) {
+        Map<String, String> previous = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            for (String target : calls.getOrDefault(name, Map.of()).keySet()) {
+                if (target.equals(start)) {
+                    List<String> path = new ArrayList<>();
+                    for (String current = name; !current.equals(start); current = previous.get(current)) {
+                        path.add(0, current);
+                    }
+                    path.add(0, start);
+                    path.add(start);
+                    return path;
+                }
+                if (!previous.containsKey(target)) {
+                    previous.put(target, name);
+                    queue.add(target);
+                }
+            }
+        }
+        return null;
+    }
+
+    private void checkElements() {
+        for (Rule rule : rules.values()) {
+            boolean leftRecursive = rule.alternatives().stream().anyMatch(alternative -> isLeftRecursive(rule, alternative));
+            for (Alternative alternative : rule.alternatives()) {
+                for (Element element : alternative.elements()) {
+                    if (element instanceof Cut && leftRecursive) {
+                        issues.add(new Issue(Severity.Error, Kind.UnsupportedElement, rule.name(), "Cut is not supported in left-recursive rules"));
+                    } else if (element instanceof Token token && token.type() == Token.Type.Lexeme && grammar.lexemes() == null) {
+                        issues.add(new Issue(Severity.Error, Kind.UnsupportedElement, rule.name(), "Lexeme requires a lexer: " + token.text()));
+                    } else if (element.quantifier() != Element.Quantifier.Once && element.callback() == null && isProducing(element)) {
+                        issues.add(new Issue(Severity.Error, Kind.MissingCallback, rule.name(),
+                                "Quantified element produces values but has no callback: " + getName(element)));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Trees and events are built from the rules, they ignore the values of tokens and symbols.
+     */
+    private boolean isProducing(Element element) {
+        if (grammar.tree() || grammar.events()) {
+            return false;
+        }
+        return element instanceof Token token && token.pass() || element instanceof Symbol symbol && !symbol.linked();
+    }
+
+    private void checkAlternatives() {
+        for (Rule rule : rules.values()) {
+            List<Alternative> alternatives = rule.alternatives().stream().filter(alternative -> !isLeftRecursive(rule, alternative)).toList();
+            for (int i = 0; i + 1 < alternatives.size(); i++) {
+                if (isCommitted(alternatives.get(i).elements())) {
+                    issues.add(new Issue(Severity.Warning, Kind.UnreachableAlternative, rule.name(), "Alternative "
+                            + (rule.alternatives().indexOf(alternatives.get(i)) + 1) + " cannot fail before it commits, the alternatives after it are never tried"));
+                    break;
+                }
+            }
+        }
+    }
+
+    private void checkRepetitions() {
+        for (Rule rule : rules.values()) {
+            for (Alternative alternative : rule.alternatives()) {
+                for (Element element : alternative.elements()) {
+                    if ((element.quantifier() == Element.Quantifier.ZeroOrMore || element.quantifier() == Element.Quantifier.OneOrMore)
+                            && isNullable(List.of(withOnce(element)))) {
+                        issues.add(new Issue(Severity.Warning, Kind.EmptyLoop, rule.name(),
+                                "Repeated element may match nothing, the repetition stops there: " + getName(element)));
+                    }
+                }
+            }
+        }
+    }
+
+    private void checkBacktracking() {
+        Map<String, Long> cache = new HashMap<>();
+        for (Rule rule : rules.values()) {
+            backtracking.put(rule.name(), estimateBacktracking(rule, cache, new HashSet<>()));
+        }
+        if (grammar.packrat() || grammar.failureCache()) {
+            return;
+        }
+        for (Rule rule : rules.values()) {
+            long count = backtracking.get(rule.name());
+            if (isExponential(rule)) {
+                issues.add(new Issue(Severity.Warning, Kind.Backtracking, rule.name(),
+                        "Alternatives with the same first characters recurse, backtracking grows exponentially with the nesting"));
+            } else if (count >= BACKTRACKING_WARNING) {
+                issues.add(new Issue(Severity.Warning, Kind.Backtracking, rule.name(),
+                        "Rule may parse the same input " + (count >= MAX_BACKTRACKING ? "more than " + MAX_BACKTRACKING : count) + " times"));
+            }
+        }
+    }
+
+    private long estimateBacktracking(Rule rule, Map<String, Long> cache, Set<String> active) {
+        if (cache.containsKey(rule.name())) {
+            return cache.get(rule.name());
+        }
+        if (!active.add(rule.name())) {
+            return 1;
+        }
+        Map<Alternative, Long> costs = new HashMap<>();
+        for (Alternative alternative : rule.alternatives()) {
+            long cost = 1;
+            for (Element element : alternative.elements()) {
+                if (element instanceof Symbol symbol && rules.containsKey(symbol.name())) {
+                    cost = Math.max(cost, estimateBacktracking(rules.get(symbol.name()), cache, active));
+                }
+            }
+            costs.put(alternative, cost);
+        }
+        long result = 1;
+        for (List<Alternative> viable : findViableAlternatives(rule)) {
+            long sum = 0;
+            for (Alternative alternative : viable) {
+                sum = Math.min(sum + costs.get(alternative), MAX_BACKTRACKING);
+            }
+            result = Math.max(result, sum);
+        }
+        active.remove(rule.name());
+        cache.put(rule.name(), result);
+        return result;
+    }
+
+    private boolean isExponential(Rule rule) {
+        for (List<Alternative> viable : findViableAlternatives(rule)) {
+            long recursive = viable.stream().filter(alternative -> alternative.elements().stream()
+                    .anyMatch(element -> element instanceof Symbol symbol && canReach(symbol.name(), rule.name()))).count();
+            if (recursive >= 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean canReach(String start, String target) {
+        Set<String> visited = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>(List.of(start));
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            if (name.equals(target)) {
+                return true;
+            }
+            if (rules.containsKey(name) && visited.add(name)) {
+                queue.addAll(findReferences(rules.get(name)));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns for every first character of a rule the alternatives that may consume it, in the order they are tried.
+     * Left-recursive alternatives are left out, they only extend the result of another alternative.
+     */
+    private List<List<Alternative>> findViableAlternatives(Rule rule) {
+        Set<String> terminals = new LinkedHashSet<>();
+        for (Alternative alternative : rule.alternatives()) {
+            terminals.addAll(findFirst(alternative.elements()));
+        }
+        List<List<Alternative>> result = new ArrayList<>();
+        for (String terminal : terminals) {
+            result.add(rule.alternatives().stream().filter(alternative -> !isLeftRecursive(rule, alternative)
+                    && findFirst(alternative.elements()).contains(terminal)).toList());
+        }
+        return result;
+    }
+
+    private void findNullableRules() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Rule rule : rules.values()) {
+                if (!nullableRules.contains(rule.name())
+                        && rule.alternatives().stream().anyMatch(alternative -> isNullable(alternative.elements()))) {
+                    nullableRules.add(rule.name());
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private void findFirstSets() {
+        rules.keySet().forEach(name -> firstSets.put(name, new HashSet<>()));
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Rule rule : rules.values()) {
+                for (Alternative alternative : rule.alternatives()) {
+                    changed |= firstSets.get(rule.name()).addAll(findFirst(alternative.elements()));
+                }
+            }
+        }
+    }
+
+    private Set<String> findFirst(List<Element> elements) {
+        Set<String> result = new HashSet<>();
+        for (Element element : elements) {
+            if (element instanceof Token token) {
+                result.addAll(getTerminals(token));
+            } else if (element instanceof Symbol symbol) {
+                result.addAll(firstSets.getOrDefault(symbol.name(), Set.of()));
+            }
+            if (!isNullable(element)) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private Set<String> getTerminals(Token token) {
+        if (grammar.lexemes() != null || token.type() == Token.Type.Lexeme) {
+            return Set.of(token.type() + ":" + token.text());
+        } else if (token.type() == Token.Type.Set) {
+            return token.text().chars().mapToObj(c -> String.valueOf((char) c)).collect(Collectors.toSet());
+        } else {
+            return token.text().isEmpty() ? Set.of() : Set.of(token.text().substring(0, 1));
+        }
+    }
+
+    private boolean isNullable(List<Element> elements) {
+        return elements.stream().allMatch(this::isNullable);
+    }
+
+    private boolean isNullable(Element element) {
+        if (element.quantifier() == Element.Quantifier.Optional || element.quantifier() == Element.Quantifier.ZeroOrMore) {
+            return true;
+        } else if (element instanceof Token token) {
+            return token.type() == Token.Type.Token && token.text().isEmpty();
+        } else if (element instanceof Symbol symbol) {
+            return nullableRules.contains(symbol.name());
+        } else {
+            return true;
+        }
+    }
+
+    /**
+     * An alternative is committed once it reaches a cut, or its end, without passing an element that may fail.
+     */
+    private static boolean isCommitted(List<Element> elements) {
+        for (Element element : elements) {
+            if (element instanceof Cut) {
+                return true;
+            }
+            if (element.quantifier() != Element.Quantifier.Optional && element.quantifier() != Element.Quantifier.ZeroOrMore) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLeftRecursive(Rule rule, Alternative alternative) {
+        return !alternative.elements().isEmpty() //
+                && alternative.elements().get(0) instanceof Symbol symbol //
+                && symbol.name().equals(rule.name()) //
+                && symbol.quantifier() == Element.Quantifier.Once;
+    }
+
+    private static Element withOnce(Element element) {
+        if (element instanceof Token token) {
+            return new Token(token.text(), token.type(), token.pass(), token.callbackLinked(), token.callback(), Element.Quantifier.Once);
+        } else if (element instanceof Symbol symbol) {
+            return new Symbol(symbol.name(), symbol.linked(), symbol.callbackLinked(), symbol.callback(), Element.Quantifier.Once);
+        } else {
+            return element;
+        }
+    }
+
+    private static String getName(Element element) {
+        if (element instanceof Token token) {
+            return token.text();
+        } else if (element instanceof Symbol symbol) {
+            return symbol.name();
+        } else {
+            return element.toString();
+        }
+    }
+
+    private static Set<String> findReferences(Rule rule) {
+        Set<String> result = new LinkedHashSet<>();
+        for (Alternative alternative : rule.alternatives()) {
+            for (Element element : alternative.elements()) {
+                if (element instanceof Symbol symbol) {
+                    result.add(symbol.name());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The result of the analysis: the issues found and the estimated backtracking of each rule.
+     */
+    public record Report(List<Issue> issues, Map<String, Long> backtracking) {
+
+        public boolean hasErrors() {
+            return issues.stream().anyMatch(issue -> issue.severity() == Severity.Error);
+        }
+
+        public List<Issue> errors() {
+            return issues.stream().filter(issue -> issue.severity() == Severity.Error).toList();
+        }
+
+        @Override
+        public String toString() {
+            return issues.stream().map(Issue::toString).collect(Collectors.joining("\n"));
+        }
+    }
+
+    public record Issue(Severity severity, Kind kind, String rule, String message) {
+
+        @Override
+        public String toString() {
+            return severity + " in rule " + rule + ": " + message;
+        }
+    }
+
+    public enum Severity {
+        Error,
+        Warning
+    }
+
+    public enum Kind {
+        UndefinedRule,
+        DuplicateRule,
+        UnreachableRule,
+        UnreachableAlternative,
+        LeftRecursion,
+        EmptyLoop,
+        UnsupportedElement,
+        MissingCallback,
+        Backtracking
+    }
+}
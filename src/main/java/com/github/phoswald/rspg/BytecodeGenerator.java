@@ -0,0 +1,589 @@
+package com.github.phoswald.rspg;
+
+import static org.objectweb.asm.Opcodes.AALOAD;
+import static org.objectweb.asm.Opcodes.AASTORE;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACONST_NULL;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ANEWARRAY;
+import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.ARRAYLENGTH;
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.BIPUSH;
+import static org.objectweb.asm.Opcodes.GETFIELD;
+import static org.objectweb.asm.Opcodes.GOTO;
+import static org.objectweb.asm.Opcodes.H_INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.IADD;
+import static org.objectweb.asm.Opcodes.ICONST_0;
+import static org.objectweb.asm.Opcodes.ICONST_1;
+import static org.objectweb.asm.Opcodes.ICONST_2;
+import static org.objectweb.asm.Opcodes.IFEQ;
+import static org.objectweb.asm.Opcodes.IFGE;
+import static org.objectweb.asm.Opcodes.IFNE;
+import static org.objectweb.asm.Opcodes.IF_ICMPEQ;
+import static org.objectweb.asm.Opcodes.IF_ICMPNE;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.IMUL;
+import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.IRETURN;
+import static org.objectweb.asm.Opcodes.ISTORE;
+import static org.objectweb.asm.Opcodes.PUTFIELD;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.V17;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.ConstantDynamic;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+/**
+ * Creates parsers at runtime without a Java compiler.
+ * <p>
+ * The grammar is translated into the bytecode of a hidden class that behaves like the class written by the
+ * {@link Generator}. The callbacks are methods of the given callback type, selected like the ones of
+ * {@link Interpreter#bind(Object)}. Memoization, streaming, bytes, spans, lexemes, instrumentation, trees and events are
+ * not supported.
+ */
+public final class BytecodeGenerator {
+
+    private static final String CLASS_NAME = "com/github/phoswald/rspg/GeneratedParser";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String CHAR_SEQUENCE = "java/lang/CharSequence";
+    private static final String VALUES = "[Ljava/lang/Object;";
+    private static final String HELPER = Type.getInternalName(BytecodeGenerator.class);
+    private static final Handle CLASS_DATA = new Handle(H_INVOKESTATIC, "java/lang/invoke/MethodHandles", "classDataAt",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;I)Ljava/lang/Object;", false);
+
+    private final Grammar grammar;
+    private final List<Object> classData = new ArrayList<>();
+    private final Map<String, Integer> callbacks = new LinkedHashMap<>();
+    private final Map<BitSet, Integer> sets = new LinkedHashMap<>();
+    private Class<?> callbackType;
+    private int locals;
+
+    public BytecodeGenerator(Grammar grammar) {
+        this.grammar = Objects.requireNonNull(grammar);
+        if (grammar.packrat() || grammar.failureCache() || grammar.streaming() || grammar.bytes() || grammar.spans() || grammar.lexemes() != null || grammar.instrumented() || grammar.tree() || grammar.events()) {
+            throw new IllegalStateException("Grammar options are not supported by the bytecode generator: " + grammar.name());
+        }
+    }
+
+    /**
+     * Generates a parser for the given rule. The returned function creates a new parser for each callback object,
+     * which must be an instance of the given callback type.
+     */
+    public Function<Object, Parser> generate(String ruleName, Class<?> callbackType) {
+        this.callbackType = Objects.requireNonNull(callbackType);
+        this.classData.clear();
+        this.callbacks.clear();
+        this.sets.clear();
+        byte[] bytes = generateClass(findRule(ruleName));
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClassWithClassData(bytes, List.copyOf(classData), true);
+            MethodHandle constructor = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, Object.class)) //
+                    .asType(MethodType.methodType(Parser.class, Object.class));
+            return callback -> {
+                try {
+                    Object checked = callbackType.cast(callback);
+                    return (Parser) constructor.invokeExact(checked);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new IllegalStateException("Failed to define parser: " + grammar.name(), e);
+        }
+    }
+
+    static int matchToken(CharSequence input, int offset, String token) {
+        int length = token.length();
+        if (offset + length > input.length()) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(offset + i) != token.charAt(i)) {
+                return -1;
+            }
+        }
+        return offset + length;
+    }
+
+    static int matchSet(CharSequence input, int offset, BitSet set) {
+        if (offset < input.length() && set.get(input.charAt(offset))) {
+            return offset + 1;
+        }
+        return -1;
+    }
+
+    private byte[] generateClass(Rule exported) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        writer.visit(V17, ACC_PUBLIC | ACC_FINAL, CLASS_NAME, null, OBJECT, new String[] { Type.getInternalName(Parser.class) });
+        writer.visitField(ACC_PRIVATE | ACC_FINAL, "callback", "L" + OBJECT + ";", null, null).visitEnd();
+        writer.visitField(ACC_PRIVATE, "input", "L" + CHAR_SEQUENCE + ";", null, null).visitEnd();
+        writer.visitField(ACC_PRIVATE, "offset", "I", null, null).visitEnd();
+        writer.visitField(ACC_PRIVATE, "values", VALUES, null, null).visitEnd();
+        writer.visitField(ACC_PRIVATE, "depth", "I", null, null).visitEnd();
+        generateConstructor(writer);
+        generateParse(writer, exported);
+        for (Rule rule : grammar.rules()) {
+            generateRule(writer, rule);
+        }
+        generateMatch(writer, "matchToken", "Ljava/lang/String;");
+        generateMatch(writer, "matchSet", "Ljava/util/BitSet;");
+        generatePush(writer);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private void generateConstructor(ClassWriter writer) {
+        MethodVisitor mv = writer.visitMethod(ACC_PUBLIC, "<init>", "(L" + OBJECT + ";)V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitFieldInsn(PUTFIELD, CLASS_NAME, "callback", "L" + OBJECT + ";");
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitIntInsn(BIPUSH, 16);
+        mv.visitTypeInsn(ANEWARRAY, OBJECT);
+        mv.visitFieldInsn(PUTFIELD, CLASS_NAME, "values", VALUES);
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void generateParse(ClassWriter writer, Rule rule) {
+        MethodVisitor mv = writer.visitMethod(ACC_PUBLIC, "parse", "(L" + CHAR_SEQUENCE + ";)L" + OBJECT + ";", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitFieldInsn(PUTFIELD, CLASS_NAME, "input", "L" + CHAR_SEQUENCE + ";");
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitInsn(ICONST_0);
+        mv.visitFieldInsn(PUTFIELD, CLASS_NAME, "offset", "I");
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitInsn(ICONST_0);
+        mv.visitFieldInsn(PUTFIELD, CLASS_NAME, "depth", "I");
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKEVIRTUAL, CLASS_NAME, "push", "()I", false);
+        mv.visitVarInsn(ISTORE, 2);
+        Label fail = new Label();
+        generateCall(mv, "parse" + rule.name(), 2);
+        mv.visitJumpInsn(IFEQ, fail);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, CLASS_NAME, "offset", "I");
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKEINTERFACE, CHAR_SEQUENCE, "length", "()I", true);
+        mv.visitJumpInsn(IF_ICMPNE, fail);
+        generateValue(mv, 2);
+        mv.visitInsn(ARETURN);
+        mv.visitLabel(fail);
+        mv.visitInsn(ACONST_NULL);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void generateRule(ClassWriter writer, Rule rule) {
+        List<Alternative> seeds = new ArrayList<>();
+        List<Alternative> tails = new ArrayList<>();
+        for (Alternative alternative : rule.alternatives()) {
+            if (isLeftRecursive(rule, alternative)) {
+                Symbol symbol = (Symbol) alternative.elements().get(0);
+                if (!symbol.linked() || symbol.callback() != null) {
+                    throw new IllegalStateException("Left recursion requires a linked symbol without callback: " + rule.name());
+                }
+                tails.add(new Alternative(alternative.elements().subList(1, alternative.elements().size())));
+            } else {
+                seeds.add(alternative);
+            }
+        }
+        if (tails.isEmpty()) {
+            generateRuleMethod(writer, rule, "parse" + rule.name(), rule.alternatives(), isTailRecursive(rule));
+            return;
+        }
+        if (seeds.isEmpty()) {
+            throw new IllegalStateException("Left recursion requires a non-recursive alternative: " + rule.name());
+        }
+        if (hasCut(rule)) {
+            throw new IllegalStateException("Cut is not supported in left-recursive rules: " + rule.name());
+        }
+        MethodVisitor mv = beginRuleMethod(writer, "parse" + rule.name());
+        Label loop = new Label();
+        Label seeded = new Label();
+        generateCall(mv, "parse" + rule.name() + "Seed", 1);
+        mv.visitJumpInsn(IFNE, seeded);
+        mv.visitInsn(ICONST_0);
+        mv.visitInsn(IRETURN);
+        mv.visitLabel(seeded);
+        generateSave(mv, "depth", 3);
+        mv.visitLabel(loop);
+        generateSave(mv, "offset", 2);
+        for (Alternative tail : tails) {
+            Label fail = new Label();
+            generateAlternative(mv, rule, tail.elements(), fail, fail);
+            generateRestore(mv, "depth", 3);
+            mv.visitJumpInsn(GOTO, loop);
+            mv.visitLabel(fail);
+            generateRewind(mv);
+        }
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IRETURN);
+        endMethod(mv);
+        generateRuleMethod(writer, rule, "parse" + rule.name() + "Seed", seeds, false);
+    }
+
+    private void generateRuleMethod(ClassWriter writer, Rule rule, String methodName, List<Alternative> alternatives, boolean loops) {
+        MethodVisitor mv = beginRuleMethod(writer, methodName);
+        Label loop = new Label();
+        generateSave(mv, "depth", 3);
+        mv.visitLabel(loop);
+        generateSave(mv, "offset", 2);
+        Label committed = new Label();
+        for (Alternative alternative : alternatives) {
+            Label fail = alternative == alternatives.get(alternatives.size() - 1) ? committed : new Label();
+            List<Element> elements = alternative.elements();
+            boolean tail = loops && isTailRecursive(rule, alternative);
+            generateAlternative(mv, rule, tail ? elements.subList(0, elements.size() - 1) : elements, fail, committed);
+            generateRestore(mv, "depth", 3);
+            if (tail) {
+                mv.visitJumpInsn(GOTO, loop);
+            } else {
+                mv.visitInsn(ICONST_1);
+                mv.visitInsn(IRETURN);
+            }
+            mv.visitLabel(fail);
+            generateRewind(mv);
+        }
+        mv.visitInsn(ICONST_0);
+        mv.visitInsn(IRETURN);
+        endMethod(mv);
+    }
+
+    private MethodVisitor beginRuleMethod(ClassWriter writer, String methodName) {
+        MethodVisitor mv = writer.visitMethod(ACC_PRIVATE, methodName, "(I)Z", null, null);
+        mv.visitCode();
+        locals = 4;
+        return mv;
+    }
+
+    private void generateAlternative(MethodVisitor mv, Rule rule, List<Element> elements, Label fail, Label committed) {
+        List<Argument> arguments = new ArrayList<>();
+        for (Element element : elements) {
+            if (element instanceof Cut) {
+                fail = committed;
+                continue;
+            }
+            if (element.quantifier() == Element.Quantifier.OneOrMore) {
+                generateQuantifiedElement(mv, rule, element, Element.Quantifier.Once, fail);
+                generateQuantifiedElement(mv, rule, element, Element.Quantifier.ZeroOrMore, fail);
+                continue;
+            } else if (element.quantifier() != Element.Quantifier.Once) {
+                generateQuantifiedElement(mv, rule, element, element.quantifier(), fail);
+                continue;
+            }
+            Argument argument = generateElement(mv, element, 1, fail);
+            if (argument != null) {
+                arguments.add(argument);
+            }
+            if (element.callbackLinked()) {
+                arguments.add(0, new Argument(false, 1));
+            }
+            if (element.callback() != null) {
+                generateCallback(mv, element, arguments);
+                arguments = new ArrayList<>();
+            }
+        }
+    }
+
+    private void generateQuantifiedElement(MethodVisitor mv, Rule rule, Element element, Element.Quantifier quantifier, Label fail) {
+        boolean pushed = element instanceof Symbol symbol && !symbol.linked();
+        boolean guarded = quantifier == Element.Quantifier.ZeroOrMore && mayMatchEmpty(element);
+        boolean producing = pushed || element instanceof Token token && token.pass();
+        if (producing && element.callback() == null) {
+            throw new IllegalStateException("Quantified element without callback in rule " + rule.name());
+        }
+        Label loop = new Label();
+        Label exit = new Label();
+        int offset = locals++;
+        mv.visitLabel(loop);
+        if (guarded) {
+            generateSave(mv, "offset", offset);
+        }
+        Label skip = quantifier == Element.Quantifier.Once ? fail : exit;
+        Argument argument = generateElement(mv, element, 1, skip);
+        if (guarded) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, CLASS_NAME, "offset", "I");
+            mv.visitVarInsn(ILOAD, offset);
+            mv.visitJumpInsn(IF_ICMPEQ, exit);
+        }
+        List<Argument> arguments = new ArrayList<>();
+        if (element.callbackLinked()) {
+            arguments.add(new Argument(false, 1));
+        }
+        if (argument != null) {
+            arguments.add(argument);
+        }
+        if (element.callback() != null) {
+            generateCallback(mv, element, arguments);
+        }
+        if (pushed) {
+            generateRestore(mv, "depth", argument.local());
+        }
+        if (quantifier == Element.Quantifier.ZeroOrMore) {
+            mv.visitJumpInsn(GOTO, loop);
+        }
+        mv.visitLabel(exit);
+        if (pushed && quantifier != Element.Quantifier.Once) {
+            generateRestore(mv, "depth", argument.local());
+        }
+    }
+
+    private Argument generateElement(MethodVisitor mv, Element element, int output, Label fail) {
+        if (element instanceof Token token) {
+            int offset = locals++;
+            if (token.pass()) {
+                generateSave(mv, "offset", offset);
+            }
+            mv.visitVarInsn(ALOAD, 0);
+            if (token.type() == Token.Type.Set) {
+                BitSet set = new BitSet();
+                token.text().chars().forEach(set::set);
+                mv.visitLdcInsn(getClassData(BitSet.class, sets.computeIfAbsent(set, this::addClassData)));
+                mv.visitMethodInsn(INVOKEVIRTUAL, CLASS_NAME, "matchSet", "(Ljava/util/BitSet;)Z", false);
+            } else if (token.type() == Token.Type.Token) {
+                mv.visitLdcInsn(token.text());
+                mv.visitMethodInsn(INVOKEVIRTUAL, CLASS_NAME, "matchToken", "(Ljava/lang/String;)Z", false);
+            } else {
+                throw new IllegalStateException("Lexeme requires a lexer: " + token.text());
+            }
+            mv.visitJumpInsn(IFEQ, fail);
+            if (!token.pass()) {
+                return null;
+            }
+            int token1 = locals++;
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, CLASS_NAME, "input", "L" + CHAR_SEQUENCE + ";");
+            mv.visitVarInsn(ILOAD, offset);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, CLASS_NAME, "offset", "I");
+            mv.visitMethodInsn(INVOKEINTERFACE, CHAR_SEQUENCE, "subSequence", "(II)L" + CHAR_SEQUENCE + ";", true);
+            mv.visitMethodInsn(INVOKEVIRTUAL, OBJECT, "toString", "()Ljava/lang/String;", false);
+            mv.visitVarInsn(ASTORE, token1);
+            return new Argument(true, token1);
+        } else if (element instanceof Symbol symbol) {
+            findRule(symbol.name());
+            if (symbol.linked()) {
+                generateCall(mv, "parse" + symbol.name(), output);
+                mv.visitJumpInsn(IFEQ, fail);
+                return null;
+            }
+            int element1 = locals++;
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitMethodInsn(INVOKEVIRTUAL, CLASS_NAME, "push", "()I", false);
+            mv.visitVarInsn(ISTORE, element1);
+            generateCall(mv, "parse" + symbol.name(), element1);
+            mv.visitJumpInsn(IFEQ, fail);
+            return new Argument(false, element1);
+        } else {
+            throw new IllegalStateException("Unknown element type");
+        }
+    }
+
+    private void generateCallback(MethodVisitor mv, Element element, List<Argument> arguments) {
+        Integer index = callbacks.get(element.callback());
+        if (index == null) {
+            BitSet tokens = new BitSet();
+            for (int i = 0; i < arguments.size(); i++) {
+                if (arguments.get(i).token()) {
+                    tokens.set(i);
+                }
+            }
+            MethodHandle handle = Interpreter.findCallbackMethod(callbackType, element.callback(), arguments.size(), tokens) //
+                    .asType(MethodType.genericMethodType(arguments.size() + 1));
+            index = addClassData(handle);
+            callbacks.put(element.callback(), index);
+        }
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, CLASS_NAME, "values", VALUES);
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitLdcInsn(getClassData(MethodHandle.class, index));
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, CLASS_NAME, "callback", "L" + OBJECT + ";");
+        for (Argument argument : arguments) {
+            if (argument.token()) {
+                mv.visitVarInsn(ALOAD, argument.local());
+            } else {
+                generateValue(mv, argument.local());
+            }
+        }
+        String descriptor = MethodType.genericMethodType(arguments.size() + 1).toMethodDescriptorString();
+        mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/invoke/MethodHandle", "invokeExact", descriptor, false);
+        mv.visitInsn(AASTORE);
+    }
+
+    private void generateMatch(ClassWriter writer, String methodName, String parameter) {
+        MethodVisitor mv = writer.visitMethod(ACC_PRIVATE, methodName, "(" + parameter + ")Z", null, null);
+        mv.visitCode();
+        Label matched = new Label();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, CLASS_NAME, "input", "L" + CHAR_SEQUENCE + ";");
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, CLASS_NAME, "offset", "I");
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKESTATIC, HELPER, methodName, "(L" + CHAR_SEQUENCE + ";I" + parameter + ")I", false);
+        mv.visitVarInsn(ISTORE, 2);
+        mv.visitVarInsn(ILOAD, 2);
+        mv.visitJumpInsn(IFGE, matched);
+        mv.visitInsn(ICONST_0);
+        mv.visitInsn(IRETURN);
+        mv.visitLabel(matched);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ILOAD, 2);
+        mv.visitFieldInsn(PUTFIELD, CLASS_NAME, "offset", "I");
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IRETURN);
+        endMethod(mv);
+    }
+
+    private void generatePush(ClassWriter writer) {
+        MethodVisitor mv = writer.visitMethod(ACC_PRIVATE, "push", "()I", null, null);
+        mv.visitCode();
+        Label available = new Label();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, CLASS_NAME, "depth", "I");
+        mv.visitVarInsn(ISTORE, 1);
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, CLASS_NAME, "values", VALUES);
+        mv.visitInsn(ARRAYLENGTH);
+        mv.visitJumpInsn(IF_ICMPNE, available);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, CLASS_NAME, "values", VALUES);
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitInsn(ICONST_2);
+        mv.visitInsn(IMUL);
+        mv.visitMethodInsn(INVOKESTATIC, "java/util/Arrays", "copyOf", "(" + VALUES + "I)" + VALUES, false);
+        mv.visitFieldInsn(PUTFIELD, CLASS_NAME, "values", VALUES);
+        mv.visitLabel(available);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, CLASS_NAME, "values", VALUES);
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitInsn(ACONST_NULL);
+        mv.visitInsn(AASTORE);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitInsn(ICONST_1);
+        mv.visitInsn(IADD);
+        mv.visitFieldInsn(PUTFIELD, CLASS_NAME, "depth", "I");
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitInsn(IRETURN);
+        endMethod(mv);
+    }
+
+    private void generateCall(MethodVisitor mv, String methodName, int output) {
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ILOAD, output);
+        mv.visitMethodInsn(INVOKEVIRTUAL, CLASS_NAME, methodName, "(I)Z", false);
+    }
+
+    private void generateValue(MethodVisitor mv, int local) {
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, CLASS_NAME, "values", VALUES);
+        mv.visitVarInsn(ILOAD, local);
+        mv.visitInsn(AALOAD);
+    }
+
+    private void generateSave(MethodVisitor mv, String field, int local) {
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, CLASS_NAME, field, "I");
+        mv.visitVarInsn(ISTORE, local);
+    }
+
+    private void generateRestore(MethodVisitor mv, String field, int local) {
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ILOAD, local);
+        mv.visitFieldInsn(PUTFIELD, CLASS_NAME, field, "I");
+    }
+
+    private void generateRewind(MethodVisitor mv) {
+        generateRestore(mv, "offset", 2);
+        generateRestore(mv, "depth", 3);
+    }
+
+    private void endMethod(MethodVisitor mv) {
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private int addClassData(Object value) {
+        classData.add(value);
+        return classData.size() - 1;
+    }
+
+    private ConstantDynamic getClassData(Class<?> type, int index) {
+        return new ConstantDynamic("_", Type.getDescriptor(type), CLASS_DATA, index);
+    }
+
+    private Rule findRule(String name) {
+        return grammar.rules().stream() //
+                .filter(rule -> rule.name().equals(name)) //
+                .findFirst() //
+                .orElseThrow(() -> new IllegalStateException("Rule not found: " + name));
+    }
+
+    private static boolean isLeftRecursive(Rule rule, Alternative alternative) {
+        return !alternative.elements().isEmpty() //
+                && alternative.elements().get(0) instanceof Symbol symbol //
+                && symbol.name().equals(rule.name()) //
+                && symbol.quantifier() == Element.Quantifier.Once;
+    }
+
+    private static boolean mayMatchEmpty(Element element) {
+        return element instanceof Symbol || element instanceof Token token && token.type() == Token.Type.Token && token.text().isEmpty();
+    }
+
+    private static boolean hasCut(Rule rule) {
+        return rule.alternatives().stream().anyMatch(alternative -> alternative.elements().stream().anyMatch(Cut.class::isInstance));
+    }
+
+    private static boolean isTailRecursive(Rule rule) {
+        return !hasCut(rule) //
+                && rule.alternatives().stream().anyMatch(alternative -> alternative.elements().isEmpty()) //
+                && rule.alternatives().stream().anyMatch(alternative -> isTailRecursive(rule, alternative));
+    }
+
+    private static boolean isTailRecursive(Rule rule, Alternative alternative) {
+        return !alternative.elements().isEmpty() //
+                && alternative.elements().get(alternative.elements().size() - 1) instanceof Symbol symbol //
+                && symbol.name().equals(rule.name()) //
+                && symbol.linked() //
+                && symbol.quantifier() == Element.Quantifier.Once //
+                && !symbol.callbackLinked() //
+                && symbol.callback() == null;
+    }
+
+    private static record Argument(boolean token, int local) { }
+}
@@ -0,0 +1,29 @@
+package com.github.phoswald.rspg;
+
+/**
+ * A cut commits the rule to the current alternative.
+ * <p>
+ * If an element after the cut fails, the rule fails without trying the remaining alternatives. Once no alternative is
+ * left to try, a streaming parser releases the input before the cut and an event parser delivers the buffered events.
+ */
+public record Cut() implements Element {
+
+    public static Cut cut() {
+        return new Cut();
+    }
+
+    @Override
+    public String callback() {
+        return null;
+    }
+
+    @Override
+    public boolean callbackLinked() {
+        return false;
+    }
+
+    @Override
+    public Quantifier quantifier() {
+        return Quantifier.Once;
+    }
+}
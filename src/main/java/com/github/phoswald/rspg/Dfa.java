@@ -0,0 +1,171 @@
+package com.github.phoswald.rspg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A deterministic finite automaton that recognizes a list of patterns.
+ * <p>
+ * Characters are grouped into classes of characters that are never told apart. The transitions are stored per state
+ * and class, -1 means there is no transition. State 0 is the start state. If a state accepts more than one pattern,
+ * the first one wins.
+ */
+record Dfa( //
+        /**
+         * The first character of each class, in ascending order.
+         */
+        int[] classStarts, //
+        /**
+         * The next state for each state and class.
+         */
+        int[][] transitions, //
+        /**
+         * The index of the accepted pattern for each state, or -1.
+         */
+        int[] accepts //
+) {
+
+    static Dfa build(List<List<Token>> patterns) {
+        Nfa nfa = new Nfa();
+        int start = nfa.addState();
+        for (int pattern = 0; pattern < patterns.size(); pattern++) {
+            int end = nfa.addState();
+            nfa.epsilons.get(start).add(end);
+            for (Token token : patterns.get(pattern)) {
+                end = nfa.addToken(end, token);
+            }
+            nfa.accepts.set(end, pattern);
+        }
+
+        TreeSet<Integer> boundaries = new TreeSet<>();
+        boundaries.add(0);
+        for (BitSet chars : nfa.edgeChars) {
+            if (chars != null) {
+                for (int c = chars.nextSetBit(0); c >= 0; c = chars.nextSetBit(chars.nextClearBit(c))) {
+                    boundaries.add(c);
+                    boundaries.add(chars.nextClearBit(c));
+                }
+            }
+        }
+        boundaries.remove(Character.MAX_VALUE + 1);
+        int[] classStarts = boundaries.stream().mapToInt(Integer::intValue).toArray();
+
+        List<BitSet> states = new ArrayList<>();
+        Map<BitSet, Integer> stateIds = new HashMap<>();
+        List<int[]> transitions = new ArrayList<>();
+        BitSet initial = new BitSet();
+        initial.set(start);
+        nfa.close(initial);
+        states.add(initial);
+        stateIds.put(initial, 0);
+        for (int state = 0; state < states.size(); state++) {
+            int[] row = new int[classStarts.length];
+            for (int clazz = 0; clazz < classStarts.length; clazz++) {
+                BitSet next = new BitSet();
+                BitSet current = states.get(state);
+                for (int q = current.nextSetBit(0); q >= 0; q = current.nextSetBit(q + 1)) {
+                    BitSet chars = nfa.edgeChars.get(q);
+                    if (chars != null && chars.get(classStarts[clazz])) {
+                        next.set(nfa.edgeTargets.get(q));
+                    }
+                }
+                if (next.isEmpty()) {
+                    row[clazz] = -1;
+                } else {
+                    nfa.close(next);
+                    Integer id = stateIds.get(next);
+                    if (id == null) {
+                        id = states.size();
+                        states.add(next);
+                        stateIds.put(next, id);
+                    }
+                    row[clazz] = id;
+                }
+            }
+            transitions.add(row);
+        }
+
+        int[] accepts = new int[states.size()];
+        for (int state = 0; state < states.size(); state++) {
+            accepts[state] = -1;
+            BitSet current = states.get(state);
+            for (int q = current.nextSetBit(0); q >= 0; q = current.nextSetBit(q + 1)) {
+                int pattern = nfa.accepts.get(q);
+                if (pattern >= 0 && (accepts[state] < 0 || pattern < accepts[state])) {
+                    accepts[state] = pattern;
+                }
+            }
+        }
+        return new Dfa(classStarts, transitions.toArray(new int[0][]), accepts);
+    }
+
+    private static class Nfa {
+
+        private final List<BitSet> edgeChars = new ArrayList<>();
+        private final List<Integer> edgeTargets = new ArrayList<>();
+        private final List<List<Integer>> epsilons = new ArrayList<>();
+        private final List<Integer> accepts = new ArrayList<>();
+
+        private int addState() {
+            edgeChars.add(null);
+            edgeTargets.add(-1);
+            epsilons.add(new ArrayList<>());
+            accepts.add(-1);
+            return accepts.size() - 1;
+        }
+
+        private int addToken(int from, Token token) {
+            List<BitSet> units = new ArrayList<>();
+            if (token.type() == Token.Type.Set) {
+                BitSet chars = new BitSet();
+                token.text().chars().forEach(chars::set);
+                units.add(chars);
+            } else if (token.type() == Token.Type.Token) {
+                token.text().chars().forEach(c -> {
+                    BitSet chars = new BitSet();
+                    chars.set(c);
+                    units.add(chars);
+                });
+            } else {
+                throw new IllegalStateException("Lexeme must consist of literals and sets: " + token.text());
+            }
+            int first = addState();
+            epsilons.get(from).add(first);
+            int last = first;
+            for (BitSet chars : units) {
+                int next = addState();
+                edgeChars.set(last, chars);
+                edgeTargets.set(last, next);
+                last = next;
+            }
+            int to = addState();
+            epsilons.get(last).add(to);
+            if (token.quantifier() == Element.Quantifier.Optional || token.quantifier() == Element.Quantifier.ZeroOrMore) {
+                epsilons.get(first).add(to);
+            }
+            if (token.quantifier() == Element.Quantifier.ZeroOrMore || token.quantifier() == Element.Quantifier.OneOrMore) {
+                epsilons.get(last).add(first);
+            }
+            return to;
+        }
+
+        private void close(BitSet states) {
+            Deque<Integer> pending = new ArrayDeque<>();
+            states.stream().forEach(pending::push);
+            while (!pending.isEmpty()) {
+                for (int next : epsilons.get(pending.pop())) {
+                    if (!states.get(next)) {
+                        states.set(next);
+                        pending.push(next);
+                    }
+                }
+            }
+        }
+    }
+}
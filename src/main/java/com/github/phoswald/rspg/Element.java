@@ -3,11 +3,32 @@ package com.github.phoswald.rspg;
 /**
  * An element of a parser rule.
  * <p>
- * There are two types of elements: tokens and symbols.
+ * There are three types of elements: tokens, symbols and cuts.
  */
 public interface Element {
 
     public String callback();
 
     public boolean callbackLinked();
+
+    public Quantifier quantifier();
+
+    public enum Quantifier {
+        /**
+         * The element must occur exactly once.
+         */
+        Once,
+        /**
+         * The element may occur once or not at all.
+         */
+        Optional,
+        /**
+         * The element may occur any number of times.
+         */
+        ZeroOrMore,
+        /**
+         * The element must occur at least once.
+         */
+        OneOrMore
+    }
 }
@@ -1,26 +1,77 @@
 package com.github.phoswald.rspg;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class Generator {
 
+    private static final Map<String, String> BOXED_TYPES = Map.of( //
+            "boolean", "Boolean", //
+            "byte", "Byte", //
+            "char", "Character", //
+            "short", "Short", //
+            "int", "Integer", //
+            "long", "Long", //
+            "float", "Float", //
+            "double", "Double");
+
+    private static final int MAX_DISPATCH_CASES = 128;
+
     private final Grammar grammar;
     private final Set<Token.Type> tokenTypes = new HashSet<>();
     private final Map<String, List<Argument>> callbacks = new LinkedHashMap<>();
+    private final Set<String> silentRules;
+    private final Map<String, String> tokenConstants;
+    private final Map<String, Integer> sets;
+    private final Map<String, Integer> kinds;
+    private final Rule recordRule;
+    private final Map<String, BitSet> firstSets = new HashMap<>();
+    private final Set<String> nullableRules = new HashSet<>();
+    private boolean dispatched;
 
     public Generator(Grammar grammar) {
-        this.grammar = Objects.requireNonNull(grammar);
+        Analyzer.Report report = new Analyzer(Objects.requireNonNull(grammar)).analyze();
+        if (report.hasErrors()) {
+            throw new IllegalStateException("Invalid grammar " + grammar.name() + ":\n" + report.errors().stream() //
+                    .map(Analyzer.Issue::toString).collect(Collectors.joining("\n")));
+        }
+        this.grammar = grammar.tree() || grammar.events() ? stripValues(grammar) : grammar;
+        this.silentRules = findSilentRules();
+        this.tokenConstants = findTokens();
+        this.sets = isLexer() ? Map.of() : findSets();
+        this.kinds = isLexer() ? findKinds() : Map.of();
+        this.recordRule = grammar.recordRule() == null ? null : findRecordRule();
+        if (grammar.incremental() && (!grammar.packrat() || grammar.streaming() || grammar.bytes() || isLexer())) {
+            throw new IllegalStateException("Incremental parsing requires packrat and is not supported together with streaming, bytes or lexemes");
+        }
+        if (grammar.timed() && !grammar.instrumented()) {
+            throw new IllegalStateException("Timing requires instrumentation");
+        }
+        if (grammar.tree() && (isMemoized() || grammar.streaming() || grammar.bytes() || isLexer())) {
+            throw new IllegalStateException("Tree mode is not supported together with memoization, streaming, bytes or lexemes");
+        }
+        if (grammar.events() && (isMemoized() || grammar.bytes() || isLexer() || grammar.tree() || grammar.recordRule() != null)) {
+            throw new IllegalStateException("Event mode is not supported together with memoization, bytes, lexemes, trees or a record rule");
+        }
+        findFirstSets();
+        findCallbacks();
     }
 
     public void generate(Path targetPath) throws IOException {
@@ -28,163 +79,1836 @@ public class Generator {
         String javaClass = grammar.javaType().substring(grammar.javaType().lastIndexOf(".") + 1);
         Path targetPackage = targetPath.resolve(javaPackage.replace(".", "/"));
         Path targetClass = targetPackage.resolve(javaClass + ".java");
+        StringWriter writer = new StringWriter();
+        generateParser(writer, javaPackage, javaClass);
         Files.createDirectories(targetPackage);
-        try (Writer writer = Files.newBufferedWriter(targetClass)) {
-            generateParser(writer, javaPackage, javaClass);
+        Files.writeString(targetClass, writer.toString());
+    }
+
+    /**
+     * Reports for every rule whether its alternatives can be chosen by looking at the next character only. Follow sets
+     * are not considered, a rule with a single nullable alternative is reported as LL(1).
+     */
+    public Map<String, Boolean> findLL1Rules() {
+        Map<String, Boolean> result = new LinkedHashMap<>();
+        for (Rule rule : grammar.rules()) {
+            BitSet seen = new BitSet();
+            boolean nullable = false;
+            boolean ll1 = true;
+            for (Alternative alternative : rule.alternatives()) {
+                BitSet first = new BitSet();
+                boolean alternativeNullable = findFirst(alternative, first);
+                if (first.intersects(seen) || (alternativeNullable && nullable)) {
+                    ll1 = false;
+                }
+                seen.or(first);
+                nullable |= alternativeNullable;
+            }
+            result.put(rule.name(), ll1);
         }
+        return result;
     }
 
     private void generateParser(Writer writer, String javaPackage, String javaClass) throws IOException {
         writer.write("package " + javaPackage + ";\n");
         writer.write("\n");
+        Set<String> imports = getImports();
+        if (!imports.isEmpty()) {
+            for (String javaImport : imports) {
+                writer.write("import " + javaImport + ";\n");
+            }
+            writer.write("\n");
+        }
+        if (grammar.rules().stream().anyMatch(rule -> rule.javaType().contains("<"))) {
+            writer.write("@SuppressWarnings(\"unchecked\")\n");
+        }
         writer.write("public class " + javaClass + " {\n");
         writer.write("\n");
-        writer.write("    private final Callback callback;\n");
-        writer.write("    private String input;\n");
+        if (isMemoized() && !grammar.packrat()) {
+            writer.write("    private static final int MEMO_DENSE_LIMIT = 1 << 16;\n");
+            writer.write("    private static final int MEMO_SPARSE_SIZE = 1 << 16;\n");
+            writer.write("    private static final int MEMO_PROBES = 4;\n");
+            writer.write("\n");
+        }
+        if (grammar.bytes()) {
+            generateTokenConstants(writer);
+        }
+        if (isLexer()) {
+            generateLexerConstants(writer);
+        }
+        generateSetConstants(writer);
+        if (recordRule != null) {
+            writer.write("    private static final String RECORD_SEPARATOR = " + getStringLiteral(grammar.recordSeparator()) + ";\n");
+            writer.write("\n");
+        }
+        if (grammar.instrumented() || grammar.tree() || grammar.events()) {
+            String ruleNames = grammar.rules().stream().map(rule -> getStringLiteral(rule.name())).collect(Collectors.joining(", "));
+            writer.write("    private static final String[] RULE_NAMES = { " + ruleNames + " };\n");
+            writer.write("\n");
+        }
+        if (grammar.events()) {
+            writer.write("    private static final int EVENT_ENTER = 0;\n");
+            writer.write("    private static final int EVENT_EXIT = 1;\n");
+            writer.write("    private static final int EVENT_TOKEN = 2;\n");
+            writer.write("\n");
+            writer.write("    private final Listener listener;\n");
+        } else if (!grammar.tree()) {
+            writer.write("    private final Callback callback;\n");
+        }
+        writer.write("    private final Queue<" + javaClass + "> contexts;\n");
+        writer.write("    private " + (grammar.bytes() ? "ByteBuffer" : "CharSequence") + " input;\n");
+        if (isLexer()) {
+            writer.write("    private int[] tokenKinds = new int[16];\n");
+            writer.write("    private int[] tokenStarts = new int[16];\n");
+            writer.write("    private int[] tokenEnds = new int[16];\n");
+            writer.write("    private int tokenCount;\n");
+        }
         writer.write("    private int offset;\n");
+        for (String stackType : getStackTypes()) {
+            writer.write("    private " + stackType + "[] " + getStack(stackType) + " = new " + stackType + "[16];\n");
+        }
+        writer.write("    private int depth;\n");
+        if (grammar.spans()) {
+            for (int nr : findSpanNumbers()) {
+                writer.write("    private final Span span" + nr + " = new Span();\n");
+            }
+        }
+        if (isMemoized()) {
+            int ruleCount = grammar.rules().size();
+            writer.write("    private final int[][] memoEnds = new int[" + ruleCount + "][];\n");
+            if (grammar.packrat()) {
+                writer.write("    private final Object[][] memoInputs = new Object[" + ruleCount + "][];\n");
+                writer.write("    private final Object[][] memoOutputs = new Object[" + ruleCount + "][];\n");
+                if (grammar.incremental()) {
+                    writer.write("    private final int[][] memoExamined = new int[" + ruleCount + "][];\n");
+                    writer.write("    private int examined;\n");
+                    writer.write("    private StringBuilder document;\n");
+                    writer.write("    private " + javaClass + " documentContext;\n");
+                }
+            } else {
+                writer.write("    private long[] memoKeys;\n");
+                writer.write("    private int[] memoValues;\n");
+                writer.write("    private boolean memoSparse;\n");
+            }
+        }
+        if (grammar.tree()) {
+            writer.write("    private int[] nodeRules = new int[16];\n");
+            writer.write("    private int[] nodeStarts = new int[16];\n");
+            writer.write("    private int[] nodeEnds = new int[16];\n");
+            writer.write("    private int[] nodeNexts = new int[16];\n");
+            writer.write("    private int nodeCount;\n");
+        }
+        if (grammar.events()) {
+            writer.write("    private int[] eventKinds = new int[16];\n");
+            writer.write("    private int[] eventRules = new int[16];\n");
+            writer.write("    private int[] eventStarts = new int[16];\n");
+            writer.write("    private int[] eventEnds = new int[16];\n");
+            writer.write("    private int eventCount;\n");
+        }
+        if (isCounted()) {
+            writer.write("    private int choices;\n");
+        }
+        if (grammar.instrumented()) {
+            int ruleCount = grammar.rules().size();
+            writer.write("    private final Metrics metrics;\n");
+            writer.write("    private final long[] ruleCalls = new long[" + ruleCount + "];\n");
+            writer.write("    private final long[] ruleFailures = new long[" + ruleCount + "];\n");
+            writer.write("    private final long[] ruleBacktracks = new long[" + ruleCount + "];\n");
+            writer.write("    private final long[] ruleRescanned = new long[" + ruleCount + "];\n");
+            if (grammar.timed()) {
+                writer.write("    private final long[] ruleNanos = new long[" + ruleCount + "];\n");
+            }
+        }
+        writer.write("\n");
+        String declared = getConstructorParams(true);
+        String params = getConstructorParams(false);
+        writer.write("    public " + javaClass + "(" + declared + ") {\n");
+        writer.write("        this(" + (params.isEmpty() ? "" : params + ", ") + "new ConcurrentLinkedQueue<>());\n");
+        writer.write("    }\n");
         writer.write("\n");
-        writer.write("    public " + javaClass + "(Callback callback) {\n");
-        writer.write("        this.callback = callback;\n");
+        writer.write("    private " + javaClass + "(" + (declared.isEmpty() ? "" : declared + ", ") + "Queue<" + javaClass + "> contexts) {\n");
+        if (grammar.events()) {
+            writer.write("        this.listener = listener;\n");
+        } else if (!grammar.tree()) {
+            writer.write("        this.callback = callback;\n");
+        }
+        if (grammar.instrumented()) {
+            writer.write("        this.metrics = metrics;\n");
+        }
+        writer.write("        this.contexts = contexts;\n");
         writer.write("    }\n");
         for (Rule rule : grammar.rules()) {
-            generateRule(writer, rule);
+            generateRule(writer, javaClass, rule);
+        }
+        if (recordRule != null) {
+            generateParseAll(writer, javaClass);
+        }
+        if (isMemoized()) {
+            generateMemoHelpers(writer);
+        }
+        if (isLexer()) {
+            generateLexerHelpers(writer);
+        } else if (grammar.bytes()) {
+            generateByteHelpers(writer);
+        } else {
+            generateHelpers(writer);
+        }
+        generateStackHelpers(writer);
+        if (grammar.tree()) {
+            generateTreeHelpers(writer);
+        }
+        if (grammar.events()) {
+            generateEventHelpers(writer);
+        }
+        if (isCommitting()) {
+            generateCommitHelper(writer);
+        }
+        if (grammar.instrumented()) {
+            generateMetricsHelpers(writer);
+        }
+        generateContextHelpers(writer, javaClass);
+        if (grammar.spans() && hasPassedTokens()) {
+            generateSpanClass(writer);
+        }
+        if (isReaderInput()) {
+            generateStreamingHelpers(writer);
+        }
+        if (grammar.tree()) {
+            generateTreeClasses(writer);
+        } else if (grammar.events()) {
+            generateListenerInterface(writer);
+        } else {
+            generateCallbackInterface(writer);
+        }
+        if (grammar.instrumented()) {
+            generateMetricsInterface(writer);
         }
-        generateHelpers(writer);
-        generateCallbackInterface(writer);
         writer.write("}\n");
     }
 
-    private void generateRule(Writer writer, Rule rule) throws IOException {
+    private void generateRule(Writer writer, String javaClass, Rule rule) throws IOException {
         if (rule.export()) {
             writer.write("\n");
-            writer.write("    public " + rule.javaType() + " parse" + rule.name() + "(String input) {\n");
-            writer.write("        this.input = input;\n");
+            if (grammar.bytes()) {
+                writer.write("    public " + getResultType(rule) + " parse" + rule.name() + "(byte[] input) {\n");
+                writer.write("        return parse" + rule.name() + "(ByteBuffer.wrap(input));\n");
+                writer.write("    }\n");
+                writer.write("\n");
+            }
+            String inputType = grammar.bytes() ? "ByteBuffer" : "CharSequence";
+            writer.write("    public " + getResultType(rule) + " parse" + rule.name() + "(" + inputType + " input) {\n");
+            writer.write("        " + javaClass + " context = acquire();\n");
+            writer.write("        try {\n");
+            writer.write("            return context.parse" + rule.name() + "InContext(input);\n");
+            writer.write("        } finally {\n");
+            writer.write("            release(context);\n");
+            writer.write("        }\n");
+            writer.write("    }\n");
+            writer.write("\n");
+            writer.write("    private " + getResultType(rule) + " parse" + rule.name() + "InContext(" + inputType + " input) {\n");
+            writer.write("        this.input = " + (grammar.bytes() ? "input.slice()" : "input") + ";\n");
+            if (isLexer()) {
+                writer.write("        if (!tokenize()) {\n");
+                writer.write("            return null;\n");
+                writer.write("        }\n");
+            }
             writer.write("        this.offset = 0;\n");
-            writer.write("        Ref<" + rule.javaType() + "> output = new Ref<>();\n");
-            writer.write("        if (parse" + rule.name() + "(output) && this.offset == input.length()) {\n");
-            writer.write("            return output.value;\n");
+            if (isMemoized()) {
+                if (grammar.incremental()) {
+                    writer.write("        if (input != document) {\n");
+                    writer.write("            resetMemo();\n");
+                    writer.write("        }\n");
+                } else {
+                    writer.write("        resetMemo();\n");
+                }
+            }
+            writer.write("        this.depth = 0;\n");
+            if (grammar.tree()) {
+                writer.write("        this.nodeCount = 0;\n");
+            }
+            if (grammar.events()) {
+                writer.write("        this.eventCount = 0;\n");
+            }
+            if (isCounted()) {
+                writer.write("        this.choices = 0;\n");
+            }
+            writer.write("        int output = push();\n");
+            writer.write("        if (parse" + rule.name() + "(output) && " + (isReaderInput() ? "!available(this.offset + 1)" : isLexer() ? "this.offset == tokenCount" : "this.offset == " + (grammar.bytes() ? "this." : "") + getInputLength()) + ") {\n");
+            if (grammar.events()) {
+                writer.write("            flushEvents();\n");
+                writer.write("            return Boolean.TRUE;\n");
+            } else {
+                writer.write("            return " + (grammar.tree() ? "buildTree()" : getValue(rule.javaType(), "output")) + ";\n");
+            }
             writer.write("        } else {\n");
             writer.write("            return null;\n");
             writer.write("        }\n");
             writer.write("    }\n");
+            if (grammar.streaming()) {
+                generateStreamingRule(writer, rule);
+            }
+            if (grammar.incremental()) {
+                generateIncrementalRule(writer, javaClass, rule);
+            }
+        }
+        String methodName = "parse" + rule.name();
+        if (grammar.instrumented()) {
+            generateInstrumentedRule(writer, rule, methodName);
+            methodName += "Measured";
+        }
+        if (grammar.tree()) {
+            generateTreeRule(writer, rule, methodName);
+            methodName += "Children";
+        }
+        if (grammar.events()) {
+            generateEventRule(writer, rule, methodName);
+            methodName += "Content";
+        }
+        if (isCached(rule)) {
+            generateMemoRule(writer, rule, methodName);
+            methodName = "parse" + rule.name() + "Uncached";
+        }
+        if (isLeftRecursive(rule)) {
+            generateLeftRecursiveRule(writer, rule, methodName);
+        } else if (isTailRecursive(rule)) {
+            generateTailRecursiveRule(writer, rule, methodName);
+        } else {
+            generateRuleMethod(writer, rule, methodName, rule.alternatives());
+        }
+    }
+
+    private void generateRuleMethod(Writer writer, Rule rule, String methodName, List<Alternative> alternatives) throws IOException {
+        for (int i = 0; i < alternatives.size() - 1; i++) {
+            if (isInfallible(alternatives.get(i)) || isCommitted(alternatives.get(i))) {
+                alternatives = alternatives.subList(0, i + 1);
+            }
         }
         writer.write("\n");
-        writer.write("    private boolean parse" + rule.name() + "(Ref<" + rule.javaType() + "> output) {\n");
+        writer.write("    private boolean " + methodName + "(int output) {\n");
         writer.write("        int offset = this.offset;\n");
-        boolean emptyAlternative = false;
+        if (grammar.tree()) {
+            writer.write("        int nodes = this.nodeCount;\n");
+        }
+        if (grammar.events()) {
+            writer.write("        int events = this.eventCount;\n");
+        }
+        boolean pushes = alternatives.stream().anyMatch(this::isPushing);
+        if (pushes) {
+            writer.write("        int depth = this.depth;\n");
+        }
+        if (!generateDispatch(writer, rule, alternatives, 0, "", pushes)) {
+            writer.write("    }\n");
+            return;
+        }
+        generateRewind(writer, rule, "", pushes);
+        writer.write("        return false;\n");
+        writer.write("    }\n");
+    }
+
+    private boolean generateDispatch(Writer writer, Rule rule, List<Alternative> alternatives, int ahead, String pad, boolean pushes) throws IOException {
+        Map<List<Integer>, List<Integer>> dispatch = ahead == 0 ? findDispatch(alternatives) : findTrie(alternatives, ahead);
+        if (dispatch == null) {
+            return generateAlternatives(writer, rule, alternatives, pad, pushes);
+        }
+        dispatched = true;
+        writer.write(pad + "        switch (peek(" + ahead + ")) {\n");
+        boolean exhaustive = false;
+        boolean breaks = false;
+        for (Map.Entry<List<Integer>, List<Integer>> group : dispatch.entrySet()) {
+            if (group.getValue().isEmpty()) {
+                writer.write(pad + "            default:\n");
+                exhaustive = true;
+            }
+            for (int c : group.getValue()) {
+                writer.write(pad + "            case " + (isLexer() ? "KIND_" + c : getCharLiteral(c)) + ":\n");
+            }
+            List<Alternative> viable = group.getKey().stream().map(alternatives::get).collect(Collectors.toList());
+            if (generateDispatch(writer, rule, viable, ahead + 1, pad + "        ", pushes)) {
+                writer.write(pad + "                break;\n");
+                breaks = true;
+            }
+        }
+        writer.write(pad + "        }\n");
+        return !exhaustive || breaks;
+    }
+
+    private boolean generateAlternatives(Writer writer, Rule rule, List<Alternative> alternatives, String pad, boolean pushes) throws IOException {
+        boolean firstAlternative = true;
+        for (Alternative alternative : alternatives) {
+            if (!firstAlternative) {
+                generateRewind(writer, rule, pad, pushes);
+            }
+            firstAlternative = false;
+            boolean choice = alternative != alternatives.get(alternatives.size() - 1) && !isInfallible(alternative) && !isCommitted(alternative);
+            generateAlternative(writer, rule, alternative.elements(), pad, "return true;", isPushing(alternative), choice);
+            if (isInfallible(alternative) || isCommitted(alternative)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<List<Integer>, List<Integer>> findDispatch(List<Alternative> alternatives) {
+        if (alternatives.size() < 2) {
+            return null;
+        }
+        List<BitSet> firsts = new ArrayList<>();
+        List<Integer> unconditionals = new ArrayList<>();
+        BitSet union = new BitSet();
+        for (int i = 0; i < alternatives.size(); i++) {
+            BitSet first = new BitSet();
+            if (findFirst(alternatives.get(i), first) || isCommittedWithoutInput(alternatives.get(i))) {
+                unconditionals.add(i);
+            }
+            firsts.add(first);
+            union.or(first);
+        }
+        if (union.cardinality() > MAX_DISPATCH_CASES) {
+            return null;
+        }
+        Map<List<Integer>, List<Integer>> dispatch = new LinkedHashMap<>();
+        for (int c = union.nextSetBit(0); c >= 0; c = union.nextSetBit(c + 1)) {
+            List<Integer> viable = new ArrayList<>();
+            for (int i = 0; i < alternatives.size(); i++) {
+                if (firsts.get(i).get(c) || unconditionals.contains(i)) {
+                    viable.add(i);
+                }
+            }
+            dispatch.computeIfAbsent(viable, k -> new ArrayList<>()).add(c);
+        }
+        if (!unconditionals.isEmpty()) {
+            dispatch.put(unconditionals, new ArrayList<>());
+        }
+        if (dispatch.keySet().stream().allMatch(viable -> viable.size() == alternatives.size())) {
+            return null;
+        }
+        return dispatch;
+    }
+
+    private void generateLeftRecursiveRule(Writer writer, Rule rule, String methodName) throws IOException {
+        List<Alternative> seeds = new ArrayList<>();
+        List<Alternative> tails = new ArrayList<>();
+        for (Alternative alternative : rule.alternatives()) {
+            if (isLeftRecursive(rule, alternative)) {
+                Symbol symbol = (Symbol) alternative.elements().get(0);
+                if (!symbol.linked() || symbol.callback() != null) {
+                    throw new IllegalStateException("Left recursion requires a linked symbol without callback: " + rule.name());
+                }
+                tails.add(new Alternative(alternative.elements().subList(1, alternative.elements().size())));
+            } else {
+                seeds.add(alternative);
+            }
+        }
+        if (seeds.isEmpty()) {
+            throw new IllegalStateException("Left recursion requires a non-recursive alternative: " + rule.name());
+        }
+        if (hasCut(rule)) {
+            throw new IllegalStateException("Cut is not supported in left-recursive rules: " + rule.name());
+        }
+        boolean pushes = tails.stream().anyMatch(this::isPushing);
+        writer.write("\n");
+        writer.write("    private boolean " + methodName + "(int output) {\n");
+        writer.write("        if (!parse" + rule.name() + "Seed(output)) {\n");
+        writer.write("            return false;\n");
+        writer.write("        }\n");
+        if (pushes) {
+            writer.write("        int depth = this.depth;\n");
+        }
+        writer.write("        while (true) {\n");
+        writer.write("            int offset = this.offset;\n");
+        if (grammar.tree()) {
+            writer.write("            int nodes = this.nodeCount;\n");
+        }
+        if (grammar.events()) {
+            writer.write("            int events = this.eventCount;\n");
+        }
+        for (Alternative tail : tails) {
+            generateAlternative(writer, rule, tail.elements(), "    ", "continue;", isPushing(tail), !isInfallible(tail));
+            generateRewind(writer, rule, "    ", pushes);
+        }
+        writer.write("            return true;\n");
+        writer.write("        }\n");
+        writer.write("    }\n");
+        generateRuleMethod(writer, rule, "parse" + rule.name() + "Seed", seeds);
+    }
+
+    private void generateTailRecursiveRule(Writer writer, Rule rule, String methodName) throws IOException {
+        boolean pushes = rule.alternatives().stream().anyMatch(this::isPushing);
+        writer.write("\n");
+        writer.write("    private boolean " + methodName + "(int output) {\n");
+        if (pushes) {
+            writer.write("        int depth = this.depth;\n");
+        }
+        writer.write("        while (true) {\n");
+        writer.write("            int offset = this.offset;\n");
+        if (grammar.tree()) {
+            writer.write("            int nodes = this.nodeCount;\n");
+        }
+        if (grammar.events()) {
+            writer.write("            int events = this.eventCount;\n");
+        }
         boolean firstAlternative = true;
         for (Alternative alternative : rule.alternatives()) {
             if (!firstAlternative) {
-                writer.write("        this.offset = offset;\n");
+                generateRewind(writer, rule, "    ", pushes);
             }
             firstAlternative = false;
-            writer.write("        {\n");
-            String indent = "";
-            int nr = 0;
-            List<Argument> callbackArgs = new ArrayList<>();
-            for (Element element : alternative.elements()) {
-                if (element instanceof Token token) {
-                    if (token.pass()) {
-                        nr++;
-                        writer.write("            " + indent + "int offset" + nr + " = this.offset;\n");
-                    }
-                    tokenTypes.add(token.type());
-                    writer.write("            " + indent + "if (match" + token.type() + "(\"" + token.text() + "\")) {\n");
-                    if (token.pass()) {
-                        writer.write("                " + indent + "String token" + nr + " = input.substring(offset" + nr + ", this.offset);\n");
-                        callbackArgs.add(new Argument("String", "token" + nr, "token" + nr));
-                    }
-                } else if (element instanceof Symbol symbol) {
-                    if (!symbol.linked()) {
-                        nr++;
-                        String symbolJavaType = findRule(symbol).javaType();
-                        writer.write("            " + indent + "Ref<" + symbolJavaType + "> element" + nr + " = new Ref<>();\n");
-                        writer.write("            " + indent + "if (parse" + symbol.name() + "(element" + nr + ")) {\n");
-                        callbackArgs.add(new Argument(symbolJavaType, "element" + nr, "element" + nr + ".value"));
-                    } else {
-                        writer.write("            " + indent + "if (parse" + symbol.name() + "(output)) {\n");
-                    }
+            List<Element> elements = alternative.elements();
+            boolean choice = alternative != rule.alternatives().get(rule.alternatives().size() - 1) && !isInfallible(alternative);
+            if (isTailRecursive(rule, alternative)) {
+                generateAlternative(writer, rule, elements.subList(0, elements.size() - 1), "    ", "continue;", isPushing(alternative), choice);
+            } else {
+                generateAlternative(writer, rule, elements, "    ", "return true;", isPushing(alternative), choice);
+            }
+            if (isInfallible(alternative)) {
+                break;
+            }
+        }
+        writer.write("        }\n");
+        writer.write("    }\n");
+    }
+
+    private void generateRewind(Writer writer, Rule rule, String pad, boolean pushes) throws IOException {
+        if (grammar.instrumented()) {
+            writer.write(pad + "        backtrack(" + grammar.rules().indexOf(rule) + ", offset);\n");
+        }
+        writer.write(pad + "        this.offset = offset;\n");
+        if (grammar.tree()) {
+            writer.write(pad + "        this.nodeCount = nodes;\n");
+        }
+        if (grammar.events()) {
+            writer.write(pad + "        this.eventCount = events;\n");
+        }
+        if (pushes) {
+            writer.write(pad + "        this.depth = depth;\n");
+        }
+    }
+
+    private void generateAlternative(Writer writer, Rule rule, List<Element> elements, String pad, String exit, boolean pushes, boolean choice) throws IOException {
+        boolean counted = choice && isCounted();
+        writer.write(pad + "        {\n");
+        if (counted) {
+            writer.write(pad + "            this.choices++;\n");
+        }
+        String indent = pad;
+        String cutIndent = null;
+        int nr = 0;
+        List<Argument> callbackArgs = new ArrayList<>();
+        for (int index = 0; index < elements.size(); index++) {
+            Element element = elements.get(index);
+            if (element instanceof Cut) {
+                if (cutIndent == null && counted) {
+                    writer.write("            " + indent + "this.choices--;\n");
+                }
+                if (isCommitting()) {
+                    writer.write("            " + indent + "commit();\n");
+                }
+                if (cutIndent == null) {
+                    cutIndent = indent;
+                }
+                continue;
+            }
+            if (element.quantifier() != Element.Quantifier.Once) {
+                if (element.quantifier() == Element.Quantifier.OneOrMore) {
+                    generateQuantifiedElement(writer, rule, element, ++nr, "            " + indent, Element.Quantifier.Once);
+                    indent += "    ";
+                    generateQuantifiedElement(writer, rule, element, ++nr, "            " + indent, Element.Quantifier.ZeroOrMore);
                 } else {
-                    throw new IllegalStateException("Unknown element type");
+                    generateQuantifiedElement(writer, rule, element, ++nr, "            " + indent, element.quantifier());
+                }
+                continue;
+            }
+            if (element instanceof Token token) {
+                if (token.pass()) {
+                    nr++;
+                    writer.write("            " + indent + "int offset" + nr + " = this.offset;\n");
                 }
-                indent += "    ";
-                if (element.callbackLinked()) {
-                    callbackArgs.add(0, new Argument(rule.javaType(), "output", "output.value"));
+                writer.write("            " + indent + "if (" + getMatchExpr(token, null) + ") {\n");
+                if (token.pass() && grammar.events()) {
+                    generateTokenEvent(writer, rule, nr, "                " + indent);
+                } else if (token.pass()) {
+                    callbackArgs.add(generateTokenValue(writer, nr, "                " + indent, isSpanShared(elements, index)));
                 }
-                if (element.callback() != null) {
-                    String argumentExprs = getArgumentExprs(callbackArgs);
-                    writer.write("            " + indent + "output.value = callback." + element.callback() + "(" + argumentExprs + ");\n");
-                    callbacks.put(element.callback(), callbackArgs);
-                    callbackArgs = new ArrayList<>();
+            } else if (element instanceof Symbol symbol) {
+                if (!symbol.linked()) {
+                    nr++;
+                    String symbolJavaType = findRule(symbol).javaType();
+                    writer.write("            " + indent + "int element" + nr + " = push();\n");
+                    writer.write("            " + indent + "if (" + getMatchExpr(symbol, "element" + nr) + ") {\n");
+                    callbackArgs.add(getSlotArgument(symbolJavaType, "element" + nr));
+                } else {
+                    writer.write("            " + indent + "if (" + getMatchExpr(symbol, "output") + ") {\n");
                 }
+            } else {
+                throw new IllegalStateException("Unknown element type");
             }
-            writer.write("            " + indent + "return true;\n");
-            while (!indent.isEmpty()) {
-                indent = indent.substring(4);
-                writer.write("            " + indent + "}\n");
+            indent += "    ";
+            if (element.callbackLinked()) {
+                callbackArgs.add(0, getSlotArgument(rule.javaType(), "output"));
             }
-            writer.write("        }\n");
-            if (alternative.elements().isEmpty()) {
-                emptyAlternative = true;
+            if (element.callback() != null) {
+                generateCallback(writer, rule, element, callbackArgs, "            " + indent);
+                callbackArgs = new ArrayList<>();
             }
         }
-        if (!emptyAlternative) {
-            writer.write("        this.offset = offset;\n");
-            writer.write("        return false;\n");
+        if (pushes) {
+            writer.write("            " + indent + "this.depth = depth;\n");
+        }
+        if (counted && cutIndent == null) {
+            writer.write("            " + indent + "this.choices--;\n");
+        }
+        writer.write("            " + indent + exit + "\n");
+        while (!indent.equals(pad)) {
+            indent = indent.substring(4);
+            writer.write("            " + indent + "}\n");
+            if (indent.equals(cutIndent)) {
+                generateRewind(writer, rule, "    " + indent, pushes);
+                writer.write("            " + indent + "return false;\n");
+            }
+        }
+        if (counted) {
+            writer.write(pad + "            this.choices--;\n");
+        }
+        writer.write(pad + "        }\n");
+    }
+
+    private void generateQuantifiedElement(Writer writer, Rule rule, Element element, int nr, String prefix, Element.Quantifier quantifier) throws IOException {
+        boolean passed = element instanceof Token token && token.pass();
+        boolean pushed = element instanceof Symbol symbol && !symbol.linked();
+        boolean guarded = quantifier == Element.Quantifier.ZeroOrMore && mayMatchEmpty(element);
+        boolean counted = element instanceof Symbol && quantifier != Element.Quantifier.Once && isCounted();
+        if ((passed || pushed) && element.callback() == null && !grammar.events()) {
+            throw new IllegalStateException("Quantified element without callback in rule " + rule.name());
+        }
+        String output = pushed ? "element" + nr : "output";
+        String body = prefix;
+        if (quantifier == Element.Quantifier.ZeroOrMore) {
+            writer.write(prefix + "while (true) {\n");
+            body += "    ";
+        }
+        if (counted && quantifier == Element.Quantifier.ZeroOrMore && isCommitting()) {
+            // flushing resets the event count, so the snapshots are taken afterwards
+            writer.write(body + "commit();\n");
+        }
+        if (passed || guarded) {
+            writer.write(body + "int offset" + nr + " = this.offset;\n");
+        }
+        if (guarded && grammar.tree()) {
+            writer.write(body + "int nodes" + nr + " = this.nodeCount;\n");
+        }
+        if (guarded && grammar.events()) {
+            writer.write(body + "int events" + nr + " = this.eventCount;\n");
+        }
+        if (pushed) {
+            writer.write(body + "int element" + nr + " = push();\n");
+        }
+        if (counted) {
+            writer.write(body + "this.choices++;\n");
+        }
+        String inner = body + "    ";
+        if (quantifier == Element.Quantifier.ZeroOrMore) {
+            writer.write(body + "if (!" + getMatchExpr(element, output) + (guarded ? " || this.offset == offset" + nr : "") + ") {\n");
+            if (pushed) {
+                writer.write(inner + "this.depth = element" + nr + ";\n");
+            }
+            if (guarded && grammar.tree()) {
+                writer.write(inner + "this.nodeCount = nodes" + nr + ";\n");
+            }
+            if (counted) {
+                writer.write(inner + "this.choices--;\n");
+            }
+            if (guarded && grammar.events()) {
+                writer.write(inner + "this.eventCount = events" + nr + ";\n");
+            }
+            writer.write(inner + "break;\n");
+            writer.write(body + "}\n");
+            inner = body;
+            if (counted) {
+                writer.write(inner + "this.choices--;\n");
+            }
+        } else {
+            writer.write(body + "if (" + getMatchExpr(element, output) + ") {\n");
+        }
+        List<Argument> callbackArgs = new ArrayList<>();
+        if (element.callbackLinked()) {
+            callbackArgs.add(getSlotArgument(rule.javaType(), "output"));
+        }
+        if (passed && grammar.events()) {
+            generateTokenEvent(writer, rule, nr, inner);
+        } else if (passed) {
+            callbackArgs.add(generateTokenValue(writer, nr, inner, true));
+        }
+        if (pushed) {
+            String symbolJavaType = findRule((Symbol) element).javaType();
+            callbackArgs.add(getSlotArgument(symbolJavaType, output));
+        }
+        if (element.callback() != null) {
+            generateCallback(writer, rule, element, callbackArgs, inner);
+        }
+        if (quantifier == Element.Quantifier.Optional) {
+            writer.write(body + "}\n");
+            if (pushed) {
+                writer.write(body + "this.depth = element" + nr + ";\n");
+            }
+            if (counted) {
+                writer.write(body + "this.choices--;\n");
+            }
+        } else if (pushed) {
+            writer.write(inner + "this.depth = element" + nr + ";\n");
+        }
+        if (quantifier == Element.Quantifier.ZeroOrMore) {
+            writer.write(prefix + "}\n");
+        }
+    }
+
+    private String getMatchExpr(Element element, String output) {
+        if (element instanceof Token token && isLexer()) {
+            tokenTypes.add(token.type());
+            return "matchKind(KIND_" + getKind(token) + ")";
+        } else if (element instanceof Token token) {
+            if (token.type() == Token.Type.Lexeme) {
+                throw new IllegalStateException("Lexeme requires a lexer: " + token.text());
+            }
+            tokenTypes.add(token.type());
+            if (token.type() == Token.Type.Set) {
+                return "matchSet" + sets.get(token.text()) + "()";
+            } else {
+                String text = grammar.bytes() ? tokenConstants.get(token.text()) : getStringLiteral(token.text());
+                return "matchToken(" + text + ")";
+            }
+        } else if (element instanceof Symbol symbol) {
+            return "parse" + symbol.name() + "(" + output + ")";
+        } else {
+            throw new IllegalStateException("Unknown element type");
         }
+    }
+
+    private void generateTokenEvent(Writer writer, Rule rule, int nr, String prefix) throws IOException {
+        writer.write(prefix + "emit(EVENT_TOKEN, " + grammar.rules().indexOf(rule) + ", offset" + nr + ", this.offset);\n");
+    }
+
+    private Argument generateTokenValue(Writer writer, int nr, String prefix, boolean shared) throws IOException {
+        String span = shared ? "span" + nr : "new Span()";
+        if (grammar.spans() && isLexer()) {
+            writer.write(prefix + "Span token" + nr + " = " + span + ".set(tokenStarts[offset" + nr + "], tokenEnds[offset" + nr + "]);\n");
+            return new Argument("Span", "token" + nr, "token" + nr);
+        } else if (grammar.spans()) {
+            writer.write(prefix + "Span token" + nr + " = " + span + ".set(offset" + nr + ", this.offset);\n");
+        } else if (isLexer()) {
+            writer.write(prefix + "String token" + nr + " = input.subSequence(tokenStarts[offset" + nr + "], tokenEnds[offset" + nr + "]).toString();\n");
+        } else {
+            String tokenExpr = grammar.bytes() ? "decode(offset" + nr + ", this.offset)" : "input.subSequence(offset" + nr + ", this.offset).toString()";
+            writer.write(prefix + "String token" + nr + " = " + tokenExpr + ";\n");
+        }
+        return getTokenArgument(nr);
+    }
+
+    private void generateCallback(Writer writer, Rule rule, Element element, List<Argument> callbackArgs, String prefix) throws IOException {
+        String argumentExprs = getArgumentExprs(callbackArgs);
+        writer.write(prefix + getStack(rule.javaType()) + "[output] = callback." + element.callback() + "(" + argumentExprs + ");\n");
+    }
+
+    private void generateInstrumentedRule(Writer writer, Rule rule, String methodName) throws IOException {
+        int index = grammar.rules().indexOf(rule);
+        writer.write("\n");
+        writer.write("    private boolean " + methodName + "(int output) {\n");
+        writer.write("        ruleCalls[" + index + "]++;\n");
+        if (grammar.timed()) {
+            writer.write("        long start = System.nanoTime();\n");
+        }
+        writer.write("        boolean success = " + methodName + "Measured(output);\n");
+        if (grammar.timed()) {
+            writer.write("        ruleNanos[" + index + "] += System.nanoTime() - start;\n");
+        }
+        writer.write("        if (!success) {\n");
+        writer.write("            ruleFailures[" + index + "]++;\n");
+        writer.write("        }\n");
+        writer.write("        return success;\n");
         writer.write("    }\n");
     }
 
-    private void generateHelpers(Writer writer) throws IOException {
-        if (tokenTypes.contains(Token.Type.Token)) {
-            writer.write("\n");
-            writer.write("    private boolean matchToken(String token) {\n");
-            writer.write("        if (this.input.startsWith(token, this.offset)) {\n");
-            writer.write("            this.offset += token.length();\n");
+    private void generateTreeRule(Writer writer, Rule rule, String methodName) throws IOException {
+        writer.write("\n");
+        writer.write("    private boolean " + methodName + "(int output) {\n");
+        writer.write("        int node = openNode(" + grammar.rules().indexOf(rule) + ");\n");
+        writer.write("        if (" + methodName + "Children(output)) {\n");
+        writer.write("            closeNode(node);\n");
+        writer.write("            return true;\n");
+        writer.write("        }\n");
+        writer.write("        this.nodeCount = node;\n");
+        writer.write("        return false;\n");
+        writer.write("    }\n");
+    }
+
+    private void generateEventRule(Writer writer, Rule rule, String methodName) throws IOException {
+        int index = grammar.rules().indexOf(rule);
+        writer.write("\n");
+        writer.write("    private boolean " + methodName + "(int output) {\n");
+        writer.write("        int start = this.offset;\n");
+        writer.write("        int events = this.eventCount;\n");
+        writer.write("        emit(EVENT_ENTER, " + index + ", start, start);\n");
+        writer.write("        if (" + methodName + "Content(output)) {\n");
+        writer.write("            emit(EVENT_EXIT, " + index + ", start, this.offset);\n");
+        writer.write("            return true;\n");
+        writer.write("        }\n");
+        writer.write("        this.eventCount = events;\n");
+        writer.write("        return false;\n");
+        writer.write("    }\n");
+    }
+
+    private void generateMemoRule(Writer writer, Rule rule, String methodName) throws IOException {
+        int index = grammar.rules().indexOf(rule);
+        writer.write("\n");
+        writer.write("    private boolean " + methodName + "(int output) {\n");
+        writer.write("        int offset = this.offset;\n");
+        if (grammar.packrat()) {
+            writer.write("        int end = memoEnds[" + index + "][offset];\n");
+        } else {
+            writer.write("        int end = memoGet(" + index + ", offset);\n");
+        }
+        String examined = "            this.examined = Math.max(this.examined, memoExamined[" + index + "][offset]);\n";
+        writer.write("        if (end < 0) {\n");
+        if (grammar.incremental()) {
+            writer.write(examined);
+        }
+        writer.write("            return false;\n");
+        writer.write("        }\n");
+        if (grammar.packrat()) {
+            String slot = getStack(rule.javaType()) + "[output]";
+            writer.write("        if (end > 0 && Objects.equals(memoInputs[" + index + "][offset], " + slot + ")) {\n");
+            if (grammar.incremental()) {
+                writer.write(examined);
+            }
+            if (isPrimitive(rule.javaType())) {
+                writer.write("            " + slot + " = (" + getBoxedType(rule.javaType()) + ") memoOutputs[" + index + "][offset];\n");
+            } else {
+                writer.write("            " + slot + " = memoOutputs[" + index + "][offset];\n");
+            }
+            writer.write("            this.offset = end - 1;\n");
+            writer.write("            return true;\n");
+            writer.write("        }\n");
+            writer.write("        Object value = " + slot + ";\n");
+            String remember = "";
+            if (grammar.incremental()) {
+                writer.write("        int examined = this.examined;\n");
+                writer.write("        this.examined = offset;\n");
+                remember = "            memoExamined[" + index + "][offset] = this.examined;\n" //
+                        + "            this.examined = Math.max(examined, this.examined);\n";
+            }
+            writer.write("        if (parse" + rule.name() + "Uncached(output)) {\n");
+            writer.write(remember);
+            writer.write("            memoEnds[" + index + "][offset] = this.offset + 1;\n");
+            writer.write("            memoInputs[" + index + "][offset] = value;\n");
+            writer.write("            memoOutputs[" + index + "][offset] = " + slot + ";\n");
             writer.write("            return true;\n");
             writer.write("        } else {\n");
+            writer.write(remember);
+            writer.write("            memoEnds[" + index + "][offset] = -1;\n");
             writer.write("            return false;\n");
             writer.write("        }\n");
-            writer.write("    }\n");
-        }
-        if (tokenTypes.contains(Token.Type.Set)) {
-            writer.write("\n");
-            writer.write("    private boolean matchSet(String set) {\n");
-            writer.write("        if (offset < input.length() && set.contains(input.substring(offset, offset + 1))) {\n");
-            writer.write("            this.offset++;\n");
+        } else {
+            boolean silent = silentRules.contains(rule.name());
+            if (silent) {
+                writer.write("        if (end > 0) {\n");
+                writer.write("            this.offset = end - 1;\n");
+                writer.write("            return true;\n");
+                writer.write("        }\n");
+            }
+            writer.write("        if (parse" + rule.name() + "Uncached(output)) {\n");
+            if (silent) {
+                writer.write("            memoPut(" + index + ", offset, this.offset + 1);\n");
+            }
             writer.write("            return true;\n");
             writer.write("        } else {\n");
+            writer.write("            memoPut(" + index + ", offset, -1);\n");
             writer.write("            return false;\n");
             writer.write("        }\n");
-            writer.write("    }\n");
         }
+        writer.write("    }\n");
+    }
+
+    private void generateShiftMemo(Writer writer) throws IOException {
         writer.write("\n");
-        writer.write("    private static class Ref<T> {\n");
-        writer.write("        T value;\n");
+        writer.write("    private void shiftMemo(int start, int removed, int inserted) {\n");
+        writer.write("        int length = document.length() + 1;\n");
+        writer.write("        int shift = inserted - removed;\n");
+        writer.write("        for (int rule = 0; rule < memoEnds.length; rule++) {\n");
+        writer.write("            int[] ends = memoEnds[rule];\n");
+        writer.write("            if (ends == null) {\n");
+        writer.write("                continue;\n");
+        writer.write("            }\n");
+        writer.write("            int[] seen = memoExamined[rule];\n");
+        writer.write("            Object[] inputs = memoInputs[rule];\n");
+        writer.write("            Object[] outputs = memoOutputs[rule];\n");
+        writer.write("            for (int offset = 0; offset < start; offset++) {\n");
+        writer.write("                if (ends[offset] != 0 && seen[offset] > start) {\n");
+        writer.write("                    ends[offset] = 0;\n");
+        writer.write("                    inputs[offset] = null;\n");
+        writer.write("                    outputs[offset] = null;\n");
+        writer.write("                }\n");
+        writer.write("            }\n");
+        writer.write("            if (ends.length < length) {\n");
+        writer.write("                int capacity = Math.max(length, ends.length * 2);\n");
+        writer.write("                ends = memoEnds[rule] = Arrays.copyOf(ends, capacity);\n");
+        writer.write("                seen = memoExamined[rule] = Arrays.copyOf(seen, capacity);\n");
+        writer.write("                inputs = memoInputs[rule] = Arrays.copyOf(inputs, capacity);\n");
+        writer.write("                outputs = memoOutputs[rule] = Arrays.copyOf(outputs, capacity);\n");
+        writer.write("            }\n");
+        writer.write("            int tail = length - start - inserted;\n");
+        writer.write("            System.arraycopy(ends, start + removed, ends, start + inserted, tail);\n");
+        writer.write("            System.arraycopy(seen, start + removed, seen, start + inserted, tail);\n");
+        writer.write("            System.arraycopy(inputs, start + removed, inputs, start + inserted, tail);\n");
+        writer.write("            System.arraycopy(outputs, start + removed, outputs, start + inserted, tail);\n");
+        writer.write("            if (shift != 0) {\n");
+        writer.write("                for (int offset = start + inserted; offset < length; offset++) {\n");
+        writer.write("                    if (ends[offset] != 0) {\n");
+        writer.write("                        ends[offset] = ends[offset] < 0 ? -1 : ends[offset] + shift;\n");
+        writer.write("                        seen[offset] += shift;\n");
+        writer.write("                    }\n");
+        writer.write("                }\n");
+        writer.write("            }\n");
+        writer.write("            Arrays.fill(ends, start, start + inserted, 0);\n");
+        writer.write("            Arrays.fill(inputs, start, start + inserted, null);\n");
+        writer.write("            Arrays.fill(outputs, start, start + inserted, null);\n");
+        writer.write("            if (shift < 0) {\n");
+        writer.write("                Arrays.fill(ends, length, length - shift, 0);\n");
+        writer.write("                Arrays.fill(inputs, length, length - shift, null);\n");
+        writer.write("                Arrays.fill(outputs, length, length - shift, null);\n");
+        writer.write("            }\n");
+        writer.write("        }\n");
         writer.write("    }\n");
     }
 
-    private void generateCallbackInterface(Writer writer) throws IOException {
+    private void generateMemoHelpers(Writer writer) throws IOException {
         writer.write("\n");
-        writer.write("    public static interface Callback {\n");
-        for (Rule rule : grammar.rules()) {
-            for (Alternative alternative : rule.alternatives()) {
-                for (Element element : alternative.elements()) {
-                    if (element.callback() != null) {
-                        String argumentDecls = getArgumentDecls(callbacks.get(element.callback()));
-                        writer.write("\n");
-                        writer.write("        public " + rule.javaType() + " " + element.callback() + "(" + argumentDecls + ");\n");
-                    }
+        writer.write("    private void resetMemo() {\n");
+        if (isReaderInput() && grammar.packrat()) {
+            writer.write("        if (input instanceof ReaderInput reader) {\n");
+            writer.write("            reader.fill(Integer.MAX_VALUE);\n");
+            writer.write("        }\n");
+        }
+        writer.write("        int length = " + getInputLength() + " + 1;\n");
+        if (!grammar.packrat()) {
+            writer.write("        memoSparse = length > MEMO_DENSE_LIMIT" + (isReaderInput() ? " || input instanceof ReaderInput" : "") + ";\n");
+            writer.write("        if (memoSparse) {\n");
+            writer.write("            if (memoKeys == null) {\n");
+            writer.write("                memoKeys = new long[MEMO_SPARSE_SIZE];\n");
+            writer.write("                memoValues = new int[MEMO_SPARSE_SIZE];\n");
+            writer.write("            } else {\n");
+            writer.write("                Arrays.fill(memoKeys, 0);\n");
+            writer.write("            }\n");
+            writer.write("            return;\n");
+            writer.write("        }\n");
+        }
+        for (int index = 0; index < grammar.rules().size(); index++) {
+            if (isCached(grammar.rules().get(index))) {
+                writer.write("        memoEnds[" + index + "] = resetMemo(memoEnds[" + index + "], length);\n");
+                if (grammar.packrat()) {
+                    writer.write("        memoInputs[" + index + "] = resetMemo(memoInputs[" + index + "], length);\n");
+                    writer.write("        memoOutputs[" + index + "] = resetMemo(memoOutputs[" + index + "], length);\n");
+                }
+                if (grammar.incremental()) {
+                    writer.write("        memoExamined[" + index + "] = resetMemo(memoExamined[" + index + "], length);\n");
                 }
             }
         }
         writer.write("    }\n");
-    }
-
-    private String getArgumentExprs(List<Argument> arguments) {
-        return arguments.stream() //
-                .map(ca -> ca.expr) //
-                .collect(Collectors.joining(", "));
+        writer.write("\n");
+        writer.write("    private static int[] resetMemo(int[] memo, int length) {\n");
+        writer.write("        if (memo == null || memo.length < length) {\n");
+        writer.write("            return new int[length];\n");
+        writer.write("        }\n");
+        writer.write("        Arrays.fill(memo, 0, length, 0);\n");
+        writer.write("        return memo;\n");
+        writer.write("    }\n");
+        if (grammar.packrat()) {
+            writer.write("\n");
+            writer.write("    private static Object[] resetMemo(Object[] memo, int length) {\n");
+            writer.write("        if (memo == null || memo.length < length) {\n");
+            writer.write("            return new Object[length];\n");
+            writer.write("        }\n");
+            writer.write("        Arrays.fill(memo, 0, length, null);\n");
+            writer.write("        return memo;\n");
+            writer.write("    }\n");
+            if (grammar.incremental()) {
+                generateShiftMemo(writer);
+            }
+        } else {
+            writer.write("\n");
+            writer.write("    private int memoGet(int rule, int offset) {\n");
+            writer.write("        if (!memoSparse) {\n");
+            writer.write("            return memoEnds[rule][offset];\n");
+            writer.write("        }\n");
+            writer.write("        long key = ((long) offset << 16 | rule) + 1;\n");
+            writer.write("        int slot = memoSlot(key);\n");
+            writer.write("        for (int probe = 0; probe < MEMO_PROBES; probe++) {\n");
+            writer.write("            int index = (slot + probe) & (MEMO_SPARSE_SIZE - 1);\n");
+            writer.write("            if (memoKeys[index] == key) {\n");
+            writer.write("                return memoValues[index];\n");
+            writer.write("            }\n");
+            writer.write("            if (memoKeys[index] == 0) {\n");
+            writer.write("                return 0;\n");
+            writer.write("            }\n");
+            writer.write("        }\n");
+            writer.write("        return 0;\n");
+            writer.write("    }\n");
+            writer.write("\n");
+            writer.write("    private void memoPut(int rule, int offset, int end) {\n");
+            writer.write("        if (!memoSparse) {\n");
+            writer.write("            memoEnds[rule][offset] = end;\n");
+            writer.write("            return;\n");
+            writer.write("        }\n");
+            writer.write("        long key = ((long) offset << 16 | rule) + 1;\n");
+            writer.write("        int slot = memoSlot(key);\n");
+            writer.write("        for (int probe = 0; probe < MEMO_PROBES; probe++) {\n");
+            writer.write("            int index = (slot + probe) & (MEMO_SPARSE_SIZE - 1);\n");
+            writer.write("            if (memoKeys[index] == key || memoKeys[index] == 0) {\n");
+            writer.write("                memoKeys[index] = key;\n");
+            writer.write("                memoValues[index] = end;\n");
+            writer.write("                return;\n");
+            writer.write("            }\n");
+            writer.write("        }\n");
+            writer.write("        memoKeys[slot] = key;\n");
+            writer.write("        memoValues[slot] = end;\n");
+            writer.write("    }\n");
+            writer.write("\n");
+            writer.write("    private static int memoSlot(long key) {\n");
+            writer.write("        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & (MEMO_SPARSE_SIZE - 1);\n");
+            writer.write("    }\n");
+        }
+    }
+
+    private void generateIncrementalRule(Writer writer, String javaClass, Rule rule) throws IOException {
+        String resultType = getBoxedType(rule.javaType());
+        writer.write("\n");
+        writer.write("    public " + resultType + " parse" + rule.name() + "Incremental(CharSequence input) {\n");
+        writer.write("        " + javaClass + " context = acquireDocument();\n");
+        writer.write("        try {\n");
+        writer.write("            context.document = new StringBuilder(input);\n");
+        writer.write("            context.input = context.document;\n");
+        writer.write("            context.resetMemo();\n");
+        writer.write("            return context.parse" + rule.name() + "InContext(context.document);\n");
+        writer.write("        } finally {\n");
+        writer.write("            releaseDocument(context);\n");
+        writer.write("        }\n");
+        writer.write("    }\n");
+        writer.write("\n");
+        writer.write("    public " + resultType + " reparse" + rule.name() + "(int offset, int removed, CharSequence inserted) {\n");
+        writer.write("        " + javaClass + " context = acquireDocument();\n");
+        writer.write("        try {\n");
+        writer.write("            if (context.document == null) {\n");
+        writer.write("                throw new IllegalStateException(\"No document to reparse\");\n");
+        writer.write("            }\n");
+        writer.write("            context.document.replace(offset, offset + removed, inserted.toString());\n");
+        writer.write("            context.shiftMemo(offset, removed, inserted.length());\n");
+        writer.write("            return context.parse" + rule.name() + "InContext(context.document);\n");
+        writer.write("        } finally {\n");
+        writer.write("            releaseDocument(context);\n");
+        writer.write("        }\n");
+        writer.write("    }\n");
+    }
+
+    private void generateStreamingRule(Writer writer, Rule rule) throws IOException {
+        if (isReaderInput()) {
+            writer.write("\n");
+            writer.write("    public " + getResultType(rule) + " parse" + rule.name() + "(Reader input) throws IOException {\n");
+            writer.write("        try {\n");
+            writer.write("            return parse" + rule.name() + "(new ReaderInput(input));\n");
+            writer.write("        } catch (UncheckedIOException e) {\n");
+            writer.write("            throw e.getCause();\n");
+            writer.write("        }\n");
+            writer.write("    }\n");
+        }
+        writer.write("\n");
+        writer.write("    public " + getResultType(rule) + " parse" + rule.name() + "(Path input) throws IOException {\n");
+        writer.write("        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {\n");
+        writer.write("            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());\n");
+        writer.write("            return parse" + rule.name() + "(" + (grammar.bytes() ? "buffer" : "new MappedInput(buffer, 0, buffer.limit())") + ");\n");
+        writer.write("        }\n");
+        writer.write("    }\n");
+    }
+
+    private void generateStreamingHelpers(Writer writer) throws IOException {
+        writer.write("\n");
+        writer.write("    private boolean available(int end) {\n");
+        writer.write("        return end <= input.length() || input instanceof ReaderInput reader && reader.fill(end);\n");
+        writer.write("    }\n");
+        writer.write("\n");
+        writer.write("    private static final class ReaderInput implements CharSequence {\n");
+        writer.write("\n");
+        writer.write("        private final Reader reader;\n");
+        writer.write("        private char[] buffer = new char[8192];\n");
+        if (isReleasing()) {
+            writer.write("        private int base;\n");
+            writer.write("        private int released;\n");
+        }
+        writer.write("        private int length;\n");
+        writer.write("        private boolean eof;\n");
+        writer.write("\n");
+        writer.write("        ReaderInput(Reader reader) {\n");
+        writer.write("            this.reader = reader;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        boolean fill(int end) {\n");
+        writer.write("            try {\n");
+        writer.write("                while (length < end && !eof) {\n");
+        if (isReleasing()) {
+            writer.write("                    if (length - base == buffer.length && released - base >= buffer.length / 2) {\n");
+            writer.write("                        System.arraycopy(buffer, released - base, buffer, 0, length - released);\n");
+            writer.write("                        base = released;\n");
+            writer.write("                    } else if (length - base == buffer.length) {\n");
+            writer.write("                        buffer = Arrays.copyOf(buffer, buffer.length * 2);\n");
+            writer.write("                    }\n");
+            writer.write("                    int count = reader.read(buffer, length - base, buffer.length - (length - base));\n");
+        } else {
+            writer.write("                    if (length == buffer.length) {\n");
+            writer.write("                        buffer = Arrays.copyOf(buffer, buffer.length * 2);\n");
+            writer.write("                    }\n");
+            writer.write("                    int count = reader.read(buffer, length, buffer.length - length);\n");
+        }
+        writer.write("                    if (count < 0) {\n");
+        writer.write("                        eof = true;\n");
+        writer.write("                    } else {\n");
+        writer.write("                        length += count;\n");
+        writer.write("                    }\n");
+        writer.write("                }\n");
+        writer.write("                return end <= length;\n");
+        writer.write("            } catch (IOException e) {\n");
+        writer.write("                throw new UncheckedIOException(e);\n");
+        writer.write("            }\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        if (isReleasing()) {
+            writer.write("        void release(int end) {\n");
+            writer.write("            released = end;\n");
+            writer.write("        }\n");
+            writer.write("\n");
+        }
+        writer.write("        @Override\n");
+        writer.write("        public int length() {\n");
+        writer.write("            return length;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        @Override\n");
+        writer.write("        public char charAt(int index) {\n");
+        writer.write("            return buffer[index" + (isReleasing() ? " - base" : "") + "];\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        @Override\n");
+        writer.write("        public CharSequence subSequence(int start, int end) {\n");
+        writer.write("            return new String(buffer, start" + (isReleasing() ? " - base" : "") + ", end - start);\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        @Override\n");
+        writer.write("        public String toString() {\n");
+        writer.write("            return new String(buffer, 0, length" + (isReleasing() ? " - base" : "") + ");\n");
+        writer.write("        }\n");
+        writer.write("    }\n");
+        writer.write("\n");
+        writer.write("    private static final class MappedInput implements CharSequence {\n");
+        writer.write("\n");
+        writer.write("        private final ByteBuffer buffer;\n");
+        writer.write("        private final int start;\n");
+        writer.write("        private final int end;\n");
+        writer.write("\n");
+        writer.write("        MappedInput(ByteBuffer buffer, int start, int end) {\n");
+        writer.write("            this.buffer = buffer;\n");
+        writer.write("            this.start = start;\n");
+        writer.write("            this.end = end;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        @Override\n");
+        writer.write("        public int length() {\n");
+        writer.write("            return end - start;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        @Override\n");
+        writer.write("        public char charAt(int index) {\n");
+        writer.write("            return (char) (buffer.get(start + index) & 0xFF);\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        @Override\n");
+        writer.write("        public CharSequence subSequence(int start, int end) {\n");
+        writer.write("            return new MappedInput(buffer, this.start + start, this.start + end);\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        @Override\n");
+        writer.write("        public String toString() {\n");
+        writer.write("            byte[] bytes = new byte[end - start];\n");
+        writer.write("            buffer.get(start, bytes);\n");
+        writer.write("            return new String(bytes, StandardCharsets.UTF_8);\n");
+        writer.write("        }\n");
+        writer.write("    }\n");
+    }
+
+    private void generateLexerConstants(Writer writer) throws IOException {
+        Dfa dfa = Dfa.build(findPatterns());
+        for (int kind : new TreeSet<>(kinds.values())) {
+            writer.write("    private static final int KIND_" + kind + " = " + kind + ";\n");
+        }
+        writer.write("    private static final int CLASS_COUNT = " + dfa.classStarts().length + ";\n");
+        writer.write("    private static final int[] CLASS_STARTS = {");
+        generateIntArray(writer, Arrays.stream(dfa.classStarts()).mapToObj(Generator::getCharLiteral).collect(Collectors.toList()));
+        writer.write("    private static final int[] TRANSITIONS = {");
+        generateIntArray(writer, Arrays.stream(dfa.transitions()).flatMapToInt(Arrays::stream).mapToObj(Integer::toString).collect(Collectors.toList()));
+        writer.write("    private static final int[] ACCEPTS = {");
+        generateIntArray(writer, Arrays.stream(dfa.accepts()).mapToObj(Integer::toString).collect(Collectors.toList()));
+        writer.write("\n");
+    }
+
+    private void generateIntArray(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            writer.write((i % 16 == 0 ? "\n            " : " ") + values.get(i) + (i < values.size() - 1 ? "," : ""));
+        }
+        writer.write(" };\n");
+    }
+
+    private void generateLexerHelpers(Writer writer) throws IOException {
+        int skipped = getSkippedKind();
+        writer.write("\n");
+        writer.write("    private boolean tokenize() {\n");
+        writer.write("        int length = input.length();\n");
+        writer.write("        int count = 0;\n");
+        writer.write("        int position = 0;\n");
+        writer.write("        while (position < length) {\n");
+        writer.write("            int state = 0;\n");
+        writer.write("            int kind = -1;\n");
+        writer.write("            int end = position;\n");
+        writer.write("            for (int i = position; i < length; i++) {\n");
+        writer.write("                state = TRANSITIONS[state * CLASS_COUNT + classify(input.charAt(i))];\n");
+        writer.write("                if (state < 0) {\n");
+        writer.write("                    break;\n");
+        writer.write("                }\n");
+        writer.write("                if (ACCEPTS[state] >= 0) {\n");
+        writer.write("                    kind = ACCEPTS[state];\n");
+        writer.write("                    end = i + 1;\n");
+        writer.write("                }\n");
+        writer.write("            }\n");
+        writer.write("            if (kind < 0) {\n");
+        writer.write("                return false;\n");
+        writer.write("            }\n");
+        String indent = "";
+        if (skipped >= 0) {
+            writer.write("            if (kind < KIND_" + skipped + ") {\n");
+            indent = "    ";
+        }
+        writer.write(indent + "            if (count == tokenKinds.length) {\n");
+        writer.write(indent + "                tokenKinds = Arrays.copyOf(tokenKinds, count * 2);\n");
+        writer.write(indent + "                tokenStarts = Arrays.copyOf(tokenStarts, count * 2);\n");
+        writer.write(indent + "                tokenEnds = Arrays.copyOf(tokenEnds, count * 2);\n");
+        writer.write(indent + "            }\n");
+        writer.write(indent + "            tokenKinds[count] = kind;\n");
+        writer.write(indent + "            tokenStarts[count] = position;\n");
+        writer.write(indent + "            tokenEnds[count] = end;\n");
+        writer.write(indent + "            count++;\n");
+        if (skipped >= 0) {
+            writer.write("            }\n");
+        }
+        writer.write("            position = end;\n");
+        writer.write("        }\n");
+        writer.write("        tokenCount = count;\n");
+        writer.write("        return true;\n");
+        writer.write("    }\n");
+        writer.write("\n");
+        writer.write("    private static int classify(char c) {\n");
+        writer.write("        int index = Arrays.binarySearch(CLASS_STARTS, c);\n");
+        writer.write("        return index >= 0 ? index : -index - 2;\n");
+        writer.write("    }\n");
+        if (!tokenTypes.isEmpty()) {
+            writer.write("\n");
+            writer.write("    private boolean matchKind(int kind) {\n");
+            writer.write("        if (offset < tokenCount && tokenKinds[offset] == kind) {\n");
+            writer.write("            this.offset++;\n");
+            writer.write("            return true;\n");
+            writer.write("        }\n");
+            writer.write("        return false;\n");
+            writer.write("    }\n");
+        }
+        if (dispatched) {
+            writer.write("\n");
+            writer.write("    private int peek(int ahead) {\n");
+            writer.write("        return offset + ahead < tokenCount ? tokenKinds[offset + ahead] : -1;\n");
+            writer.write("    }\n");
+        }
+    }
+
+    private void generateTokenConstants(Writer writer) throws IOException {
+        for (Map.Entry<String, String> constant : tokenConstants.entrySet()) {
+            List<String> literals = new ArrayList<>();
+            for (byte b : constant.getKey().getBytes(StandardCharsets.UTF_8)) {
+                literals.add(getByteLiteral(b));
+            }
+            writer.write("    private static final byte[] " + constant.getValue() + " = { " + String.join(", ", literals) + " };\n");
+        }
+        writer.write("\n");
+    }
+
+    private void generateSetConstants(Writer writer) throws IOException {
+        boolean constants = false;
+        for (Map.Entry<String, Integer> set : sets.entrySet()) {
+            BitSet bits = getSetBits(set.getKey());
+            if (isSetRange(bits)) {
+                continue;
+            }
+            if (bits.length() <= 256) {
+                List<String> words = new ArrayList<>();
+                for (long word : bits.toLongArray()) {
+                    words.add("0x" + Long.toHexString(word) + "L");
+                }
+                writer.write("    private static final long[] SET_" + set.getValue() + " = { " + String.join(", ", words) + " };\n");
+            } else {
+                writer.write("    private static final BitSet SET_" + set.getValue() + " = createSet(" + getStringLiteral(set.getKey()) + ");\n");
+            }
+            constants = true;
+        }
+        if (constants) {
+            writer.write("\n");
+        }
+    }
+
+    private void generateSetHelpers(Writer writer) throws IOException {
+        for (Map.Entry<String, Integer> set : sets.entrySet()) {
+            BitSet bits = getSetBits(set.getKey());
+            String constant = "SET_" + set.getValue();
+            String condition;
+            if (bits.cardinality() == 1) {
+                condition = "c == " + getCharLiteral(bits.nextSetBit(0));
+            } else if (isSetRange(bits)) {
+                condition = "c >= " + getCharLiteral(bits.nextSetBit(0)) + " && c <= " + getCharLiteral(bits.length() - 1);
+            } else if (bits.length() <= 256) {
+                condition = "c < " + (bits.toLongArray().length * 64) + " && (" + constant + "[c >>> 6] & (1L << c)) != 0";
+            } else {
+                condition = constant + ".get(c)";
+            }
+            writer.write("\n");
+            writer.write("    private boolean matchSet" + set.getValue() + "() {\n");
+            if (grammar.incremental()) {
+                writer.write("        examined = Math.max(examined, offset + 1);\n");
+            }
+            if (grammar.bytes()) {
+                writer.write("        if (offset < input.limit()) {\n");
+                writer.write("            int c = input.get(offset) & 0xFF;\n");
+            } else {
+                writer.write("        if (" + (isReaderInput() ? "available(offset + 1)" : "offset < input.length()") + ") {\n");
+                writer.write("            char c = input.charAt(offset);\n");
+            }
+            writer.write("            if (" + condition + ") {\n");
+            writer.write("                this.offset++;\n");
+            writer.write("                return true;\n");
+            writer.write("            }\n");
+            writer.write("        }\n");
+            writer.write("        return false;\n");
+            writer.write("    }\n");
+        }
+        if (sets.keySet().stream().anyMatch(set -> isSetBitSet(getSetBits(set)))) {
+            writer.write("\n");
+            writer.write("    private static BitSet createSet(String set) {\n");
+            writer.write("        BitSet bits = new BitSet();\n");
+            writer.write("        set.chars().forEach(bits::set);\n");
+            writer.write("        return bits;\n");
+            writer.write("    }\n");
+        }
+    }
+
+    private void generateHelpers(Writer writer) throws IOException {
+        if (tokenTypes.contains(Token.Type.Token)) {
+            writer.write("\n");
+            writer.write("    private boolean matchToken(String token) {\n");
+            writer.write("        int length = token.length();\n");
+            if (grammar.incremental()) {
+                writer.write("        examined = Math.max(examined, this.offset + length);\n");
+            }
+            if (isReaderInput()) {
+                writer.write("        if (!available(this.offset + length)) {\n");
+            } else {
+                writer.write("        if (this.offset + length > input.length()) {\n");
+            }
+            writer.write("            return false;\n");
+            writer.write("        }\n");
+            writer.write("        for (int i = 0; i < length; i++) {\n");
+            writer.write("            if (input.charAt(this.offset + i) != token.charAt(i)) {\n");
+            writer.write("                return false;\n");
+            writer.write("            }\n");
+            writer.write("        }\n");
+            writer.write("        this.offset += length;\n");
+            writer.write("        return true;\n");
+            writer.write("    }\n");
+        }
+        if (dispatched) {
+            writer.write("\n");
+            writer.write("    private int peek(int ahead) {\n");
+            if (grammar.incremental()) {
+                writer.write("        examined = Math.max(examined, offset + ahead + 1);\n");
+            }
+            writer.write("        return " + (isReaderInput() ? "available(offset + ahead + 1)" : "offset + ahead < input.length()") + " ? input.charAt(offset + ahead) : -1;\n");
+            writer.write("    }\n");
+        }
+        generateSetHelpers(writer);
+    }
+
+    private void generateByteHelpers(Writer writer) throws IOException {
+        if (tokenTypes.contains(Token.Type.Token)) {
+            writer.write("\n");
+            writer.write("    private boolean matchToken(byte[] token) {\n");
+            writer.write("        int length = token.length;\n");
+            writer.write("        if (this.offset + length > input.limit()) {\n");
+            writer.write("            return false;\n");
+            writer.write("        }\n");
+            writer.write("        for (int i = 0; i < length; i++) {\n");
+            writer.write("            if (input.get(this.offset + i) != token[i]) {\n");
+            writer.write("                return false;\n");
+            writer.write("            }\n");
+            writer.write("        }\n");
+            writer.write("        this.offset += length;\n");
+            writer.write("        return true;\n");
+            writer.write("    }\n");
+        }
+        if (dispatched) {
+            writer.write("\n");
+            writer.write("    private int peek(int ahead) {\n");
+            writer.write("        return offset + ahead < input.limit() ? input.get(offset + ahead) & 0xFF : -1;\n");
+            writer.write("    }\n");
+        }
+        generateSetHelpers(writer);
+        if (hasPassedTokens()) {
+            writer.write("\n");
+            writer.write("    private String decode(int start, int end) {\n");
+            writer.write("        byte[] bytes = new byte[end - start];\n");
+            writer.write("        input.get(start, bytes);\n");
+            writer.write("        return new String(bytes, StandardCharsets.UTF_8);\n");
+            writer.write("    }\n");
+        }
+    }
+
+    private void generateSpanClass(Writer writer) throws IOException {
+        writer.write("\n");
+        writer.write("    public final class Span implements CharSequence {\n");
+        writer.write("\n");
+        writer.write("        private int start;\n");
+        writer.write("        private int end;\n");
+        writer.write("\n");
+        writer.write("        private Span set(int start, int end) {\n");
+        writer.write("            this.start = start;\n");
+        writer.write("            this.end = end;\n");
+        writer.write("            return this;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        public int start() {\n");
+        writer.write("            return start;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        public int end() {\n");
+        writer.write("            return end;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        @Override\n");
+        writer.write("        public int length() {\n");
+        writer.write("            return end - start;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        @Override\n");
+        writer.write("        public char charAt(int index) {\n");
+        if (grammar.bytes()) {
+            writer.write("            return (char) (input.get(start + index) & 0xFF);\n");
+        } else {
+            writer.write("            return input.charAt(start + index);\n");
+        }
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        @Override\n");
+        writer.write("        public CharSequence subSequence(int start, int end) {\n");
+        if (grammar.bytes()) {
+            writer.write("            return decode(this.start + start, this.start + end);\n");
+        } else {
+            writer.write("            return input.subSequence(this.start + start, this.start + end);\n");
+        }
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        @Override\n");
+        writer.write("        public String toString() {\n");
+        if (grammar.bytes()) {
+            writer.write("            return decode(start, end);\n");
+        } else {
+            writer.write("            return input.subSequence(start, end).toString();\n");
+        }
+        writer.write("        }\n");
+        writer.write("    }\n");
+    }
+
+    private void generateStackHelpers(Writer writer) throws IOException {
+        writer.write("\n");
+        writer.write("    private int push() {\n");
+        Set<String> stackTypes = getStackTypes();
+        writer.write("        if (depth == " + getStack(stackTypes.iterator().next()) + ".length) {\n");
+        for (String stackType : stackTypes) {
+            writer.write("            " + getStack(stackType) + " = Arrays.copyOf(" + getStack(stackType) + ", depth * 2);\n");
+        }
+        writer.write("        }\n");
+        for (String stackType : stackTypes) {
+            String initialValue = stackType.equals("boolean") ? "false" : isPrimitive(stackType) ? "0" : "null";
+            writer.write("        " + getStack(stackType) + "[depth] = " + initialValue + ";\n");
+        }
+        writer.write("        return depth++;\n");
+        writer.write("    }\n");
+    }
+
+    private void generateParseAll(Writer writer, String javaClass) throws IOException {
+        String resultType = getResultType(recordRule);
+        writer.write("\n");
+        writer.write("    public List<" + resultType + "> parseAll(CharSequence input) {\n");
+        writer.write("        List<CharSequence> records = new ArrayList<>();\n");
+        writer.write("        for (int start = 0; start < input.length(); ) {\n");
+        writer.write("            int end = findRecordEnd(input, start);\n");
+        writer.write("            records.add(input.subSequence(start, end));\n");
+        writer.write("            start = end + RECORD_SEPARATOR.length();\n");
+        writer.write("        }\n");
+        writer.write("        List<" + resultType + "> results = new ArrayList<>(Collections.nCopies(records.size(), null));\n");
+        writer.write("        int chunkSize = Math.max(1, records.size() / (ForkJoinPool.getCommonPoolParallelism() * 4));\n");
+        writer.write("        IntStream.range(0, (records.size() + chunkSize - 1) / chunkSize).parallel().forEach(chunk -> {\n");
+        writer.write("            " + javaClass + " context = acquire();\n");
+        writer.write("            try {\n");
+        writer.write("                int end = Math.min(records.size(), (chunk + 1) * chunkSize);\n");
+        writer.write("                for (int i = chunk * chunkSize; i < end; i++) {\n");
+        writer.write("                    results.set(i, context.parse" + recordRule.name() + "InContext(records.get(i)));\n");
+        writer.write("                }\n");
+        writer.write("            } finally {\n");
+        writer.write("                release(context);\n");
+        writer.write("            }\n");
+        writer.write("        });\n");
+        writer.write("        return results;\n");
+        writer.write("    }\n");
+        writer.write("\n");
+        writer.write("    private static int findRecordEnd(CharSequence input, int start) {\n");
+        writer.write("        int length = RECORD_SEPARATOR.length();\n");
+        writer.write("        for (int end = start; end + length <= input.length(); end++) {\n");
+        writer.write("            int i = 0;\n");
+        writer.write("            while (i < length && input.charAt(end + i) == RECORD_SEPARATOR.charAt(i)) {\n");
+        writer.write("                i++;\n");
+        writer.write("            }\n");
+        writer.write("            if (i == length) {\n");
+        writer.write("                return end;\n");
+        writer.write("            }\n");
+        writer.write("        }\n");
+        writer.write("        return input.length();\n");
+        writer.write("    }\n");
+    }
+
+    private void generateTreeHelpers(Writer writer) throws IOException {
+        writer.write("\n");
+        writer.write("    private int openNode(int rule) {\n");
+        writer.write("        if (nodeCount == nodeRules.length) {\n");
+        writer.write("            nodeRules = Arrays.copyOf(nodeRules, nodeCount * 2);\n");
+        writer.write("            nodeStarts = Arrays.copyOf(nodeStarts, nodeCount * 2);\n");
+        writer.write("            nodeEnds = Arrays.copyOf(nodeEnds, nodeCount * 2);\n");
+        writer.write("            nodeNexts = Arrays.copyOf(nodeNexts, nodeCount * 2);\n");
+        writer.write("        }\n");
+        writer.write("        nodeRules[nodeCount] = rule;\n");
+        writer.write("        nodeStarts[nodeCount] = offset;\n");
+        writer.write("        return nodeCount++;\n");
+        writer.write("    }\n");
+        writer.write("\n");
+        writer.write("    private void closeNode(int node) {\n");
+        writer.write("        nodeEnds[node] = offset;\n");
+        writer.write("        nodeNexts[node] = nodeCount;\n");
+        writer.write("    }\n");
+        writer.write("\n");
+        writer.write("    private Tree buildTree() {\n");
+        writer.write("        int[] firstChildren = new int[nodeCount];\n");
+        writer.write("        int[] nextSiblings = new int[nodeCount];\n");
+        writer.write("        Arrays.fill(firstChildren, -1);\n");
+        writer.write("        Arrays.fill(nextSiblings, -1);\n");
+        writer.write("        for (int node = 0; node < nodeCount; node++) {\n");
+        writer.write("            if (nodeNexts[node] > node + 1) {\n");
+        writer.write("                firstChildren[node] = node + 1;\n");
+        writer.write("                for (int child = node + 1; nodeNexts[child] < nodeNexts[node]; child = nodeNexts[child]) {\n");
+        writer.write("                    nextSiblings[child] = nodeNexts[child];\n");
+        writer.write("                }\n");
+        writer.write("            }\n");
+        writer.write("        }\n");
+        writer.write("        return new Tree(input, Arrays.copyOf(nodeRules, nodeCount), Arrays.copyOf(nodeStarts, nodeCount), Arrays.copyOf(nodeEnds, nodeCount), firstChildren, nextSiblings);\n");
+        writer.write("    }\n");
+    }
+
+    private void generateEventHelpers(Writer writer) throws IOException {
+        writer.write("\n");
+        writer.write("    private void emit(int kind, int rule, int start, int end) {\n");
+        writer.write("        if (eventCount == eventKinds.length) {\n");
+        writer.write("            eventKinds = Arrays.copyOf(eventKinds, eventCount * 2);\n");
+        writer.write("            eventRules = Arrays.copyOf(eventRules, eventCount * 2);\n");
+        writer.write("            eventStarts = Arrays.copyOf(eventStarts, eventCount * 2);\n");
+        writer.write("            eventEnds = Arrays.copyOf(eventEnds, eventCount * 2);\n");
+        writer.write("        }\n");
+        writer.write("        eventKinds[eventCount] = kind;\n");
+        writer.write("        eventRules[eventCount] = rule;\n");
+        writer.write("        eventStarts[eventCount] = start;\n");
+        writer.write("        eventEnds[eventCount] = end;\n");
+        writer.write("        eventCount++;\n");
+        writer.write("        if (choices == 0) {\n");
+        writer.write("            flushEvents();\n");
+        writer.write("        }\n");
+        writer.write("    }\n");
+        writer.write("\n");
+        writer.write("    private void flushEvents() {\n");
+        writer.write("        for (int i = 0; i < eventCount; i++) {\n");
+        writer.write("            String rule = RULE_NAMES[eventRules[i]];\n");
+        writer.write("            if (eventKinds[i] == EVENT_ENTER) {\n");
+        writer.write("                listener.enterRule(rule, eventStarts[i]);\n");
+        writer.write("            } else if (eventKinds[i] == EVENT_EXIT) {\n");
+        writer.write("                listener.exitRule(rule, eventStarts[i], eventEnds[i]);\n");
+        writer.write("            } else {\n");
+        writer.write("                listener.token(rule, input.subSequence(eventStarts[i], eventEnds[i]), eventStarts[i], eventEnds[i]);\n");
+        writer.write("            }\n");
+        writer.write("        }\n");
+        writer.write("        eventCount = 0;\n");
+        writer.write("    }\n");
+    }
+
+    private void generateCommitHelper(Writer writer) throws IOException {
+        writer.write("\n");
+        writer.write("    private void commit() {\n");
+        writer.write("        if (choices == 0) {\n");
+        if (grammar.events()) {
+            writer.write("            flushEvents();\n");
+        }
+        if (isReleasing()) {
+            writer.write("            if (input instanceof ReaderInput reader) {\n");
+            writer.write("                reader.release(offset);\n");
+            writer.write("            }\n");
+        }
+        writer.write("        }\n");
+        writer.write("    }\n");
+    }
+
+    private void generateMetricsHelpers(Writer writer) throws IOException {
+        writer.write("\n");
+        writer.write("    private void backtrack(int rule, int offset) {\n");
+        writer.write("        ruleBacktracks[rule]++;\n");
+        writer.write("        ruleRescanned[rule] += this.offset - offset;\n");
+        writer.write("    }\n");
+        writer.write("\n");
+        writer.write("    private void reportMetrics() {\n");
+        writer.write("        for (int rule = 0; rule < RULE_NAMES.length; rule++) {\n");
+        writer.write("            if (ruleCalls[rule] > 0) {\n");
+        writer.write("                metrics.report(RULE_NAMES[rule], ruleCalls[rule], ruleFailures[rule], ruleBacktracks[rule], ruleRescanned[rule], "
+                + (grammar.timed() ? "ruleNanos[rule]" : "0") + ");\n");
+        writer.write("            }\n");
+        writer.write("        }\n");
+        writer.write("        Arrays.fill(ruleCalls, 0);\n");
+        writer.write("        Arrays.fill(ruleFailures, 0);\n");
+        writer.write("        Arrays.fill(ruleBacktracks, 0);\n");
+        writer.write("        Arrays.fill(ruleRescanned, 0);\n");
+        if (grammar.timed()) {
+            writer.write("        Arrays.fill(ruleNanos, 0);\n");
+        }
+        writer.write("    }\n");
+    }
+
+    private void generateContextHelpers(Writer writer, String javaClass) throws IOException {
+        writer.write("\n");
+        writer.write("    private " + javaClass + " acquire() {\n");
+        writer.write("        " + javaClass + " context = contexts.poll();\n");
+        String params = getConstructorParams(false);
+        writer.write("        return context != null ? context : new " + javaClass + "(" + (params.isEmpty() ? "" : params + ", ") + "null);\n");
+        writer.write("    }\n");
+        writer.write("\n");
+        writer.write("    private void release(" + javaClass + " context) {\n");
+        if (grammar.instrumented()) {
+            writer.write("        context.reportMetrics();\n");
+        }
+        writer.write("        context.input = null;\n");
+        if (getStackTypes().contains("Object")) {
+            writer.write("        Arrays.fill(context.values, null);\n");
+        }
+        if (grammar.packrat()) {
+            writer.write("        for (int rule = 0; rule < context.memoInputs.length; rule++) {\n");
+            writer.write("            if (context.memoInputs[rule] != null) {\n");
+            writer.write("                Arrays.fill(context.memoInputs[rule], null);\n");
+            writer.write("                Arrays.fill(context.memoOutputs[rule], null);\n");
+            writer.write("            }\n");
+            writer.write("        }\n");
+        }
+        writer.write("        contexts.offer(context);\n");
+        writer.write("    }\n");
+        if (grammar.incremental()) {
+            writer.write("\n");
+            writer.write("    private " + javaClass + " acquireDocument() {\n");
+            writer.write("        " + javaClass + " context = documentContext;\n");
+            writer.write("        documentContext = null;\n");
+            writer.write("        return context != null ? context : new " + javaClass + "(" + (params.isEmpty() ? "" : params + ", ") + "null);\n");
+            writer.write("    }\n");
+            writer.write("\n");
+            writer.write("    private void releaseDocument(" + javaClass + " context) {\n");
+            if (grammar.instrumented()) {
+                writer.write("        context.reportMetrics();\n");
+            }
+            writer.write("        context.input = null;\n");
+            if (getStackTypes().contains("Object")) {
+                writer.write("        Arrays.fill(context.values, null);\n");
+            }
+            writer.write("        documentContext = context;\n");
+            writer.write("    }\n");
+        }
+    }
+
+    private void generateCallbackInterface(Writer writer) throws IOException {
+        writer.write("\n");
+        writer.write("    public static interface Callback {\n");
+        Set<String> declared = new HashSet<>();
+        for (Rule rule : grammar.rules()) {
+            for (Alternative alternative : rule.alternatives()) {
+                for (Element element : alternative.elements()) {
+                    if (element.callback() != null && declared.add(element.callback())) {
+                        String argumentDecls = getArgumentDecls(callbacks.get(element.callback()));
+                        writer.write("\n");
+                        writer.write("        public " + rule.javaType() + " " + element.callback() + "(" + argumentDecls + ");\n");
+                    }
+                }
+            }
+        }
+        writer.write("    }\n");
+    }
+
+    private void generateTreeClasses(Writer writer) throws IOException {
+        writer.write("\n");
+        writer.write("    public static final class Tree {\n");
+        writer.write("\n");
+        writer.write("        private final CharSequence input;\n");
+        writer.write("        private final int[] rules;\n");
+        writer.write("        private final int[] starts;\n");
+        writer.write("        private final int[] ends;\n");
+        writer.write("        private final int[] firstChildren;\n");
+        writer.write("        private final int[] nextSiblings;\n");
+        writer.write("\n");
+        writer.write("        private Tree(CharSequence input, int[] rules, int[] starts, int[] ends, int[] firstChildren, int[] nextSiblings) {\n");
+        writer.write("            this.input = input;\n");
+        writer.write("            this.rules = rules;\n");
+        writer.write("            this.starts = starts;\n");
+        writer.write("            this.ends = ends;\n");
+        writer.write("            this.firstChildren = firstChildren;\n");
+        writer.write("            this.nextSiblings = nextSiblings;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        public int size() {\n");
+        writer.write("            return rules.length;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        public Cursor cursor() {\n");
+        writer.write("            return new Cursor(this);\n");
+        writer.write("        }\n");
+        writer.write("    }\n");
+        writer.write("\n");
+        writer.write("    public static final class Cursor {\n");
+        writer.write("\n");
+        writer.write("        private final Tree tree;\n");
+        writer.write("        private int[] parents = new int[16];\n");
+        writer.write("        private int depth;\n");
+        writer.write("        private int node;\n");
+        writer.write("\n");
+        writer.write("        private Cursor(Tree tree) {\n");
+        writer.write("            this.tree = tree;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        public String rule() {\n");
+        writer.write("            return RULE_NAMES[tree.rules[node]];\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        public int start() {\n");
+        writer.write("            return tree.starts[node];\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        public int end() {\n");
+        writer.write("            return tree.ends[node];\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        public CharSequence text() {\n");
+        writer.write("            return tree.input.subSequence(tree.starts[node], tree.ends[node]);\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        public int depth() {\n");
+        writer.write("            return depth;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        public boolean firstChild() {\n");
+        writer.write("            int child = tree.firstChildren[node];\n");
+        writer.write("            if (child < 0) {\n");
+        writer.write("                return false;\n");
+        writer.write("            }\n");
+        writer.write("            if (depth == parents.length) {\n");
+        writer.write("                parents = Arrays.copyOf(parents, depth * 2);\n");
+        writer.write("            }\n");
+        writer.write("            parents[depth++] = node;\n");
+        writer.write("            node = child;\n");
+        writer.write("            return true;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        public boolean nextSibling() {\n");
+        writer.write("            int sibling = tree.nextSiblings[node];\n");
+        writer.write("            if (sibling < 0) {\n");
+        writer.write("                return false;\n");
+        writer.write("            }\n");
+        writer.write("            node = sibling;\n");
+        writer.write("            return true;\n");
+        writer.write("        }\n");
+        writer.write("\n");
+        writer.write("        public boolean parent() {\n");
+        writer.write("            if (depth == 0) {\n");
+        writer.write("                return false;\n");
+        writer.write("            }\n");
+        writer.write("            node = parents[--depth];\n");
+        writer.write("            return true;\n");
+        writer.write("        }\n");
+        writer.write("    }\n");
+    }
+
+    private void generateListenerInterface(Writer writer) throws IOException {
+        writer.write("\n");
+        writer.write("    public static interface Listener {\n");
+        writer.write("\n");
+        writer.write("        public void enterRule(String rule, int offset);\n");
+        writer.write("\n");
+        writer.write("        public void exitRule(String rule, int start, int end);\n");
+        writer.write("\n");
+        writer.write("        public void token(String rule, CharSequence text, int start, int end);\n");
+        writer.write("    }\n");
+    }
+
+    private void generateMetricsInterface(Writer writer) throws IOException {
+        writer.write("\n");
+        writer.write("    public static interface Metrics {\n");
+        writer.write("\n");
+        writer.write("        public void report(String rule, long calls, long failures, long backtracks, long rescanned, long nanos);\n");
+        writer.write("    }\n");
+    }
+
+    private String getConstructorParams(boolean declared) {
+        List<String> params = new ArrayList<>();
+        if (grammar.events()) {
+            params.add(declared ? "Listener listener" : "listener");
+        } else if (!grammar.tree()) {
+            params.add(declared ? "Callback callback" : "callback");
+        }
+        if (grammar.instrumented()) {
+            params.add(declared ? "Metrics metrics" : "metrics");
+        }
+        return String.join(", ", params);
+    }
+
+    private Argument getTokenArgument(int nr) {
+        return new Argument(grammar.spans() ? "Span" : "String", "token" + nr, "token" + nr);
+    }
+
+    private static Argument getSlotArgument(String javaType, String slot) {
+        return new Argument(javaType, slot, getValue(javaType, slot));
+    }
+
+    private String getResultType(Rule rule) {
+        return grammar.tree() ? "Tree" : grammar.events() ? "Boolean" : getBoxedType(rule.javaType());
+    }
+
+    private String getArgumentExprs(List<Argument> arguments) {
+        return arguments.stream() //
+                .map(ca -> ca.expr) //
+                .collect(Collectors.joining(", "));
     }
 
     private String getArgumentDecls(List<Argument> arguments) {
@@ -193,6 +1917,609 @@ public class Generator {
                 .collect(Collectors.joining(", "));
     }
 
+    private Set<String> getImports() {
+        Set<String> imports = new TreeSet<>();
+        imports.add("java.util.Arrays");
+        imports.add("java.util.Queue");
+        imports.add("java.util.concurrent.ConcurrentLinkedQueue");
+        if (recordRule != null) {
+            imports.add("java.util.ArrayList");
+            imports.add("java.util.Collections");
+            imports.add("java.util.List");
+            imports.add("java.util.concurrent.ForkJoinPool");
+            imports.add("java.util.stream.IntStream");
+        }
+        if (isMemoized()) {
+            imports.add("java.util.Arrays");
+            if (grammar.packrat()) {
+                imports.add("java.util.Objects");
+            }
+        }
+        if (sets.keySet().stream().anyMatch(set -> isSetBitSet(getSetBits(set)))) {
+            imports.add("java.util.BitSet");
+        }
+        if (grammar.bytes()) {
+            imports.add("java.nio.ByteBuffer");
+            if (hasPassedTokens()) {
+                imports.add("java.nio.charset.StandardCharsets");
+            }
+        }
+        if (grammar.streaming()) {
+            imports.add("java.io.IOException");
+            imports.add("java.nio.ByteBuffer");
+            imports.add("java.nio.channels.FileChannel");
+            imports.add("java.nio.file.Path");
+            imports.add("java.nio.file.StandardOpenOption");
+        }
+        if (isReaderInput()) {
+            imports.add("java.io.Reader");
+            imports.add("java.io.UncheckedIOException");
+            imports.add("java.nio.charset.StandardCharsets");
+            imports.add("java.util.Arrays");
+        }
+        return imports;
+    }
+
+    private boolean isLeftRecursive(Rule rule) {
+        return rule.alternatives().stream().anyMatch(alternative -> isLeftRecursive(rule, alternative));
+    }
+
+    private boolean isLeftRecursive(Rule rule, Alternative alternative) {
+        return !alternative.elements().isEmpty() //
+                && alternative.elements().get(0) instanceof Symbol symbol //
+                && symbol.name().equals(rule.name()) //
+                && symbol.quantifier() == Element.Quantifier.Once;
+    }
+
+    private boolean isTailRecursive(Rule rule) {
+        return !hasCut(rule) //
+                && rule.alternatives().stream().anyMatch(alternative -> alternative.elements().isEmpty()) //
+                && rule.alternatives().stream().anyMatch(alternative -> isTailRecursive(rule, alternative));
+    }
+
+    private boolean isTailRecursive(Rule rule, Alternative alternative) {
+        return !alternative.elements().isEmpty() //
+                && alternative.elements().get(alternative.elements().size() - 1) instanceof Symbol symbol //
+                && symbol.name().equals(rule.name()) //
+                && symbol.linked() //
+                && symbol.quantifier() == Element.Quantifier.Once //
+                && !symbol.callbackLinked() //
+                && symbol.callback() == null;
+    }
+
+    private Map<List<Integer>, List<Integer>> findTrie(List<Alternative> alternatives, int ahead) {
+        if (alternatives.size() < 2 || isLexer()) {
+            return null;
+        }
+        List<int[]> literals = new ArrayList<>();
+        for (Alternative alternative : alternatives) {
+            if (alternative.elements().isEmpty() //
+                    || !(alternative.elements().get(0) instanceof Token token) //
+                    || token.type() != Token.Type.Token //
+                    || token.quantifier() != Element.Quantifier.Once //
+                    || token.text().isEmpty()) {
+                return null;
+            }
+            literals.add(getUnits(token.text()));
+        }
+        BitSet units = new BitSet();
+        List<Integer> complete = new ArrayList<>();
+        for (int i = 0; i < literals.size(); i++) {
+            if (literals.get(i).length > ahead) {
+                units.set(literals.get(i)[ahead]);
+            } else {
+                complete.add(i);
+            }
+        }
+        Map<List<Integer>, List<Integer>> trie = new LinkedHashMap<>();
+        for (int c = units.nextSetBit(0); c >= 0; c = units.nextSetBit(c + 1)) {
+            List<Integer> viable = new ArrayList<>();
+            for (int i = 0; i < literals.size(); i++) {
+                if (literals.get(i).length <= ahead || literals.get(i)[ahead] == c) {
+                    viable.add(i);
+                }
+            }
+            trie.computeIfAbsent(viable, k -> new ArrayList<>()).add(c);
+        }
+        if (!complete.isEmpty()) {
+            trie.putIfAbsent(complete, new ArrayList<>());
+        }
+        if (trie.keySet().stream().allMatch(viable -> viable.size() == alternatives.size())) {
+            return null;
+        }
+        return trie;
+    }
+
+    private int[] getUnits(String text) {
+        if (grammar.bytes()) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            return IntStream.range(0, bytes.length).map(i -> bytes[i] & 0xFF).toArray();
+        } else {
+            return text.chars().toArray();
+        }
+    }
+
+    private boolean isInfallible(Alternative alternative) {
+        return alternative.elements().stream().allMatch(element -> element instanceof Cut //
+                || element.quantifier() == Element.Quantifier.Optional || element.quantifier() == Element.Quantifier.ZeroOrMore);
+    }
+
+    private boolean isCommitted(Alternative alternative) {
+        for (Element element : alternative.elements()) {
+            if (element instanceof Cut) {
+                return true;
+            }
+            if (element.quantifier() != Element.Quantifier.Optional && element.quantifier() != Element.Quantifier.ZeroOrMore) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A repeated element that may match without consuming input needs a guard, else the loop would never end.
+     */
+    private static boolean mayMatchEmpty(Element element) {
+        return element instanceof Symbol || element instanceof Token token && token.type() == Token.Type.Token && token.text().isEmpty();
+    }
+
+    private boolean hasCut(Rule rule) {
+        return rule.alternatives().stream().anyMatch(alternative -> alternative.elements().stream().anyMatch(Cut.class::isInstance));
+    }
+
+    private boolean isCounted() {
+        return grammar.events() || isCommitting();
+    }
+
+    private boolean hasCuts() {
+        return grammar.rules().stream().anyMatch(this::hasCut);
+    }
+
+    private boolean isCommitting() {
+        return grammar.events() && hasCuts() || isReleasing();
+    }
+
+    private boolean isReleasing() {
+        return hasCuts() && isReaderInput() && !grammar.packrat() && !grammar.spans() && !isLexer();
+    }
+
+    private boolean isPushing(Alternative alternative) {
+        return alternative.elements().stream().anyMatch(element -> element instanceof Symbol symbol && !symbol.linked());
+    }
+
+    private Set<String> getStackTypes() {
+        Set<String> stackTypes = new TreeSet<>();
+        for (Rule rule : grammar.rules()) {
+            stackTypes.add(isPrimitive(rule.javaType()) ? rule.javaType() : "Object");
+        }
+        return stackTypes;
+    }
+
+    private static String getValue(String javaType, String slot) {
+        if (isPrimitive(javaType)) {
+            return getStack(javaType) + "[" + slot + "]";
+        } else if (javaType.equals("Object") || javaType.equals("java.lang.Object")) {
+            return "values[" + slot + "]";
+        } else {
+            return "(" + javaType + ") values[" + slot + "]";
+        }
+    }
+
+    private static String getStack(String javaType) {
+        return isPrimitive(javaType) ? javaType + "Values" : "values";
+    }
+
+    private static boolean isPrimitive(String javaType) {
+        return BOXED_TYPES.containsKey(javaType);
+    }
+
+    private static String getBoxedType(String javaType) {
+        return BOXED_TYPES.getOrDefault(javaType, javaType);
+    }
+
+    private boolean isReaderInput() {
+        return grammar.streaming() && !grammar.bytes();
+    }
+
+    private String getInputLength() {
+        return grammar.bytes() ? "input.limit()" : "input.length()";
+    }
+
+    private boolean hasPassedTokens() {
+        return grammar.rules().stream() //
+                .flatMap(rule -> rule.alternatives().stream()) //
+                .flatMap(alternative -> alternative.elements().stream()) //
+                .anyMatch(element -> element instanceof Token token && token.pass());
+    }
+
+    private Set<Integer> findSpanNumbers() {
+        Set<Integer> spanNumbers = new TreeSet<>();
+        for (Rule rule : grammar.rules()) {
+            for (Alternative alternative : rule.alternatives()) {
+                int nr = 0;
+                for (int index = 0; index < alternative.elements().size(); index++) {
+                    Element element = alternative.elements().get(index);
+                    if (element.quantifier() == Element.Quantifier.OneOrMore) {
+                        nr += 2;
+                    } else if (element.quantifier() != Element.Quantifier.Once
+                            || element instanceof Token token && token.pass()
+                            || element instanceof Symbol symbol && !symbol.linked()) {
+                        nr++;
+                    } else {
+                        continue;
+                    }
+                    if (element instanceof Token token && token.pass() && isSpanShared(alternative.elements(), index)) {
+                        spanNumbers.add(nr);
+                        if (element.quantifier() == Element.Quantifier.OneOrMore) {
+                            spanNumbers.add(nr - 1);
+                        }
+                    }
+                }
+            }
+        }
+        return spanNumbers;
+    }
+
+    /**
+     * A passed token can use the span field of its number only if no rule is called before its callback runs, since
+     * the called rule may set the same span.
+     */
+    private boolean isSpanShared(List<Element> elements, int index) {
+        for (Element element : elements.subList(index, elements.size())) {
+            if (element instanceof Symbol) {
+                return false;
+            }
+            if (element.callback() != null) {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the parameters of every callback from the first alternative that calls it, numbering the elements like
+     * generateAlternative(). The callbacks of alternatives that are never generated, because an earlier alternative
+     * cannot fail, are declared all the same.
+     */
+    private void findCallbacks() {
+        for (Rule rule : grammar.rules()) {
+            for (Alternative alternative : rule.alternatives()) {
+                int nr = 0;
+                List<Argument> callbackArgs = new ArrayList<>();
+                for (Element element : alternative.elements()) {
+                    if (element instanceof Cut) {
+                        continue;
+                    }
+                    if (element.quantifier() != Element.Quantifier.Once) {
+                        List<Argument> quantifiedArgs = new ArrayList<>();
+                        if (element.callbackLinked()) {
+                            quantifiedArgs.add(getSlotArgument(rule.javaType(), "output"));
+                        }
+                        nr++;
+                        if (element instanceof Token token && token.pass()) {
+                            quantifiedArgs.add(getTokenArgument(nr));
+                        } else if (element instanceof Symbol symbol && !symbol.linked()) {
+                            quantifiedArgs.add(getSlotArgument(findRule(symbol).javaType(), "element" + nr));
+                        }
+                        if (element.quantifier() == Element.Quantifier.OneOrMore) {
+                            nr++;
+                        }
+                        if (element.callback() != null) {
+                            callbacks.putIfAbsent(element.callback(), quantifiedArgs);
+                        }
+                        continue;
+                    }
+                    if (element instanceof Token token && token.pass()) {
+                        nr++;
+                        callbackArgs.add(getTokenArgument(nr));
+                    } else if (element instanceof Symbol symbol && !symbol.linked()) {
+                        nr++;
+                        callbackArgs.add(getSlotArgument(findRule(symbol).javaType(), "element" + nr));
+                    }
+                    if (element.callbackLinked()) {
+                        callbackArgs.add(0, getSlotArgument(rule.javaType(), "output"));
+                    }
+                    if (element.callback() != null) {
+                        callbacks.putIfAbsent(element.callback(), callbackArgs);
+                        callbackArgs = new ArrayList<>();
+                    }
+                }
+            }
+        }
+    }
+
+    private void findFirstSets() {
+        for (Rule rule : grammar.rules()) {
+            firstSets.put(rule.name(), new BitSet());
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Rule rule : grammar.rules()) {
+                BitSet ruleFirst = firstSets.get(rule.name());
+                for (Alternative alternative : rule.alternatives()) {
+                    BitSet first = new BitSet();
+                    if (findFirst(alternative, first) && nullableRules.add(rule.name())) {
+                        changed = true;
+                    }
+                    first.andNot(ruleFirst);
+                    if (!first.isEmpty()) {
+                        ruleFirst.or(first);
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean findFirst(Alternative alternative, BitSet first) {
+        for (Element element : alternative.elements()) {
+            if (element instanceof Token token && isLexer()) {
+                first.set(getKind(token));
+            } else if (element instanceof Token token && token.type() == Token.Type.Set) {
+                first.or(getSetBits(token.text()));
+            } else if (element instanceof Token token && !token.text().isEmpty()) {
+                first.set(getUnits(token.text())[0]);
+            } else if (element instanceof Symbol symbol) {
+                first.or(firstSets.get(findRule(symbol).name()));
+            }
+            if (!isNullable(element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An alternative that reaches its cut without consuming input commits whatever the next character is, so the
+     * alternatives after it must not be tried even if the character is not in its first set.
+     */
+    private boolean isCommittedWithoutInput(Alternative alternative) {
+        for (Element element : alternative.elements()) {
+            if (element instanceof Cut) {
+                return true;
+            }
+            if (!isNullable(element)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean isNullable(Element element) {
+        if (element.quantifier() == Element.Quantifier.Optional || element.quantifier() == Element.Quantifier.ZeroOrMore) {
+            return true;
+        } else if (element instanceof Token token) {
+            return !isLexer() && token.text().isEmpty();
+        } else if (element instanceof Symbol symbol) {
+            return nullableRules.contains(findRule(symbol).name());
+        } else {
+            return element instanceof Cut;
+        }
+    }
+
+    private Rule findRecordRule() {
+        if (grammar.bytes()) {
+            throw new IllegalStateException("Record rule is not supported together with bytes");
+        }
+        if (grammar.recordSeparator() == null || grammar.recordSeparator().isEmpty()) {
+            throw new IllegalStateException("Record rule requires a record separator");
+        }
+        Rule rule = findRule(Symbol.symbol(grammar.recordRule()));
+        if (!rule.export()) {
+            throw new IllegalStateException("Record rule must be exported: " + rule.name());
+        }
+        return rule;
+    }
+
+    private Map<String, Integer> findKinds() {
+        if (grammar.bytes() || grammar.streaming()) {
+            throw new IllegalStateException("Lexer is not supported together with bytes or streaming");
+        }
+        Map<String, Integer> kinds = new LinkedHashMap<>();
+        for (Rule rule : grammar.rules()) {
+            for (Alternative alternative : rule.alternatives()) {
+                for (Element element : alternative.elements()) {
+                    if (element instanceof Token token && token.type() != Token.Type.Lexeme) {
+                        kinds.putIfAbsent(getKindKey(token), kinds.size());
+                    }
+                }
+            }
+        }
+        for (Lexeme lexeme : grammar.lexemes()) {
+            if (!lexeme.skip()) {
+                kinds.put(Token.Type.Lexeme + ":" + lexeme.name(), kinds.size());
+            }
+        }
+        for (Lexeme lexeme : grammar.lexemes()) {
+            if (lexeme.skip()) {
+                kinds.put(Token.Type.Lexeme + ":" + lexeme.name(), kinds.size());
+            }
+        }
+        return kinds;
+    }
+
+    private List<List<Token>> findPatterns() {
+        List<List<Token>> patterns = new ArrayList<>();
+        for (String key : kinds.keySet()) {
+            String type = key.substring(0, key.indexOf(':'));
+            String text = key.substring(key.indexOf(':') + 1);
+            if (type.equals(Token.Type.Lexeme.name())) {
+                patterns.add(grammar.lexemes().stream().filter(lexeme -> lexeme.name().equals(text)).findFirst().get().elements());
+            } else if (type.equals(Token.Type.Set.name())) {
+                patterns.add(List.of(Token.set(text)));
+            } else {
+                patterns.add(List.of(Token.token(text)));
+            }
+        }
+        return patterns;
+    }
+
+    private int getKind(Token token) {
+        Integer kind = kinds.get(getKindKey(token));
+        if (kind == null) {
+            throw new IllegalStateException("Lexeme not found: " + token.text());
+        }
+        return kind;
+    }
+
+    private int getSkippedKind() {
+        return grammar.lexemes().stream() //
+                .filter(Lexeme::skip) //
+                .mapToInt(lexeme -> kinds.get(Token.Type.Lexeme + ":" + lexeme.name())) //
+                .min().orElse(-1);
+    }
+
+    private static String getKindKey(Token token) {
+        return token.type() + ":" + token.text();
+    }
+
+    private Map<String, String> findTokens() {
+        Map<String, String> tokenConstants = new LinkedHashMap<>();
+        for (Rule rule : grammar.rules()) {
+            for (Alternative alternative : rule.alternatives()) {
+                for (Element element : alternative.elements()) {
+                    if (element instanceof Token token && token.type() == Token.Type.Token) {
+                        tokenConstants.putIfAbsent(token.text(), "TOKEN_" + tokenConstants.size());
+                    }
+                }
+            }
+        }
+        return tokenConstants;
+    }
+
+    private Map<String, Integer> findSets() {
+        Map<String, Integer> sets = new LinkedHashMap<>();
+        for (Rule rule : grammar.rules()) {
+            for (Alternative alternative : rule.alternatives()) {
+                for (Element element : alternative.elements()) {
+                    if (element instanceof Token token && token.type() == Token.Type.Set) {
+                        if (token.text().isEmpty()) {
+                            throw new IllegalStateException("Set must not be empty");
+                        }
+                        if (grammar.bytes() && getSetBits(token.text()).length() > 128) {
+                            throw new IllegalStateException("Set must consist of ASCII characters in byte mode: " + token.text());
+                        }
+                        sets.putIfAbsent(token.text(), sets.size());
+                    }
+                }
+            }
+        }
+        return sets;
+    }
+
+    private static BitSet getSetBits(String set) {
+        BitSet bits = new BitSet();
+        set.chars().forEach(bits::set);
+        return bits;
+    }
+
+    private static boolean isSetRange(BitSet bits) {
+        return bits.length() - bits.nextSetBit(0) == bits.cardinality();
+    }
+
+    private static boolean isSetBitSet(BitSet bits) {
+        return !isSetRange(bits) && bits.length() > 256;
+    }
+
+    private static String getCharLiteral(int c) {
+        if (c >= 0x20 && c < 0x7F && c != '\'' && c != '\\') {
+            return "'" + (char) c + "'";
+        } else {
+            return "0x" + Integer.toHexString(c);
+        }
+    }
+
+    private static String getStringLiteral(String text) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : text.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20) {
+                literal.append(String.format("\\%03o", (int) c));
+            } else if (c < 0x7F) {
+                literal.append(c);
+            } else {
+                literal.append(String.format("\\u%04x", (int) c));
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private static String getByteLiteral(byte b) {
+        if (b >= 0x20 && b < 0x7F && b != '\'' && b != '\\') {
+            return "'" + (char) b + "'";
+        } else {
+            return "(byte) " + b;
+        }
+    }
+
+    private static Grammar stripValues(Grammar grammar) {
+        List<Rule> rules = new ArrayList<>();
+        for (Rule rule : grammar.rules()) {
+            List<Alternative> alternatives = new ArrayList<>();
+            for (Alternative alternative : rule.alternatives()) {
+                List<Element> elements = new ArrayList<>();
+                for (Element element : alternative.elements()) {
+                    if (element instanceof Token token) {
+                        elements.add(new Token(token.text(), token.type(), token.pass() && grammar.events(), false, null, token.quantifier()));
+                    } else if (element instanceof Symbol symbol) {
+                        elements.add(new Symbol(symbol.name(), true, false, null, symbol.quantifier()));
+                    } else {
+                        elements.add(element);
+                    }
+                }
+                alternatives.add(new Alternative(elements));
+            }
+            rules.add(new Rule(rule.name(), rule.javaType(), rule.export(), rule.uncached(), alternatives));
+        }
+        return grammar.withRules(rules).withSpans(false);
+    }
+
+    private boolean isLexer() {
+        return grammar.lexemes() != null;
+    }
+
+    private boolean isMemoized() {
+        return grammar.packrat() || grammar.failureCache();
+    }
+
+    private boolean isCached(Rule rule) {
+        return isMemoized() && !rule.uncached();
+    }
+
+    private Set<String> findSilentRules() {
+        Set<String> silentRules = new HashSet<>();
+        for (Rule rule : grammar.rules()) {
+            silentRules.add(rule.name());
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Rule rule : grammar.rules()) {
+                if (silentRules.contains(rule.name()) && !isSilent(rule, silentRules)) {
+                    silentRules.remove(rule.name());
+                    changed = true;
+                }
+            }
+        }
+        return silentRules;
+    }
+
+    private boolean isSilent(Rule rule, Set<String> silentRules) {
+        for (Alternative alternative : rule.alternatives()) {
+            for (Element element : alternative.elements()) {
+                if (element.callback() != null) {
+                    return false;
+                }
+                if (element instanceof Symbol symbol && !silentRules.contains(symbol.name())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     private Rule findRule(Symbol symbol) {
         return grammar.rules().stream() //
                 .filter(rule -> Objects.equals(rule.name(), symbol.name())) //
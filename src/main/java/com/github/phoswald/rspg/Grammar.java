@@ -21,7 +21,83 @@ public record Grammar( //
         /**
          * This list of rules.
          */
-        List<Rule> rules //
+        List<Rule> rules, //
+        /**
+         * Whether the generated parser memoizes the result of each rule and input offset (packrat parsing).
+         */
+        boolean packrat, //
+        /**
+         * Whether the generated parser caches per rule and input offset if the rule failed or where it ended,
+         * so dead ends are not parsed again. The cache is backed by primitive arrays that are reused across
+         * calls. Implied by packrat parsing.
+         */
+        boolean failureCache, //
+        /**
+         * Whether the generated parser additionally accepts a Reader and a memory-mapped file as input.
+         * Memory-mapped files are read byte by byte, which matches ASCII and UTF-8 input as long as the
+         * grammar's tokens are ASCII. Offsets are then byte offsets.
+         */
+        boolean streaming, //
+        /**
+         * Whether the generated parser works on ASCII or UTF-8 bytes (byte[] and ByteBuffer) instead of characters.
+         * Tokens are encoded to bytes in advance, sets must consist of ASCII characters.
+         */
+        boolean bytes, //
+        /**
+         * Whether passed tokens are delivered to callbacks as a reusable Span (a view on the input)
+         * instead of a String. A span is only valid during the callback.
+         */
+        boolean spans, //
+        /**
+         * The lexemes of the grammar. If present, the generated parser splits the input into tokens in advance
+         * using a table-driven DFA, and the rules match whole tokens instead of characters. Literals and sets used
+         * by rules become lexemes of their own. Not supported together with bytes or streaming.
+         */
+        List<Lexeme> lexemes, //
+        /**
+         * Whether the generated parser can reparse a document after an edit, keeping the memoized results that
+         * did not look at the edited text. Requires packrat parsing, not supported together with streaming, bytes
+         * or lexemes.
+         */
+        boolean incremental, //
+        /**
+         * The name of an exported rule that matches a single record. If present, the generated parser additionally
+         * provides parseAll(), which splits the input into records and parses them in parallel. Not supported
+         * together with bytes.
+         */
+        String recordRule, //
+        /**
+         * The text between two records, for example a line break. Required if there is a record rule.
+         */
+        String recordSeparator, //
+        /**
+         * Whether the generated parser counts for each rule the calls, failures, backtracks and the characters
+         * consumed before backtracking, and reports them to a Metrics object after each parse. Nothing is
+         * generated if disabled.
+         */
+        boolean instrumented, //
+        /**
+         * Whether an instrumented parser additionally measures the time spent in each rule, including the rules
+         * it calls. Requires instrumentation.
+         */
+        boolean timed, //
+        /**
+         * Whether the generated parser builds a concrete syntax tree instead of calling callbacks. The exported
+         * rules return a Tree, which stores one node per successful rule call in flat int arrays and is traversed
+         * with a Cursor. A tail-recursive rule is compiled into a loop, so its nested calls get no node of their
+         * own: the node of the outermost call holds the children of all of them. Not supported together with
+         * memoization, streaming, bytes or lexemes.
+         */
+        boolean tree, //
+        /**
+         * Whether the generated parser reports enter, exit and token events to a Listener instead of calling
+         * callbacks. Events are buffered while the parser can still backtrack and delivered as soon as the parse
+         * commits to them, so the memory use does not grow with the input. Events already delivered are not revoked if
+         * the input turns out to be invalid later. As with trees, the nested calls of a tail-recursive rule are folded
+         * into the outermost call and report no enter and exit events of their own. Not supported together with
+         * memoization, bytes, lexemes, trees or a record rule.
+         */
+        boolean events //
 ) {
 
     public Grammar {
@@ -33,4 +109,20 @@ public record Grammar( //
     static public GrammarBuilder builder() {
         return new GrammarBuilder();
     }
+
+    /**
+     * Returns a copy of this grammar with the given rules.
+     */
+    public Grammar withRules(List<Rule> rules) {
+        return new Grammar(name, javaType, rules, packrat, failureCache, streaming, bytes, spans, lexemes, incremental,
+                recordRule, recordSeparator, instrumented, timed, tree, events);
+    }
+
+    /**
+     * Returns a copy of this grammar with spans enabled or disabled.
+     */
+    public Grammar withSpans(boolean spans) {
+        return new Grammar(name, javaType, rules, packrat, failureCache, streaming, bytes, spans, lexemes, incremental,
+                recordRule, recordSeparator, instrumented, timed, tree, events);
+    }
 }
@@ -0,0 +1,474 @@
+package com.github.phoswald.rspg;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Runs a grammar without generating code.
+ * <p>
+ * The grammar is compiled into an array of instructions once. Each call to parse() runs these instructions on a
+ * stack machine and invokes the callbacks by name. The outputs are the same as the ones of a generated parser.
+ * Memoization, streaming, bytes, spans, lexemes, instrumentation, trees and events are not supported.
+ */
+public final class Interpreter {
+
+    private static final int OP_MATCH_TOKEN = 1; // literal, pass
+    private static final int OP_MATCH_SET = 2; // set, pass
+    private static final int OP_CALL = 3; // rule, linked
+    private static final int OP_RETURN = 4;
+    private static final int OP_CHOICE = 5; // label
+    private static final int OP_COMMIT = 6; // label
+    private static final int OP_LOOP = 7; // label
+    private static final int OP_FAIL = 8;
+    private static final int OP_CALLBACK = 9; // callback, arguments, linked
+    private static final int OP_CUT = 10;
+    private static final int OP_JUMP = 11; // label
+    private static final int OP_PROGRESS = 12;
+
+    private static final int ENTRY_FRAME = 1; // return, output, depth, push, arguments
+    private static final int ENTRY_CHOICE = 2; // label, output, depth, offset, arguments
+    private static final int ENTRY_SIZE = 6;
+
+    private final Grammar grammar;
+    private final List<String> literals = new ArrayList<>();
+    private final List<BitSet> sets = new ArrayList<>();
+    private final Map<String, Integer> callbacks = new LinkedHashMap<>();
+    private final Map<String, Integer> callbackArities = new LinkedHashMap<>();
+    private final Map<String, BitSet> callbackTokens = new LinkedHashMap<>();
+    private final int[] entries;
+    private int[] code = new int[64];
+    private int size;
+
+    public Interpreter(Grammar grammar) {
+        this.grammar = Objects.requireNonNull(grammar);
+        if (grammar.packrat() || grammar.failureCache() || grammar.streaming() || grammar.bytes() || grammar.spans() || grammar.lexemes() != null || grammar.instrumented() || grammar.tree() || grammar.events()) {
+            throw new IllegalStateException("Grammar options are not supported by the interpreter: " + grammar.name());
+        }
+        this.entries = new int[grammar.rules().size()];
+        for (Rule rule : grammar.rules()) {
+            compileRule(rule);
+        }
+        this.code = Arrays.copyOf(code, size);
+    }
+
+    /**
+     * Binds the callbacks to the public methods of the given object. Methods are selected by name and number of
+     * parameters, parameters that receive tokens must accept a String.
+     */
+    public Map<String, Callback> bind(Object target) {
+        Map<String, Callback> bound = new LinkedHashMap<>();
+        for (String name : callbacks.keySet()) {
+            int arity = callbackArities.get(name);
+            BitSet tokens = callbackTokens.get(name);
+            MethodHandle handle = findCallbackMethod(target.getClass(), name, arity, tokens).bindTo(target) //
+                    .asType(MethodType.genericMethodType(arity)) //
+                    .asSpreader(Object[].class, arity);
+            bound.put(name, arguments -> {
+                try {
+                    return handle.invokeExact(arguments);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        return bound;
+    }
+
+    static MethodHandle findCallbackMethod(Class<?> type, String name, int arity, BitSet tokens) {
+        Method method = Arrays.stream(type.getMethods()) //
+                .filter(candidate -> candidate.getName().equals(name) && candidate.getParameterCount() == arity) //
+                .filter(candidate -> tokens.stream().allMatch(i -> candidate.getParameterTypes()[i].isAssignableFrom(String.class))) //
+                .filter(candidate -> candidate.getReturnType() != void.class) //
+                .findFirst() //
+                .orElseThrow(() -> new IllegalStateException("Callback method not found: " + name));
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Callback method not accessible: " + name, e);
+        }
+    }
+
+    /**
+     * Parses the input starting with the given rule. Returns the rule's output, or null if the input does not match.
+     */
+    public Object parse(String ruleName, CharSequence input, Map<String, Callback> callbacks) {
+        Callback[] bound = new Callback[this.callbacks.size()];
+        for (Map.Entry<String, Integer> callback : this.callbacks.entrySet()) {
+            bound[callback.getValue()] = Objects.requireNonNull(callbacks.get(callback.getKey()), //
+                    () -> "Callback not found: " + callback.getKey());
+        }
+        return new Machine(input, bound).run(entries[findRule(ruleName)]);
+    }
+
+    private void compileRule(Rule rule) {
+        entries[grammar.rules().indexOf(rule)] = size;
+        List<Alternative> seeds = new ArrayList<>();
+        List<Alternative> tails = new ArrayList<>();
+        for (Alternative alternative : rule.alternatives()) {
+            if (!alternative.elements().isEmpty() //
+                    && alternative.elements().get(0) instanceof Symbol symbol //
+                    && symbol.name().equals(rule.name()) //
+                    && symbol.quantifier() == Element.Quantifier.Once) {
+                if (!symbol.linked() || symbol.callback() != null) {
+                    throw new IllegalStateException("Left recursion requires a linked symbol without callback: " + rule.name());
+                }
+                tails.add(new Alternative(alternative.elements().subList(1, alternative.elements().size())));
+            } else {
+                seeds.add(alternative);
+            }
+        }
+        if (!tails.isEmpty() && rule.alternatives().stream().anyMatch(alternative -> alternative.elements().stream().anyMatch(Cut.class::isInstance))) {
+            throw new IllegalStateException("Cut is not supported in left-recursive rules: " + rule.name());
+        }
+        compileChoice(rule, seeds);
+        if (!tails.isEmpty()) {
+            int loop = emit(OP_CHOICE, 0);
+            compileChoice(rule, tails);
+            emit(OP_LOOP, loop);
+            code[loop + 1] = size;
+        }
+        emit(OP_RETURN);
+    }
+
+    private void compileChoice(Rule rule, List<Alternative> alternatives) {
+        if (alternatives.isEmpty()) {
+            emit(OP_FAIL);
+            return;
+        }
+        List<Integer> commits = new ArrayList<>();
+        for (int i = 0; i < alternatives.size() - 1; i++) {
+            int choice = emit(OP_CHOICE, 0);
+            boolean cut = compileSequence(rule, alternatives.get(i).elements(), true);
+            commits.add(emit(cut ? OP_JUMP : OP_COMMIT, 0));
+            code[choice + 1] = size;
+        }
+        compileSequence(rule, alternatives.get(alternatives.size() - 1).elements(), false);
+        for (int commit : commits) {
+            code[commit + 1] = size;
+        }
+    }
+
+    private boolean compileSequence(Rule rule, List<Element> elements, boolean cuttable) {
+        List<Boolean> arguments = new ArrayList<>();
+        boolean cut = false;
+        for (Element element : elements) {
+            if (element instanceof Cut) {
+                if (cuttable && !cut) {
+                    emit(OP_CUT);
+                }
+                cut = true;
+                continue;
+            }
+            if (element.quantifier() == Element.Quantifier.Once) {
+                compileElement(element, arguments);
+                if (element.callback() != null) {
+                    compileCallback(element, arguments);
+                    arguments = new ArrayList<>();
+                }
+                continue;
+            }
+            if (isProducing(element) && element.callback() == null) {
+                throw new IllegalStateException("Quantified element without callback in rule " + rule.name());
+            }
+            if (element.quantifier() == Element.Quantifier.OneOrMore) {
+                compileQuantifiedElement(element, false);
+            }
+            int choice = emit(OP_CHOICE, 0);
+            compileQuantifiedElement(element, element.quantifier() != Element.Quantifier.Optional);
+            if (element.quantifier() == Element.Quantifier.Optional) {
+                emit(OP_COMMIT, size + 2);
+            } else {
+                emit(OP_LOOP, choice);
+            }
+            code[choice + 1] = size;
+        }
+        return cut;
+    }
+
+    private void compileQuantifiedElement(Element element, boolean repeated) {
+        List<Boolean> arguments = new ArrayList<>();
+        compileElement(element, arguments);
+        if (repeated) {
+            emit(OP_PROGRESS);
+        }
+        if (element.callback() != null) {
+            compileCallback(element, arguments);
+        }
+    }
+
+    private void compileElement(Element element, List<Boolean> arguments) {
+        if (element instanceof Token token) {
+            if (token.type() == Token.Type.Set) {
+                BitSet set = new BitSet();
+                token.text().chars().forEach(set::set);
+                int index = sets.indexOf(set);
+                if (index < 0) {
+                    index = sets.size();
+                    sets.add(set);
+                }
+                emit(OP_MATCH_SET, index, token.pass() ? 1 : 0);
+            } else if (token.type() == Token.Type.Token) {
+                int index = literals.indexOf(token.text());
+                if (index < 0) {
+                    index = literals.size();
+                    literals.add(token.text());
+                }
+                emit(OP_MATCH_TOKEN, index, token.pass() ? 1 : 0);
+            } else {
+                throw new IllegalStateException("Lexemes are not supported by the interpreter");
+            }
+            if (token.pass()) {
+                arguments.add(true);
+            }
+        } else if (element instanceof Symbol symbol) {
+            emit(OP_CALL, findRule(symbol.name()), symbol.linked() ? 1 : 0);
+            if (!symbol.linked()) {
+                arguments.add(false);
+            }
+        } else {
+            throw new IllegalStateException("Unknown element type");
+        }
+    }
+
+    private void compileCallback(Element element, List<Boolean> arguments) {
+        int linked = element.callbackLinked() ? 1 : 0;
+        BitSet tokens = new BitSet();
+        for (int i = 0; i < arguments.size(); i++) {
+            if (arguments.get(i)) {
+                tokens.set(i + linked);
+            }
+        }
+        Integer index = callbacks.putIfAbsent(element.callback(), callbacks.size());
+        if (index == null) {
+            callbackArities.put(element.callback(), arguments.size() + linked);
+            callbackTokens.put(element.callback(), tokens);
+        }
+        emit(OP_CALLBACK, callbacks.get(element.callback()), arguments.size(), linked);
+    }
+
+    private int emit(int... instruction) {
+        if (size + instruction.length > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + instruction.length));
+        }
+        System.arraycopy(instruction, 0, code, size, instruction.length);
+        size += instruction.length;
+        return size - instruction.length;
+    }
+
+    private int findRule(String name) {
+        for (int i = 0; i < grammar.rules().size(); i++) {
+            if (grammar.rules().get(i).name().equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Rule not found: " + name);
+    }
+
+    private static boolean isProducing(Element element) {
+        return element instanceof Token token && token.pass() || element instanceof Symbol symbol && !symbol.linked();
+    }
+
+    /**
+     * A callback of the grammar, receives the same arguments as the corresponding method of a generated parser.
+     */
+    @FunctionalInterface
+    public static interface Callback {
+
+        public Object call(Object[] arguments);
+    }
+
+    private final class Machine {
+
+        private final CharSequence input;
+        private final Callback[] callbacks;
+        private int offset;
+        private int output;
+        private Object[] values = new Object[16];
+        private int depth;
+        private Object[] arguments = new Object[16];
+        private int argumentCount;
+        private int[] stack = new int[16 * ENTRY_SIZE];
+        private int stackSize;
+
+        private Machine(CharSequence input, Callback[] callbacks) {
+            this.input = input;
+            this.callbacks = callbacks;
+        }
+
+        private Object run(int entry) {
+            output = push();
+            enter(ENTRY_FRAME, -1, output, depth, 0, 0);
+            int[] code = Interpreter.this.code;
+            int pc = entry;
+            while (pc >= 0) {
+                switch (code[pc]) {
+                    case OP_MATCH_TOKEN: {
+                        String literal = literals.get(code[pc + 1]);
+                        if (matchToken(literal, code[pc + 2] != 0)) {
+                            pc += 3;
+                        } else {
+                            pc = fail();
+                        }
+                        break;
+                    }
+                    case OP_MATCH_SET:
+                        if (matchSet(sets.get(code[pc + 1]), code[pc + 2] != 0)) {
+                            pc += 3;
+                        } else {
+                            pc = fail();
+                        }
+                        break;
+                    case OP_CALL: {
+                        boolean linked = code[pc + 2] != 0;
+                        int callee = linked ? output : push();
+                        enter(ENTRY_FRAME, pc + 3, output, depth, linked ? 0 : 1, argumentCount);
+                        output = callee;
+                        pc = entries[code[pc + 1]];
+                        break;
+                    }
+                    case OP_RETURN: {
+                        stackSize -= ENTRY_SIZE;
+                        int callee = output;
+                        pc = stack[stackSize + 1];
+                        output = stack[stackSize + 2];
+                        depth = stack[stackSize + 3];
+                        Arrays.fill(arguments, stack[stackSize + 5], argumentCount, null);
+                        argumentCount = stack[stackSize + 5];
+                        if (stack[stackSize + 4] != 0) {
+                            addArgument(values[callee]);
+                        }
+                        break;
+                    }
+                    case OP_CHOICE:
+                        enter(ENTRY_CHOICE, code[pc + 1], output, depth, offset, argumentCount);
+                        pc += 2;
+                        break;
+                    case OP_COMMIT:
+                        stackSize -= ENTRY_SIZE;
+                        pc = code[pc + 1];
+                        break;
+                    case OP_CUT:
+                        stackSize -= ENTRY_SIZE;
+                        pc += 1;
+                        break;
+                    case OP_JUMP:
+                        pc = code[pc + 1];
+                        break;
+                    case OP_PROGRESS:
+                        pc = offset != stack[stackSize - ENTRY_SIZE + 4] ? pc + 1 : fail();
+                        break;
+                    case OP_LOOP:
+                        stackSize -= ENTRY_SIZE;
+                        pc = offset != stack[stackSize + 4] ? code[pc + 1] : pc + 2;
+                        break;
+                    case OP_FAIL:
+                        pc = fail();
+                        break;
+                    case OP_CALLBACK: {
+                        int count = code[pc + 2];
+                        int linked = code[pc + 3];
+                        Object[] callbackArguments = new Object[count + linked];
+                        if (linked != 0) {
+                            callbackArguments[0] = values[output];
+                        }
+                        argumentCount -= count;
+                        System.arraycopy(arguments, argumentCount, callbackArguments, linked, count);
+                        Arrays.fill(arguments, argumentCount, argumentCount + count, null);
+                        values[output] = callbacks[code[pc + 1]].call(callbackArguments);
+                        pc += 4;
+                        break;
+                    }
+                    default:
+                        throw new IllegalStateException("Invalid instruction: " + code[pc]);
+                }
+            }
+            if (pc == -1 && offset == input.length()) {
+                return values[0];
+            } else {
+                return null;
+            }
+        }
+
+        private int fail() {
+            while (stackSize > 0) {
+                stackSize -= ENTRY_SIZE;
+                if (stack[stackSize] == ENTRY_CHOICE) {
+                    output = stack[stackSize + 2];
+                    depth = stack[stackSize + 3];
+                    offset = stack[stackSize + 4];
+                    argumentCount = stack[stackSize + 5];
+                    return stack[stackSize + 1];
+                }
+            }
+            return -2;
+        }
+
+        private boolean matchToken(String literal, boolean pass) {
+            int length = literal.length();
+            if (offset + length > input.length()) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (input.charAt(offset + i) != literal.charAt(i)) {
+                    return false;
+                }
+            }
+            if (pass) {
+                addArgument(literal);
+            }
+            offset += length;
+            return true;
+        }
+
+        private boolean matchSet(BitSet set, boolean pass) {
+            if (offset < input.length() && set.get(input.charAt(offset))) {
+                if (pass) {
+                    addArgument(String.valueOf(input.charAt(offset)));
+                }
+                offset++;
+                return true;
+            }
+            return false;
+        }
+
+        private void enter(int type, int a, int b, int c, int d, int e) {
+            if (stackSize + ENTRY_SIZE > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[stackSize] = type;
+            stack[stackSize + 1] = a;
+            stack[stackSize + 2] = b;
+            stack[stackSize + 3] = c;
+            stack[stackSize + 4] = d;
+            stack[stackSize + 5] = e;
+            stackSize += ENTRY_SIZE;
+        }
+
+        private int push() {
+            if (depth == values.length) {
+                values = Arrays.copyOf(values, depth * 2);
+            }
+            values[depth] = null;
+            return depth++;
+        }
+
+        private void addArgument(Object argument) {
+            if (argumentCount == arguments.length) {
+                arguments = Arrays.copyOf(arguments, argumentCount * 2);
+            }
+            arguments[argumentCount++] = argument;
+        }
+    }
+}
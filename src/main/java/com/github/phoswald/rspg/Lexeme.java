@@ -0,0 +1,39 @@
+package com.github.phoswald.rspg;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A lexeme is a named sequence of tokens that is recognized by the lexer.
+ * <p>
+ * Rules refer to lexemes using {@link Token#lexeme(String)}.
+ */
+public record Lexeme( //
+        /**
+         * The name of the lexeme.
+         */
+        String name, //
+        /**
+         * The tokens (literals and sets) the lexeme consists of. Quantifiers are supported.
+         */
+        List<Token> elements, //
+        /**
+         * Indicates whether the lexeme is dropped by the lexer (like whitespace or comments).
+         */
+        boolean skip //
+) {
+
+    public Lexeme {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(elements);
+    }
+
+    public static Lexeme define(String name, Token... elements) {
+        return new Lexeme(name, Arrays.asList(elements), false);
+    }
+
+    public Lexeme withSkip() {
+        return new Lexeme(name, elements, true);
+    }
+}
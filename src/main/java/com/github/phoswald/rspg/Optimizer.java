@@ -0,0 +1,331 @@
+package com.github.phoswald.rspg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Rewrites a grammar into an equivalent one with fewer rules and alternatives, before a parser is generated or the
+ * grammar is interpreted.
+ * <p>
+ * The passes keep the accepted input and the callbacks. Callbacks of a common prefix are called once instead of once
+ * per alternative tried. Rules that are inlined or dropped no longer show up in trees, events and metrics.
+ */
+public final class Optimizer {
+
+    private final Grammar grammar;
+
+    public Optimizer(Grammar grammar) {
+        this.grammar = Objects.requireNonNull(grammar);
+    }
+
+    public Grammar optimize(Set<Pass> passes) {
+        List<Rule> rules = grammar.rules();
+        if (passes.contains(Pass.InlineRules)) {
+            rules = inlineRules(rules);
+        }
+        if (passes.contains(Pass.FactorPrefixes)) {
+            rules = factorPrefixes(rules);
+        }
+        if (passes.contains(Pass.FoldSets) && grammar.lexemes() == null) {
+            rules = foldSets(rules);
+        }
+        if (passes.contains(Pass.DropUnreachableRules)) {
+            rules = dropUnreachableRules(rules);
+        }
+        return grammar.withRules(rules);
+    }
+
+    private List<Rule> inlineRules(List<Rule> rules) {
+        Map<String, String> targets = new HashMap<>();
+        Map<String, Rule> rulesByName = getRulesByName(rules);
+        for (Rule rule : rules) {
+            if (rule.alternatives().size() == 1 && rule.alternatives().get(0).elements().size() == 1
+                    && rule.alternatives().get(0).elements().get(0) instanceof Symbol symbol && isInlinable(symbol)
+                    && rulesByName.containsKey(symbol.name()) && rulesByName.get(symbol.name()).javaType().equals(rule.javaType())) {
+                targets.put(rule.name(), symbol.name());
+            }
+        }
+        Map<String, String> delegates = new HashMap<>();
+        for (String name : targets.keySet()) {
+            Set<String> visited = new HashSet<>(Set.of(name));
+            String target = targets.get(name);
+            while (targets.containsKey(target) && visited.add(target)) {
+                target = targets.get(target);
+            }
+            if (!visited.contains(target)) {
+                delegates.put(name, target);
+            }
+        }
+        List<Rule> delegated = new ArrayList<>();
+        for (Rule rule : rules) {
+            List<Alternative> alternatives = new ArrayList<>();
+            for (Alternative alternative : rule.alternatives()) {
+                List<Element> elements = new ArrayList<>();
+                for (Element element : alternative.elements()) {
+                    if (element instanceof Symbol symbol && delegates.containsKey(symbol.name())) {
+                        elements.add(new Symbol(delegates.get(symbol.name()), symbol.linked(), symbol.callbackLinked(), symbol.callback(), symbol.quantifier()));
+                    } else {
+                        elements.add(element);
+                    }
+                }
+                alternatives.add(new Alternative(elements));
+            }
+            delegated.add(new Rule(rule.name(), rule.javaType(), rule.export(), rule.uncached(), alternatives));
+        }
+        rulesByName = getRulesByName(delegated);
+        Set<String> recursive = findRecursiveRules(delegated);
+        List<Rule> result = new ArrayList<>();
+        for (Rule rule : delegated) {
+            List<Alternative> alternatives = new ArrayList<>();
+            for (Alternative alternative : rule.alternatives()) {
+                alternatives.add(new Alternative(inlineElements(rule, alternative.elements(), rulesByName, recursive)));
+            }
+            result.add(new Rule(rule.name(), rule.javaType(), rule.export(), rule.uncached(), alternatives));
+        }
+        return result;
+    }
+
+    private List<Element> inlineElements(Rule rule, List<Element> elements, Map<String, Rule> rulesByName, Set<String> recursive) {
+        List<Element> result = new ArrayList<>();
+        boolean pending = false;
+        for (Element element : elements) {
+            Rule inlined = element instanceof Symbol symbol && isInlinable(symbol) ? rulesByName.get(symbol.name()) : null;
+            if (inlined != null && !recursive.contains(inlined.name()) && inlined.alternatives().size() == 1
+                    && inlined.javaType().equals(rule.javaType()) && !hasCut(inlined.alternatives().get(0))) {
+                List<Element> inlinedElements = inlineElements(inlined, inlined.alternatives().get(0).elements(), rulesByName, recursive);
+                if (!isPending(false, inlinedElements) && (!pending || isNeutral(inlinedElements))) {
+                    result.addAll(inlinedElements);
+                    continue;
+                }
+            }
+            result.add(element);
+            pending = isPending(pending, List.of(element));
+        }
+        return result;
+    }
+
+    private List<Rule> factorPrefixes(List<Rule> rules) {
+        Set<String> names = rules.stream().map(Rule::name).collect(Collectors.toCollection(HashSet::new));
+        List<Rule> result = new ArrayList<>();
+        for (Rule rule : rules) {
+            factorRule(rule, names, result);
+        }
+        return result;
+    }
+
+    private void factorRule(Rule rule, Set<String> names, List<Rule> result) {
+        List<Alternative> source = rule.alternatives();
+        List<Alternative> alternatives = new ArrayList<>();
+        List<Rule> remainders = new ArrayList<>();
+        int start = 0;
+        while (start < source.size()) {
+            int end = start + 1;
+            while (end < source.size() && isFactorable(rule, source.get(start)) && isFactorable(rule, source.get(end))
+                    && source.get(end).elements().get(0).equals(source.get(start).elements().get(0))) {
+                end++;
+            }
+            List<Alternative> group = source.subList(start, end);
+            int length = findCommonPrefix(group);
+            if (group.size() < 2 || length == 0) {
+                alternatives.add(source.get(start));
+                start++;
+                continue;
+            }
+            String name = rule.name() + "Rest";
+            for (int i = 2; !names.add(name); i++) {
+                name = rule.name() + "Rest" + i;
+            }
+            List<Alternative> tails = new ArrayList<>();
+            for (Alternative alternative : group) {
+                tails.add(new Alternative(alternative.elements().subList(length, alternative.elements().size())));
+            }
+            List<Element> elements = new ArrayList<>(group.get(0).elements().subList(0, length));
+            elements.add(Symbol.symbol(name).withLinked());
+            alternatives.add(new Alternative(elements));
+            remainders.add(new Rule(name, rule.javaType(), false, rule.uncached(), tails));
+            start = end;
+        }
+        result.add(new Rule(rule.name(), rule.javaType(), rule.export(), rule.uncached(), alternatives));
+        for (Rule remainder : remainders) {
+            factorRule(remainder, names, result);
+        }
+    }
+
+    private boolean isFactorable(Rule rule, Alternative alternative) {
+        List<Element> elements = alternative.elements();
+        return !elements.isEmpty() && !hasCut(alternative)
+                && !(elements.get(0) instanceof Symbol first && first.name().equals(rule.name()))
+                && !(elements.get(elements.size() - 1) instanceof Symbol last && last.name().equals(rule.name()));
+    }
+
+    private int findCommonPrefix(List<Alternative> group) {
+        List<Element> first = group.get(0).elements();
+        int length = first.size();
+        for (Alternative alternative : group) {
+            int common = 0;
+            while (common < length && common < alternative.elements().size() && alternative.elements().get(common).equals(first.get(common))) {
+                common++;
+            }
+            length = common;
+        }
+        while (length > 0 && isPending(false, first.subList(0, length))) {
+            length--;
+        }
+        return length;
+    }
+
+    private List<Rule> foldSets(List<Rule> rules) {
+        List<Rule> result = new ArrayList<>();
+        for (Rule rule : rules) {
+            List<Alternative> alternatives = new ArrayList<>();
+            for (Alternative alternative : rule.alternatives()) {
+                Alternative previous = alternatives.isEmpty() ? null : alternatives.get(alternatives.size() - 1);
+                if (previous != null && isFoldable(previous) && isFoldable(alternative)
+                        && isSameCallback((Token) previous.elements().get(0), (Token) alternative.elements().get(0))) {
+                    Token token = (Token) previous.elements().get(0);
+                    Set<Character> chars = new LinkedHashSet<>();
+                    for (char c : (token.text() + ((Token) alternative.elements().get(0)).text()).toCharArray()) {
+                        chars.add(c);
+                    }
+                    String text = chars.stream().map(String::valueOf).collect(Collectors.joining());
+                    Token set = new Token(text, Token.Type.Set, token.pass(), token.callbackLinked(), token.callback(), Element.Quantifier.Once);
+                    alternatives.set(alternatives.size() - 1, new Alternative(List.of(set)));
+                } else {
+                    alternatives.add(alternative);
+                }
+            }
+            result.add(new Rule(rule.name(), rule.javaType(), rule.export(), rule.uncached(), alternatives));
+        }
+        return result;
+    }
+
+    private boolean isFoldable(Alternative alternative) {
+        return alternative.elements().size() == 1 && alternative.elements().get(0) instanceof Token token
+                && token.quantifier() == Element.Quantifier.Once
+                && (token.type() == Token.Type.Set || token.type() == Token.Type.Token && token.text().length() == 1)
+                && (!grammar.bytes() || token.text().chars().allMatch(c -> c < 128));
+    }
+
+    private boolean isSameCallback(Token token1, Token token2) {
+        return token1.pass() == token2.pass() && token1.callbackLinked() == token2.callbackLinked()
+                && Objects.equals(token1.callback(), token2.callback());
+    }
+
+    private List<Rule> dropUnreachableRules(List<Rule> rules) {
+        Map<String, Rule> rulesByName = getRulesByName(rules);
+        Set<String> reachable = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        rules.stream().filter(Rule::export).map(Rule::name).forEach(queue::add);
+        if (queue.isEmpty()) {
+            return rules;
+        }
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            if (rulesByName.containsKey(name) && reachable.add(name)) {
+                queue.addAll(findReferences(rulesByName.get(name)));
+            }
+        }
+        return rules.stream().filter(rule -> reachable.contains(rule.name())).toList();
+    }
+
+    private Set<String> findRecursiveRules(List<Rule> rules) {
+        Map<String, Rule> rulesByName = getRulesByName(rules);
+        Set<String> result = new HashSet<>();
+        for (Rule rule : rules) {
+            Set<String> visited = new HashSet<>();
+            Deque<String> queue = new ArrayDeque<>(findReferences(rule));
+            while (!queue.isEmpty()) {
+                String name = queue.poll();
+                if (name.equals(rule.name())) {
+                    result.add(name);
+                    break;
+                }
+                if (rulesByName.containsKey(name) && visited.add(name)) {
+                    queue.addAll(findReferences(rulesByName.get(name)));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> findReferences(Rule rule) {
+        Set<String> result = new LinkedHashSet<>();
+        for (Alternative alternative : rule.alternatives()) {
+            for (Element element : alternative.elements()) {
+                if (element instanceof Symbol symbol) {
+                    result.add(symbol.name());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Rule> getRulesByName(List<Rule> rules) {
+        Map<String, Rule> result = new HashMap<>();
+        for (Rule rule : rules) {
+            result.putIfAbsent(rule.name(), rule);
+        }
+        return result;
+    }
+
+    private static boolean isInlinable(Symbol symbol) {
+        return symbol.linked() && symbol.callback() == null && symbol.quantifier() == Element.Quantifier.Once;
+    }
+
+    private static boolean hasCut(Alternative alternative) {
+        return alternative.elements().stream().anyMatch(Cut.class::isInstance);
+    }
+
+    /**
+     * Returns whether values of the given elements are still waiting for a callback, after some values were waiting
+     * before the elements or not.
+     */
+    private static boolean isPending(boolean pending, List<Element> elements) {
+        for (Element element : elements) {
+            if (element.quantifier() != Element.Quantifier.Once) {
+                continue;
+            }
+            if (element.callback() != null) {
+                pending = false;
+            } else if (element instanceof Token token && token.pass() || element instanceof Symbol symbol && !symbol.linked()) {
+                pending = true;
+            }
+        }
+        return pending;
+    }
+
+    private static boolean isNeutral(List<Element> elements) {
+        return elements.stream().allMatch(element -> element.quantifier() != Element.Quantifier.Once
+                || element.callback() == null && !isPending(false, List.of(element)));
+    }
+
+    public enum Pass {
+        /**
+         * Replaces references to rules that only delegate to another rule, and copies rules with a single alternative
+         * into the alternatives that refer to them.
+         */
+        InlineRules,
+        /**
+         * Moves the remainders of consecutive alternatives with a common prefix into a new rule, so the prefix is only
+         * parsed once.
+         */
+        FactorPrefixes,
+        /**
+         * Merges consecutive alternatives that consist of a single character or set into one set.
+         */
+        FoldSets,
+        /**
+         * Removes the rules that cannot be reached from an exported rule.
+         */
+        DropUnreachableRules
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.phoswald.rspg;
+
+/**
+ * A parser that was created at runtime, see {@link BytecodeGenerator}.
+ */
+public interface Parser {
+
+    /**
+     * Parses the input. Returns the output of the parser's rule, or null if the input does not match.
+     */
+    public Object parse(CharSequence input);
+}
@@ -17,13 +17,17 @@ public record Rule( //
          */
         String name, //
         /**
-         * The Java class produced by this rule.
+         * The Java class produced by this rule. Primitive types (like int or double) are passed without boxing.
          */
         String javaType, //
         /**
          * Whether the rule is publicly visible.
          */
         boolean export, //
+        /**
+         * Whether the rule is excluded from memoization. Useful for cheap rules if packrat parsing is enabled.
+         */
+        boolean uncached, //
         /**
          * Alternatives for this rule. Each alternative consists of a list of elements.
          * An empty alternative makes a rule optional.
@@ -37,7 +41,7 @@ public record Rule( //
         Objects.requireNonNull(alternatives);
     }
 
-    static RuleBuilder builder() {
+    static public RuleBuilder builder() {
         return new RuleBuilder();
     }
 }
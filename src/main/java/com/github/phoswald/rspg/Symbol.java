@@ -21,26 +21,43 @@ public record Symbol( //
         /**
          * The callback to be called if the symbol matches.
          */
-        String callback //
+        String callback, //
+        /**
+         * How often the symbol may occur.
+         */
+        Quantifier quantifier //
 ) implements Element {
 
     public Symbol {
         Objects.requireNonNull(name);
+        Objects.requireNonNull(quantifier);
     }
 
     public static Symbol symbol(String name) {
-        return new Symbol(name, false, false, null);
+        return new Symbol(name, false, false, null, Quantifier.Once);
     }
 
     public Symbol withLinked() {
-        return new Symbol(name, true, callbackLinked, callback);
+        return new Symbol(name, true, callbackLinked, callback, quantifier);
     }
 
     public Symbol withCallback(String callback) {
-        return new Symbol(name, linked, false, callback);
+        return new Symbol(name, linked, false, callback, quantifier);
     }
 
     public Symbol withCallbackLinked(String callback) {
-        return new Symbol(name, linked, true, callback);
+        return new Symbol(name, linked, true, callback, quantifier);
+    }
+
+    public Symbol withOptional() {
+        return new Symbol(name, linked, callbackLinked, callback, Quantifier.Optional);
+    }
+
+    public Symbol withZeroOrMore() {
+        return new Symbol(name, linked, callbackLinked, callback, Quantifier.ZeroOrMore);
+    }
+
+    public Symbol withOneOrMore() {
+        return new Symbol(name, linked, callbackLinked, callback, Quantifier.OneOrMore);
     }
 }
@@ -25,32 +25,53 @@ public record Token( //
         /**
          * The callback to be called if the token matches.
          */
-        String callback //
+        String callback, //
+        /**
+         * How often the token may occur.
+         */
+        Quantifier quantifier //
 ) implements Element {
 
     public Token {
         Objects.requireNonNull(text);
         Objects.requireNonNull(type);
+        Objects.requireNonNull(quantifier);
     }
 
     public static Token token(String text) {
-        return new Token(text, Type.Token, false, false, null);
+        return new Token(text, Type.Token, false, false, null, Quantifier.Once);
     }
 
     public static Token set(String text) {
-        return new Token(text, Type.Set, false, false, null);
+        return new Token(text, Type.Set, false, false, null, Quantifier.Once);
+    }
+
+    public static Token lexeme(String name) {
+        return new Token(name, Type.Lexeme, false, false, null, Quantifier.Once);
     }
 
     public Token withPass() {
-        return new Token(text, type, true, callbackLinked, callback);
+        return new Token(text, type, true, callbackLinked, callback, quantifier);
     }
 
     public Token withCallback(String callback) {
-        return new Token(text, type, pass, false, callback);
+        return new Token(text, type, pass, false, callback, quantifier);
     }
 
     public Token withCallbackLinked(String callback) {
-        return new Token(text, type, pass, true, callback);
+        return new Token(text, type, pass, true, callback, quantifier);
+    }
+
+    public Token withOptional() {
+        return new Token(text, type, pass, callbackLinked, callback, Quantifier.Optional);
+    }
+
+    public Token withZeroOrMore() {
+        return new Token(text, type, pass, callbackLinked, callback, Quantifier.ZeroOrMore);
+    }
+
+    public Token withOneOrMore() {
+        return new Token(text, type, pass, callbackLinked, callback, Quantifier.OneOrMore);
     }
 
     public enum Type {
@@ -61,6 +82,10 @@ public record Token( //
         /**
          * If true 'ab' means either 'a' or 'b'.
          */
-        Set
+        Set,
+        /**
+         * If true 'ab' means the lexeme named 'ab'.
+         */
+        Lexeme
     }
 }
@@ -0,0 +1,224 @@
+package com.github.phoswald.rspg;
+
+import static com.github.phoswald.rspg.Alternative.alternative;
+import static com.github.phoswald.rspg.Cut.cut;
+import static com.github.phoswald.rspg.Symbol.symbol;
+import static com.github.phoswald.rspg.Token.lexeme;
+import static com.github.phoswald.rspg.Token.set;
+import static com.github.phoswald.rspg.Token.token;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.phoswald.rspg.Analyzer.Issue;
+import com.github.phoswald.rspg.Analyzer.Kind;
+import com.github.phoswald.rspg.Analyzer.Report;
+import com.github.phoswald.rspg.Analyzer.Severity;
+
+class AnalyzerTest {
+
+    @Test
+    void analyze_calculator() {
+        // Arrange
+        Grammar grammar = createGrammar(GeneratorTest.createCalculatorRules("Double", "Integer")).build();
+
+        // Act
+        Report report = new Analyzer(grammar).analyze();
+
+        // Assert
+        assertEquals(List.of(), report.issues());
+        assertFalse(report.hasErrors());
+        assertTrue(report.backtracking().values().stream().allMatch(count -> count == 1));
+    }
+
+    @Test
+    void analyze_undefinedAndUnreachable() {
+        // Arrange
+        Grammar grammar = createGrammar(List.of( //
+                createRule("Start", true, alternative(symbol("Missing"), token(";"))), //
+                createRule("Orphan", false, alternative(token("x"))), //
+                createRule("Orphan", false, alternative(token("y"))))).build();
+
+        // Act
+        Report report = new Analyzer(grammar).analyze();
+
+        // Assert
+        assertEquals(List.of( //
+                new Issue(Severity.Error, Kind.UndefinedRule, "Start", "Rule not found: Missing"), //
+                new Issue(Severity.Error, Kind.DuplicateRule, "Orphan", "Rule is defined more than once"), //
+                new Issue(Severity.Warning, Kind.UnreachableRule, "Orphan", "Rule cannot be reached from an exported rule")), //
+                report.issues());
+        assertThrows(IllegalStateException.class, () -> new Generator(grammar));
+    }
+
+    @Test
+    void analyze_leftRecursion() {
+        // Arrange
+        Grammar grammar = createGrammar(List.of( //
+                createRule("Sum", true, //
+                        alternative(symbol("Sum").withLinked(), token("+"), symbol("Number").withCallbackLinked("add")), //
+                        alternative(symbol("Number").withLinked())), //
+                createRule("Number", false, alternative(set("0123456789").withPass().withCallbackLinked("digit"))), //
+                createRule("List", true, alternative(symbol("Item").withLinked(), token(","))), //
+                createRule("Item", false, alternative(symbol("List").withLinked()), alternative(token("x"))))).build();
+
+        // Act
+        Report report = new Analyzer(grammar).analyze();
+
+        // Assert
+        assertEquals(List.of( //
+                new Issue(Severity.Error, Kind.LeftRecursion, "List", "Left recursion is only supported within a rule: List -> Item -> List"), //
+                new Issue(Severity.Error, Kind.LeftRecursion, "Item", "Left recursion is only supported within a rule: Item -> List -> Item")), //
+                report.issues());
+    }
+
+    @Test
+    void analyze_emptyLoop() {
+        // Arrange
+        Grammar grammar = createGrammar(List.of( //
+                createRule("Items", true, //
+                        alternative(symbol("Item"), symbol("Items").withLinked()), //
+                        alternative()), //
+                createRule("Item", false, alternative(token("x").withOptional())), //
+                createRule("Repeated", true, alternative(symbol("Item").withCallbackLinked("item").withZeroOrMore())))).build();
+
+        // Act
+        Report report = new Analyzer(grammar).analyze();
+
+        // Assert
+        assertEquals(List.of( //
+                new Issue(Severity.Error, Kind.EmptyLoop, "Items", "Rule calls itself without consuming input: Items -> Items"), //
+                new Issue(Severity.Warning, Kind.EmptyLoop, "Repeated", "Repeated element may match nothing, the repetition stops there: Item")), //
+                report.issues());
+    }
+
+    @Test
+    void analyze_leftRecursiveTail() {
+        // Arrange
+        Grammar grammar = createGrammar(List.of( //
+                createRule("R0", true, //
+                        alternative(), //
+                        alternative(symbol("R0").withLinked(), symbol("R1"), token("a"))), //
+                createRule("R1", false, alternative(symbol("R0").withLinked())), //
+                createRule("R2", true, //
+                        alternative(token("x").withOptional()), //
+                        alternative(symbol("R2").withLinked(), symbol("Optional"), symbol("R3"))), //
+                createRule("Optional", false, alternative(token("o").withOptional())), //
+                createRule("R3", false, alternative(symbol("R2").withLinked(), token("c"))), //
+                createRule("List", true, //
+                        alternative(), //
+                        alternative(symbol("List").withLinked(), symbol("Item"))), //
+                createRule("Item", false, alternative(token("i"))))).build();
+
+        // Act
+        Report report = new Analyzer(grammar).analyze();
+
+        // Assert
+        assertEquals(List.of( //
+                new Issue(Severity.Error, Kind.EmptyLoop, "R0", "Rule calls itself without consuming input: R0 -> R1 -> R0"), //
+                new Issue(Severity.Error, Kind.EmptyLoop, "R1", "Rule calls itself without consuming input: R1 -> R0 -> R1"), //
+                new Issue(Severity.Error, Kind.EmptyLoop, "R2", "Rule calls itself without consuming input: R2 -> R3 -> R2"), //
+                new Issue(Severity.Error, Kind.EmptyLoop, "R3", "Rule calls itself without consuming input: R3 -> R2 -> R3")), //
+                report.issues());
+        assertThrows(IllegalStateException.class, () -> new Generator(grammar));
+    }
+
+    @Test
+    void analyze_unsupportedElements() {
+        // Arrange
+        Grammar grammar = createGrammar(List.of( //
+                createRule("Sum", true, //
+                        alternative(symbol("Sum").withLinked(), token("+"), cut(), token("x")), //
+                        alternative(token("x"))), //
+                createRule("Word", true, alternative(lexeme("Name"))), //
+                createRule("Letters", true, alternative(set("abc").withPass().withZeroOrMore())), //
+                createRule("Items", true, alternative(symbol("Word").withOptional())))).build();
+
+        // Act
+        Report report = new Analyzer(grammar).analyze();
+
+        // Assert
+        assertEquals(List.of( //
+                new Issue(Severity.Error, Kind.UnsupportedElement, "Sum", "Cut is not supported in left-recursive rules"), //
+                new Issue(Severity.Error, Kind.UnsupportedElement, "Word", "Lexeme requires a lexer: Name"), //
+                new Issue(Severity.Error, Kind.MissingCallback, "Letters", "Quantified element produces values but has no callback: abc"), //
+                new Issue(Severity.Error, Kind.MissingCallback, "Items", "Quantified element produces values but has no callback: Word")), //
+                report.issues());
+        assertThrows(IllegalStateException.class, () -> new Generator(grammar));
+    }
+
+    @Test
+    void analyze_unreachableAlternative() {
+        // Arrange
+        Grammar grammar = createGrammar(List.of( //
+                createRule("Letter", true, //
+                        alternative(token("a").withOptional()), //
+                        alternative(token("b"))), //
+                createRule("Command", true, //
+                        alternative(token("x").withZeroOrMore(), cut(), token("y")), //
+                        alternative(token("z"))), //
+                createRule("Word", true, //
+                        alternative(token("w"), cut(), token("v")), //
+                        alternative(token("u"))))).build();
+
+        // Act
+        Report report = new Analyzer(grammar).analyze();
+
+        // Assert
+        assertEquals(List.of( //
+                new Issue(Severity.Warning, Kind.UnreachableAlternative, "Letter", "Alternative 1 cannot fail before it commits, the alternatives after it are never tried"), //
+                new Issue(Severity.Warning, Kind.UnreachableAlternative, "Command", "Alternative 1 cannot fail before it commits, the alternatives after it are never tried")), //
+                report.issues());
+    }
+
+    @Test
+    void analyze_backtracking() {
+        // Arrange
+        List<Rule> rules = List.of( //
+                createRule("Nested", true, //
+                        alternative(token("("), symbol("Nested").withLinked(), token(")x")), //
+                        alternative(token("("), symbol("Nested").withLinked(), token(")y")), //
+                        alternative(token("z"))), //
+                createRule("Keyword", true, //
+                        alternative(symbol("Word").withLinked(), token("1")), //
+                        alternative(symbol("Word").withLinked(), token("2")), //
+                        alternative(symbol("Word").withLinked(), token("3")), //
+                        alternative(token("q"))), //
+                createRule("Word", false, alternative(set("abc").withOneOrMore())));
+
+        // Act
+        Report report = new Analyzer(createGrammar(rules).build()).analyze();
+        Report packratReport = new Analyzer(createGrammar(rules).packrat(true).build()).analyze();
+
+        // Assert
+        assertEquals(List.of( //
+                new Issue(Severity.Warning, Kind.Backtracking, "Nested", //
+                        "Alternatives with the same first characters recurse, backtracking grows exponentially with the nesting")), //
+                report.issues());
+        assertEquals(3, report.backtracking().get("Keyword"));
+        assertEquals(1, report.backtracking().get("Word"));
+        assertEquals(List.of(), packratReport.issues());
+    }
+
+    private static GrammarBuilder createGrammar(List<Rule> rules) {
+        return Grammar.builder() //
+                .name("Test") //
+                .javaType("parsers.Test") //
+                .rules(rules);
+    }
+
+    private static Rule createRule(String name, boolean export, Alternative... alternatives) {
+        return Rule.builder() //
+                .name(name) //
+                .javaType("String") //
+                .export(export) //
+                .alternatives(Arrays.asList(alternatives)) //
+                .build();
+    }
+}
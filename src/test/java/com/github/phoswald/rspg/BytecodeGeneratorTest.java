@@ -0,0 +1,123 @@
+package com.github.phoswald.rspg;
+
+import static com.github.phoswald.rspg.Alternative.alternative;
+import static com.github.phoswald.rspg.Symbol.symbol;
+import static com.github.phoswald.rspg.Token.set;
+import static com.github.phoswald.rspg.Token.token;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+class BytecodeGeneratorTest {
+
+    private final Function<Object, Parser> factory = new BytecodeGenerator(createListGrammar().build()).generate("List", ListCallback.class);
+
+    private final ListCallback callback = new ListCallback() {
+
+        @Override
+        public String first(String element1) {
+            return element1;
+        }
+
+        @Override
+        public String append(String output, String element1) {
+            return output + "," + element1;
+        }
+
+        @Override
+        public String word(String output, String token1) {
+            return (output == null ? "" : output) + token1;
+        }
+    };
+
+    private final Parser testee = factory.apply(callback);
+
+    @Test
+    void parse_valid() {
+        assertEquals("a", testee.parse("[a]"));
+        assertEquals("ab,c,def", testee.parse("[ab;c;def]"));
+        assertEquals("ab,c", testee.parse("[ ab ;  c ]"));
+    }
+
+    @Test
+    void parse_invalid() {
+        assertNull(testee.parse("[]"));
+        assertNull(testee.parse("[a;]"));
+        assertNull(testee.parse("[a b]"));
+        assertNull(testee.parse("[a]]"));
+    }
+
+    @Test
+    void parse_long() {
+        String input = "[" + "a;".repeat(100000) + "a]";
+        assertEquals(100001 * 2 - 1, ((String) testee.parse(input)).length());
+    }
+
+    @Test
+    void parse_emptyRepetition() {
+        List<Rule> rules = List.of(Rule.builder() //
+                .name("Word") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(token("").withPass().withCallbackLinked("word").withZeroOrMore(), set("abcdef").withPass().withCallbackLinked("word").withOneOrMore()))) //
+                .build());
+        Parser parser = new BytecodeGenerator(createListGrammar().rules(rules).build()).generate("Word", ListCallback.class).apply(callback);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertEquals("ab", parser.parse("ab")));
+    }
+
+    @Test
+    void generate_unsupported() {
+        assertThrows(IllegalStateException.class, () -> new BytecodeGenerator(createListGrammar().packrat(true).build()));
+        assertThrows(IllegalStateException.class, () -> new BytecodeGenerator(createListGrammar().build()).generate("Other", ListCallback.class));
+        assertThrows(IllegalStateException.class, () -> new BytecodeGenerator(createListGrammar().build()).generate("List", Object.class));
+        assertThrows(ClassCastException.class, () -> factory.apply(new Object()));
+    }
+
+    private static GrammarBuilder createListGrammar() {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("List") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(token("["), symbol("Items").withLinked(), token("]")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Items") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Items").withLinked(), token(";"), symbol("Word").withCallbackLinked("append")), //
+                        alternative(symbol("Word").withCallback("first")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Word") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(token(" ").withZeroOrMore(), set("abcdef").withPass().withCallbackLinked("word").withOneOrMore(), token(" ").withZeroOrMore()))) //
+                .build());
+        return Grammar.builder() //
+                .name("Lists") //
+                .javaType("parsers.Lists") //
+                .rules(rules);
+    }
+
+    public static interface ListCallback {
+
+        public String first(String element1);
+
+        public String append(String output, String element1);
+
+        public String word(String output, String token1);
+    }
+}
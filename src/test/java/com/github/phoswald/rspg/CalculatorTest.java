@@ -1,64 +1,433 @@
 package com.github.phoswald.rspg;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import parsers.Calculator;
+import parsers.CalculatorBytes;
+import parsers.CalculatorEvents;
+import parsers.CalculatorFailureCache;
+import parsers.CalculatorIncremental;
+import parsers.CalculatorInstrumented;
+import parsers.CalculatorLeftRecursive;
+import parsers.CalculatorLexer;
+import parsers.CalculatorOptimized;
+import parsers.CalculatorPackrat;
+import parsers.CalculatorPrimitive;
+import parsers.CalculatorQuantified;
+import parsers.CalculatorRecords;
+import parsers.CalculatorSpans;
+import parsers.CalculatorStreaming;
+import parsers.CalculatorTree;
 
 class CalculatorTest {
 
-    private final Calculator testee = new Calculator(new CalculatorCallback());
+    private final CalculatorCallback callback = new CalculatorCallback();
+
+    private final Interpreter interpreter = new Interpreter(Grammar.builder() //
+            .name("Calculator") //
+            .javaType("parsers.Calculator") //
+            .rules(GeneratorTest.createCalculatorRules("Double", "Integer")) //
+            .build());
+
+    private final Map<String, Interpreter.Callback> interpreterCallbacks = interpreter.bind(callback);
+
+    private final Parser bytecodeParser = new BytecodeGenerator(Grammar.builder() //
+            .name("Calculator") //
+            .javaType("parsers.Calculator") //
+            .rules(GeneratorTest.createCalculatorRules("Double", "Integer")) //
+            .build()).generate("Expression", Calculator.Callback.class).apply(callback);
+
+    private final List<Function<String, Double>> testees = List.of( //
+            new Calculator(callback)::parseExpression, //
+            new CalculatorPackrat(callback)::parseExpression, //
+            new CalculatorFailureCache(callback)::parseExpression, //
+            new CalculatorStreaming(callback)::parseExpression, //
+            input -> new CalculatorBytes(callback).parseExpression(input.getBytes(StandardCharsets.UTF_8)), //
+            new CalculatorSpans(callback)::parseExpression, //
+            new CalculatorLeftRecursive(callback)::parseExpression, //
+            new CalculatorQuantified(callback)::parseExpression, //
+            new CalculatorOptimized(callback)::parseExpression, //
+            new CalculatorLexer(callback)::parseExpression, //
+            input -> (Double) interpreter.parse("Expression", input, interpreterCallbacks), //
+            input -> (Double) bytecodeParser.parse(input), //
+            new CalculatorPrimitive(new PrimitiveCallback())::parseExpression);
 
     @Test
     void parseExpression_symbol() {
-        assertEquals(Math.PI, testee.parseExpression("pi"));
-        assertEquals(Math.E, testee.parseExpression("e"));
-        assertNull(testee.parseExpression("x"));
-        assertNull(testee.parseExpression(""));
+        assertParse(Math.PI, "pi");
+        assertParse(Math.E, "e");
+        assertParse(null, "x");
+        assertParse(null, "");
     }
 
     @Test
     void parseExpression_number() {
-        assertEquals(1234.0, testee.parseExpression("1234"));
-        assertEquals(1234.0, testee.parseExpression("001234"));
+        assertParse(1234.0, "1234");
+        assertParse(1234.0, "001234");
     }
 
     @Test
     void parseExpression_add() {
-        assertEquals(12 + 34, testee.parseExpression("12+34"));
-        assertEquals(34 - 12, testee.parseExpression("34-12"));
+        assertParse(12 + 34, "12+34");
+        assertParse(34 - 12, "34-12");
 
-        assertEquals(12 + 34 + 5, testee.parseExpression("12+34+5"));
-        assertEquals(34 - 12 - 5, testee.parseExpression("34-12-5"));
+        assertParse(12 + 34 + 5, "12+34+5");
+        assertParse(34 - 12 - 5, "34-12-5");
     }
 
     @Test
     void parseExpression_mul() {
-        assertEquals(7 * 3, testee.parseExpression("7*3"));
-        assertEquals(21 / 3, testee.parseExpression("21/3"));
+        assertParse(7 * 3, "7*3");
+        assertParse(21 / 3, "21/3");
 
-        assertEquals(7 * 3 * 4, testee.parseExpression("7*3*4"));
-        assertEquals(84 / 3 / 4, testee.parseExpression("84/3/4"));
+        assertParse(7 * 3 * 4, "7*3*4");
+        assertParse(84 / 3 / 4, "84/3/4");
     }
 
     @Test
     void parseExpression_predcedence() {
-        assertEquals(2 * 2 + 5 * 5, testee.parseExpression("2*2+5*5"));
-        assertEquals(2 * 2 - 5 * 5, testee.parseExpression("2*2-5*5"));
+        assertParse(2 * 2 + 5 * 5, "2*2+5*5");
+        assertParse(2 * 2 - 5 * 5, "2*2-5*5");
     }
 
     @Test
     void parseExpression_braces() {
-        assertEquals(12 + 34, testee.parseExpression("(12+34)"));
-        assertEquals(12 + 34, testee.parseExpression("12+(34)"));
-        assertEquals(12 + 34, testee.parseExpression("((12)+(34))"));
-        assertEquals(2 * 2 - 5 * 5, testee.parseExpression("(2*2)-(5*5)"));
-        assertEquals(2 * (2 - 5) * 5, testee.parseExpression("2*(2-5)*5"));
+        assertParse(12 + 34, "(12+34)");
+        assertParse(12 + 34, "12+(34)");
+        assertParse(12 + 34, "((12)+(34))");
+        assertParse(2 * 2 - 5 * 5, "(2*2)-(5*5)");
+        assertParse(2 * (2 - 5) * 5, "2*(2-5)*5");
+    }
+
+    @Test
+    void parseExpression_nested() {
+        String nested = "(".repeat(100) + "1" + ")".repeat(100);
+        assertParse(1, nested);
+        assertParse(null, nested.substring(1));
+        assertParse(null, nested + "+");
+    }
+
+    @Test
+    void parseExpression_long() throws Exception {
+        String input = "1+".repeat(40000) + "1";
+        runWithLargeStack(() -> {
+            assertParse(40001, input);
+            assertParse(null, input + "+");
+        });
+    }
+
+    @Test
+    void parseExpression_iterative() {
+        String input = "1+".repeat(200000) + "0".repeat(200000) + "1";
+        assertEquals(200001, new Calculator(callback).parseExpression(input));
+        assertEquals(200001, new CalculatorLeftRecursive(callback).parseExpression(input));
+        assertEquals(200001, new CalculatorQuantified(callback).parseExpression(input));
+    }
+
+    @Test
+    void parseExpression_lexer() {
+        CalculatorLexer testee = new CalculatorLexer(callback);
+        assertEquals(2 * (2 - 5) * 5, testee.parseExpression(" 2 * (2-5)\t*5\n"));
+        assertEquals(Math.PI * 2, testee.parseExpression("pi * 2"));
+        assertNull(testee.parseExpression("2 * x"));
+        assertNull(testee.parseExpression("2 *"));
+    }
+
+    @Test
+    void parseExpression_reader() throws Exception {
+        CalculatorStreaming testee = new CalculatorStreaming(callback);
+        assertEquals(2 * (2 - 5) * 5, testee.parseExpression(new StringReader("2*(2-5)*5")));
+        assertNull(testee.parseExpression(new StringReader("2*(2-5)*")));
+        String input = "1+".repeat(20000) + "1";
+        runWithLargeStack(() -> {
+            try {
+                assertEquals(20001, testee.parseExpression(new StringReader(input)));
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+    }
+
+    @Test
+    void parseExpression_mappedFile(@TempDir Path tempDir) throws IOException {
+        CalculatorStreaming testee = new CalculatorStreaming(callback);
+        Path file = tempDir.resolve("input.txt");
+        Files.writeString(file, "2*(2-5)*5");
+        assertEquals(2 * (2 - 5) * 5, testee.parseExpression(file));
+        Files.writeString(file, "2*(2-5)*");
+        assertNull(testee.parseExpression(file));
+    }
+
+    @Test
+    void parseExpression_byteBuffer(@TempDir Path tempDir) throws IOException {
+        CalculatorBytes testee = new CalculatorBytes(callback);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        buffer.put("xx2*(2-5)*5".getBytes(StandardCharsets.US_ASCII)).flip().position(2);
+        assertEquals(2 * (2 - 5) * 5, testee.parseExpression(buffer));
+        assertEquals(2, buffer.position());
+        Path file = tempDir.resolve("input.txt");
+        Files.writeString(file, "12+(34)");
+        assertEquals(12 + 34, testee.parseExpression(file));
     }
 
-    private class CalculatorCallback implements Calculator.Callback {
+    @Test
+    void parseExpression_concurrent() throws Exception {
+        List<Function<String, Double>> shared = List.of( //
+                new Calculator(callback)::parseExpression, //
+                new CalculatorPackrat(callback)::parseExpression, //
+                new CalculatorLexer(callback)::parseExpression);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                int n = i;
+                futures.add(executor.submit(() -> {
+                    String input = (n + "*2+").repeat(100) + n;
+                    for (Function<String, Double> testee : shared) {
+                        for (int j = 0; j < 50; j++) {
+                            assertEquals(n * 2 * 100 + n, testee.apply(input), input);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void parseExpression_reentrant() {
+        Calculator[] testee = new Calculator[1];
+        testee[0] = new Calculator(new CalculatorCallback() {
+            @Override
+            public Double getE() {
+                return testee[0].parseExpression("2*(3+4)");
+            }
+        });
+        assertEquals(1 + 2 * (3 + 4) * 5, testee[0].parseExpression("1+e*5"));
+    }
+
+    @Test
+    void parseAll_records() {
+        CalculatorRecords testee = new CalculatorRecords(callback);
+        assertEquals(List.of(), testee.parseAll(""));
+        assertEquals(Arrays.asList(3.0, null, 12.0), testee.parseAll("1+2\n1+\n3*4\n"));
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            input.append(i).append("*2+1\n");
+        }
+        List<Double> results = testee.parseAll(input);
+        assertEquals(100000, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i * 2 + 1, results.get(i));
+        }
+    }
+
+    @Test
+    void reparseExpression_edits() {
+        int[] digits = new int[1];
+        CalculatorIncremental testee = new CalculatorIncremental(new CalculatorCallback() {
+            @Override
+            public Integer handleDigit(Integer output, String token1) {
+                digits[0]++;
+                return super.handleDigit(output, token1);
+            }
+        });
+        String input = "1+".repeat(1000) + "1";
+        assertEquals(1001, testee.parseExpressionIncremental(input));
+        digits[0] = 0;
+        assertEquals(1000 + 23, testee.reparseExpression(input.length() - 1, 1, "23"));
+        assertEquals(2, digits[0]);
+        StringBuilder document = new StringBuilder(input).replace(input.length() - 1, input.length(), "23");
+        int[][] edits = { { document.length(), 0 }, { 0, 2 }, { 10, 0 }, { 10, 1 }, { 20, 30 }, { 0, 0 } };
+        String[] inserted = { "+4", "", "*", "5*6+", "", "2*" };
+        for (int i = 0; i < edits.length; i++) {
+            document.replace(edits[i][0], edits[i][0] + edits[i][1], inserted[i]);
+            assertEquals(testee.parseExpression(document), testee.reparseExpression(edits[i][0], edits[i][1], inserted[i]), document.toString());
+        }
+        assertEquals(2 * 1 + 983 + 5 * 6 + 23 + 4, testee.parseExpression(document));
+    }
+
+    @Test
+    void reparseExpression_reentrant() {
+        CalculatorIncremental[] testee = new CalculatorIncremental[1];
+        Double[] nested = new Double[1];
+        testee[0] = new CalculatorIncremental(new CalculatorCallback() {
+            @Override
+            public Integer handleDigit(Integer output, String token1) {
+                if (nested[0] == null) {
+                    nested[0] = 0.0;
+                    nested[0] = testee[0].parseExpressionIncremental("5*5");
+                }
+                return super.handleDigit(output, token1);
+            }
+        });
+
+        assertEquals(1 + 2 + 3, testee[0].parseExpressionIncremental("1+2+3"));
+        assertEquals(25, nested[0]);
+        assertEquals(1 + 2 + 4, testee[0].reparseExpression(4, 1, "4"));
+    }
+
+    @Test
+    void parseExpression_instrumented() {
+        Map<String, long[]> metrics = new HashMap<>();
+        CalculatorInstrumented testee = new CalculatorInstrumented(callback, (rule, calls, failures, backtracks, rescanned, nanos) -> {
+            long[] counts = metrics.computeIfAbsent(rule, k -> new long[5]);
+            counts[0] += calls;
+            counts[1] += failures;
+            counts[2] += backtracks;
+            counts[3] += rescanned;
+            counts[4] += nanos;
+        });
+        assertEquals(15, testee.parseExpression("12+3"));
+        assertArrayEquals(new long[] { 1, 0, 0, 0 }, Arrays.copyOf(metrics.get("Expression"), 4));
+        assertArrayEquals(new long[] { 5, 2, 2, 0 }, Arrays.copyOf(metrics.get("Digit"), 4));
+        assertTrue(metrics.get("Expression")[4] > 0);
+        metrics.clear();
+        assertNull(testee.parseExpression("1+(2"));
+        assertArrayEquals(new long[] { 3, 1, 1, 2 }, Arrays.copyOf(metrics.get("Brace"), 4));
+        assertArrayEquals(new long[] { 2, 0, 4, 1 }, Arrays.copyOf(metrics.get("OpAdd"), 4));
+    }
+
+    @Test
+    void parseExpression_tree() {
+        CalculatorTree testee = new CalculatorTree();
+        assertEquals("Expression(ExprAdd(ExprMul(Brace(Value:pi) OpMul:) OpAdd:))", render(testee.parseExpression("pi").cursor()));
+        CalculatorTree.Tree tree = testee.parseExpression("1+2*3");
+        assertEquals(22, tree.size());
+        List<String> numbers = new ArrayList<>();
+        CalculatorTree.Cursor cursor = tree.cursor();
+        collect(cursor, "Number", numbers);
+        assertEquals(List.of("5:1", "6:2", "7:3"), numbers);
+        assertEquals("Expression", cursor.rule());
+        assertEquals("1+2*3", cursor.text().toString());
+        assertNull(testee.parseExpression("1+(2"));
+    }
+
+    @Test
+    void parseExpression_treeTailRecursion() {
+        CalculatorTree testee = new CalculatorTree();
+        // the nested OpAdd calls are folded into the outermost one
+        assertEquals("Expression(ExprAdd(ExprMul(Brace(Value(Number(Digit:1 Digits:))) OpMul:) "
+                + "OpAdd(ExprMul(Brace(Value(Number(Digit:2 Digits:))) OpMul:) "
+                + "ExprMul(Brace(Value(Number(Digit:3 Digits:))) OpMul:))))",
+                render(testee.parseExpression("1+2+3").cursor()));
+    }
+
+    @Test
+    void parseExpression_events() {
+        List<String> events = new ArrayList<>();
+        CalculatorEvents testee = new CalculatorEvents(new CalculatorEvents.Listener() {
+            @Override
+            public void enterRule(String rule, int offset) {
+                if (rule.equals("Number") || rule.equals("OpAdd")) {
+                    events.add("<" + rule + "@" + offset);
+                }
+            }
+
+            @Override
+            public void exitRule(String rule, int start, int end) {
+                if (rule.equals("Number") || rule.equals("OpAdd")) {
+                    events.add(">" + rule + "@" + start + "-" + end);
+                }
+            }
+
+            @Override
+            public void token(String rule, CharSequence text, int start, int end) {
+                events.add(rule + ":" + text);
+            }
+        });
+        assertEquals(Boolean.TRUE, testee.parseExpression("12+3"));
+        assertEquals(List.of("<Number@0", "Digit:1", "Digit:2", ">Number@0-2", "<OpAdd@2", "<Number@3", "Digit:3", ">Number@3-4", ">OpAdd@2-4"), events);
+        events.clear();
+        assertNull(testee.parseExpression("1+x"));
+        assertEquals(List.of("<Number@0", "Digit:1", ">Number@0-1", "<OpAdd@1", ">OpAdd@1-1"), events);
+        events.clear();
+        assertEquals(Boolean.TRUE, testee.parseExpression("1+2+3"));
+        assertEquals(List.of("<Number@0", "Digit:1", ">Number@0-1", "<OpAdd@1",
+                "<Number@2", "Digit:2", ">Number@2-3", "<Number@4", "Digit:3", ">Number@4-5", ">OpAdd@1-5"), events);
+    }
+
+    private String render(CalculatorTree.Cursor cursor) {
+        if (!cursor.firstChild()) {
+            return cursor.rule() + ":" + cursor.text();
+        }
+        StringBuilder result = new StringBuilder();
+        do {
+            result.append(result.length() == 0 ? "" : " ").append(render(cursor));
+        } while (cursor.nextSibling());
+        cursor.parent();
+        return cursor.rule() + "(" + result + ")";
+    }
+
+    private void collect(CalculatorTree.Cursor cursor, String rule, List<String> result) {
+        if (cursor.rule().equals(rule)) {
+            result.add(cursor.depth() + ":" + cursor.text());
+        }
+        if (cursor.firstChild()) {
+            do {
+                collect(cursor, rule, result);
+            } while (cursor.nextSibling());
+            cursor.parent();
+        }
+    }
+
+    private void runWithLargeStack(Runnable runnable) throws Exception {
+        FutureTask<Void> task = new FutureTask<>(runnable, null);
+        new Thread(null, task, "parser", 1L << 30).start();
+        task.get();
+    }
+
+    private void assertParse(double expected, String input) {
+        assertParse(Double.valueOf(expected), input);
+    }
+
+    private void assertParse(Double expected, String input) {
+        for (Function<String, Double> testee : testees) {
+            assertEquals(expected, testee.apply(input), input);
+        }
+    }
+
+    private class CalculatorCallback implements //
+            Calculator.Callback, //
+            CalculatorPackrat.Callback, //
+            CalculatorFailureCache.Callback, //
+            CalculatorIncremental.Callback, //
+            CalculatorInstrumented.Callback, //
+            CalculatorStreaming.Callback, //
+            CalculatorBytes.Callback, //
+            CalculatorSpans.Callback, //
+            CalculatorLeftRecursive.Callback, //
+            CalculatorQuantified.Callback, //
+            CalculatorOptimized.Callback, //
+            CalculatorRecords.Callback, //
+            CalculatorLexer.Callback {
 
         @Override
         public Double add(Double output, Double element1) {
@@ -99,5 +468,53 @@ class CalculatorTest {
         public Integer handleDigit(Integer output, String token1) {
             return Integer.valueOf((output == null ? 0 : output.intValue()) * 10 + (token1.charAt(0) - '0'));
         }
+
+        @Override
+        public Integer handleDigit(Integer output, CalculatorSpans.Span token1) {
+            return Integer.valueOf((output == null ? 0 : output.intValue()) * 10 + Integer.parseInt(token1, 0, token1.length(), 10));
+        }
+    }
+
+    private class PrimitiveCallback implements CalculatorPrimitive.Callback {
+
+        @Override
+        public double add(double output, double element1) {
+            return output + element1;
+        }
+
+        @Override
+        public double sub(double output, double element1) {
+            return output - element1;
+        }
+
+        @Override
+        public double mul(double output, double element1) {
+            return output * element1;
+        }
+
+        @Override
+        public double div(double output, double element1) {
+            return output / element1;
+        }
+
+        @Override
+        public double getPi() {
+            return Math.PI;
+        }
+
+        @Override
+        public double getE() {
+            return Math.E;
+        }
+
+        @Override
+        public double createNumber(int element1) {
+            return element1;
+        }
+
+        @Override
+        public int handleDigit(int output, String token1) {
+            return output * 10 + (token1.charAt(0) - '0');
+        }
     }
 }
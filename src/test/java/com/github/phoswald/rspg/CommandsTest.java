@@ -0,0 +1,132 @@
+package com.github.phoswald.rspg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import parsers.Commands;
+
+class CommandsTest {
+
+    private final CommandsCallback callback = new CommandsCallback();
+
+    private final Grammar grammar = Grammar.builder() //
+            .name("Commands") //
+            .javaType("parsers.Commands") //
+            .rules(GeneratorTest.createCommandsRules()) //
+            .build();
+
+    private final Interpreter interpreter = new Interpreter(grammar);
+
+    private final Map<String, Interpreter.Callback> interpreterCallbacks = interpreter.bind(callback);
+
+    private final Parser bytecodeParser = new BytecodeGenerator(grammar) //
+            .generate("Script", Commands.Callback.class).apply(callback);
+
+    private final List<Function<String, Integer>> testees = List.of( //
+            new Commands(callback)::parseScript, //
+            input -> (Integer) interpreter.parse("Script", input, interpreterCallbacks), //
+            input -> (Integer) bytecodeParser.parse(input));
+
+    @Test
+    void parseScript_valid() {
+        assertParse(List.of("let x=1", "text say hi"), "let x=1;say hi;");
+        assertParse(List.of("text lets go", "text a = b"), "lets go;a = b;");
+    }
+
+    @Test
+    void parseScript_cut() {
+        assertParse(null, "let x;");
+        assertParse(null, "say hi;let x=;");
+        assertParse(List.of("text le x"), "le x;");
+    }
+
+    @Test
+    void parseScript_reader() throws IOException {
+        CommandsReader reader = new CommandsReader(50000);
+
+        assertEquals(100000, new Commands(callback).parseScript(reader));
+        assertEquals("text say hi", callback.commands.get(callback.commands.size() - 1));
+        assertTrue(reader.maxBuffer <= 8192, "buffer grew to " + reader.maxBuffer);
+    }
+
+    private void assertParse(List<String> expected, String input) {
+        for (Function<String, Integer> testee : testees) {
+            callback.commands.clear();
+            Integer result = testee.apply(input);
+            if (expected == null) {
+                assertNull(result);
+            } else {
+                assertEquals(expected.size(), result);
+                assertEquals(expected, callback.commands);
+            }
+        }
+    }
+
+    private static class CommandsReader extends Reader {
+
+        private final String command = "let x=1;say hi;";
+        private int remaining;
+        private int index;
+        private int maxBuffer;
+
+        CommandsReader(int count) {
+            this.remaining = count;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            maxBuffer = Math.max(maxBuffer, buffer.length);
+            if (remaining == 0) {
+                return -1;
+            }
+            int count = 0;
+            while (count < length && remaining > 0) {
+                buffer[offset + count++] = command.charAt(index++);
+                if (index == command.length()) {
+                    index = 0;
+                    remaining--;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public void close() { }
+    }
+
+    private static class CommandsCallback implements Commands.Callback {
+
+        private final List<String> commands = new ArrayList<>();
+
+        @Override
+        public Integer command(Integer output, String element1) {
+            commands.add(element1);
+            return output == null ? 1 : output + 1;
+        }
+
+        @Override
+        public String let(String element1, String element2) {
+            return "let " + element1 + "=" + element2;
+        }
+
+        @Override
+        public String text(String element1) {
+            return "text " + element1;
+        }
+
+        @Override
+        public String append(String output, String token1) {
+            return output == null ? token1 : output + token1;
+        }
+    }
+}
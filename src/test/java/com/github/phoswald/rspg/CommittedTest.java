@@ -0,0 +1,65 @@
+package com.github.phoswald.rspg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import parsers.Committed;
+
+class CommittedTest {
+
+    private final CommittedCallback callback = new CommittedCallback();
+
+    private final Grammar grammar = Grammar.builder() //
+            .name("Committed") //
+            .javaType("parsers.Committed") //
+            .rules(GeneratorTest.createCommittedRules()) //
+            .build();
+
+    private final Interpreter interpreter = new Interpreter(grammar);
+
+    private final Map<String, Interpreter.Callback> interpreterCallbacks = interpreter.bind(callback);
+
+    private final Parser bytecodeParser = new BytecodeGenerator(grammar) //
+            .generate("Letter", Committed.Callback.class).apply(callback);
+
+    private final List<Function<String, String>> testees = List.of( //
+            new Committed(callback)::parseLetter, //
+            input -> (String) interpreter.parse("Letter", input, interpreterCallbacks), //
+            input -> (String) bytecodeParser.parse(input));
+
+    @Test
+    void parseLetter_committed() {
+        assertParse("committed", "c");
+        assertParse("committed", "ac");
+    }
+
+    @Test
+    void parseLetter_cutBeforeInput() {
+        assertParse(null, "b");
+        assertParse(null, "ab");
+    }
+
+    private void assertParse(String expected, String input) {
+        for (Function<String, String> testee : testees) {
+            assertEquals(expected, testee.apply(input), input);
+        }
+    }
+
+    private static class CommittedCallback implements Committed.Callback {
+
+        @Override
+        public String committed(String element1) {
+            return "committed";
+        }
+
+        @Override
+        public String other() {
+            return "other";
+        }
+    }
+}
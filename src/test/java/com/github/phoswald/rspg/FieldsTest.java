@@ -0,0 +1,45 @@
+package com.github.phoswald.rspg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import parsers.Fields;
+
+class FieldsTest {
+
+    private final Fields testee = new Fields(new FieldsCallback());
+
+    @Test
+    void parseRow_fields() {
+        assertEquals("a|bc", testee.parseRow("a,bc"));
+        assertEquals("a,b|c", testee.parseRow("\"a,b\",c"));
+        assertNull(testee.parseRow("a\""));
+    }
+
+    @Test
+    void parseRow_emptyFields() {
+        assertEquals("|b", testee.parseRow(",b"));
+        assertEquals("a|", testee.parseRow("a,"));
+        assertEquals("a||c", testee.parseRow("a,,c"));
+    }
+
+    private static class FieldsCallback implements Fields.Callback {
+
+        @Override
+        public String next(String output, String element1) {
+            return (output == null ? "" : output) + "|" + (element1 == null ? "" : element1);
+        }
+
+        @Override
+        public String quoted() {
+            return "";
+        }
+
+        @Override
+        public String append(String output, String token1) {
+            return output == null ? token1 : output + token1;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.github.phoswald.rspg;
 
 import static com.github.phoswald.rspg.Alternative.alternative;
+import static com.github.phoswald.rspg.Cut.cut;
+import static com.github.phoswald.rspg.Lexeme.define;
 import static com.github.phoswald.rspg.Symbol.symbol;
 import static com.github.phoswald.rspg.Token.set;
 import static com.github.phoswald.rspg.Token.token;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
@@ -12,7 +16,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
@@ -21,23 +27,832 @@ class GeneratorTest {
     @Test
     void generate_calculator() throws IOException {
         // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.Calculator") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/Calculator.java"), //
+                Paths.get("target/generated-parsers/parsers/Calculator.java"));
+    }
+
+    @Test
+    void generate_calculatorPackrat() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorPackrat") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .packrat(true) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorPackrat.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorPackrat.java"));
+    }
+
+    @Test
+    void generate_calculatorFailureCache() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorFailureCache") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .failureCache(true) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorFailureCache.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorFailureCache.java"));
+    }
+
+    @Test
+    void generate_calculatorStreaming() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorStreaming") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .streaming(true) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorStreaming.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorStreaming.java"));
+    }
+
+    @Test
+    void generate_calculatorBytes() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorBytes") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .streaming(true) //
+                .bytes(true) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorBytes.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorBytes.java"));
+    }
+
+    @Test
+    void generate_calculatorSpans() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorSpans") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .spans(true) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorSpans.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorSpans.java"));
+    }
+
+    @Test
+    void generate_calculatorPrimitive() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorPrimitive") //
+                .rules(createCalculatorRules("double", "int")) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorPrimitive.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorPrimitive.java"));
+    }
+
+    @Test
+    void generate_calculatorLexer() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorLexer") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .lexemes(Arrays.asList( //
+                        define("Space", set(" \t\r\n").withOneOrMore()).withSkip())) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorLexer.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorLexer.java"));
+    }
+
+    @Test
+    void generate_calculatorRecords() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorRecords") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .recordRule("Expression") //
+                .recordSeparator("\n") //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorRecords.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorRecords.java"));
+    }
+
+    @Test
+    void generate_calculatorIncremental() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorIncremental") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .packrat(true) //
+                .incremental(true) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorIncremental.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorIncremental.java"));
+    }
+
+    @Test
+    void generate_calculatorInstrumented() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorInstrumented") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .instrumented(true) //
+                .timed(true) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorInstrumented.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorInstrumented.java"));
+    }
+
+    @Test
+    void generate_calculatorTree() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorTree") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .tree(true) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorTree.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorTree.java"));
+    }
+
+    @Test
+    void generate_calculatorEvents() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorEvents") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .events(true) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorEvents.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorEvents.java"));
+    }
+
+    @Test
+    void generate_calculatorOptimized() throws IOException {
+        // Arrange
+        Grammar grammar = new Optimizer(Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorOptimized") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .build()).optimize(EnumSet.allOf(Optimizer.Pass.class));
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorOptimized.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorOptimized.java"));
+    }
+
+    @Test
+    void generate_calculatorLeftRecursive() throws IOException {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Expression") //
+                .javaType("Double") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("ExprAdd").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("ExprAdd") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("ExprAdd").withLinked(), token("+"), symbol("ExprMul").withCallbackLinked("add")), //
+                        alternative(symbol("ExprAdd").withLinked(), token("-"), symbol("ExprMul").withCallbackLinked("sub")), //
+                        alternative(symbol("ExprMul").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("ExprMul") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("ExprMul").withLinked(), token("*"), symbol("Brace").withCallbackLinked("mul")), //
+                        alternative(symbol("ExprMul").withLinked(), token("/"), symbol("Brace").withCallbackLinked("div")), //
+                        alternative(symbol("Brace").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Brace") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("("), symbol("Expression").withLinked(), token(")")), //
+                        alternative(symbol("Value").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Value") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("pi").withCallback("getPi")), //
+                        alternative(token("e").withCallback("getE")), //
+                        alternative(symbol("Number").withCallback("createNumber")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Number") //
+                .javaType("Integer") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Number").withLinked(), symbol("Digit").withLinked()), //
+                        alternative(symbol("Digit").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Digit") //
+                .javaType("Integer") //
+                .alternatives(Arrays.asList( //
+                        alternative(set("0123456789").withPass().withCallbackLinked("handleDigit")))) //
+                .build());
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorLeftRecursive") //
+                .rules(rules) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorLeftRecursive.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorLeftRecursive.java"));
+    }
+
+    @Test
+    void generate_calculatorQuantified() throws IOException {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Expression") //
+                .javaType("Double") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("ExprAdd").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("ExprAdd") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("ExprMul").withLinked(), symbol("OpAdd").withLinked().withZeroOrMore()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("OpAdd") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("+"), symbol("ExprMul").withCallbackLinked("add")), //
+                        alternative(token("-"), symbol("ExprMul").withCallbackLinked("sub")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("ExprMul") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Brace").withLinked(), symbol("OpMul").withLinked().withZeroOrMore()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("OpMul") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("*"), symbol("Brace").withCallbackLinked("mul")), //
+                        alternative(token("/"), symbol("Brace").withCallbackLinked("div")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Brace") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("("), symbol("Expression").withLinked(), token(")")), //
+                        alternative(symbol("Value").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Value") //
+                .javaType("Double") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("pi").withCallback("getPi")), //
+                        alternative(token("e").withCallback("getE")), //
+                        alternative(symbol("Number").withCallback("createNumber")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Number") //
+                .javaType("Integer") //
+                .alternatives(Arrays.asList( //
+                        alternative(set("0123456789").withPass().withCallbackLinked("handleDigit").withOneOrMore()))) //
+                .build());
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.CalculatorQuantified") //
+                .rules(rules) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/CalculatorQuantified.java"), //
+                Paths.get("target/generated-parsers/parsers/CalculatorQuantified.java"));
+    }
+
+    @Test
+    void generate_letters() throws IOException {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Word") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Letter").withLinked(), symbol("Letters").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Letters") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Letter").withLinked(), symbol("Letters").withLinked()), //
+                        alternative())) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Letter") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(set("aeiou").withPass().withCallbackLinked("append")), //
+                        alternative(set("_").withPass().withCallbackLinked("append")), //
+                        alternative(set("\u00e4\u00f6\u00fc").withPass().withCallbackLinked("append")), //
+                        alternative(set("\u03b1\u03b2\u03b3\u03b4").withPass().withCallbackLinked("append")), //
+                        alternative(set("\u03c0\u03c9").withPass().withCallbackLinked("append")))) //
+                .build());
+        Grammar grammar = Grammar.builder() //
+                .name("Letters") //
+                .javaType("parsers.Letters") //
+                .rules(rules) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/Letters.java"), //
+                Paths.get("target/generated-parsers/parsers/Letters.java"));
+    }
+
+    @Test
+    void generate_sums() throws IOException {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Sum") //
+                .javaType("Integer") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative( //
+                                symbol("Number").withCallback("first"), //
+                                symbol("Item").withCallbackLinked("add").withZeroOrMore(), //
+                                symbol("Factor").withCallbackLinked("mul").withOptional()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Item") //
+                .javaType("Integer") //
+                .alternatives(Arrays.asList( //
+                        alternative(token(","), symbol("Number").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Factor") //
+                .javaType("Integer") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("*"), symbol("Number").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Number") //
+                .javaType("Integer") //
+                .alternatives(Arrays.asList( //
+                        alternative( //
+                                token(" ").withZeroOrMore(), //
+                                set("0123456789").withPass().withCallbackLinked("digit").withOneOrMore(), //
+                                token(" ").withZeroOrMore()))) //
+                .build());
+        Grammar grammar = Grammar.builder() //
+                .name("Sums") //
+                .javaType("parsers.Sums") //
+                .rules(rules) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/Sums.java"), //
+                Paths.get("target/generated-parsers/parsers/Sums.java"));
+    }
+
+    @Test
+    void generate_operators() throws IOException {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Operators") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Operator").withCallbackLinked("append").withZeroOrMore()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Operator") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("<<=").withPass().withCallback("operator")), //
+                        alternative(token("<<").withPass().withCallback("operator")), //
+                        alternative(token("<=").withPass().withCallback("operator")), //
+                        alternative(token("<").withPass().withCallback("operator")), //
+                        alternative(token(">>=").withPass().withCallback("operator")), //
+                        alternative(token(">>").withPass().withCallback("operator")), //
+                        alternative(token(">=").withPass().withCallback("operator")), //
+                        alternative(token(">").withPass().withCallback("operator")), //
+                        alternative(token("==").withPass().withCallback("operator")), //
+                        alternative(token("=").withPass().withCallback("operator")), //
+                        alternative(token("!=").withPass().withCallback("operator")), //
+                        alternative(token("!").withPass().withCallback("operator")))) //
+                .build());
+        Grammar grammar = Grammar.builder() //
+                .name("Operators") //
+                .javaType("parsers.Operators") //
+                .rules(rules) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/Operators.java"), //
+                Paths.get("target/generated-parsers/parsers/Operators.java"));
+    }
+
+    @Test
+    void generate_fields() throws IOException {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Row") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Field").withLinked(), symbol("Fields").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Fields") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(token(","), symbol("Field").withCallbackLinked("next"), symbol("Fields").withLinked()), //
+                        alternative())) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Field") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("\"").withCallback("quoted"), set("abc,").withPass().withCallbackLinked("append").withZeroOrMore(), token("\"")), //
+                        alternative(set("abc").withPass().withCallbackLinked("append").withZeroOrMore()))) //
+                .build());
+        Grammar grammar = Grammar.builder() //
+                .name("Fields") //
+                .javaType("parsers.Fields") //
+                .rules(rules) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/Fields.java"), //
+                Paths.get("target/generated-parsers/parsers/Fields.java"));
+    }
+
+    @Test
+    void generate_commands() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Commands") //
+                .javaType("parsers.Commands") //
+                .rules(createCommandsRules()) //
+                .streaming(true) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/Commands.java"), //
+                Paths.get("target/generated-parsers/parsers/Commands.java"));
+    }
+
+    @Test
+    void generate_nested() throws IOException {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Nested") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(set("abc").withPass(), symbol("Nested").withCallback("nest")), //
+                        alternative(set("xyz").withPass().withCallback("leaf")))) //
+                .build());
+        Grammar grammar = Grammar.builder() //
+                .name("Nested") //
+                .javaType("parsers.Nested") //
+                .rules(rules) //
+                .spans(true) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/Nested.java"), //
+                Paths.get("target/generated-parsers/parsers/Nested.java"));
+    }
+
+    @Test
+    void generate_shadowed() throws IOException {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Letter") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(token("a").withPass().withCallback("optional").withOptional()), //
+                        alternative(token("b").withPass().withCallback("shadowed")))) //
+                .build());
+        Grammar grammar = Grammar.builder() //
+                .name("Shadowed") //
+                .javaType("parsers.Shadowed") //
+                .rules(rules) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/Shadowed.java"), //
+                Paths.get("target/generated-parsers/parsers/Shadowed.java"));
+    }
+
+    @Test
+    void generate_committed() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Committed") //
+                .javaType("parsers.Committed") //
+                .rules(createCommittedRules()) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/Committed.java"), //
+                Paths.get("target/generated-parsers/parsers/Committed.java"));
+    }
+
+    @Test
+    void generate_items() throws IOException {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("List") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Item").withLinked().withZeroOrMore()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Item") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("a").withPass()), //
+                        alternative(cut(), token("b")))) //
+                .build());
+        Grammar grammar = Grammar.builder() //
+                .name("Items") //
+                .javaType("parsers.Items") //
+                .rules(rules) //
+                .events(true) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/Items.java"), //
+                Paths.get("target/generated-parsers/parsers/Items.java"));
+    }
+
+    @Test
+    void generate_repeats() throws IOException {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Repeats") //
+                .javaType("parsers.Repeats") //
+                .rules(createRepeatsRules()) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        assertEqualTextFiles( //
+                Paths.get("src/test/java/parsers/Repeats.java"), //
+                Paths.get("target/generated-parsers/parsers/Repeats.java"));
+    }
+
+    @Test
+    void generate_objectValues() throws IOException {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Pair") //
+                .javaType("Object") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Item"), token(","), symbol("Item").withCallback("pair")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Item") //
+                .javaType("Object") //
+                .alternatives(Arrays.asList( //
+                        alternative(set("abc").withPass().withCallback("item")))) //
+                .build());
+        Grammar grammar = Grammar.builder() //
+                .name("Pairs") //
+                .javaType("parsers.Pairs") //
+                .rules(rules) //
+                .build();
+
+        // Act
+        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+
+        // Assert
+        String text = Files.readString(Paths.get("target/generated-parsers/parsers/Pairs.java"));
+        assertTrue(text.contains("callback.pair(values[element1], values[element2])"), text);
+        assertFalse(text.contains("(Object)"), text);
+    }
+
+    @Test
+    void findLL1Rules_calculator() {
+        // Arrange
+        Grammar grammar = Grammar.builder() //
+                .name("Calculator") //
+                .javaType("parsers.Calculator") //
+                .rules(createCalculatorRules("Double", "Integer")) //
+                .build();
+
+        // Act
+        Map<String, Boolean> result = new Generator(grammar).findLL1Rules();
+
+        // Assert
+        assertEquals(10, result.size());
+        assertTrue(result.values().stream().allMatch(ll1 -> ll1), () -> result.toString());
+    }
+
+    @Test
+    void findLL1Rules_conflict() {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Word") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(token("if").withCallback("keyword")), //
+                        alternative(symbol("Name").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Name") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(set("abcdefghijklmnopqrstuvwxyz").withPass().withCallbackLinked("append").withOneOrMore()))) //
+                .build());
+        Grammar grammar = Grammar.builder() //
+                .name("Words") //
+                .javaType("parsers.Words") //
+                .rules(rules) //
+                .build();
+
+        // Act
+        Map<String, Boolean> result = new Generator(grammar).findLL1Rules();
+
+        // Assert
+        assertEquals(Map.of("Word", false, "Name", true), result);
+    }
+
+    static List<Rule> createCalculatorRules(String doubleType, String integerType) {
         List<Rule> rules = new ArrayList<>();
         rules.add(Rule.builder() //
                 .name("Expression") //
-                .javaType("Double") //
+                .javaType(doubleType) //
                 .export(true) //
                 .alternatives(Arrays.asList( //
                         alternative(symbol("ExprAdd").withLinked()))) //
                 .build());
         rules.add(Rule.builder() //
                 .name("ExprAdd") //
-                .javaType("Double") //
+                .javaType(doubleType) //
                 .alternatives(Arrays.asList( //
                         alternative(symbol("ExprMul").withLinked(), symbol("OpAdd").withLinked()))) //
                 .build());
         rules.add(Rule.builder() //
                 .name("OpAdd") //
-                .javaType("Double") //
+                .javaType(doubleType) //
                 .alternatives(Arrays.asList( //
                         alternative(token("+"), symbol("ExprMul").withCallbackLinked("add"), symbol("OpAdd").withLinked()), //
                         alternative(token("-"), symbol("ExprMul").withCallbackLinked("sub"), symbol("OpAdd").withLinked()), //
@@ -45,13 +860,13 @@ class GeneratorTest {
                 .build());
         rules.add(Rule.builder() //
                 .name("ExprMul") //
-                .javaType("Double") //
+                .javaType(doubleType) //
                 .alternatives(Arrays.asList( //
                         alternative(symbol("Brace").withLinked(), symbol("OpMul").withLinked()))) //
                 .build());
         rules.add(Rule.builder() //
                 .name("OpMul") //
-                .javaType("Double") //
+                .javaType(doubleType) //
                 .alternatives(Arrays.asList( //
                         alternative(token("*"), symbol("Brace").withCallbackLinked("mul"), symbol("OpMul").withLinked()), //
                         alternative(token("/"), symbol("Brace").withCallbackLinked("div"), symbol("OpMul").withLinked()), //
@@ -59,14 +874,14 @@ class GeneratorTest {
                 .build());
         rules.add(Rule.builder() //
                 .name("Brace") //
-                .javaType("Double") //
+                .javaType(doubleType) //
                 .alternatives(Arrays.asList( //
                         alternative(token("("), symbol("Expression").withLinked(), token(")")), //
                         alternative(symbol("Value").withLinked()))) //
                 .build());
         rules.add(Rule.builder() //
                 .name("Value") //
-                .javaType("Double") //
+                .javaType(doubleType) //
                 .alternatives(Arrays.asList( //
                         alternative(token("pi").withCallback("getPi")), //
                         alternative(token("e").withCallback("getE")), //
@@ -74,36 +889,101 @@ class GeneratorTest {
                 .build());
         rules.add(Rule.builder() //
                 .name("Number") //
-                .javaType("Integer") //
+                .javaType(integerType) //
                 .alternatives(Arrays.asList( //
                         alternative(symbol("Digit").withLinked(), symbol("Digits").withLinked()))) //
                 .build());
         rules.add(Rule.builder() //
                 .name("Digit") //
-                .javaType("Integer") //
+                .javaType(integerType) //
+                .uncached(true) //
                 .alternatives(Arrays.asList( //
                         alternative(set("0123456789").withPass().withCallbackLinked("handleDigit")))) //
                 .build());
         rules.add(Rule.builder() //
                 .name("Digits") //
-                .javaType("Integer") //
+                .javaType(integerType) //
                 .alternatives(Arrays.asList( //
                         alternative(symbol("Digit").withLinked(), symbol("Digits").withLinked()), //
                         alternative())) //
                 .build());
-        Grammar grammar = Grammar.builder() //
-                .name("Calculator") //
-                .javaType("parsers.Calculator") //
-                .rules(rules) //
-                .build();
+        return rules;
+    }
 
-        // Act
-        new Generator(grammar).generate(Paths.get("target/generated-parsers"));
+    static List<Rule> createCommandsRules() {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Script") //
+                .javaType("Integer") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Command").withCallbackLinked("command").withOneOrMore()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Command") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("let "), cut(), symbol("Name"), token("="), symbol("Name").withCallback("let"), token(";")), //
+                        alternative(symbol("Text").withCallback("text"), token(";")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Name") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(set("abcdefghijklmnopqrstuvwxyz0123456789").withPass().withCallbackLinked("append").withOneOrMore()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Text") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(set("abcdefghijklmnopqrstuvwxyz0123456789 =").withPass().withCallbackLinked("append").withOneOrMore()))) //
+                .build());
+        return rules;
+    }
 
-        // Assert
-        assertEqualTextFiles( //
-                Paths.get("src/test/java/parsers/Calculator.java"), //
-                Paths.get("target/generated-parsers/parsers/Calculator.java"));
+    static List<Rule> createRepeatsRules() {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Script") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(token("<").withPass(), symbol("Inner"), symbol("Blank").withCallbackLinked("blank").withZeroOrMore(), //
+                                token("").withZeroOrMore(), set("!?").withPass().withCallbackLinked("mark").withOptional(), token(">").withCallback("script")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Inner") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("a").withPass(), token("b")), //
+                        alternative(set("xy").withPass().withCallback("inner")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Blank") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(token(" ").withOptional()))) //
+                .build());
+        return rules;
+    }
+
+    static List<Rule> createCommittedRules() {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Letter") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Prefix"), cut(), token("c").withCallback("committed")), //
+                        alternative(token("b").withCallback("other")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Prefix") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("a").withOptional()))) //
+                .build());
+        return rules;
     }
 
     private void assertEqualTextFiles(Path expectedFile, Path actualFile) throws IOException {
@@ -0,0 +1,149 @@
+package com.github.phoswald.rspg;
+
+import static com.github.phoswald.rspg.Alternative.alternative;
+import static com.github.phoswald.rspg.Symbol.symbol;
+import static com.github.phoswald.rspg.Token.set;
+import static com.github.phoswald.rspg.Token.token;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class InterpreterTest {
+
+    private final Interpreter testee = new Interpreter(createSumsGrammar());
+
+    private final Map<String, Interpreter.Callback> callbacks = Map.of( //
+            "first", arguments -> arguments[0], //
+            "add", arguments -> (Integer) arguments[0] + (Integer) arguments[1], //
+            "digit", arguments -> (arguments[0] == null ? 0 : (Integer) arguments[0]) * 10 + ((String) arguments[1]).charAt(0) - '0');
+
+    @Test
+    void parse_valid() {
+        assertEquals(42, testee.parse("Sum", "42", callbacks));
+        assertEquals(1 + 2 + 3, testee.parse("Sum", "1+2+3", callbacks));
+        assertEquals(12 + 345, testee.parse("Sum", "12+345", callbacks));
+    }
+
+    @Test
+    void parse_invalid() {
+        assertNull(testee.parse("Sum", "", callbacks));
+        assertNull(testee.parse("Sum", "1+", callbacks));
+        assertNull(testee.parse("Sum", "1++2", callbacks));
+        assertNull(testee.parse("Sum", "1 ", callbacks));
+    }
+
+    @Test
+    void parse_long() {
+        String input = "1+".repeat(100000) + "1";
+        assertEquals(100001, testee.parse("Sum", input, callbacks));
+    }
+
+    @Test
+    void parse_missing() {
+        assertThrows(IllegalStateException.class, () -> testee.parse("Product", "1", callbacks));
+        assertThrows(NullPointerException.class, () -> testee.parse("Sum", "1", Map.of()));
+    }
+
+    @Test
+    void parse_passedInCallee() {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Outer") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(token("x").withPass(), symbol("Inner"), token("y").withPass().withCallback("outer")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Inner") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("a").withPass(), token("b")))) //
+                .build());
+        Interpreter interpreter = new Interpreter(Grammar.builder() //
+                .name("Passes") //
+                .javaType("parsers.Passes") //
+                .rules(rules) //
+                .build());
+
+        assertEquals("[x, null, y]", interpreter.parse("Outer", "xaby", Map.of("outer", arguments -> Arrays.toString(arguments))));
+    }
+
+    @Test
+    void parse_emptyRepetition() {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Outer") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(token("a").withPass().withCallback("first"), symbol("Empty").withZeroOrMore().withCallback("many")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Empty") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("")))) //
+                .build());
+        Interpreter interpreter = new Interpreter(Grammar.builder() //
+                .name("Repeats") //
+                .javaType("parsers.Repeats") //
+                .rules(rules) //
+                .build());
+
+        assertEquals("a", interpreter.parse("Outer", "a", Map.of( //
+                "first", arguments -> arguments[0], //
+                "many", arguments -> "many")));
+    }
+
+    @Test
+    void bind_reflected() {
+        Map<String, Interpreter.Callback> bound = testee.bind(new SumsCallback());
+        assertEquals(1 + 2 + 3, testee.parse("Sum", "1+2+3", bound));
+    }
+
+    private static Grammar createSumsGrammar() {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Sum") //
+                .javaType("Integer") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Sum").withLinked(), token("+"), symbol("Number").withCallbackLinked("add")), //
+                        alternative(symbol("Number").withCallback("first")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Number") //
+                .javaType("Integer") //
+                .alternatives(Arrays.asList( //
+                        alternative(set("0123456789").withPass().withCallbackLinked("digit").withOneOrMore()))) //
+                .build());
+        return Grammar.builder() //
+                .name("Sums") //
+                .javaType("parsers.Sums") //
+                .rules(rules) //
+                .build();
+    }
+
+    public static class SumsCallback {
+
+        public Integer first(Integer element1) {
+            return element1;
+        }
+
+        public Integer add(Integer output, Integer element1) {
+            return output + element1;
+        }
+
+        public Integer digit(Integer output, String token1) {
+            return (output == null ? 0 : output) * 10 + token1.charAt(0) - '0';
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.phoswald.rspg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import parsers.Items;
+
+class ItemsTest {
+
+    private final List<String> events = new ArrayList<>();
+
+    private final Items testee = new Items(new Items.Listener() {
+        @Override
+        public void enterRule(String rule, int offset) {
+            events.add("<" + rule + "@" + offset);
+        }
+
+        @Override
+        public void exitRule(String rule, int start, int end) {
+            events.add(">" + rule + "@" + start + "-" + end);
+        }
+
+        @Override
+        public void token(String rule, CharSequence text, int start, int end) {
+            events.add(rule + ":" + text);
+        }
+    });
+
+    @Test
+    void parseList_cutInRepetition() {
+        assertEquals(true, testee.parseList("a"));
+        assertEquals(List.of("<List@0", "<Item@0", "Item:a", ">Item@0-1", ">List@0-1"), events);
+        events.clear();
+
+        assertEquals(true, testee.parseList("aa"));
+        assertEquals(List.of("<List@0", "<Item@0", "Item:a", ">Item@0-1", "<Item@1", "Item:a", ">Item@1-2", ">List@0-2"), events);
+    }
+}
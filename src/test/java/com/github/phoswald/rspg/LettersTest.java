@@ -0,0 +1,53 @@
+package com.github.phoswald.rspg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import parsers.Letters;
+
+class LettersTest {
+
+    private final Letters testee = new Letters(new LettersCallback());
+
+    @Test
+    void parseWord_bitmap() {
+        assertEquals("aeiou", testee.parseWord("aeiou"));
+        assertNull(testee.parseWord("b"));
+        assertNull(testee.parseWord("A"));
+    }
+
+    @Test
+    void parseWord_single() {
+        assertEquals("a_e", testee.parseWord("a_e"));
+        assertNull(testee.parseWord("-"));
+    }
+
+    @Test
+    void parseWord_latin1() {
+        assertEquals("äaü", testee.parseWord("äaü"));
+        assertNull(testee.parseWord("Ä"));
+    }
+
+    @Test
+    void parseWord_range() {
+        assertEquals("αδa", testee.parseWord("αδa"));
+        assertNull(testee.parseWord("ε"));
+    }
+
+    @Test
+    void parseWord_bitSet() {
+        assertEquals("πaω", testee.parseWord("πaω"));
+        assertNull(testee.parseWord("ρ"));
+        assertNull(testee.parseWord("Ā"));
+    }
+
+    private class LettersCallback implements Letters.Callback {
+
+        @Override
+        public String append(String output, String token1) {
+            return output == null ? token1 : output + token1;
+        }
+    }
+}
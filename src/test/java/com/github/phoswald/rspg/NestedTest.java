@@ -0,0 +1,38 @@
+package com.github.phoswald.rspg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import parsers.Nested;
+
+class NestedTest {
+
+    private final Nested testee = new Nested(new NestedCallback());
+
+    @Test
+    void parseNested_leaf() {
+        assertEquals("[x]", testee.parseNested("x"));
+        assertNull(testee.parseNested("a"));
+    }
+
+    @Test
+    void parseNested_nested() {
+        assertEquals("a[x]", testee.parseNested("ax"));
+        assertEquals("cab[z]", testee.parseNested("cabz"));
+    }
+
+    private class NestedCallback implements Nested.Callback {
+
+        @Override
+        public String nest(Nested.Span token1, String element2) {
+            return token1 + element2;
+        }
+
+        @Override
+        public String leaf(Nested.Span token1) {
+            return "[" + token1 + "]";
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.phoswald.rspg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import parsers.Operators;
+
+class OperatorsTest {
+
+    private final Operators testee = new Operators(new OperatorsCallback());
+
+    @Test
+    void parseOperators_single() {
+        assertEquals("<<=", testee.parseOperators("<<="));
+        assertEquals("<", testee.parseOperators("<"));
+        assertEquals("!", testee.parseOperators("!"));
+        assertNull(testee.parseOperators("+"));
+    }
+
+    @Test
+    void parseOperators_sequence() {
+        assertEquals("<< <=", testee.parseOperators("<<<="));
+        assertEquals(">>= >", testee.parseOperators(">>=>"));
+        assertEquals("== == = != !", testee.parseOperators("=====!=!"));
+        assertNull(testee.parseOperators("<=+"));
+    }
+
+    private static class OperatorsCallback implements Operators.Callback {
+
+        @Override
+        public String append(String output, String element1) {
+            return output == null ? element1 : output + " " + element1;
+        }
+
+        @Override
+        public String operator(String token1) {
+            return token1;
+        }
+    }
+}
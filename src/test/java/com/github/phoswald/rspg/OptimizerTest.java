@@ -0,0 +1,169 @@
+package com.github.phoswald.rspg;
+
+import static com.github.phoswald.rspg.Alternative.alternative;
+import static com.github.phoswald.rspg.Symbol.symbol;
+import static com.github.phoswald.rspg.Token.set;
+import static com.github.phoswald.rspg.Token.token;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class OptimizerTest {
+
+    private final Grammar calculator = Grammar.builder() //
+            .name("Calculator") //
+            .javaType("parsers.Calculator") //
+            .rules(GeneratorTest.createCalculatorRules("Double", "Integer")) //
+            .build();
+
+    @Test
+    void optimize_none() {
+        // Act
+        Grammar result = new Optimizer(calculator).optimize(EnumSet.noneOf(Optimizer.Pass.class));
+
+        // Assert
+        assertEquals(calculator, result);
+    }
+
+    @Test
+    void optimize_inlineRules() {
+        // Act
+        Grammar result = new Optimizer(calculator).optimize(EnumSet.of(Optimizer.Pass.InlineRules));
+
+        // Assert
+        assertEquals(calculator.rules().size(), result.rules().size());
+        assertEquals(List.of( //
+                alternative(token("("), symbol("ExprAdd").withLinked(), token(")")), //
+                alternative(symbol("Value").withLinked())), //
+                findRule(result, "Brace").alternatives());
+        assertEquals(List.of( //
+                alternative(set("0123456789").withPass().withCallbackLinked("handleDigit"), symbol("Digits").withLinked())), //
+                findRule(result, "Number").alternatives());
+    }
+
+    @Test
+    void optimize_inlineRules_pending() {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Pair") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(symbol("Name"), symbol("Equals").withLinked(), symbol("Name").withCallback("pair")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Equals") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(token("=").withCallback("equals")))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Name") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(set("abc").withPass().withCallbackLinked("append").withOneOrMore()))) //
+                .build());
+        Grammar grammar = Grammar.builder().name("Pairs").javaType("parsers.Pairs").rules(rules).build();
+
+        // Act
+        Grammar result = new Optimizer(grammar).optimize(EnumSet.of(Optimizer.Pass.InlineRules));
+
+        // Assert
+        assertEquals(grammar, result);
+    }
+
+    @Test
+    void optimize_factorPrefixes() {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Call") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(token("f"), token("("), token(")").withCallback("empty")), //
+                        alternative(token("f"), token("("), symbol("Name").withCallback("call"), token(")")), //
+                        alternative(symbol("Name").withLinked()))) //
+                .build());
+        rules.add(Rule.builder() //
+                .name("Name") //
+                .javaType("String") //
+                .alternatives(Arrays.asList( //
+                        alternative(set("abc").withPass().withCallbackLinked("append").withOneOrMore()))) //
+                .build());
+        Grammar grammar = Grammar.builder().name("Calls").javaType("parsers.Calls").rules(rules).build();
+
+        // Act
+        Grammar result = new Optimizer(grammar).optimize(EnumSet.of(Optimizer.Pass.FactorPrefixes));
+
+        // Assert
+        assertEquals(List.of("Call", "CallRest", "Name"), result.rules().stream().map(Rule::name).toList());
+        assertEquals(List.of( //
+                alternative(token("f"), token("("), symbol("CallRest").withLinked()), //
+                alternative(symbol("Name").withLinked())), //
+                findRule(result, "Call").alternatives());
+        assertEquals(List.of( //
+                alternative(token(")").withCallback("empty")), //
+                alternative(symbol("Name").withCallback("call"), token(")"))), //
+                findRule(result, "CallRest").alternatives());
+    }
+
+    @Test
+    void optimize_factorPrefixes_tailRecursive() {
+        // Act
+        Grammar result = new Optimizer(calculator).optimize(EnumSet.of(Optimizer.Pass.FactorPrefixes));
+
+        // Assert
+        assertEquals(calculator, result);
+    }
+
+    @Test
+    void optimize_foldSets() {
+        // Arrange
+        List<Rule> rules = new ArrayList<>();
+        rules.add(Rule.builder() //
+                .name("Operator") //
+                .javaType("String") //
+                .export(true) //
+                .alternatives(Arrays.asList( //
+                        alternative(token("+").withPass().withCallback("operator")), //
+                        alternative(set("-*").withPass().withCallback("operator")), //
+                        alternative(token("/").withPass().withCallback("operator")), //
+                        alternative(token("**").withPass().withCallback("operator")), //
+                        alternative(token("%").withCallback("modulo")), //
+                        alternative(token("^").withPass().withCallback("operator")))) //
+                .build());
+        Grammar grammar = Grammar.builder().name("Operators").javaType("parsers.Operators").rules(rules).build();
+
+        // Act
+        Grammar result = new Optimizer(grammar).optimize(EnumSet.of(Optimizer.Pass.FoldSets));
+
+        // Assert
+        assertEquals(List.of( //
+                alternative(set("+-*/").withPass().withCallback("operator")), //
+                alternative(token("**").withPass().withCallback("operator")), //
+                alternative(token("%").withCallback("modulo")), //
+                alternative(token("^").withPass().withCallback("operator"))), //
+                findRule(result, "Operator").alternatives());
+    }
+
+    @Test
+    void optimize_dropUnreachableRules() {
+        // Act
+        Grammar result = new Optimizer(calculator).optimize(EnumSet.of(Optimizer.Pass.InlineRules, Optimizer.Pass.DropUnreachableRules));
+
+        // Assert
+        assertEquals(List.of("Expression", "ExprAdd", "OpAdd", "ExprMul", "OpMul", "Brace", "Value", "Number", "Digits"),
+                result.rules().stream().map(Rule::name).toList());
+    }
+
+    private static Rule findRule(Grammar grammar, String name) {
+        return grammar.rules().stream().filter(rule -> rule.name().equals(name)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.phoswald.rspg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import parsers.Repeats;
+
+class RepeatsTest {
+
+    private final RepeatsCallback callback = new RepeatsCallback();
+
+    private final Grammar grammar = Grammar.builder() //
+            .name("Repeats") //
+            .javaType("parsers.Repeats") //
+            .rules(GeneratorTest.createRepeatsRules()) //
+            .build();
+
+    private final Interpreter interpreter = new Interpreter(grammar);
+
+    private final Map<String, Interpreter.Callback> interpreterCallbacks = interpreter.bind(callback);
+
+    private final Parser bytecodeParser = new BytecodeGenerator(grammar) //
+            .generate("Script", Repeats.Callback.class).apply(callback);
+
+    private final List<Function<String, String>> testees = List.of( //
+            new Repeats(callback)::parseScript, //
+            input -> (String) interpreter.parse("Script", input, interpreterCallbacks), //
+            input -> (String) bytecodeParser.parse(input));
+
+    @Test
+    void parseScript_passedInCallee() {
+        assertParse("<null", List.of("script"), "<ab>");
+        assertParse("<x", List.of("inner", "script"), "<x>");
+    }
+
+    @Test
+    void parseScript_emptyRepetition() {
+        assertParse("<x", List.of("inner", "blank", "blank", "script"), "<x  >");
+        assertParse("<null", List.of("blank", "mark", "script"), "<ab !>");
+    }
+
+    @Test
+    void parseScript_invalid() {
+        assertParse(null, null, "<a>");
+        assertParse(null, null, "<x !?>");
+        assertParse(null, null, "<x ");
+    }
+
+    @Test
+    void interpreter_options() {
+        Grammar packrat = Grammar.builder() //
+                .name("Repeats") //
+                .javaType("parsers.Repeats") //
+                .rules(GeneratorTest.createRepeatsRules()) //
+                .packrat(true) //
+                .build();
+
+        assertThrows(IllegalStateException.class, () -> new Interpreter(packrat));
+    }
+
+    private void assertParse(String expected, List<String> expectedCalls, String input) {
+        for (Function<String, String> testee : testees) {
+            callback.calls.clear();
+            String result = testee.apply(input);
+            if (expected == null) {
+                assertNull(result);
+            } else {
+                assertEquals(expected, result);
+                assertEquals(expectedCalls, callback.calls);
+            }
+        }
+    }
+
+    private static class RepeatsCallback implements Repeats.Callback {
+
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        public String blank(String output, String element3) {
+            calls.add("blank");
+            return output;
+        }
+
+        @Override
+        public String mark(String output, String token5) {
+            calls.add("mark");
+            return output;
+        }
+
+        @Override
+        public String script(String token1, String element2) {
+            calls.add("script");
+            return token1 + element2;
+        }
+
+        @Override
+        public String inner(String token1) {
+            calls.add("inner");
+            return token1;
+        }
+    }
+}
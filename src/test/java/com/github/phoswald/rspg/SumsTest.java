@@ -0,0 +1,66 @@
+package com.github.phoswald.rspg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import parsers.Sums;
+
+class SumsTest {
+
+    private final Sums testee = new Sums(new SumsCallback());
+
+    @Test
+    void parseSum_single() {
+        assertEquals(42, testee.parseSum("42"));
+        assertEquals(42, testee.parseSum(" 42 "));
+        assertNull(testee.parseSum(""));
+        assertNull(testee.parseSum("  "));
+    }
+
+    @Test
+    void parseSum_zeroOrMore() {
+        assertEquals(1 + 2 + 3, testee.parseSum("1,2,3"));
+        assertEquals(1 + 2 + 3, testee.parseSum("1 , 2 , 3"));
+        assertNull(testee.parseSum("1,"));
+        assertNull(testee.parseSum("1,,2"));
+    }
+
+    @Test
+    void parseSum_optional() {
+        assertEquals((1 + 2) * 3, testee.parseSum("1,2*3"));
+        assertNull(testee.parseSum("1*2*3"));
+        assertNull(testee.parseSum("1*"));
+    }
+
+    @Test
+    void parseSum_long() {
+        String input = "1,".repeat(100000) + "1";
+        assertEquals(100001, testee.parseSum(input));
+    }
+
+    private static class SumsCallback implements Sums.Callback {
+
+        @Override
+        public Integer first(Integer element1) {
+            return element1;
+        }
+
+        @Override
+        public Integer add(Integer output, Integer element1) {
+            return Integer.valueOf(output.intValue() + element1.intValue());
+        }
+
+        @Override
+        public Integer mul(Integer output, Integer element1) {
+            return Integer.valueOf(output.intValue() * element1.intValue());
+        }
+
+        @Override
+        public Integer digit(Integer output, String token2) {
+            int value = output == null ? 0 : output.intValue();
+            return Integer.valueOf(value * 10 + token2.charAt(0) - '0');
+        }
+    }
+}
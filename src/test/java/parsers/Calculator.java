@@ -1,27 +1,49 @@
 package parsers;
 
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 public class Calculator {
 
     private final Callback callback;
-    private String input;
+    private final Queue<Calculator> contexts;
+    private CharSequence input;
     private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
 
     public Calculator(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private Calculator(Callback callback, Queue<Calculator> contexts) {
         this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public Double parseExpression(CharSequence input) {
+        Calculator context = acquire();
+        try {
+            return context.parseExpressionInContext(input);
+        } finally {
+            release(context);
+        }
     }
 
-    public Double parseExpression(String input) {
+    private Double parseExpressionInContext(CharSequence input) {
         this.input = input;
         this.offset = 0;
-        Ref<Double> output = new Ref<>();
+        this.depth = 0;
+        int output = push();
         if (parseExpression(output) && this.offset == input.length()) {
-            return output.value;
+            return (Double) values[output];
         } else {
             return null;
         }
     }
 
-    private boolean parseExpression(Ref<Double> output) {
+    private boolean parseExpression(int output) {
         int offset = this.offset;
         {
             if (parseExprAdd(output)) {
@@ -32,7 +54,7 @@ public class Calculator {
         return false;
     }
 
-    private boolean parseExprAdd(Ref<Double> output) {
+    private boolean parseExprAdd(int output) {
         int offset = this.offset;
         {
             if (parseExprMul(output)) {
@@ -45,38 +67,41 @@ public class Calculator {
         return false;
     }
 
-    private boolean parseOpAdd(Ref<Double> output) {
-        int offset = this.offset;
-        {
-            if (matchToken("+")) {
-                Ref<Double> element1 = new Ref<>();
-                if (parseExprMul(element1)) {
-                    output.value = callback.add(output.value, element1.value);
-                    if (parseOpAdd(output)) {
-                        return true;
+    private boolean parseOpAdd(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken("+")) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.add((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
                     }
                 }
             }
-        }
-        this.offset = offset;
-        {
-            if (matchToken("-")) {
-                Ref<Double> element1 = new Ref<>();
-                if (parseExprMul(element1)) {
-                    output.value = callback.sub(output.value, element1.value);
-                    if (parseOpAdd(output)) {
-                        return true;
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken("-")) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.sub((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
                     }
                 }
             }
-        }
-        this.offset = offset;
-        {
-            return true;
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
         }
     }
 
-    private boolean parseExprMul(Ref<Double> output) {
+    private boolean parseExprMul(int output) {
         int offset = this.offset;
         {
             if (parseBrace(output)) {
@@ -89,86 +114,123 @@ public class Calculator {
         return false;
     }
 
-    private boolean parseOpMul(Ref<Double> output) {
-        int offset = this.offset;
-        {
-            if (matchToken("*")) {
-                Ref<Double> element1 = new Ref<>();
-                if (parseBrace(element1)) {
-                    output.value = callback.mul(output.value, element1.value);
-                    if (parseOpMul(output)) {
-                        return true;
+    private boolean parseOpMul(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken("*")) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.mul((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
                     }
                 }
             }
-        }
-        this.offset = offset;
-        {
-            if (matchToken("/")) {
-                Ref<Double> element1 = new Ref<>();
-                if (parseBrace(element1)) {
-                    output.value = callback.div(output.value, element1.value);
-                    if (parseOpMul(output)) {
-                        return true;
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken("/")) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.div((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
                     }
                 }
             }
-        }
-        this.offset = offset;
-        {
-            return true;
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
         }
     }
 
-    private boolean parseBrace(Ref<Double> output) {
+    private boolean parseBrace(int output) {
         int offset = this.offset;
-        {
-            if (matchToken("(")) {
-                if (parseExpression(output)) {
-                    if (matchToken(")")) {
+        switch (peek(0)) {
+            case '(':
+                {
+                    if (matchToken("(")) {
+                        if (parseExpression(output)) {
+                            if (matchToken(")")) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+                break;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case 'e':
+            case 'p':
+                {
+                    if (parseValue(output)) {
                         return true;
                     }
                 }
-            }
-        }
-        this.offset = offset;
-        {
-            if (parseValue(output)) {
-                return true;
-            }
+                break;
         }
         this.offset = offset;
         return false;
     }
 
-    private boolean parseValue(Ref<Double> output) {
+    private boolean parseValue(int output) {
         int offset = this.offset;
-        {
-            if (matchToken("pi")) {
-                output.value = callback.getPi();
-                return true;
-            }
-        }
-        this.offset = offset;
-        {
-            if (matchToken("e")) {
-                output.value = callback.getE();
-                return true;
-            }
-        }
-        this.offset = offset;
-        {
-            Ref<Integer> element1 = new Ref<>();
-            if (parseNumber(element1)) {
-                output.value = callback.createNumber(element1.value);
-                return true;
-            }
+        int depth = this.depth;
+        switch (peek(0)) {
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                {
+                    int element1 = push();
+                    if (parseNumber(element1)) {
+                        values[output] = callback.createNumber((Integer) values[element1]);
+                        this.depth = depth;
+                        return true;
+                    }
+                }
+                break;
+            case 'e':
+                {
+                    if (matchToken("e")) {
+                        values[output] = callback.getE();
+                        return true;
+                    }
+                }
+                break;
+            case 'p':
+                {
+                    if (matchToken("pi")) {
+                        values[output] = callback.getPi();
+                        return true;
+                    }
+                }
+                break;
         }
         this.offset = offset;
+        this.depth = depth;
         return false;
     }
 
-    private boolean parseNumber(Ref<Integer> output) {
+    private boolean parseNumber(int output) {
         int offset = this.offset;
         {
             if (parseDigit(output)) {
@@ -181,13 +243,13 @@ public class Calculator {
         return false;
     }
 
-    private boolean parseDigit(Ref<Integer> output) {
+    private boolean parseDigit(int output) {
         int offset = this.offset;
         {
             int offset1 = this.offset;
-            if (matchSet("0123456789")) {
-                String token1 = input.substring(offset1, this.offset);
-                output.value = callback.handleDigit(output.value, token1);
+            if (matchSet0()) {
+                String token1 = input.subSequence(offset1, this.offset).toString();
+                values[output] = callback.handleDigit((Integer) values[output], token1);
                 return true;
             }
         }
@@ -195,41 +257,67 @@ public class Calculator {
         return false;
     }
 
-    private boolean parseDigits(Ref<Integer> output) {
-        int offset = this.offset;
-        {
-            if (parseDigit(output)) {
-                if (parseDigits(output)) {
-                    return true;
+    private boolean parseDigits(int output) {
+        while (true) {
+            int offset = this.offset;
+            {
+                if (parseDigit(output)) {
+                    continue;
                 }
             }
-        }
-        this.offset = offset;
-        {
-            return true;
+            this.offset = offset;
+            {
+                return true;
+            }
         }
     }
 
     private boolean matchToken(String token) {
-        if (this.input.startsWith(token, this.offset)) {
-            this.offset += token.length();
-            return true;
-        } else {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
             return false;
         }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
     }
 
-    private boolean matchSet(String set) {
-        if (offset < input.length() && set.contains(input.substring(offset, offset + 1))) {
-            this.offset++;
-            return true;
-        } else {
-            return false;
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private boolean matchSet0() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= '0' && c <= '9') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
         }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private Calculator acquire() {
+        Calculator context = contexts.poll();
+        return context != null ? context : new Calculator(callback, null);
     }
 
-    private static class Ref<T> {
-        T value;
+    private void release(Calculator context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
     }
 
     public static interface Callback {
@@ -0,0 +1,373 @@
+package parsers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class CalculatorBytes {
+
+    private static final byte[] TOKEN_0 = { '+' };
+    private static final byte[] TOKEN_1 = { '-' };
+    private static final byte[] TOKEN_2 = { '*' };
+    private static final byte[] TOKEN_3 = { '/' };
+    private static final byte[] TOKEN_4 = { '(' };
+    private static final byte[] TOKEN_5 = { ')' };
+    private static final byte[] TOKEN_6 = { 'p', 'i' };
+    private static final byte[] TOKEN_7 = { 'e' };
+
+    private final Callback callback;
+    private final Queue<CalculatorBytes> contexts;
+    private ByteBuffer input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+
+    public CalculatorBytes(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private CalculatorBytes(Callback callback, Queue<CalculatorBytes> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public Double parseExpression(byte[] input) {
+        return parseExpression(ByteBuffer.wrap(input));
+    }
+
+    public Double parseExpression(ByteBuffer input) {
+        CalculatorBytes context = acquire();
+        try {
+            return context.parseExpressionInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private Double parseExpressionInContext(ByteBuffer input) {
+        this.input = input.slice();
+        this.offset = 0;
+        this.depth = 0;
+        int output = push();
+        if (parseExpression(output) && this.offset == this.input.limit()) {
+            return (Double) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    public Double parseExpression(Path input) throws IOException {
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return parseExpression(buffer);
+        }
+    }
+
+    private boolean parseExpression(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprAdd(output)) {
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseExprAdd(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprMul(output)) {
+                if (parseOpAdd(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseOpAdd(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken(TOKEN_0)) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.add((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken(TOKEN_1)) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.sub((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseExprMul(int output) {
+        int offset = this.offset;
+        {
+            if (parseBrace(output)) {
+                if (parseOpMul(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseOpMul(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken(TOKEN_2)) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.mul((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken(TOKEN_3)) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.div((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseBrace(int output) {
+        int offset = this.offset;
+        switch (peek(0)) {
+            case '(':
+                {
+                    if (matchToken(TOKEN_4)) {
+                        if (parseExpression(output)) {
+                            if (matchToken(TOKEN_5)) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+                break;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case 'e':
+            case 'p':
+                {
+                    if (parseValue(output)) {
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseValue(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        switch (peek(0)) {
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                {
+                    int element1 = push();
+                    if (parseNumber(element1)) {
+                        values[output] = callback.createNumber((Integer) values[element1]);
+                        this.depth = depth;
+                        return true;
+                    }
+                }
+                break;
+            case 'e':
+                {
+                    if (matchToken(TOKEN_7)) {
+                        values[output] = callback.getE();
+                        return true;
+                    }
+                }
+                break;
+            case 'p':
+                {
+                    if (matchToken(TOKEN_6)) {
+                        values[output] = callback.getPi();
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        this.depth = depth;
+        return false;
+    }
+
+    private boolean parseNumber(int output) {
+        int offset = this.offset;
+        {
+            if (parseDigit(output)) {
+                if (parseDigits(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseDigit(int output) {
+        int offset = this.offset;
+        {
+            int offset1 = this.offset;
+            if (matchSet0()) {
+                String token1 = decode(offset1, this.offset);
+                values[output] = callback.handleDigit((Integer) values[output], token1);
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseDigits(int output) {
+        while (true) {
+            int offset = this.offset;
+            {
+                if (parseDigit(output)) {
+                    continue;
+                }
+            }
+            this.offset = offset;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean matchToken(byte[] token) {
+        int length = token.length;
+        if (this.offset + length > input.limit()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.get(this.offset + i) != token[i]) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.limit() ? input.get(offset + ahead) & 0xFF : -1;
+    }
+
+    private boolean matchSet0() {
+        if (offset < input.limit()) {
+            int c = input.get(offset) & 0xFF;
+            if (c >= '0' && c <= '9') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        input.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private CalculatorBytes acquire() {
+        CalculatorBytes context = contexts.poll();
+        return context != null ? context : new CalculatorBytes(callback, null);
+    }
+
+    private void release(CalculatorBytes context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Callback {
+
+        public Double add(Double output, Double element1);
+
+        public Double sub(Double output, Double element1);
+
+        public Double mul(Double output, Double element1);
+
+        public Double div(Double output, Double element1);
+
+        public Double getPi();
+
+        public Double getE();
+
+        public Double createNumber(Integer element1);
+
+        public Integer handleDigit(Integer output, String token1);
+    }
+}
@@ -0,0 +1,508 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class CalculatorEvents {
+
+    private static final String[] RULE_NAMES = { "Expression", "ExprAdd", "OpAdd", "ExprMul", "OpMul", "Brace", "Value", "Number", "Digit", "Digits" };
+
+    private static final int EVENT_ENTER = 0;
+    private static final int EVENT_EXIT = 1;
+    private static final int EVENT_TOKEN = 2;
+
+    private final Listener listener;
+    private final Queue<CalculatorEvents> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+    private int[] eventKinds = new int[16];
+    private int[] eventRules = new int[16];
+    private int[] eventStarts = new int[16];
+    private int[] eventEnds = new int[16];
+    private int eventCount;
+    private int choices;
+
+    public CalculatorEvents(Listener listener) {
+        this(listener, new ConcurrentLinkedQueue<>());
+    }
+
+    private CalculatorEvents(Listener listener, Queue<CalculatorEvents> contexts) {
+        this.listener = listener;
+        this.contexts = contexts;
+    }
+
+    public Boolean parseExpression(CharSequence input) {
+        CalculatorEvents context = acquire();
+        try {
+            return context.parseExpressionInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private Boolean parseExpressionInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        this.eventCount = 0;
+        this.choices = 0;
+        int output = push();
+        if (parseExpression(output) && this.offset == input.length()) {
+            flushEvents();
+            return Boolean.TRUE;
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseExpression(int output) {
+        int start = this.offset;
+        int events = this.eventCount;
+        emit(EVENT_ENTER, 0, start, start);
+        if (parseExpressionContent(output)) {
+            emit(EVENT_EXIT, 0, start, this.offset);
+            return true;
+        }
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseExpressionContent(int output) {
+        int offset = this.offset;
+        int events = this.eventCount;
+        {
+            if (parseExprAdd(output)) {
+                return true;
+            }
+        }
+        this.offset = offset;
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseExprAdd(int output) {
+        int start = this.offset;
+        int events = this.eventCount;
+        emit(EVENT_ENTER, 1, start, start);
+        if (parseExprAddContent(output)) {
+            emit(EVENT_EXIT, 1, start, this.offset);
+            return true;
+        }
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseExprAddContent(int output) {
+        int offset = this.offset;
+        int events = this.eventCount;
+        {
+            if (parseExprMul(output)) {
+                if (parseOpAdd(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseOpAdd(int output) {
+        int start = this.offset;
+        int events = this.eventCount;
+        emit(EVENT_ENTER, 2, start, start);
+        if (parseOpAddContent(output)) {
+            emit(EVENT_EXIT, 2, start, this.offset);
+            return true;
+        }
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseOpAddContent(int output) {
+        while (true) {
+            int offset = this.offset;
+            int events = this.eventCount;
+            {
+                this.choices++;
+                if (matchToken("+")) {
+                    if (parseExprMul(output)) {
+                        this.choices--;
+                        continue;
+                    }
+                }
+                this.choices--;
+            }
+            this.offset = offset;
+            this.eventCount = events;
+            {
+                this.choices++;
+                if (matchToken("-")) {
+                    if (parseExprMul(output)) {
+                        this.choices--;
+                        continue;
+                    }
+                }
+                this.choices--;
+            }
+            this.offset = offset;
+            this.eventCount = events;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseExprMul(int output) {
+        int start = this.offset;
+        int events = this.eventCount;
+        emit(EVENT_ENTER, 3, start, start);
+        if (parseExprMulContent(output)) {
+            emit(EVENT_EXIT, 3, start, this.offset);
+            return true;
+        }
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseExprMulContent(int output) {
+        int offset = this.offset;
+        int events = this.eventCount;
+        {
+            if (parseBrace(output)) {
+                if (parseOpMul(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseOpMul(int output) {
+        int start = this.offset;
+        int events = this.eventCount;
+        emit(EVENT_ENTER, 4, start, start);
+        if (parseOpMulContent(output)) {
+            emit(EVENT_EXIT, 4, start, this.offset);
+            return true;
+        }
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseOpMulContent(int output) {
+        while (true) {
+            int offset = this.offset;
+            int events = this.eventCount;
+            {
+                this.choices++;
+                if (matchToken("*")) {
+                    if (parseBrace(output)) {
+                        this.choices--;
+                        continue;
+                    }
+                }
+                this.choices--;
+            }
+            this.offset = offset;
+            this.eventCount = events;
+            {
+                this.choices++;
+                if (matchToken("/")) {
+                    if (parseBrace(output)) {
+                        this.choices--;
+                        continue;
+                    }
+                }
+                this.choices--;
+            }
+            this.offset = offset;
+            this.eventCount = events;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseBrace(int output) {
+        int start = this.offset;
+        int events = this.eventCount;
+        emit(EVENT_ENTER, 5, start, start);
+        if (parseBraceContent(output)) {
+            emit(EVENT_EXIT, 5, start, this.offset);
+            return true;
+        }
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseBraceContent(int output) {
+        int offset = this.offset;
+        int events = this.eventCount;
+        switch (peek(0)) {
+            case '(':
+                {
+                    if (matchToken("(")) {
+                        if (parseExpression(output)) {
+                            if (matchToken(")")) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+                break;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case 'e':
+            case 'p':
+                {
+                    if (parseValue(output)) {
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseValue(int output) {
+        int start = this.offset;
+        int events = this.eventCount;
+        emit(EVENT_ENTER, 6, start, start);
+        if (parseValueContent(output)) {
+            emit(EVENT_EXIT, 6, start, this.offset);
+            return true;
+        }
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseValueContent(int output) {
+        int offset = this.offset;
+        int events = this.eventCount;
+        switch (peek(0)) {
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                {
+                    if (parseNumber(output)) {
+                        return true;
+                    }
+                }
+                break;
+            case 'e':
+                {
+                    if (matchToken("e")) {
+                        return true;
+                    }
+                }
+                break;
+            case 'p':
+                {
+                    if (matchToken("pi")) {
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseNumber(int output) {
+        int start = this.offset;
+        int events = this.eventCount;
+        emit(EVENT_ENTER, 7, start, start);
+        if (parseNumberContent(output)) {
+            emit(EVENT_EXIT, 7, start, this.offset);
+            return true;
+        }
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseNumberContent(int output) {
+        int offset = this.offset;
+        int events = this.eventCount;
+        {
+            if (parseDigit(output)) {
+                if (parseDigits(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseDigit(int output) {
+        int start = this.offset;
+        int events = this.eventCount;
+        emit(EVENT_ENTER, 8, start, start);
+        if (parseDigitContent(output)) {
+            emit(EVENT_EXIT, 8, start, this.offset);
+            return true;
+        }
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseDigitContent(int output) {
+        int offset = this.offset;
+        int events = this.eventCount;
+        {
+            int offset1 = this.offset;
+            if (matchSet0()) {
+                emit(EVENT_TOKEN, 8, offset1, this.offset);
+                return true;
+            }
+        }
+        this.offset = offset;
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseDigits(int output) {
+        int start = this.offset;
+        int events = this.eventCount;
+        emit(EVENT_ENTER, 9, start, start);
+        if (parseDigitsContent(output)) {
+            emit(EVENT_EXIT, 9, start, this.offset);
+            return true;
+        }
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseDigitsContent(int output) {
+        while (true) {
+            int offset = this.offset;
+            int events = this.eventCount;
+            {
+                this.choices++;
+                if (parseDigit(output)) {
+                    this.choices--;
+                    continue;
+                }
+                this.choices--;
+            }
+            this.offset = offset;
+            this.eventCount = events;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private boolean matchSet0() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= '0' && c <= '9') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private void emit(int kind, int rule, int start, int end) {
+        if (eventCount == eventKinds.length) {
+            eventKinds = Arrays.copyOf(eventKinds, eventCount * 2);
+            eventRules = Arrays.copyOf(eventRules, eventCount * 2);
+            eventStarts = Arrays.copyOf(eventStarts, eventCount * 2);
+            eventEnds = Arrays.copyOf(eventEnds, eventCount * 2);
+        }
+        eventKinds[eventCount] = kind;
+        eventRules[eventCount] = rule;
+        eventStarts[eventCount] = start;
+        eventEnds[eventCount] = end;
+        eventCount++;
+        if (choices == 0) {
+            flushEvents();
+        }
+    }
+
+    private void flushEvents() {
+        for (int i = 0; i < eventCount; i++) {
+            String rule = RULE_NAMES[eventRules[i]];
+            if (eventKinds[i] == EVENT_ENTER) {
+                listener.enterRule(rule, eventStarts[i]);
+            } else if (eventKinds[i] == EVENT_EXIT) {
+                listener.exitRule(rule, eventStarts[i], eventEnds[i]);
+            } else {
+                listener.token(rule, input.subSequence(eventStarts[i], eventEnds[i]), eventStarts[i], eventEnds[i]);
+            }
+        }
+        eventCount = 0;
+    }
+
+    private CalculatorEvents acquire() {
+        CalculatorEvents context = contexts.poll();
+        return context != null ? context : new CalculatorEvents(listener, null);
+    }
+
+    private void release(CalculatorEvents context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Listener {
+
+        public void enterRule(String rule, int offset);
+
+        public void exitRule(String rule, int start, int end);
+
+        public void token(String rule, CharSequence text, int start, int end);
+    }
+}
@@ -0,0 +1,548 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class CalculatorFailureCache {
+
+    private static final int MEMO_DENSE_LIMIT = 1 << 16;
+    private static final int MEMO_SPARSE_SIZE = 1 << 16;
+    private static final int MEMO_PROBES = 4;
+
+    private final Callback callback;
+    private final Queue<CalculatorFailureCache> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+    private final int[][] memoEnds = new int[10][];
+    private long[] memoKeys;
+    private int[] memoValues;
+    private boolean memoSparse;
+
+    public CalculatorFailureCache(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private CalculatorFailureCache(Callback callback, Queue<CalculatorFailureCache> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public Double parseExpression(CharSequence input) {
+        CalculatorFailureCache context = acquire();
+        try {
+            return context.parseExpressionInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private Double parseExpressionInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        resetMemo();
+        this.depth = 0;
+        int output = push();
+        if (parseExpression(output) && this.offset == input.length()) {
+            return (Double) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseExpression(int output) {
+        int offset = this.offset;
+        int end = memoGet(0, offset);
+        if (end < 0) {
+            return false;
+        }
+        if (parseExpressionUncached(output)) {
+            return true;
+        } else {
+            memoPut(0, offset, -1);
+            return false;
+        }
+    }
+
+    private boolean parseExpressionUncached(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprAdd(output)) {
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseExprAdd(int output) {
+        int offset = this.offset;
+        int end = memoGet(1, offset);
+        if (end < 0) {
+            return false;
+        }
+        if (parseExprAddUncached(output)) {
+            return true;
+        } else {
+            memoPut(1, offset, -1);
+            return false;
+        }
+    }
+
+    private boolean parseExprAddUncached(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprMul(output)) {
+                if (parseOpAdd(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseOpAdd(int output) {
+        int offset = this.offset;
+        int end = memoGet(2, offset);
+        if (end < 0) {
+            return false;
+        }
+        if (parseOpAddUncached(output)) {
+            return true;
+        } else {
+            memoPut(2, offset, -1);
+            return false;
+        }
+    }
+
+    private boolean parseOpAddUncached(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken("+")) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.add((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken("-")) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.sub((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseExprMul(int output) {
+        int offset = this.offset;
+        int end = memoGet(3, offset);
+        if (end < 0) {
+            return false;
+        }
+        if (parseExprMulUncached(output)) {
+            return true;
+        } else {
+            memoPut(3, offset, -1);
+            return false;
+        }
+    }
+
+    private boolean parseExprMulUncached(int output) {
+        int offset = this.offset;
+        {
+            if (parseBrace(output)) {
+                if (parseOpMul(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseOpMul(int output) {
+        int offset = this.offset;
+        int end = memoGet(4, offset);
+        if (end < 0) {
+            return false;
+        }
+        if (parseOpMulUncached(output)) {
+            return true;
+        } else {
+            memoPut(4, offset, -1);
+            return false;
+        }
+    }
+
+    private boolean parseOpMulUncached(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken("*")) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.mul((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken("/")) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.div((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseBrace(int output) {
+        int offset = this.offset;
+        int end = memoGet(5, offset);
+        if (end < 0) {
+            return false;
+        }
+        if (parseBraceUncached(output)) {
+            return true;
+        } else {
+            memoPut(5, offset, -1);
+            return false;
+        }
+    }
+
+    private boolean parseBraceUncached(int output) {
+        int offset = this.offset;
+        switch (peek(0)) {
+            case '(':
+                {
+                    if (matchToken("(")) {
+                        if (parseExpression(output)) {
+                            if (matchToken(")")) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+                break;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case 'e':
+            case 'p':
+                {
+                    if (parseValue(output)) {
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseValue(int output) {
+        int offset = this.offset;
+        int end = memoGet(6, offset);
+        if (end < 0) {
+            return false;
+        }
+        if (parseValueUncached(output)) {
+            return true;
+        } else {
+            memoPut(6, offset, -1);
+            return false;
+        }
+    }
+
+    private boolean parseValueUncached(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        switch (peek(0)) {
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                {
+                    int element1 = push();
+                    if (parseNumber(element1)) {
+                        values[output] = callback.createNumber((Integer) values[element1]);
+                        this.depth = depth;
+                        return true;
+                    }
+                }
+                break;
+            case 'e':
+                {
+                    if (matchToken("e")) {
+                        values[output] = callback.getE();
+                        return true;
+                    }
+                }
+                break;
+            case 'p':
+                {
+                    if (matchToken("pi")) {
+                        values[output] = callback.getPi();
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        this.depth = depth;
+        return false;
+    }
+
+    private boolean parseNumber(int output) {
+        int offset = this.offset;
+        int end = memoGet(7, offset);
+        if (end < 0) {
+            return false;
+        }
+        if (parseNumberUncached(output)) {
+            return true;
+        } else {
+            memoPut(7, offset, -1);
+            return false;
+        }
+    }
+
+    private boolean parseNumberUncached(int output) {
+        int offset = this.offset;
+        {
+            if (parseDigit(output)) {
+                if (parseDigits(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseDigit(int output) {
+        int offset = this.offset;
+        {
+            int offset1 = this.offset;
+            if (matchSet0()) {
+                String token1 = input.subSequence(offset1, this.offset).toString();
+                values[output] = callback.handleDigit((Integer) values[output], token1);
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseDigits(int output) {
+        int offset = this.offset;
+        int end = memoGet(9, offset);
+        if (end < 0) {
+            return false;
+        }
+        if (parseDigitsUncached(output)) {
+            return true;
+        } else {
+            memoPut(9, offset, -1);
+            return false;
+        }
+    }
+
+    private boolean parseDigitsUncached(int output) {
+        while (true) {
+            int offset = this.offset;
+            {
+                if (parseDigit(output)) {
+                    continue;
+                }
+            }
+            this.offset = offset;
+            {
+                return true;
+            }
+        }
+    }
+
+    private void resetMemo() {
+        int length = input.length() + 1;
+        memoSparse = length > MEMO_DENSE_LIMIT;
+        if (memoSparse) {
+            if (memoKeys == null) {
+                memoKeys = new long[MEMO_SPARSE_SIZE];
+                memoValues = new int[MEMO_SPARSE_SIZE];
+            } else {
+                Arrays.fill(memoKeys, 0);
+            }
+            return;
+        }
+        memoEnds[0] = resetMemo(memoEnds[0], length);
+        memoEnds[1] = resetMemo(memoEnds[1], length);
+        memoEnds[2] = resetMemo(memoEnds[2], length);
+        memoEnds[3] = resetMemo(memoEnds[3], length);
+        memoEnds[4] = resetMemo(memoEnds[4], length);
+        memoEnds[5] = resetMemo(memoEnds[5], length);
+        memoEnds[6] = resetMemo(memoEnds[6], length);
+        memoEnds[7] = resetMemo(memoEnds[7], length);
+        memoEnds[9] = resetMemo(memoEnds[9], length);
+    }
+
+    private static int[] resetMemo(int[] memo, int length) {
+        if (memo == null || memo.length < length) {
+            return new int[length];
+        }
+        Arrays.fill(memo, 0, length, 0);
+        return memo;
+    }
+
+    private int memoGet(int rule, int offset) {
+        if (!memoSparse) {
+            return memoEnds[rule][offset];
+        }
+        long key = ((long) offset << 16 | rule) + 1;
+        int slot = memoSlot(key);
+        for (int probe = 0; probe < MEMO_PROBES; probe++) {
+            int index = (slot + probe) & (MEMO_SPARSE_SIZE - 1);
+            if (memoKeys[index] == key) {
+                return memoValues[index];
+            }
+            if (memoKeys[index] == 0) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    private void memoPut(int rule, int offset, int end) {
+        if (!memoSparse) {
+            memoEnds[rule][offset] = end;
+            return;
+        }
+        long key = ((long) offset << 16 | rule) + 1;
+        int slot = memoSlot(key);
+        for (int probe = 0; probe < MEMO_PROBES; probe++) {
+            int index = (slot + probe) & (MEMO_SPARSE_SIZE - 1);
+            if (memoKeys[index] == key || memoKeys[index] == 0) {
+                memoKeys[index] = key;
+                memoValues[index] = end;
+                return;
+            }
+        }
+        memoKeys[slot] = key;
+        memoValues[slot] = end;
+    }
+
+    private static int memoSlot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & (MEMO_SPARSE_SIZE - 1);
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private boolean matchSet0() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= '0' && c <= '9') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private CalculatorFailureCache acquire() {
+        CalculatorFailureCache context = contexts.poll();
+        return context != null ? context : new CalculatorFailureCache(callback, null);
+    }
+
+    private void release(CalculatorFailureCache context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Callback {
+
+        public Double add(Double output, Double element1);
+
+        public Double sub(Double output, Double element1);
+
+        public Double mul(Double output, Double element1);
+
+        public Double div(Double output, Double element1);
+
+        public Double getPi();
+
+        public Double getE();
+
+        public Double createNumber(Integer element1);
+
+        public Integer handleDigit(Integer output, String token1);
+    }
+}
@@ -0,0 +1,783 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class CalculatorIncremental {
+
+    private final Callback callback;
+    private final Queue<CalculatorIncremental> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+    private final int[][] memoEnds = new int[10][];
+    private final Object[][] memoInputs = new Object[10][];
+    private final Object[][] memoOutputs = new Object[10][];
+    private final int[][] memoExamined = new int[10][];
+    private int examined;
+    private StringBuilder document;
+    private CalculatorIncremental documentContext;
+
+    public CalculatorIncremental(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private CalculatorIncremental(Callback callback, Queue<CalculatorIncremental> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public Double parseExpression(CharSequence input) {
+        CalculatorIncremental context = acquire();
+        try {
+            return context.parseExpressionInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private Double parseExpressionInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        if (input != document) {
+            resetMemo();
+        }
+        this.depth = 0;
+        int output = push();
+        if (parseExpression(output) && this.offset == input.length()) {
+            return (Double) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    public Double parseExpressionIncremental(CharSequence input) {
+        CalculatorIncremental context = acquireDocument();
+        try {
+            context.document = new StringBuilder(input);
+            context.input = context.document;
+            context.resetMemo();
+            return context.parseExpressionInContext(context.document);
+        } finally {
+            releaseDocument(context);
+        }
+    }
+
+    public Double reparseExpression(int offset, int removed, CharSequence inserted) {
+        CalculatorIncremental context = acquireDocument();
+        try {
+            if (context.document == null) {
+                throw new IllegalStateException("No document to reparse");
+            }
+            context.document.replace(offset, offset + removed, inserted.toString());
+            context.shiftMemo(offset, removed, inserted.length());
+            return context.parseExpressionInContext(context.document);
+        } finally {
+            releaseDocument(context);
+        }
+    }
+
+    private boolean parseExpression(int output) {
+        int offset = this.offset;
+        int end = memoEnds[0][offset];
+        if (end < 0) {
+            this.examined = Math.max(this.examined, memoExamined[0][offset]);
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[0][offset], values[output])) {
+            this.examined = Math.max(this.examined, memoExamined[0][offset]);
+            values[output] = memoOutputs[0][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        int examined = this.examined;
+        this.examined = offset;
+        if (parseExpressionUncached(output)) {
+            memoExamined[0][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[0][offset] = this.offset + 1;
+            memoInputs[0][offset] = value;
+            memoOutputs[0][offset] = values[output];
+            return true;
+        } else {
+            memoExamined[0][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[0][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseExpressionUncached(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprAdd(output)) {
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseExprAdd(int output) {
+        int offset = this.offset;
+        int end = memoEnds[1][offset];
+        if (end < 0) {
+            this.examined = Math.max(this.examined, memoExamined[1][offset]);
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[1][offset], values[output])) {
+            this.examined = Math.max(this.examined, memoExamined[1][offset]);
+            values[output] = memoOutputs[1][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        int examined = this.examined;
+        this.examined = offset;
+        if (parseExprAddUncached(output)) {
+            memoExamined[1][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[1][offset] = this.offset + 1;
+            memoInputs[1][offset] = value;
+            memoOutputs[1][offset] = values[output];
+            return true;
+        } else {
+            memoExamined[1][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[1][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseExprAddUncached(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprMul(output)) {
+                if (parseOpAdd(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseOpAdd(int output) {
+        int offset = this.offset;
+        int end = memoEnds[2][offset];
+        if (end < 0) {
+            this.examined = Math.max(this.examined, memoExamined[2][offset]);
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[2][offset], values[output])) {
+            this.examined = Math.max(this.examined, memoExamined[2][offset]);
+            values[output] = memoOutputs[2][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        int examined = this.examined;
+        this.examined = offset;
+        if (parseOpAddUncached(output)) {
+            memoExamined[2][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[2][offset] = this.offset + 1;
+            memoInputs[2][offset] = value;
+            memoOutputs[2][offset] = values[output];
+            return true;
+        } else {
+            memoExamined[2][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[2][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseOpAddUncached(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken("+")) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.add((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken("-")) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.sub((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseExprMul(int output) {
+        int offset = this.offset;
+        int end = memoEnds[3][offset];
+        if (end < 0) {
+            this.examined = Math.max(this.examined, memoExamined[3][offset]);
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[3][offset], values[output])) {
+            this.examined = Math.max(this.examined, memoExamined[3][offset]);
+            values[output] = memoOutputs[3][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        int examined = this.examined;
+        this.examined = offset;
+        if (parseExprMulUncached(output)) {
+            memoExamined[3][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[3][offset] = this.offset + 1;
+            memoInputs[3][offset] = value;
+            memoOutputs[3][offset] = values[output];
+            return true;
+        } else {
+            memoExamined[3][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[3][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseExprMulUncached(int output) {
+        int offset = this.offset;
+        {
+            if (parseBrace(output)) {
+                if (parseOpMul(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseOpMul(int output) {
+        int offset = this.offset;
+        int end = memoEnds[4][offset];
+        if (end < 0) {
+            this.examined = Math.max(this.examined, memoExamined[4][offset]);
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[4][offset], values[output])) {
+            this.examined = Math.max(this.examined, memoExamined[4][offset]);
+            values[output] = memoOutputs[4][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        int examined = this.examined;
+        this.examined = offset;
+        if (parseOpMulUncached(output)) {
+            memoExamined[4][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[4][offset] = this.offset + 1;
+            memoInputs[4][offset] = value;
+            memoOutputs[4][offset] = values[output];
+            return true;
+        } else {
+            memoExamined[4][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[4][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseOpMulUncached(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken("*")) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.mul((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken("/")) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.div((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseBrace(int output) {
+        int offset = this.offset;
+        int end = memoEnds[5][offset];
+        if (end < 0) {
+            this.examined = Math.max(this.examined, memoExamined[5][offset]);
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[5][offset], values[output])) {
+            this.examined = Math.max(this.examined, memoExamined[5][offset]);
+            values[output] = memoOutputs[5][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        int examined = this.examined;
+        this.examined = offset;
+        if (parseBraceUncached(output)) {
+            memoExamined[5][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[5][offset] = this.offset + 1;
+            memoInputs[5][offset] = value;
+            memoOutputs[5][offset] = values[output];
+            return true;
+        } else {
+            memoExamined[5][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[5][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseBraceUncached(int output) {
+        int offset = this.offset;
+        switch (peek(0)) {
+            case '(':
+                {
+                    if (matchToken("(")) {
+                        if (parseExpression(output)) {
+                            if (matchToken(")")) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+                break;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case 'e':
+            case 'p':
+                {
+                    if (parseValue(output)) {
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseValue(int output) {
+        int offset = this.offset;
+        int end = memoEnds[6][offset];
+        if (end < 0) {
+            this.examined = Math.max(this.examined, memoExamined[6][offset]);
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[6][offset], values[output])) {
+            this.examined = Math.max(this.examined, memoExamined[6][offset]);
+            values[output] = memoOutputs[6][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        int examined = this.examined;
+        this.examined = offset;
+        if (parseValueUncached(output)) {
+            memoExamined[6][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[6][offset] = this.offset + 1;
+            memoInputs[6][offset] = value;
+            memoOutputs[6][offset] = values[output];
+            return true;
+        } else {
+            memoExamined[6][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[6][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseValueUncached(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        switch (peek(0)) {
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                {
+                    int element1 = push();
+                    if (parseNumber(element1)) {
+                        values[output] = callback.createNumber((Integer) values[element1]);
+                        this.depth = depth;
+                        return true;
+                    }
+                }
+                break;
+            case 'e':
+                {
+                    if (matchToken("e")) {
+                        values[output] = callback.getE();
+                        return true;
+                    }
+                }
+                break;
+            case 'p':
+                {
+                    if (matchToken("pi")) {
+                        values[output] = callback.getPi();
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        this.depth = depth;
+        return false;
+    }
+
+    private boolean parseNumber(int output) {
+        int offset = this.offset;
+        int end = memoEnds[7][offset];
+        if (end < 0) {
+            this.examined = Math.max(this.examined, memoExamined[7][offset]);
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[7][offset], values[output])) {
+            this.examined = Math.max(this.examined, memoExamined[7][offset]);
+            values[output] = memoOutputs[7][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        int examined = this.examined;
+        this.examined = offset;
+        if (parseNumberUncached(output)) {
+            memoExamined[7][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[7][offset] = this.offset + 1;
+            memoInputs[7][offset] = value;
+            memoOutputs[7][offset] = values[output];
+            return true;
+        } else {
+            memoExamined[7][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[7][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseNumberUncached(int output) {
+        int offset = this.offset;
+        {
+            if (parseDigit(output)) {
+                if (parseDigits(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseDigit(int output) {
+        int offset = this.offset;
+        {
+            int offset1 = this.offset;
+            if (matchSet0()) {
+                String token1 = input.subSequence(offset1, this.offset).toString();
+                values[output] = callback.handleDigit((Integer) values[output], token1);
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseDigits(int output) {
+        int offset = this.offset;
+        int end = memoEnds[9][offset];
+        if (end < 0) {
+            this.examined = Math.max(this.examined, memoExamined[9][offset]);
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[9][offset], values[output])) {
+            this.examined = Math.max(this.examined, memoExamined[9][offset]);
+            values[output] = memoOutputs[9][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        int examined = this.examined;
+        this.examined = offset;
+        if (parseDigitsUncached(output)) {
+            memoExamined[9][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[9][offset] = this.offset + 1;
+            memoInputs[9][offset] = value;
+            memoOutputs[9][offset] = values[output];
+            return true;
+        } else {
+            memoExamined[9][offset] = this.examined;
+            this.examined = Math.max(examined, this.examined);
+            memoEnds[9][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseDigitsUncached(int output) {
+        while (true) {
+            int offset = this.offset;
+            {
+                if (parseDigit(output)) {
+                    continue;
+                }
+            }
+            this.offset = offset;
+            {
+                return true;
+            }
+        }
+    }
+
+    private void resetMemo() {
+        int length = input.length() + 1;
+        memoEnds[0] = resetMemo(memoEnds[0], length);
+        memoInputs[0] = resetMemo(memoInputs[0], length);
+        memoOutputs[0] = resetMemo(memoOutputs[0], length);
+        memoExamined[0] = resetMemo(memoExamined[0], length);
+        memoEnds[1] = resetMemo(memoEnds[1], length);
+        memoInputs[1] = resetMemo(memoInputs[1], length);
+        memoOutputs[1] = resetMemo(memoOutputs[1], length);
+        memoExamined[1] = resetMemo(memoExamined[1], length);
+        memoEnds[2] = resetMemo(memoEnds[2], length);
+        memoInputs[2] = resetMemo(memoInputs[2], length);
+        memoOutputs[2] = resetMemo(memoOutputs[2], length);
+        memoExamined[2] = resetMemo(memoExamined[2], length);
+        memoEnds[3] = resetMemo(memoEnds[3], length);
+        memoInputs[3] = resetMemo(memoInputs[3], length);
+        memoOutputs[3] = resetMemo(memoOutputs[3], length);
+        memoExamined[3] = resetMemo(memoExamined[3], length);
+        memoEnds[4] = resetMemo(memoEnds[4], length);
+        memoInputs[4] = resetMemo(memoInputs[4], length);
+        memoOutputs[4] = resetMemo(memoOutputs[4], length);
+        memoExamined[4] = resetMemo(memoExamined[4], length);
+        memoEnds[5] = resetMemo(memoEnds[5], length);
+        memoInputs[5] = resetMemo(memoInputs[5], length);
+        memoOutputs[5] = resetMemo(memoOutputs[5], length);
+        memoExamined[5] = resetMemo(memoExamined[5], length);
+        memoEnds[6] = resetMemo(memoEnds[6], length);
+        memoInputs[6] = resetMemo(memoInputs[6], length);
+        memoOutputs[6] = resetMemo(memoOutputs[6], length);
+        memoExamined[6] = resetMemo(memoExamined[6], length);
+        memoEnds[7] = resetMemo(memoEnds[7], length);
+        memoInputs[7] = resetMemo(memoInputs[7], length);
+        memoOutputs[7] = resetMemo(memoOutputs[7], length);
+        memoExamined[7] = resetMemo(memoExamined[7], length);
+        memoEnds[9] = resetMemo(memoEnds[9], length);
+        memoInputs[9] = resetMemo(memoInputs[9], length);
+        memoOutputs[9] = resetMemo(memoOutputs[9], length);
+        memoExamined[9] = resetMemo(memoExamined[9], length);
+    }
+
+    private static int[] resetMemo(int[] memo, int length) {
+        if (memo == null || memo.length < length) {
+            return new int[length];
+        }
+        Arrays.fill(memo, 0, length, 0);
+        return memo;
+    }
+
+    private static Object[] resetMemo(Object[] memo, int length) {
+        if (memo == null || memo.length < length) {
+            return new Object[length];
+        }
+        Arrays.fill(memo, 0, length, null);
+        return memo;
+    }
+
+    private void shiftMemo(int start, int removed, int inserted) {
+        int length = document.length() + 1;
+        int shift = inserted - removed;
+        for (int rule = 0; rule < memoEnds.length; rule++) {
+            int[] ends = memoEnds[rule];
+            if (ends == null) {
+                continue;
+            }
+            int[] seen = memoExamined[rule];
+            Object[] inputs = memoInputs[rule];
+            Object[] outputs = memoOutputs[rule];
+            for (int offset = 0; offset < start; offset++) {
+                if (ends[offset] != 0 && seen[offset] > start) {
+                    ends[offset] = 0;
+                    inputs[offset] = null;
+                    outputs[offset] = null;
+                }
+            }
+            if (ends.length < length) {
+                int capacity = Math.max(length, ends.length * 2);
+                ends = memoEnds[rule] = Arrays.copyOf(ends, capacity);
+                seen = memoExamined[rule] = Arrays.copyOf(seen, capacity);
+                inputs = memoInputs[rule] = Arrays.copyOf(inputs, capacity);
+                outputs = memoOutputs[rule] = Arrays.copyOf(outputs, capacity);
+            }
+            int tail = length - start - inserted;
+            System.arraycopy(ends, start + removed, ends, start + inserted, tail);
+            System.arraycopy(seen, start + removed, seen, start + inserted, tail);
+            System.arraycopy(inputs, start + removed, inputs, start + inserted, tail);
+            System.arraycopy(outputs, start + removed, outputs, start + inserted, tail);
+            if (shift != 0) {
+                for (int offset = start + inserted; offset < length; offset++) {
+                    if (ends[offset] != 0) {
+                        ends[offset] = ends[offset] < 0 ? -1 : ends[offset] + shift;
+                        seen[offset] += shift;
+                    }
+                }
+            }
+            Arrays.fill(ends, start, start + inserted, 0);
+            Arrays.fill(inputs, start, start + inserted, null);
+            Arrays.fill(outputs, start, start + inserted, null);
+            if (shift < 0) {
+                Arrays.fill(ends, length, length - shift, 0);
+                Arrays.fill(inputs, length, length - shift, null);
+                Arrays.fill(outputs, length, length - shift, null);
+            }
+        }
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        examined = Math.max(examined, this.offset + length);
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        examined = Math.max(examined, offset + ahead + 1);
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private boolean matchSet0() {
+        examined = Math.max(examined, offset + 1);
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= '0' && c <= '9') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private CalculatorIncremental acquire() {
+        CalculatorIncremental context = contexts.poll();
+        return context != null ? context : new CalculatorIncremental(callback, null);
+    }
+
+    private void release(CalculatorIncremental context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        for (int rule = 0; rule < context.memoInputs.length; rule++) {
+            if (context.memoInputs[rule] != null) {
+                Arrays.fill(context.memoInputs[rule], null);
+                Arrays.fill(context.memoOutputs[rule], null);
+            }
+        }
+        contexts.offer(context);
+    }
+
+    private CalculatorIncremental acquireDocument() {
+        CalculatorIncremental context = documentContext;
+        documentContext = null;
+        return context != null ? context : new CalculatorIncremental(callback, null);
+    }
+
+    private void releaseDocument(CalculatorIncremental context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        documentContext = context;
+    }
+
+    public static interface Callback {
+
+        public Double add(Double output, Double element1);
+
+        public Double sub(Double output, Double element1);
+
+        public Double mul(Double output, Double element1);
+
+        public Double div(Double output, Double element1);
+
+        public Double getPi();
+
+        public Double getE();
+
+        public Double createNumber(Integer element1);
+
+        public Integer handleDigit(Integer output, String token1);
+    }
+}
@@ -0,0 +1,496 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class CalculatorInstrumented {
+
+    private static final String[] RULE_NAMES = { "Expression", "ExprAdd", "OpAdd", "ExprMul", "OpMul", "Brace", "Value", "Number", "Digit", "Digits" };
+
+    private final Callback callback;
+    private final Queue<CalculatorInstrumented> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+    private final Metrics metrics;
+    private final long[] ruleCalls = new long[10];
+    private final long[] ruleFailures = new long[10];
+    private final long[] ruleBacktracks = new long[10];
+    private final long[] ruleRescanned = new long[10];
+    private final long[] ruleNanos = new long[10];
+
+    public CalculatorInstrumented(Callback callback, Metrics metrics) {
+        this(callback, metrics, new ConcurrentLinkedQueue<>());
+    }
+
+    private CalculatorInstrumented(Callback callback, Metrics metrics, Queue<CalculatorInstrumented> contexts) {
+        this.callback = callback;
+        this.metrics = metrics;
+        this.contexts = contexts;
+    }
+
+    public Double parseExpression(CharSequence input) {
+        CalculatorInstrumented context = acquire();
+        try {
+            return context.parseExpressionInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private Double parseExpressionInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        int output = push();
+        if (parseExpression(output) && this.offset == input.length()) {
+            return (Double) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseExpression(int output) {
+        ruleCalls[0]++;
+        long start = System.nanoTime();
+        boolean success = parseExpressionMeasured(output);
+        ruleNanos[0] += System.nanoTime() - start;
+        if (!success) {
+            ruleFailures[0]++;
+        }
+        return success;
+    }
+
+    private boolean parseExpressionMeasured(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprAdd(output)) {
+                return true;
+            }
+        }
+        backtrack(0, offset);
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseExprAdd(int output) {
+        ruleCalls[1]++;
+        long start = System.nanoTime();
+        boolean success = parseExprAddMeasured(output);
+        ruleNanos[1] += System.nanoTime() - start;
+        if (!success) {
+            ruleFailures[1]++;
+        }
+        return success;
+    }
+
+    private boolean parseExprAddMeasured(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprMul(output)) {
+                if (parseOpAdd(output)) {
+                    return true;
+                }
+            }
+        }
+        backtrack(1, offset);
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseOpAdd(int output) {
+        ruleCalls[2]++;
+        long start = System.nanoTime();
+        boolean success = parseOpAddMeasured(output);
+        ruleNanos[2] += System.nanoTime() - start;
+        if (!success) {
+            ruleFailures[2]++;
+        }
+        return success;
+    }
+
+    private boolean parseOpAddMeasured(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken("+")) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.add((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            backtrack(2, offset);
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken("-")) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.sub((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            backtrack(2, offset);
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseExprMul(int output) {
+        ruleCalls[3]++;
+        long start = System.nanoTime();
+        boolean success = parseExprMulMeasured(output);
+        ruleNanos[3] += System.nanoTime() - start;
+        if (!success) {
+            ruleFailures[3]++;
+        }
+        return success;
+    }
+
+    private boolean parseExprMulMeasured(int output) {
+        int offset = this.offset;
+        {
+            if (parseBrace(output)) {
+                if (parseOpMul(output)) {
+                    return true;
+                }
+            }
+        }
+        backtrack(3, offset);
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseOpMul(int output) {
+        ruleCalls[4]++;
+        long start = System.nanoTime();
+        boolean success = parseOpMulMeasured(output);
+        ruleNanos[4] += System.nanoTime() - start;
+        if (!success) {
+            ruleFailures[4]++;
+        }
+        return success;
+    }
+
+    private boolean parseOpMulMeasured(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken("*")) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.mul((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            backtrack(4, offset);
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken("/")) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.div((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            backtrack(4, offset);
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseBrace(int output) {
+        ruleCalls[5]++;
+        long start = System.nanoTime();
+        boolean success = parseBraceMeasured(output);
+        ruleNanos[5] += System.nanoTime() - start;
+        if (!success) {
+            ruleFailures[5]++;
+        }
+        return success;
+    }
+
+    private boolean parseBraceMeasured(int output) {
+        int offset = this.offset;
+        switch (peek(0)) {
+            case '(':
+                {
+                    if (matchToken("(")) {
+                        if (parseExpression(output)) {
+                            if (matchToken(")")) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+                break;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case 'e':
+            case 'p':
+                {
+                    if (parseValue(output)) {
+                        return true;
+                    }
+                }
+                break;
+        }
+        backtrack(5, offset);
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseValue(int output) {
+        ruleCalls[6]++;
+        long start = System.nanoTime();
+        boolean success = parseValueMeasured(output);
+        ruleNanos[6] += System.nanoTime() - start;
+        if (!success) {
+            ruleFailures[6]++;
+        }
+        return success;
+    }
+
+    private boolean parseValueMeasured(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        switch (peek(0)) {
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                {
+                    int element1 = push();
+                    if (parseNumber(element1)) {
+                        values[output] = callback.createNumber((Integer) values[element1]);
+                        this.depth = depth;
+                        return true;
+                    }
+                }
+                break;
+            case 'e':
+                {
+                    if (matchToken("e")) {
+                        values[output] = callback.getE();
+                        return true;
+                    }
+                }
+                break;
+            case 'p':
+                {
+                    if (matchToken("pi")) {
+                        values[output] = callback.getPi();
+                        return true;
+                    }
+                }
+                break;
+        }
+        backtrack(6, offset);
+        this.offset = offset;
+        this.depth = depth;
+        return false;
+    }
+
+    private boolean parseNumber(int output) {
+        ruleCalls[7]++;
+        long start = System.nanoTime();
+        boolean success = parseNumberMeasured(output);
+        ruleNanos[7] += System.nanoTime() - start;
+        if (!success) {
+            ruleFailures[7]++;
+        }
+        return success;
+    }
+
+    private boolean parseNumberMeasured(int output) {
+        int offset = this.offset;
+        {
+            if (parseDigit(output)) {
+                if (parseDigits(output)) {
+                    return true;
+                }
+            }
+        }
+        backtrack(7, offset);
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseDigit(int output) {
+        ruleCalls[8]++;
+        long start = System.nanoTime();
+        boolean success = parseDigitMeasured(output);
+        ruleNanos[8] += System.nanoTime() - start;
+        if (!success) {
+            ruleFailures[8]++;
+        }
+        return success;
+    }
+
+    private boolean parseDigitMeasured(int output) {
+        int offset = this.offset;
+        {
+            int offset1 = this.offset;
+            if (matchSet0()) {
+                String token1 = input.subSequence(offset1, this.offset).toString();
+                values[output] = callback.handleDigit((Integer) values[output], token1);
+                return true;
+            }
+        }
+        backtrack(8, offset);
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseDigits(int output) {
+        ruleCalls[9]++;
+        long start = System.nanoTime();
+        boolean success = parseDigitsMeasured(output);
+        ruleNanos[9] += System.nanoTime() - start;
+        if (!success) {
+            ruleFailures[9]++;
+        }
+        return success;
+    }
+
+    private boolean parseDigitsMeasured(int output) {
+        while (true) {
+            int offset = this.offset;
+            {
+                if (parseDigit(output)) {
+                    continue;
+                }
+            }
+            backtrack(9, offset);
+            this.offset = offset;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private boolean matchSet0() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= '0' && c <= '9') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private void backtrack(int rule, int offset) {
+        ruleBacktracks[rule]++;
+        ruleRescanned[rule] += this.offset - offset;
+    }
+
+    private void reportMetrics() {
+        for (int rule = 0; rule < RULE_NAMES.length; rule++) {
+            if (ruleCalls[rule] > 0) {
+                metrics.report(RULE_NAMES[rule], ruleCalls[rule], ruleFailures[rule], ruleBacktracks[rule], ruleRescanned[rule], ruleNanos[rule]);
+            }
+        }
+        Arrays.fill(ruleCalls, 0);
+        Arrays.fill(ruleFailures, 0);
+        Arrays.fill(ruleBacktracks, 0);
+        Arrays.fill(ruleRescanned, 0);
+        Arrays.fill(ruleNanos, 0);
+    }
+
+    private CalculatorInstrumented acquire() {
+        CalculatorInstrumented context = contexts.poll();
+        return context != null ? context : new CalculatorInstrumented(callback, metrics, null);
+    }
+
+    private void release(CalculatorInstrumented context) {
+        context.reportMetrics();
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Callback {
+
+        public Double add(Double output, Double element1);
+
+        public Double sub(Double output, Double element1);
+
+        public Double mul(Double output, Double element1);
+
+        public Double div(Double output, Double element1);
+
+        public Double getPi();
+
+        public Double getE();
+
+        public Double createNumber(Integer element1);
+
+        public Integer handleDigit(Integer output, String token1);
+    }
+
+    public static interface Metrics {
+
+        public void report(String rule, long calls, long failures, long backtracks, long rescanned, long nanos);
+    }
+}
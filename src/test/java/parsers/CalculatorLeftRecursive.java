@@ -0,0 +1,338 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class CalculatorLeftRecursive {
+
+    private final Callback callback;
+    private final Queue<CalculatorLeftRecursive> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+
+    public CalculatorLeftRecursive(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private CalculatorLeftRecursive(Callback callback, Queue<CalculatorLeftRecursive> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public Double parseExpression(CharSequence input) {
+        CalculatorLeftRecursive context = acquire();
+        try {
+            return context.parseExpressionInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private Double parseExpressionInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        int output = push();
+        if (parseExpression(output) && this.offset == input.length()) {
+            return (Double) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseExpression(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprAdd(output)) {
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseExprAdd(int output) {
+        if (!parseExprAddSeed(output)) {
+            return false;
+        }
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken("+")) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.add((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken("-")) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.sub((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            return true;
+        }
+    }
+
+    private boolean parseExprAddSeed(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprMul(output)) {
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseExprMul(int output) {
+        if (!parseExprMulSeed(output)) {
+            return false;
+        }
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken("*")) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.mul((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken("/")) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.div((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            return true;
+        }
+    }
+
+    private boolean parseExprMulSeed(int output) {
+        int offset = this.offset;
+        {
+            if (parseBrace(output)) {
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseBrace(int output) {
+        int offset = this.offset;
+        switch (peek(0)) {
+            case '(':
+                {
+                    if (matchToken("(")) {
+                        if (parseExpression(output)) {
+                            if (matchToken(")")) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+                break;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case 'e':
+            case 'p':
+                {
+                    if (parseValue(output)) {
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseValue(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        switch (peek(0)) {
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                {
+                    int element1 = push();
+                    if (parseNumber(element1)) {
+                        values[output] = callback.createNumber((Integer) values[element1]);
+                        this.depth = depth;
+                        return true;
+                    }
+                }
+                break;
+            case 'e':
+                {
+                    if (matchToken("e")) {
+                        values[output] = callback.getE();
+                        return true;
+                    }
+                }
+                break;
+            case 'p':
+                {
+                    if (matchToken("pi")) {
+                        values[output] = callback.getPi();
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        this.depth = depth;
+        return false;
+    }
+
+    private boolean parseNumber(int output) {
+        if (!parseNumberSeed(output)) {
+            return false;
+        }
+        while (true) {
+            int offset = this.offset;
+            {
+                if (parseDigit(output)) {
+                    continue;
+                }
+            }
+            this.offset = offset;
+            return true;
+        }
+    }
+
+    private boolean parseNumberSeed(int output) {
+        int offset = this.offset;
+        {
+            if (parseDigit(output)) {
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseDigit(int output) {
+        int offset = this.offset;
+        {
+            int offset1 = this.offset;
+            if (matchSet0()) {
+                String token1 = input.subSequence(offset1, this.offset).toString();
+                values[output] = callback.handleDigit((Integer) values[output], token1);
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private boolean matchSet0() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= '0' && c <= '9') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private CalculatorLeftRecursive acquire() {
+        CalculatorLeftRecursive context = contexts.poll();
+        return context != null ? context : new CalculatorLeftRecursive(callback, null);
+    }
+
+    private void release(CalculatorLeftRecursive context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Callback {
+
+        public Double add(Double output, Double element1);
+
+        public Double sub(Double output, Double element1);
+
+        public Double mul(Double output, Double element1);
+
+        public Double div(Double output, Double element1);
+
+        public Double getPi();
+
+        public Double getE();
+
+        public Double createNumber(Integer element1);
+
+        public Integer handleDigit(Integer output, String token1);
+    }
+}
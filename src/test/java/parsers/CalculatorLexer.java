@@ -0,0 +1,392 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class CalculatorLexer {
+
+    private static final int KIND_0 = 0;
+    private static final int KIND_1 = 1;
+    private static final int KIND_2 = 2;
+    private static final int KIND_3 = 3;
+    private static final int KIND_4 = 4;
+    private static final int KIND_5 = 5;
+    private static final int KIND_6 = 6;
+    private static final int KIND_7 = 7;
+    private static final int KIND_8 = 8;
+    private static final int KIND_9 = 9;
+    private static final int CLASS_COUNT = 23;
+    private static final int[] CLASS_STARTS = {
+            0x0, 0x9, 0xb, 0xd, 0xe, ' ', '!', '(', ')', '*', '+', ',', '-', '.', '/', '0',
+            ':', 'e', 'f', 'i', 'j', 'p', 'q' };
+    private static final int[] TRANSITIONS = {
+            -1, 1, -1, 1, -1, 1, -1, 2, 3, 4, 5, -1, 6, -1, 7, 8,
+            -1, 9, -1, -1, -1, 10, -1, -1, 1, -1, 1, -1, 1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, 11, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+            -1, -1, -1, -1 };
+    private static final int[] ACCEPTS = {
+            -1, 9, 4, 5, 2, 0, 1, 3, 8, 7, -1, 6 };
+
+    private final Callback callback;
+    private final Queue<CalculatorLexer> contexts;
+    private CharSequence input;
+    private int[] tokenKinds = new int[16];
+    private int[] tokenStarts = new int[16];
+    private int[] tokenEnds = new int[16];
+    private int tokenCount;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+
+    public CalculatorLexer(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private CalculatorLexer(Callback callback, Queue<CalculatorLexer> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public Double parseExpression(CharSequence input) {
+        CalculatorLexer context = acquire();
+        try {
+            return context.parseExpressionInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private Double parseExpressionInContext(CharSequence input) {
+        this.input = input;
+        if (!tokenize()) {
+            return null;
+        }
+        this.offset = 0;
+        this.depth = 0;
+        int output = push();
+        if (parseExpression(output) && this.offset == tokenCount) {
+            return (Double) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseExpression(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprAdd(output)) {
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseExprAdd(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprMul(output)) {
+                if (parseOpAdd(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseOpAdd(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchKind(KIND_0)) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.add((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchKind(KIND_1)) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.sub((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseExprMul(int output) {
+        int offset = this.offset;
+        {
+            if (parseBrace(output)) {
+                if (parseOpMul(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseOpMul(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchKind(KIND_2)) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.mul((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchKind(KIND_3)) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.div((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseBrace(int output) {
+        int offset = this.offset;
+        switch (peek(0)) {
+            case KIND_4:
+                {
+                    if (matchKind(KIND_4)) {
+                        if (parseExpression(output)) {
+                            if (matchKind(KIND_5)) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+                break;
+            case KIND_6:
+            case KIND_7:
+            case KIND_8:
+                {
+                    if (parseValue(output)) {
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseValue(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        switch (peek(0)) {
+            case KIND_6:
+                {
+                    if (matchKind(KIND_6)) {
+                        values[output] = callback.getPi();
+                        return true;
+                    }
+                }
+                break;
+            case KIND_7:
+                {
+                    if (matchKind(KIND_7)) {
+                        values[output] = callback.getE();
+                        return true;
+                    }
+                }
+                break;
+            case KIND_8:
+                {
+                    int element1 = push();
+                    if (parseNumber(element1)) {
+                        values[output] = callback.createNumber((Integer) values[element1]);
+                        this.depth = depth;
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        this.depth = depth;
+        return false;
+    }
+
+    private boolean parseNumber(int output) {
+        int offset = this.offset;
+        {
+            if (parseDigit(output)) {
+                if (parseDigits(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseDigit(int output) {
+        int offset = this.offset;
+        {
+            int offset1 = this.offset;
+            if (matchKind(KIND_8)) {
+                String token1 = input.subSequence(tokenStarts[offset1], tokenEnds[offset1]).toString();
+                values[output] = callback.handleDigit((Integer) values[output], token1);
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseDigits(int output) {
+        while (true) {
+            int offset = this.offset;
+            {
+                if (parseDigit(output)) {
+                    continue;
+                }
+            }
+            this.offset = offset;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean tokenize() {
+        int length = input.length();
+        int count = 0;
+        int position = 0;
+        while (position < length) {
+            int state = 0;
+            int kind = -1;
+            int end = position;
+            for (int i = position; i < length; i++) {
+                state = TRANSITIONS[state * CLASS_COUNT + classify(input.charAt(i))];
+                if (state < 0) {
+                    break;
+                }
+                if (ACCEPTS[state] >= 0) {
+                    kind = ACCEPTS[state];
+                    end = i + 1;
+                }
+            }
+            if (kind < 0) {
+                return false;
+            }
+            if (kind < KIND_9) {
+                if (count == tokenKinds.length) {
+                    tokenKinds = Arrays.copyOf(tokenKinds, count * 2);
+                    tokenStarts = Arrays.copyOf(tokenStarts, count * 2);
+                    tokenEnds = Arrays.copyOf(tokenEnds, count * 2);
+                }
+                tokenKinds[count] = kind;
+                tokenStarts[count] = position;
+                tokenEnds[count] = end;
+                count++;
+            }
+            position = end;
+        }
+        tokenCount = count;
+        return true;
+    }
+
+    private static int classify(char c) {
+        int index = Arrays.binarySearch(CLASS_STARTS, c);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private boolean matchKind(int kind) {
+        if (offset < tokenCount && tokenKinds[offset] == kind) {
+            this.offset++;
+            return true;
+        }
+        return false;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < tokenCount ? tokenKinds[offset + ahead] : -1;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private CalculatorLexer acquire() {
+        CalculatorLexer context = contexts.poll();
+        return context != null ? context : new CalculatorLexer(callback, null);
+    }
+
+    private void release(CalculatorLexer context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Callback {
+
+        public Double add(Double output, Double element1);
+
+        public Double sub(Double output, Double element1);
+
+        public Double mul(Double output, Double element1);
+
+        public Double div(Double output, Double element1);
+
+        public Double getPi();
+
+        public Double getE();
+
+        public Double createNumber(Integer element1);
+
+        public Integer handleDigit(Integer output, String token1);
+    }
+}
@@ -0,0 +1,606 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class CalculatorPackrat {
+
+    private final Callback callback;
+    private final Queue<CalculatorPackrat> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+    private final int[][] memoEnds = new int[10][];
+    private final Object[][] memoInputs = new Object[10][];
+    private final Object[][] memoOutputs = new Object[10][];
+
+    public CalculatorPackrat(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private CalculatorPackrat(Callback callback, Queue<CalculatorPackrat> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public Double parseExpression(CharSequence input) {
+        CalculatorPackrat context = acquire();
+        try {
+            return context.parseExpressionInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private Double parseExpressionInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        resetMemo();
+        this.depth = 0;
+        int output = push();
+        if (parseExpression(output) && this.offset == input.length()) {
+            return (Double) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseExpression(int output) {
+        int offset = this.offset;
+        int end = memoEnds[0][offset];
+        if (end < 0) {
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[0][offset], values[output])) {
+            values[output] = memoOutputs[0][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        if (parseExpressionUncached(output)) {
+            memoEnds[0][offset] = this.offset + 1;
+            memoInputs[0][offset] = value;
+            memoOutputs[0][offset] = values[output];
+            return true;
+        } else {
+            memoEnds[0][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseExpressionUncached(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprAdd(output)) {
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseExprAdd(int output) {
+        int offset = this.offset;
+        int end = memoEnds[1][offset];
+        if (end < 0) {
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[1][offset], values[output])) {
+            values[output] = memoOutputs[1][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        if (parseExprAddUncached(output)) {
+            memoEnds[1][offset] = this.offset + 1;
+            memoInputs[1][offset] = value;
+            memoOutputs[1][offset] = values[output];
+            return true;
+        } else {
+            memoEnds[1][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseExprAddUncached(int output) {
+        int offset = this.offset;
+        {
+            if (parseExprMul(output)) {
+                if (parseOpAdd(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseOpAdd(int output) {
+        int offset = this.offset;
+        int end = memoEnds[2][offset];
+        if (end < 0) {
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[2][offset], values[output])) {
+            values[output] = memoOutputs[2][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        if (parseOpAddUncached(output)) {
+            memoEnds[2][offset] = this.offset + 1;
+            memoInputs[2][offset] = value;
+            memoOutputs[2][offset] = values[output];
+            return true;
+        } else {
+            memoEnds[2][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseOpAddUncached(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken("+")) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.add((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken("-")) {
+                    int element1 = push();
+                    if (parseExprMul(element1)) {
+                        values[output] = callback.sub((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseExprMul(int output) {
+        int offset = this.offset;
+        int end = memoEnds[3][offset];
+        if (end < 0) {
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[3][offset], values[output])) {
+            values[output] = memoOutputs[3][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        if (parseExprMulUncached(output)) {
+            memoEnds[3][offset] = this.offset + 1;
+            memoInputs[3][offset] = value;
+            memoOutputs[3][offset] = values[output];
+            return true;
+        } else {
+            memoEnds[3][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseExprMulUncached(int output) {
+        int offset = this.offset;
+        {
+            if (parseBrace(output)) {
+                if (parseOpMul(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseOpMul(int output) {
+        int offset = this.offset;
+        int end = memoEnds[4][offset];
+        if (end < 0) {
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[4][offset], values[output])) {
+            values[output] = memoOutputs[4][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        if (parseOpMulUncached(output)) {
+            memoEnds[4][offset] = this.offset + 1;
+            memoInputs[4][offset] = value;
+            memoOutputs[4][offset] = values[output];
+            return true;
+        } else {
+            memoEnds[4][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseOpMulUncached(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken("*")) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.mul((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                if (matchToken("/")) {
+                    int element1 = push();
+                    if (parseBrace(element1)) {
+                        values[output] = callback.div((Double) values[output], (Double) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseBrace(int output) {
+        int offset = this.offset;
+        int end = memoEnds[5][offset];
+        if (end < 0) {
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[5][offset], values[output])) {
+            values[output] = memoOutputs[5][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        if (parseBraceUncached(output)) {
+            memoEnds[5][offset] = this.offset + 1;
+            memoInputs[5][offset] = value;
+            memoOutputs[5][offset] = values[output];
+            return true;
+        } else {
+            memoEnds[5][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseBraceUncached(int output) {
+        int offset = this.offset;
+        switch (peek(0)) {
+            case '(':
+                {
+                    if (matchToken("(")) {
+                        if (parseExpression(output)) {
+                            if (matchToken(")")) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+                break;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case 'e':
+            case 'p':
+                {
+                    if (parseValue(output)) {
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseValue(int output) {
+        int offset = this.offset;
+        int end = memoEnds[6][offset];
+        if (end < 0) {
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[6][offset], values[output])) {
+            values[output] = memoOutputs[6][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        if (parseValueUncached(output)) {
+            memoEnds[6][offset] = this.offset + 1;
+            memoInputs[6][offset] = value;
+            memoOutputs[6][offset] = values[output];
+            return true;
+        } else {
+            memoEnds[6][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseValueUncached(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        switch (peek(0)) {
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                {
+                    int element1 = push();
+                    if (parseNumber(element1)) {
+                        values[output] = callback.createNumber((Integer) values[element1]);
+                        this.depth = depth;
+                        return true;
+                    }
+                }
+                break;
+            case 'e':
+                {
+                    if (matchToken("e")) {
+                        values[output] = callback.getE();
+                        return true;
+                    }
+                }
+                break;
+            case 'p':
+                {
+                    if (matchToken("pi")) {
+                        values[output] = callback.getPi();
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        this.depth = depth;
+        return false;
+    }
+
+    private boolean parseNumber(int output) {
+        int offset = this.offset;
+        int end = memoEnds[7][offset];
+        if (end < 0) {
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[7][offset], values[output])) {
+            values[output] = memoOutputs[7][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        if (parseNumberUncached(output)) {
+            memoEnds[7][offset] = this.offset + 1;
+            memoInputs[7][offset] = value;
+            memoOutputs[7][offset] = values[output];
+            return true;
+        } else {
+            memoEnds[7][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseNumberUncached(int output) {
+        int offset = this.offset;
+        {
+            if (parseDigit(output)) {
+                if (parseDigits(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseDigit(int output) {
+        int offset = this.offset;
+        {
+            int offset1 = this.offset;
+            if (matchSet0()) {
+                String token1 = input.subSequence(offset1, this.offset).toString();
+                values[output] = callback.handleDigit((Integer) values[output], token1);
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseDigits(int output) {
+        int offset = this.offset;
+        int end = memoEnds[9][offset];
+        if (end < 0) {
+            return false;
+        }
+        if (end > 0 && Objects.equals(memoInputs[9][offset], values[output])) {
+            values[output] = memoOutputs[9][offset];
+            this.offset = end - 1;
+            return true;
+        }
+        Object value = values[output];
+        if (parseDigitsUncached(output)) {
+            memoEnds[9][offset] = this.offset + 1;
+            memoInputs[9][offset] = value;
+            memoOutputs[9][offset] = values[output];
+            return true;
+        } else {
+            memoEnds[9][offset] = -1;
+            return false;
+        }
+    }
+
+    private boolean parseDigitsUncached(int output) {
+        while (true) {
+            int offset = this.offset;
+            {
+                if (parseDigit(output)) {
+                    continue;
+                }
+            }
+            this.offset = offset;
+            {
+                return true;
+            }
+        }
+    }
+
+    private void resetMemo() {
+        int length = input.length() + 1;
+        memoEnds[0] = resetMemo(memoEnds[0], length);
+        memoInputs[0] = resetMemo(memoInputs[0], length);
+        memoOutputs[0] = resetMemo(memoOutputs[0], length);
+        memoEnds[1] = resetMemo(memoEnds[1], length);
+        memoInputs[1] = resetMemo(memoInputs[1], length);
+        memoOutputs[1] = resetMemo(memoOutputs[1], length);
+        memoEnds[2] = resetMemo(memoEnds[2], length);
+        memoInputs[2] = resetMemo(memoInputs[2], length);
+        memoOutputs[2] = resetMemo(memoOutputs[2], length);
+        memoEnds[3] = resetMemo(memoEnds[3], length);
+        memoInputs[3] = resetMemo(memoInputs[3], length);
+        memoOutputs[3] = resetMemo(memoOutputs[3], length);
+        memoEnds[4] = resetMemo(memoEnds[4], length);
+        memoInputs[4] = resetMemo(memoInputs[4], length);
+        memoOutputs[4] = resetMemo(memoOutputs[4], length);
+        memoEnds[5] = resetMemo(memoEnds[5], length);
+        memoInputs[5] = resetMemo(memoInputs[5], length);
+        memoOutputs[5] = resetMemo(memoOutputs[5], length);
+        memoEnds[6] = resetMemo(memoEnds[6], length);
+        memoInputs[6] = resetMemo(memoInputs[6], length);
+        memoOutputs[6] = resetMemo(memoOutputs[6], length);
+        memoEnds[7] = resetMemo(memoEnds[7], length);
+        memoInputs[7] = resetMemo(memoInputs[7], length);
+        memoOutputs[7] = resetMemo(memoOutputs[7], length);
+        memoEnds[9] = resetMemo(memoEnds[9], length);
+        memoInputs[9] = resetMemo(memoInputs[9], length);
+        memoOutputs[9] = resetMemo(memoOutputs[9], length);
+    }
+
+    private static int[] resetMemo(int[] memo, int length) {
+        if (memo == null || memo.length < length) {
+            return new int[length];
+        }
+        Arrays.fill(memo, 0, length, 0);
+        return memo;
+    }
+
+    private static Object[] resetMemo(Object[] memo, int length) {
+        if (memo == null || memo.length < length) {
+            return new Object[length];
+        }
+        Arrays.fill(memo, 0, length, null);
+        return memo;
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private boolean matchSet0() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= '0' && c <= '9') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private CalculatorPackrat acquire() {
+        CalculatorPackrat context = contexts.poll();
+        return context != null ? context : new CalculatorPackrat(callback, null);
+    }
+
+    private void release(CalculatorPackrat context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        for (int rule = 0; rule < context.memoInputs.length; rule++) {
+            if (context.memoInputs[rule] != null) {
+                Arrays.fill(context.memoInputs[rule], null);
+                Arrays.fill(context.memoOutputs[rule], null);
+            }
+        }
+        contexts.offer(context);
+    }
+
+    public static interface Callback {
+
+        public Double add(Double output, Double element1);
+
+        public Double sub(Double output, Double element1);
+
+        public Double mul(Double output, Double element1);
+
+        public Double div(Double output, Double element1);
+
+        public Double getPi();
+
+        public Double getE();
+
+        public Double createNumber(Integer element1);
+
+        public Integer handleDigit(Integer output, String token1);
+    }
+}
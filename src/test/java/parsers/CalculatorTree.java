@@ -0,0 +1,544 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class CalculatorTree {
+
+    private static final String[] RULE_NAMES = { "Expression", "ExprAdd", "OpAdd", "ExprMul", "OpMul", "Brace", "Value", "Number", "Digit", "Digits" };
+
+    private final Queue<CalculatorTree> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+    private int[] nodeRules = new int[16];
+    private int[] nodeStarts = new int[16];
+    private int[] nodeEnds = new int[16];
+    private int[] nodeNexts = new int[16];
+    private int nodeCount;
+
+    public CalculatorTree() {
+        this(new ConcurrentLinkedQueue<>());
+    }
+
+    private CalculatorTree(Queue<CalculatorTree> contexts) {
+        this.contexts = contexts;
+    }
+
+    public Tree parseExpression(CharSequence input) {
+        CalculatorTree context = acquire();
+        try {
+            return context.parseExpressionInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private Tree parseExpressionInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        this.nodeCount = 0;
+        int output = push();
+        if (parseExpression(output) && this.offset == input.length()) {
+            return buildTree();
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseExpression(int output) {
+        int node = openNode(0);
+        if (parseExpressionChildren(output)) {
+            closeNode(node);
+            return true;
+        }
+        this.nodeCount = node;
+        return false;
+    }
+
+    private boolean parseExpressionChildren(int output) {
+        int offset = this.offset;
+        int nodes = this.nodeCount;
+        {
+            if (parseExprAdd(output)) {
+                return true;
+            }
+        }
+        this.offset = offset;
+        this.nodeCount = nodes;
+        return false;
+    }
+
+    private boolean parseExprAdd(int output) {
+        int node = openNode(1);
+        if (parseExprAddChildren(output)) {
+            closeNode(node);
+            return true;
+        }
+        this.nodeCount = node;
+        return false;
+    }
+
+    private boolean parseExprAddChildren(int output) {
+        int offset = this.offset;
+        int nodes = this.nodeCount;
+        {
+            if (parseExprMul(output)) {
+                if (parseOpAdd(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        this.nodeCount = nodes;
+        return false;
+    }
+
+    private boolean parseOpAdd(int output) {
+        int node = openNode(2);
+        if (parseOpAddChildren(output)) {
+            closeNode(node);
+            return true;
+        }
+        this.nodeCount = node;
+        return false;
+    }
+
+    private boolean parseOpAddChildren(int output) {
+        while (true) {
+            int offset = this.offset;
+            int nodes = this.nodeCount;
+            {
+                if (matchToken("+")) {
+                    if (parseExprMul(output)) {
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.nodeCount = nodes;
+            {
+                if (matchToken("-")) {
+                    if (parseExprMul(output)) {
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.nodeCount = nodes;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseExprMul(int output) {
+        int node = openNode(3);
+        if (parseExprMulChildren(output)) {
+            closeNode(node);
+            return true;
+        }
+        this.nodeCount = node;
+        return false;
+    }
+
+    private boolean parseExprMulChildren(int output) {
+        int offset = this.offset;
+        int nodes = this.nodeCount;
+        {
+            if (parseBrace(output)) {
+                if (parseOpMul(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        this.nodeCount = nodes;
+        return false;
+    }
+
+    private boolean parseOpMul(int output) {
+        int node = openNode(4);
+        if (parseOpMulChildren(output)) {
+            closeNode(node);
+            return true;
+        }
+        this.nodeCount = node;
+        return false;
+    }
+
+    private boolean parseOpMulChildren(int output) {
+        while (true) {
+            int offset = this.offset;
+            int nodes = this.nodeCount;
+            {
+                if (matchToken("*")) {
+                    if (parseBrace(output)) {
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.nodeCount = nodes;
+            {
+                if (matchToken("/")) {
+                    if (parseBrace(output)) {
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.nodeCount = nodes;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseBrace(int output) {
+        int node = openNode(5);
+        if (parseBraceChildren(output)) {
+            closeNode(node);
+            return true;
+        }
+        this.nodeCount = node;
+        return false;
+    }
+
+    private boolean parseBraceChildren(int output) {
+        int offset = this.offset;
+        int nodes = this.nodeCount;
+        switch (peek(0)) {
+            case '(':
+                {
+                    if (matchToken("(")) {
+                        if (parseExpression(output)) {
+                            if (matchToken(")")) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+                break;
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case 'e':
+            case 'p':
+                {
+                    if (parseValue(output)) {
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        this.nodeCount = nodes;
+        return false;
+    }
+
+    private boolean parseValue(int output) {
+        int node = openNode(6);
+        if (parseValueChildren(output)) {
+            closeNode(node);
+            return true;
+        }
+        this.nodeCount = node;
+        return false;
+    }
+
+    private boolean parseValueChildren(int output) {
+        int offset = this.offset;
+        int nodes = this.nodeCount;
+        switch (peek(0)) {
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                {
+                    if (parseNumber(output)) {
+                        return true;
+                    }
+                }
+                break;
+            case 'e':
+                {
+                    if (matchToken("e")) {
+                        return true;
+                    }
+                }
+                break;
+            case 'p':
+                {
+                    if (matchToken("pi")) {
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        this.nodeCount = nodes;
+        return false;
+    }
+
+    private boolean parseNumber(int output) {
+        int node = openNode(7);
+        if (parseNumberChildren(output)) {
+            closeNode(node);
+            return true;
+        }
+        this.nodeCount = node;
+        return false;
+    }
+
+    private boolean parseNumberChildren(int output) {
+        int offset = this.offset;
+        int nodes = this.nodeCount;
+        {
+            if (parseDigit(output)) {
+                if (parseDigits(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        this.nodeCount = nodes;
+        return false;
+    }
+
+    private boolean parseDigit(int output) {
+        int node = openNode(8);
+        if (parseDigitChildren(output)) {
+            closeNode(node);
+            return true;
+        }
+        this.nodeCount = node;
+        return false;
+    }
+
+    private boolean parseDigitChildren(int output) {
+        int offset = this.offset;
+        int nodes = this.nodeCount;
+        {
+            if (matchSet0()) {
+                return true;
+            }
+        }
+        this.offset = offset;
+        this.nodeCount = nodes;
+        return false;
+    }
+
+    private boolean parseDigits(int output) {
+        int node = openNode(9);
+        if (parseDigitsChildren(output)) {
+            closeNode(node);
+            return true;
+        }
+        this.nodeCount = node;
+        return false;
+    }
+
+    private boolean parseDigitsChildren(int output) {
+        while (true) {
+            int offset = this.offset;
+            int nodes = this.nodeCount;
+            {
+                if (parseDigit(output)) {
+                    continue;
+                }
+            }
+            this.offset = offset;
+            this.nodeCount = nodes;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private boolean matchSet0() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= '0' && c <= '9') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private int openNode(int rule) {
+        if (nodeCount == nodeRules.length) {
+            nodeRules = Arrays.copyOf(nodeRules, nodeCount * 2);
+            nodeStarts = Arrays.copyOf(nodeStarts, nodeCount * 2);
+            nodeEnds = Arrays.copyOf(nodeEnds, nodeCount * 2);
+            nodeNexts = Arrays.copyOf(nodeNexts, nodeCount * 2);
+        }
+        nodeRules[nodeCount] = rule;
+        nodeStarts[nodeCount] = offset;
+        return nodeCount++;
+    }
+
+    private void closeNode(int node) {
+        nodeEnds[node] = offset;
+        nodeNexts[node] = nodeCount;
+    }
+
+    private Tree buildTree() {
+        int[] firstChildren = new int[nodeCount];
+        int[] nextSiblings = new int[nodeCount];
+        Arrays.fill(firstChildren, -1);
+        Arrays.fill(nextSiblings, -1);
+        for (int node = 0; node < nodeCount; node++) {
+            if (nodeNexts[node] > node + 1) {
+                firstChildren[node] = node + 1;
+                for (int child = node + 1; nodeNexts[child] < nodeNexts[node]; child = nodeNexts[child]) {
+                    nextSiblings[child] = nodeNexts[child];
+                }
+            }
+        }
+        return new Tree(input, Arrays.copyOf(nodeRules, nodeCount), Arrays.copyOf(nodeStarts, nodeCount), Arrays.copyOf(nodeEnds, nodeCount), firstChildren, nextSiblings);
+    }
+
+    private CalculatorTree acquire() {
+        CalculatorTree context = contexts.poll();
+        return context != null ? context : new CalculatorTree(null);
+    }
+
+    private void release(CalculatorTree context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static final class Tree {
+
+        private final CharSequence input;
+        private final int[] rules;
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] firstChildren;
+        private final int[] nextSiblings;
+
+        private Tree(CharSequence input, int[] rules, int[] starts, int[] ends, int[] firstChildren, int[] nextSiblings) {
+            this.input = input;
+            this.rules = rules;
+            this.starts = starts;
+            this.ends = ends;
+            this.firstChildren = firstChildren;
+            this.nextSiblings = nextSiblings;
+        }
+
+        public int size() {
+            return rules.length;
+        }
+
+        public Cursor cursor() {
+            return new Cursor(this);
+        }
+    }
+
+    public static final class Cursor {
+
+        private final Tree tree;
+        private int[] parents = new int[16];
+        private int depth;
+        private int node;
+
+        private Cursor(Tree tree) {
+            this.tree = tree;
+        }
+
+        public String rule() {
+            return RULE_NAMES[tree.rules[node]];
+        }
+
+        public int start() {
+            return tree.starts[node];
+        }
+
+        public int end() {
+            return tree.ends[node];
+        }
+
+        public CharSequence text() {
+            return tree.input.subSequence(tree.starts[node], tree.ends[node]);
+        }
+
+        public int depth() {
+            return depth;
+        }
+
+        public boolean firstChild() {
+            int child = tree.firstChildren[node];
+            if (child < 0) {
+                return false;
+            }
+            if (depth == parents.length) {
+                parents = Arrays.copyOf(parents, depth * 2);
+            }
+            parents[depth++] = node;
+            node = child;
+            return true;
+        }
+
+        public boolean nextSibling() {
+            int sibling = tree.nextSiblings[node];
+            if (sibling < 0) {
+                return false;
+            }
+            node = sibling;
+            return true;
+        }
+
+        public boolean parent() {
+            if (depth == 0) {
+                return false;
+            }
+            node = parents[--depth];
+            return true;
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package parsers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class Commands {
+
+    private static final long[] SET_0 = { 0x3ff000000000000L, 0x7fffffe00000000L };
+    private static final long[] SET_1 = { 0x23ff000100000000L, 0x7fffffe00000000L };
+
+    private final Callback callback;
+    private final Queue<Commands> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+    private int choices;
+
+    public Commands(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private Commands(Callback callback, Queue<Commands> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public Integer parseScript(CharSequence input) {
+        Commands context = acquire();
+        try {
+            return context.parseScriptInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private Integer parseScriptInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        this.choices = 0;
+        int output = push();
+        if (parseScript(output) && !available(this.offset + 1)) {
+            return (Integer) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    public Integer parseScript(Reader input) throws IOException {
+        try {
+            return parseScript(new ReaderInput(input));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public Integer parseScript(Path input) throws IOException {
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return parseScript(new MappedInput(buffer, 0, buffer.limit()));
+        }
+    }
+
+    private boolean parseScript(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        {
+            int element1 = push();
+            if (parseCommand(element1)) {
+                values[output] = callback.command((Integer) values[output], (String) values[element1]);
+                this.depth = element1;
+                while (true) {
+                    commit();
+                    int offset2 = this.offset;
+                    int element2 = push();
+                    this.choices++;
+                    if (!parseCommand(element2) || this.offset == offset2) {
+                        this.depth = element2;
+                        this.choices--;
+                        break;
+                    }
+                    this.choices--;
+                    values[output] = callback.command((Integer) values[output], (String) values[element2]);
+                    this.depth = element2;
+                }
+                this.depth = depth;
+                return true;
+            }
+        }
+        this.offset = offset;
+        this.depth = depth;
+        return false;
+    }
+
+    private boolean parseCommand(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        switch (peek(0)) {
+            case ' ':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+            case '=':
+            case 'a':
+            case 'b':
+            case 'c':
+            case 'd':
+            case 'e':
+            case 'f':
+            case 'g':
+            case 'h':
+            case 'i':
+            case 'j':
+            case 'k':
+            case 'm':
+            case 'n':
+            case 'o':
+            case 'p':
+            case 'q':
+            case 'r':
+            case 's':
+            case 't':
+            case 'u':
+            case 'v':
+            case 'w':
+            case 'x':
+            case 'y':
+            case 'z':
+                {
+                    int element1 = push();
+                    if (parseText(element1)) {
+                        values[output] = callback.text((String) values[element1]);
+                        if (matchToken(";")) {
+                            this.depth = depth;
+                            return true;
+                        }
+                    }
+                }
+                break;
+            case 'l':
+                {
+                    this.choices++;
+                    if (matchToken("let ")) {
+                        this.choices--;
+                        commit();
+                        int element1 = push();
+                        if (parseName(element1)) {
+                            if (matchToken("=")) {
+                                int element2 = push();
+                                if (parseName(element2)) {
+                                    values[output] = callback.let((String) values[element1], (String) values[element2]);
+                                    if (matchToken(";")) {
+                                        this.depth = depth;
+                                        return true;
+                                    }
+                                }
+                            }
+                        }
+                        this.offset = offset;
+                        this.depth = depth;
+                        return false;
+                    }
+                    this.choices--;
+                }
+                this.offset = offset;
+                this.depth = depth;
+                {
+                    int element1 = push();
+                    if (parseText(element1)) {
+                        values[output] = callback.text((String) values[element1]);
+                        if (matchToken(";")) {
+                            this.depth = depth;
+                            return true;
+                        }
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        this.depth = depth;
+        return false;
+    }
+
+    private boolean parseName(int output) {
+        int offset = this.offset;
+        {
+            int offset1 = this.offset;
+            if (matchSet0()) {
+                String token1 = input.subSequence(offset1, this.offset).toString();
+                values[output] = callback.append((String) values[output], token1);
+                while (true) {
+                    int offset2 = this.offset;
+                    if (!matchSet0()) {
+                        break;
+                    }
+                    String token2 = input.subSequence(offset2, this.offset).toString();
+                    values[output] = callback.append((String) values[output], token2);
+                }
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseText(int output) {
+        int offset = this.offset;
+        {
+            int offset1 = this.offset;
+            if (matchSet1()) {
+                String token1 = input.subSequence(offset1, this.offset).toString();
+                values[output] = callback.append((String) values[output], token1);
+                while (true) {
+                    int offset2 = this.offset;
+                    if (!matchSet1()) {
+                        break;
+                    }
+                    String token2 = input.subSequence(offset2, this.offset).toString();
+                    values[output] = callback.append((String) values[output], token2);
+                }
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (!available(this.offset + length)) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        return available(offset + ahead + 1) ? input.charAt(offset + ahead) : -1;
+    }
+
+    private boolean matchSet0() {
+        if (available(offset + 1)) {
+            char c = input.charAt(offset);
+            if (c < 128 && (SET_0[c >>> 6] & (1L << c)) != 0) {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchSet1() {
+        if (available(offset + 1)) {
+            char c = input.charAt(offset);
+            if (c < 128 && (SET_1[c >>> 6] & (1L << c)) != 0) {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private void commit() {
+        if (choices == 0) {
+            if (input instanceof ReaderInput reader) {
+                reader.release(offset);
+            }
+        }
+    }
+
+    private Commands acquire() {
+        Commands context = contexts.poll();
+        return context != null ? context : new Commands(callback, null);
+    }
+
+    private void release(Commands context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    private boolean available(int end) {
+        return end <= input.length() || input instanceof ReaderInput reader && reader.fill(end);
+    }
+
+    private static final class ReaderInput implements CharSequence {
+
+        private final Reader reader;
+        private char[] buffer = new char[8192];
+        private int base;
+        private int released;
+        private int length;
+        private boolean eof;
+
+        ReaderInput(Reader reader) {
+            this.reader = reader;
+        }
+
+        boolean fill(int end) {
+            try {
+                while (length < end && !eof) {
+                    if (length - base == buffer.length && released - base >= buffer.length / 2) {
+                        System.arraycopy(buffer, released - base, buffer, 0, length - released);
+                        base = released;
+                    } else if (length - base == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    int count = reader.read(buffer, length - base, buffer.length - (length - base));
+                    if (count < 0) {
+                        eof = true;
+                    } else {
+                        length += count;
+                    }
+                }
+                return end <= length;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void release(int end) {
+            released = end;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return buffer[index - base];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(buffer, start - base, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buffer, 0, length - base);
+        }
+    }
+
+    private static final class MappedInput implements CharSequence {
+
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int end;
+
+        MappedInput(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new MappedInput(buffer, this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    public static interface Callback {
+
+        public Integer command(Integer output, String element1);
+
+        public String let(String element1, String element2);
+
+        public String text(String element1);
+
+        public String append(String output, String token1);
+    }
+}
@@ -0,0 +1,146 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class Committed {
+
+    private final Callback callback;
+    private final Queue<Committed> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+
+    public Committed(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private Committed(Callback callback, Queue<Committed> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public String parseLetter(CharSequence input) {
+        Committed context = acquire();
+        try {
+            return context.parseLetterInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private String parseLetterInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        int output = push();
+        if (parseLetter(output) && this.offset == input.length()) {
+            return (String) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseLetter(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        switch (peek(0)) {
+            default:
+                {
+                    int element1 = push();
+                    if (parsePrefix(element1)) {
+                        if (matchToken("c")) {
+                            values[output] = callback.committed((String) values[element1]);
+                            this.depth = depth;
+                            return true;
+                        }
+                        this.offset = offset;
+                        this.depth = depth;
+                        return false;
+                    }
+                }
+                break;
+            case 'b':
+                {
+                    int element1 = push();
+                    if (parsePrefix(element1)) {
+                        if (matchToken("c")) {
+                            values[output] = callback.committed((String) values[element1]);
+                            this.depth = depth;
+                            return true;
+                        }
+                        this.offset = offset;
+                        this.depth = depth;
+                        return false;
+                    }
+                }
+                this.offset = offset;
+                this.depth = depth;
+                {
+                    if (matchToken("b")) {
+                        values[output] = callback.other();
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        this.depth = depth;
+        return false;
+    }
+
+    private boolean parsePrefix(int output) {
+        int offset = this.offset;
+        {
+            if (matchToken("a")) {
+            }
+            return true;
+        }
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private Committed acquire() {
+        Committed context = contexts.poll();
+        return context != null ? context : new Committed(callback, null);
+    }
+
+    private void release(Committed context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Callback {
+
+        public String committed(String element1);
+
+        public String other();
+    }
+}
@@ -0,0 +1,197 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class Fields {
+
+    private static final long[] SET_0 = { 0x100000000000L, 0xe00000000L };
+
+    private final Callback callback;
+    private final Queue<Fields> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+
+    public Fields(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private Fields(Callback callback, Queue<Fields> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public String parseRow(CharSequence input) {
+        Fields context = acquire();
+        try {
+            return context.parseRowInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private String parseRowInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        int output = push();
+        if (parseRow(output) && this.offset == input.length()) {
+            return (String) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseRow(int output) {
+        int offset = this.offset;
+        {
+            if (parseField(output)) {
+                if (parseFields(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseFields(int output) {
+        int depth = this.depth;
+        while (true) {
+            int offset = this.offset;
+            {
+                if (matchToken(",")) {
+                    int element1 = push();
+                    if (parseField(element1)) {
+                        values[output] = callback.next((String) values[output], (String) values[element1]);
+                        this.depth = depth;
+                        continue;
+                    }
+                }
+            }
+            this.offset = offset;
+            this.depth = depth;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseField(int output) {
+        int offset = this.offset;
+        switch (peek(0)) {
+            case '"':
+                {
+                    if (matchToken("\"")) {
+                        values[output] = callback.quoted();
+                        while (true) {
+                            int offset1 = this.offset;
+                            if (!matchSet0()) {
+                                break;
+                            }
+                            String token1 = input.subSequence(offset1, this.offset).toString();
+                            values[output] = callback.append((String) values[output], token1);
+                        }
+                        if (matchToken("\"")) {
+                            return true;
+                        }
+                    }
+                }
+                this.offset = offset;
+                {
+                    while (true) {
+                        int offset1 = this.offset;
+                        if (!matchSet1()) {
+                            break;
+                        }
+                        String token1 = input.subSequence(offset1, this.offset).toString();
+                        values[output] = callback.append((String) values[output], token1);
+                    }
+                    return true;
+                }
+            default:
+                {
+                    while (true) {
+                        int offset1 = this.offset;
+                        if (!matchSet1()) {
+                            break;
+                        }
+                        String token1 = input.subSequence(offset1, this.offset).toString();
+                        values[output] = callback.append((String) values[output], token1);
+                    }
+                    return true;
+                }
+        }
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private boolean matchSet0() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c < 128 && (SET_0[c >>> 6] & (1L << c)) != 0) {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchSet1() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= 'a' && c <= 'c') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private Fields acquire() {
+        Fields context = contexts.poll();
+        return context != null ? context : new Fields(callback, null);
+    }
+
+    private void release(Fields context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Callback {
+
+        public String next(String output, String element1);
+
+        public String quoted();
+
+        public String append(String output, String token1);
+    }
+}
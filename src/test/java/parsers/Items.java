@@ -0,0 +1,226 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class Items {
+
+    private static final String[] RULE_NAMES = { "List", "Item" };
+
+    private static final int EVENT_ENTER = 0;
+    private static final int EVENT_EXIT = 1;
+    private static final int EVENT_TOKEN = 2;
+
+    private final Listener listener;
+    private final Queue<Items> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+    private int[] eventKinds = new int[16];
+    private int[] eventRules = new int[16];
+    private int[] eventStarts = new int[16];
+    private int[] eventEnds = new int[16];
+    private int eventCount;
+    private int choices;
+
+    public Items(Listener listener) {
+        this(listener, new ConcurrentLinkedQueue<>());
+    }
+
+    private Items(Listener listener, Queue<Items> contexts) {
+        this.listener = listener;
+        this.contexts = contexts;
+    }
+
+    public Boolean parseList(CharSequence input) {
+        Items context = acquire();
+        try {
+            return context.parseListInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private Boolean parseListInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        this.eventCount = 0;
+        this.choices = 0;
+        int output = push();
+        if (parseList(output) && this.offset == input.length()) {
+            flushEvents();
+            return Boolean.TRUE;
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseList(int output) {
+        int start = this.offset;
+        int events = this.eventCount;
+        emit(EVENT_ENTER, 0, start, start);
+        if (parseListContent(output)) {
+            emit(EVENT_EXIT, 0, start, this.offset);
+            return true;
+        }
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseListContent(int output) {
+        int offset = this.offset;
+        int events = this.eventCount;
+        {
+            while (true) {
+                commit();
+                int offset1 = this.offset;
+                int events1 = this.eventCount;
+                this.choices++;
+                if (!parseItem(output) || this.offset == offset1) {
+                    this.choices--;
+                    this.eventCount = events1;
+                    break;
+                }
+                this.choices--;
+            }
+            return true;
+        }
+    }
+
+    private boolean parseItem(int output) {
+        int start = this.offset;
+        int events = this.eventCount;
+        emit(EVENT_ENTER, 1, start, start);
+        if (parseItemContent(output)) {
+            emit(EVENT_EXIT, 1, start, this.offset);
+            return true;
+        }
+        this.eventCount = events;
+        return false;
+    }
+
+    private boolean parseItemContent(int output) {
+        int offset = this.offset;
+        int events = this.eventCount;
+        switch (peek(0)) {
+            case 'a':
+                {
+                    this.choices++;
+                    int offset1 = this.offset;
+                    if (matchToken("a")) {
+                        emit(EVENT_TOKEN, 1, offset1, this.offset);
+                        this.choices--;
+                        return true;
+                    }
+                    this.choices--;
+                }
+                this.offset = offset;
+                this.eventCount = events;
+                {
+                    commit();
+                    if (matchToken("b")) {
+                        return true;
+                    }
+                    this.offset = offset;
+                    this.eventCount = events;
+                    return false;
+                }
+            default:
+                {
+                    commit();
+                    if (matchToken("b")) {
+                        return true;
+                    }
+                    this.offset = offset;
+                    this.eventCount = events;
+                    return false;
+                }
+        }
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private void emit(int kind, int rule, int start, int end) {
+        if (eventCount == eventKinds.length) {
+            eventKinds = Arrays.copyOf(eventKinds, eventCount * 2);
+            eventRules = Arrays.copyOf(eventRules, eventCount * 2);
+            eventStarts = Arrays.copyOf(eventStarts, eventCount * 2);
+            eventEnds = Arrays.copyOf(eventEnds, eventCount * 2);
+        }
+        eventKinds[eventCount] = kind;
+        eventRules[eventCount] = rule;
+        eventStarts[eventCount] = start;
+        eventEnds[eventCount] = end;
+        eventCount++;
+        if (choices == 0) {
+            flushEvents();
+        }
+    }
+
+    private void flushEvents() {
+        for (int i = 0; i < eventCount; i++) {
+            String rule = RULE_NAMES[eventRules[i]];
+            if (eventKinds[i] == EVENT_ENTER) {
+                listener.enterRule(rule, eventStarts[i]);
+            } else if (eventKinds[i] == EVENT_EXIT) {
+                listener.exitRule(rule, eventStarts[i], eventEnds[i]);
+            } else {
+                listener.token(rule, input.subSequence(eventStarts[i], eventEnds[i]), eventStarts[i], eventEnds[i]);
+            }
+        }
+        eventCount = 0;
+    }
+
+    private void commit() {
+        if (choices == 0) {
+            flushEvents();
+        }
+    }
+
+    private Items acquire() {
+        Items context = contexts.poll();
+        return context != null ? context : new Items(listener, null);
+    }
+
+    private void release(Items context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Listener {
+
+        public void enterRule(String rule, int offset);
+
+        public void exitRule(String rule, int start, int end);
+
+        public void token(String rule, CharSequence text, int start, int end);
+    }
+}
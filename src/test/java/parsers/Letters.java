@@ -0,0 +1,235 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class Letters {
+
+    private static final long[] SET_0 = { 0x0L, 0x20822200000000L };
+    private static final long[] SET_2 = { 0x0L, 0x0L, 0x0L, 0x1040001000000000L };
+    private static final BitSet SET_4 = createSet("\u03c0\u03c9");
+
+    private final Callback callback;
+    private final Queue<Letters> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+
+    public Letters(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private Letters(Callback callback, Queue<Letters> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public String parseWord(CharSequence input) {
+        Letters context = acquire();
+        try {
+            return context.parseWordInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private String parseWordInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        int output = push();
+        if (parseWord(output) && this.offset == input.length()) {
+            return (String) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseWord(int output) {
+        int offset = this.offset;
+        {
+            if (parseLetter(output)) {
+                if (parseLetters(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseLetters(int output) {
+        while (true) {
+            int offset = this.offset;
+            {
+                if (parseLetter(output)) {
+                    continue;
+                }
+            }
+            this.offset = offset;
+            {
+                return true;
+            }
+        }
+    }
+
+    private boolean parseLetter(int output) {
+        int offset = this.offset;
+        switch (peek(0)) {
+            case '_':
+                {
+                    int offset1 = this.offset;
+                    if (matchSet1()) {
+                        String token1 = input.subSequence(offset1, this.offset).toString();
+                        values[output] = callback.append((String) values[output], token1);
+                        return true;
+                    }
+                }
+                break;
+            case 'a':
+            case 'e':
+            case 'i':
+            case 'o':
+            case 'u':
+                {
+                    int offset1 = this.offset;
+                    if (matchSet0()) {
+                        String token1 = input.subSequence(offset1, this.offset).toString();
+                        values[output] = callback.append((String) values[output], token1);
+                        return true;
+                    }
+                }
+                break;
+            case 0xe4:
+            case 0xf6:
+            case 0xfc:
+                {
+                    int offset1 = this.offset;
+                    if (matchSet2()) {
+                        String token1 = input.subSequence(offset1, this.offset).toString();
+                        values[output] = callback.append((String) values[output], token1);
+                        return true;
+                    }
+                }
+                break;
+            case 0x3b1:
+            case 0x3b2:
+            case 0x3b3:
+            case 0x3b4:
+                {
+                    int offset1 = this.offset;
+                    if (matchSet3()) {
+                        String token1 = input.subSequence(offset1, this.offset).toString();
+                        values[output] = callback.append((String) values[output], token1);
+                        return true;
+                    }
+                }
+                break;
+            case 0x3c0:
+            case 0x3c9:
+                {
+                    int offset1 = this.offset;
+                    if (matchSet4()) {
+                        String token1 = input.subSequence(offset1, this.offset).toString();
+                        values[output] = callback.append((String) values[output], token1);
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private boolean matchSet0() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c < 128 && (SET_0[c >>> 6] & (1L << c)) != 0) {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchSet1() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c == '_') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchSet2() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c < 256 && (SET_2[c >>> 6] & (1L << c)) != 0) {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchSet3() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= 0x3b1 && c <= 0x3b4) {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchSet4() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (SET_4.get(c)) {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BitSet createSet(String set) {
+        BitSet bits = new BitSet();
+        set.chars().forEach(bits::set);
+        return bits;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private Letters acquire() {
+        Letters context = contexts.poll();
+        return context != null ? context : new Letters(callback, null);
+    }
+
+    private void release(Letters context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Callback {
+
+        public String append(String output, String token1);
+    }
+}
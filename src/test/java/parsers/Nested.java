@@ -0,0 +1,176 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class Nested {
+
+    private final Callback callback;
+    private final Queue<Nested> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+    private final Span span1 = new Span();
+
+    public Nested(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private Nested(Callback callback, Queue<Nested> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public String parseNested(CharSequence input) {
+        Nested context = acquire();
+        try {
+            return context.parseNestedInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private String parseNestedInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        int output = push();
+        if (parseNested(output) && this.offset == input.length()) {
+            return (String) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseNested(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        switch (peek(0)) {
+            case 'a':
+            case 'b':
+            case 'c':
+                {
+                    int offset1 = this.offset;
+                    if (matchSet0()) {
+                        Span token1 = new Span().set(offset1, this.offset);
+                        int element2 = push();
+                        if (parseNested(element2)) {
+                            values[output] = callback.nest(token1, (String) values[element2]);
+                            this.depth = depth;
+                            return true;
+                        }
+                    }
+                }
+                break;
+            case 'x':
+            case 'y':
+            case 'z':
+                {
+                    int offset1 = this.offset;
+                    if (matchSet1()) {
+                        Span token1 = span1.set(offset1, this.offset);
+                        values[output] = callback.leaf(token1);
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        this.depth = depth;
+        return false;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private boolean matchSet0() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= 'a' && c <= 'c') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchSet1() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= 'x' && c <= 'z') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private Nested acquire() {
+        Nested context = contexts.poll();
+        return context != null ? context : new Nested(callback, null);
+    }
+
+    private void release(Nested context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public final class Span implements CharSequence {
+
+        private int start;
+        private int end;
+
+        private Span set(int start, int end) {
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        public int start() {
+            return start;
+        }
+
+        public int end() {
+            return end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return input.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return input.subSequence(this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            return input.subSequence(start, end).toString();
+        }
+    }
+
+    public static interface Callback {
+
+        public String nest(Span token1, String element2);
+
+        public String leaf(Span token1);
+    }
+}
@@ -0,0 +1,350 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class Operators {
+
+    private final Callback callback;
+    private final Queue<Operators> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+
+    public Operators(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private Operators(Callback callback, Queue<Operators> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public String parseOperators(CharSequence input) {
+        Operators context = acquire();
+        try {
+            return context.parseOperatorsInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private String parseOperatorsInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        int output = push();
+        if (parseOperators(output) && this.offset == input.length()) {
+            return (String) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseOperators(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        {
+            while (true) {
+                int offset1 = this.offset;
+                int element1 = push();
+                if (!parseOperator(element1) || this.offset == offset1) {
+                    this.depth = element1;
+                    break;
+                }
+                values[output] = callback.append((String) values[output], (String) values[element1]);
+                this.depth = element1;
+            }
+            this.depth = depth;
+            return true;
+        }
+    }
+
+    private boolean parseOperator(int output) {
+        int offset = this.offset;
+        switch (peek(0)) {
+            case '!':
+                switch (peek(1)) {
+                    case '=':
+                        {
+                            int offset1 = this.offset;
+                            if (matchToken("!=")) {
+                                String token1 = input.subSequence(offset1, this.offset).toString();
+                                values[output] = callback.operator(token1);
+                                return true;
+                            }
+                        }
+                        this.offset = offset;
+                        {
+                            int offset1 = this.offset;
+                            if (matchToken("!")) {
+                                String token1 = input.subSequence(offset1, this.offset).toString();
+                                values[output] = callback.operator(token1);
+                                return true;
+                            }
+                        }
+                        break;
+                    default:
+                        {
+                            int offset1 = this.offset;
+                            if (matchToken("!")) {
+                                String token1 = input.subSequence(offset1, this.offset).toString();
+                                values[output] = callback.operator(token1);
+                                return true;
+                            }
+                        }
+                        break;
+                }
+                break;
+            case '<':
+                switch (peek(1)) {
+                    case '<':
+                        switch (peek(2)) {
+                            case '=':
+                                {
+                                    int offset1 = this.offset;
+                                    if (matchToken("<<=")) {
+                                        String token1 = input.subSequence(offset1, this.offset).toString();
+                                        values[output] = callback.operator(token1);
+                                        return true;
+                                    }
+                                }
+                                this.offset = offset;
+                                {
+                                    int offset1 = this.offset;
+                                    if (matchToken("<<")) {
+                                        String token1 = input.subSequence(offset1, this.offset).toString();
+                                        values[output] = callback.operator(token1);
+                                        return true;
+                                    }
+                                }
+                                this.offset = offset;
+                                {
+                                    int offset1 = this.offset;
+                                    if (matchToken("<")) {
+                                        String token1 = input.subSequence(offset1, this.offset).toString();
+                                        values[output] = callback.operator(token1);
+                                        return true;
+                                    }
+                                }
+                                break;
+                            default:
+                                {
+                                    int offset1 = this.offset;
+                                    if (matchToken("<<")) {
+                                        String token1 = input.subSequence(offset1, this.offset).toString();
+                                        values[output] = callback.operator(token1);
+                                        return true;
+                                    }
+                                }
+                                this.offset = offset;
+                                {
+                                    int offset1 = this.offset;
+                                    if (matchToken("<")) {
+                                        String token1 = input.subSequence(offset1, this.offset).toString();
+                                        values[output] = callback.operator(token1);
+                                        return true;
+                                    }
+                                }
+                                break;
+                        }
+                        break;
+                    case '=':
+                        {
+                            int offset1 = this.offset;
+                            if (matchToken("<=")) {
+                                String token1 = input.subSequence(offset1, this.offset).toString();
+                                values[output] = callback.operator(token1);
+                                return true;
+                            }
+                        }
+                        this.offset = offset;
+                        {
+                            int offset1 = this.offset;
+                            if (matchToken("<")) {
+                                String token1 = input.subSequence(offset1, this.offset).toString();
+                                values[output] = callback.operator(token1);
+                                return true;
+                            }
+                        }
+                        break;
+                    default:
+                        {
+                            int offset1 = this.offset;
+                            if (matchToken("<")) {
+                                String token1 = input.subSequence(offset1, this.offset).toString();
+                                values[output] = callback.operator(token1);
+                                return true;
+                            }
+                        }
+                        break;
+                }
+                break;
+            case '=':
+                switch (peek(1)) {
+                    case '=':
+                        {
+                            int offset1 = this.offset;
+                            if (matchToken("==")) {
+                                String token1 = input.subSequence(offset1, this.offset).toString();
+                                values[output] = callback.operator(token1);
+                                return true;
+                            }
+                        }
+                        this.offset = offset;
+                        {
+                            int offset1 = this.offset;
+                            if (matchToken("=")) {
+                                String token1 = input.subSequence(offset1, this.offset).toString();
+                                values[output] = callback.operator(token1);
+                                return true;
+                            }
+                        }
+                        break;
+                    default:
+                        {
+                            int offset1 = this.offset;
+                            if (matchToken("=")) {
+                                String token1 = input.subSequence(offset1, this.offset).toString();
+                                values[output] = callback.operator(token1);
+                                return true;
+                            }
+                        }
+                        break;
+                }
+                break;
+            case '>':
+                switch (peek(1)) {
+                    case '=':
+                        {
+                            int offset1 = this.offset;
+                            if (matchToken(">=")) {
+                                String token1 = input.subSequence(offset1, this.offset).toString();
+                                values[output] = callback.operator(token1);
+                                return true;
+                            }
+                        }
+                        this.offset = offset;
+                        {
+                            int offset1 = this.offset;
+                            if (matchToken(">")) {
+                                String token1 = input.subSequence(offset1, this.offset).toString();
+                                values[output] = callback.operator(token1);
+                                return true;
+                            }
+                        }
+                        break;
+                    case '>':
+                        switch (peek(2)) {
+                            case '=':
+                                {
+                                    int offset1 = this.offset;
+                                    if (matchToken(">>=")) {
+                                        String token1 = input.subSequence(offset1, this.offset).toString();
+                                        values[output] = callback.operator(token1);
+                                        return true;
+                                    }
+                                }
+                                this.offset = offset;
+                                {
+                                    int offset1 = this.offset;
+                                    if (matchToken(">>")) {
+                                        String token1 = input.subSequence(offset1, this.offset).toString();
+                                        values[output] = callback.operator(token1);
+                                        return true;
+                                    }
+                                }
+                                this.offset = offset;
+                                {
+                                    int offset1 = this.offset;
+                                    if (matchToken(">")) {
+                                        String token1 = input.subSequence(offset1, this.offset).toString();
+                                        values[output] = callback.operator(token1);
+                                        return true;
+                                    }
+                                }
+                                break;
+                            default:
+                                {
+                                    int offset1 = this.offset;
+                                    if (matchToken(">>")) {
+                                        String token1 = input.subSequence(offset1, this.offset).toString();
+                                        values[output] = callback.operator(token1);
+                                        return true;
+                                    }
+                                }
+                                this.offset = offset;
+                                {
+                                    int offset1 = this.offset;
+                                    if (matchToken(">")) {
+                                        String token1 = input.subSequence(offset1, this.offset).toString();
+                                        values[output] = callback.operator(token1);
+                                        return true;
+                                    }
+                                }
+                                break;
+                        }
+                        break;
+                    default:
+                        {
+                            int offset1 = this.offset;
+                            if (matchToken(">")) {
+                                String token1 = input.subSequence(offset1, this.offset).toString();
+                                values[output] = callback.operator(token1);
+                                return true;
+                            }
+                        }
+                        break;
+                }
+                break;
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private Operators acquire() {
+        Operators context = contexts.poll();
+        return context != null ? context : new Operators(callback, null);
+    }
+
+    private void release(Operators context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Callback {
+
+        public String append(String output, String element1);
+
+        public String operator(String token1);
+    }
+}
@@ -0,0 +1,199 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class Repeats {
+
+    private static final long[] SET_0 = { 0x8000000200000000L };
+
+    private final Callback callback;
+    private final Queue<Repeats> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+
+    public Repeats(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private Repeats(Callback callback, Queue<Repeats> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public String parseScript(CharSequence input) {
+        Repeats context = acquire();
+        try {
+            return context.parseScriptInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private String parseScriptInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        int output = push();
+        if (parseScript(output) && this.offset == input.length()) {
+            return (String) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseScript(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        {
+            int offset1 = this.offset;
+            if (matchToken("<")) {
+                String token1 = input.subSequence(offset1, this.offset).toString();
+                int element2 = push();
+                if (parseInner(element2)) {
+                    while (true) {
+                        int offset3 = this.offset;
+                        int element3 = push();
+                        if (!parseBlank(element3) || this.offset == offset3) {
+                            this.depth = element3;
+                            break;
+                        }
+                        values[output] = callback.blank((String) values[output], (String) values[element3]);
+                        this.depth = element3;
+                    }
+                    while (true) {
+                        int offset4 = this.offset;
+                        if (!matchToken("") || this.offset == offset4) {
+                            break;
+                        }
+                    }
+                    int offset5 = this.offset;
+                    if (matchSet0()) {
+                        String token5 = input.subSequence(offset5, this.offset).toString();
+                        values[output] = callback.mark((String) values[output], token5);
+                    }
+                    if (matchToken(">")) {
+                        values[output] = callback.script(token1, (String) values[element2]);
+                        this.depth = depth;
+                        return true;
+                    }
+                }
+            }
+        }
+        this.offset = offset;
+        this.depth = depth;
+        return false;
+    }
+
+    private boolean parseInner(int output) {
+        int offset = this.offset;
+        switch (peek(0)) {
+            case 'a':
+                {
+                    int offset1 = this.offset;
+                    if (matchToken("a")) {
+                        String token1 = input.subSequence(offset1, this.offset).toString();
+                        if (matchToken("b")) {
+                            return true;
+                        }
+                    }
+                }
+                break;
+            case 'x':
+            case 'y':
+                {
+                    int offset1 = this.offset;
+                    if (matchSet1()) {
+                        String token1 = input.subSequence(offset1, this.offset).toString();
+                        values[output] = callback.inner(token1);
+                        return true;
+                    }
+                }
+                break;
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseBlank(int output) {
+        int offset = this.offset;
+        {
+            if (matchToken(" ")) {
+            }
+            return true;
+        }
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int peek(int ahead) {
+        return offset + ahead < input.length() ? input.charAt(offset + ahead) : -1;
+    }
+
+    private boolean matchSet0() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c < 64 && (SET_0[c >>> 6] & (1L << c)) != 0) {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchSet1() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= 'x' && c <= 'y') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private Repeats acquire() {
+        Repeats context = contexts.poll();
+        return context != null ? context : new Repeats(callback, null);
+    }
+
+    private void release(Repeats context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Callback {
+
+        public String blank(String output, String element3);
+
+        public String mark(String output, String token5);
+
+        public String script(String token1, String element2);
+
+        public String inner(String token1);
+    }
+}
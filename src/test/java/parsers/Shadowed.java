@@ -0,0 +1,97 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class Shadowed {
+
+    private final Callback callback;
+    private final Queue<Shadowed> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+
+    public Shadowed(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private Shadowed(Callback callback, Queue<Shadowed> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public String parseLetter(CharSequence input) {
+        Shadowed context = acquire();
+        try {
+            return context.parseLetterInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private String parseLetterInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        int output = push();
+        if (parseLetter(output) && this.offset == input.length()) {
+            return (String) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseLetter(int output) {
+        int offset = this.offset;
+        {
+            int offset1 = this.offset;
+            if (matchToken("a")) {
+                String token1 = input.subSequence(offset1, this.offset).toString();
+                values[output] = callback.optional(token1);
+            }
+            return true;
+        }
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private Shadowed acquire() {
+        Shadowed context = contexts.poll();
+        return context != null ? context : new Shadowed(callback, null);
+    }
+
+    private void release(Shadowed context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Callback {
+
+        public String optional(String token1);
+
+        public String shadowed(String token1);
+    }
+}
@@ -0,0 +1,189 @@
+package parsers;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class Sums {
+
+    private final Callback callback;
+    private final Queue<Sums> contexts;
+    private CharSequence input;
+    private int offset;
+    private Object[] values = new Object[16];
+    private int depth;
+
+    public Sums(Callback callback) {
+        this(callback, new ConcurrentLinkedQueue<>());
+    }
+
+    private Sums(Callback callback, Queue<Sums> contexts) {
+        this.callback = callback;
+        this.contexts = contexts;
+    }
+
+    public Integer parseSum(CharSequence input) {
+        Sums context = acquire();
+        try {
+            return context.parseSumInContext(input);
+        } finally {
+            release(context);
+        }
+    }
+
+    private Integer parseSumInContext(CharSequence input) {
+        this.input = input;
+        this.offset = 0;
+        this.depth = 0;
+        int output = push();
+        if (parseSum(output) && this.offset == input.length()) {
+            return (Integer) values[output];
+        } else {
+            return null;
+        }
+    }
+
+    private boolean parseSum(int output) {
+        int offset = this.offset;
+        int depth = this.depth;
+        {
+            int element1 = push();
+            if (parseNumber(element1)) {
+                values[output] = callback.first((Integer) values[element1]);
+                while (true) {
+                    int offset2 = this.offset;
+                    int element2 = push();
+                    if (!parseItem(element2) || this.offset == offset2) {
+                        this.depth = element2;
+                        break;
+                    }
+                    values[output] = callback.add((Integer) values[output], (Integer) values[element2]);
+                    this.depth = element2;
+                }
+                int element3 = push();
+                if (parseFactor(element3)) {
+                    values[output] = callback.mul((Integer) values[output], (Integer) values[element3]);
+                }
+                this.depth = element3;
+                this.depth = depth;
+                return true;
+            }
+        }
+        this.offset = offset;
+        this.depth = depth;
+        return false;
+    }
+
+    private boolean parseItem(int output) {
+        int offset = this.offset;
+        {
+            if (matchToken(",")) {
+                if (parseNumber(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseFactor(int output) {
+        int offset = this.offset;
+        {
+            if (matchToken("*")) {
+                if (parseNumber(output)) {
+                    return true;
+                }
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean parseNumber(int output) {
+        int offset = this.offset;
+        {
+            while (true) {
+                if (!matchToken(" ")) {
+                    break;
+                }
+            }
+            int offset2 = this.offset;
+            if (matchSet0()) {
+                String token2 = input.subSequence(offset2, this.offset).toString();
+                values[output] = callback.digit((Integer) values[output], token2);
+                while (true) {
+                    int offset3 = this.offset;
+                    if (!matchSet0()) {
+                        break;
+                    }
+                    String token3 = input.subSequence(offset3, this.offset).toString();
+                    values[output] = callback.digit((Integer) values[output], token3);
+                }
+                while (true) {
+                    if (!matchToken(" ")) {
+                        break;
+                    }
+                }
+                return true;
+            }
+        }
+        this.offset = offset;
+        return false;
+    }
+
+    private boolean matchToken(String token) {
+        int length = token.length();
+        if (this.offset + length > input.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(this.offset + i) != token.charAt(i)) {
+                return false;
+            }
+        }
+        this.offset += length;
+        return true;
+    }
+
+    private boolean matchSet0() {
+        if (offset < input.length()) {
+            char c = input.charAt(offset);
+            if (c >= '0' && c <= '9') {
+                this.offset++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int push() {
+        if (depth == values.length) {
+            values = Arrays.copyOf(values, depth * 2);
+        }
+        values[depth] = null;
+        return depth++;
+    }
+
+    private Sums acquire() {
+        Sums context = contexts.poll();
+        return context != null ? context : new Sums(callback, null);
+    }
+
+    private void release(Sums context) {
+        context.input = null;
+        Arrays.fill(context.values, null);
+        contexts.offer(context);
+    }
+
+    public static interface Callback {
+
+        public Integer first(Integer element1);
+
+        public Integer add(Integer output, Integer element2);
+
+        public Integer mul(Integer output, Integer element3);
+
+        public Integer digit(Integer output, String token2);
+    }
+}